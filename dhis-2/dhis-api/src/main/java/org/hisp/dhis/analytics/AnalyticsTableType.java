@@ -34,10 +34,12 @@ package org.hisp.dhis.analytics;
 public enum AnalyticsTableType
 {
     DATA_VALUE( "analytics", true, true ),
+    DATA_VALUE_ROLLUP( "analytics_rollup", true, false ),
     COMPLETENESS( "analytics_completeness", true, true ),
     COMPLETENESS_TARGET( "analytics_completenesstarget", false, false ),
     ORG_UNIT_TARGET( "analytics_orgunittarget", false, false ),
     EVENT( "analytics_event", false, true ),
+    EVENT_CLUSTER( "analytics_eventcluster", false, false ),
     ENROLLMENT( "analytics_enrollment", false, false ),
     VALIDATION_RESULT( "analytics_validationresult", true, false );
 
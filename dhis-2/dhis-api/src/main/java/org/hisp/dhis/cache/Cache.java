@@ -64,7 +64,9 @@ public interface Cache<V>
      * mapping function is evaluated and inserted into this cache unless
      * {@code null}. Note: This method will return the defaultValue in case of
      * absence of associated cache value. But will not store the default value
-     * into the cache.
+     * into the cache. Concurrent calls for the same {@code key} are coalesced so
+     * that the mapping function is evaluated at most once at a time per key,
+     * while other callers wait for and share its result.
      *
      * @param key the key for retrieving the value
      * @param mappingFunction the function to compute a value.
@@ -74,6 +76,21 @@ public interface Cache<V>
      */
     Optional<V> get( String key, Function<String, V> mappingFunction );
 
+    /**
+     * Returns the value mapped to {@code key} in this cache instance, obtaining
+     * that value from the {@code mappingFunction} if necessary, in the same way
+     * as {@link #get(String, Function)}. A computed value is stored with a
+     * custom time to live, which overrides the cache's default.
+     *
+     * @param key the key for retrieving the value
+     * @param mappingFunction the function to compute a value.
+     * @param ttlInSeconds the time to live for a computed value, in seconds
+     * @return an optional containing current (existing or computed) value, or
+     *         Optional.empty() if the computed value is null
+     * @throws IllegalArgumentException if the specified mappingFunction is null
+     */
+    Optional<V> get( String key, Function<String, V> mappingFunction, long ttlInSeconds );
+
     /**
      * Returns a collection of all the values in the cache
      *
@@ -123,7 +140,14 @@ public interface Cache<V>
     void invalidateAll();
 
     /**
-     * Returns the type of the cache. IN_MEMORY or REDIS or NONE.
+     * Returns a snapshot of the usage statistics of this cache instance.
+     *
+     * @return the cache statistics
+     */
+    CacheStatistics getStatistics();
+
+    /**
+     * Returns the type of the cache. IN_MEMORY or OFF_HEAP or REDIS or HYBRID or NONE.
      *
      * @return
      */
@@ -107,6 +107,31 @@ public interface CacheBuilder<V>
      */
     public CacheBuilder<V> forceInMemory();
 
+    /**
+     * Configure the cache instance to coordinate the loading of absent values
+     * across all nodes of a cluster through a distributed lock, so that the
+     * mapping function is evaluated on a single node while other nodes wait
+     * for the shared value. Only has effect for shared caches.
+     *
+     * @return The builder instance.
+     */
+    public CacheBuilder<V> withDistributedLoadLock();
+
+    /**
+     * Configure the cache instance to keep values serialized outside of the
+     * Java heap, bounded by the total size of the serialized values rather
+     * than by the number of entries. Least recently used entries are evicted
+     * when storing a value would exceed the given size. Values must be
+     * serializable. Only has effect for local caches.
+     *
+     * @param maximumMemorySize the maximum size of the stored values in bytes.
+     * @param compressed whether to compress the serialized values.
+     * @return The builder instance.
+     * @throws IllegalArgumentException if specified maximumMemorySize is a
+     *         negative value.
+     */
+    public CacheBuilder<V> withOffHeapStorage( long maximumMemorySize, boolean compressed );
+
     /**
      * Configure the cache instance to disable caching.
      *
@@ -156,6 +181,25 @@ public interface CacheBuilder<V>
      */
     public long getExpiryInSeconds();
 
+    /**
+     * Getter for distributedLoadLock
+     * @return the distributedLoadLock flag set in the builder
+     */
+    public boolean isDistributedLoadLock();
+
+    /**
+     * Getter for maximumMemorySize
+     * @return the maximumMemorySize value set in the builder, 0 if values are
+     *         not stored off-heap
+     */
+    public long getMaximumMemorySize();
+
+    /**
+     * Getter for compressed
+     * @return the compressed flag set in the builder
+     */
+    public boolean isCompressed();
+
     /**
      * Getter for defaultvalue
      * @return the defaultvalue value set in the builder
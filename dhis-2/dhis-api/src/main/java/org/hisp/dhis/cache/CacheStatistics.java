@@ -0,0 +1,152 @@
+package org.hisp.dhis.cache;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import lombok.Builder;
+import lombok.Getter;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Immutable snapshot of the usage statistics of a single {@link Cache}
+ * instance. Counters are cumulative since the cache instance was created and
+ * are local to the running instance, also for shared caches.
+ */
+@Getter
+@Builder( toBuilder = true )
+public class CacheStatistics
+{
+    /**
+     * The cache region.
+     */
+    @JsonProperty
+    private final String region;
+
+    /**
+     * The type of the cache.
+     */
+    @JsonProperty
+    private final CacheType cacheType;
+
+    /**
+     * Number of lookups which found a cached value.
+     */
+    @JsonProperty
+    private final long hitCount;
+
+    /**
+     * Number of lookups which did not find a cached value.
+     */
+    @JsonProperty
+    private final long missCount;
+
+    /**
+     * Number of values successfully computed by a mapping function.
+     */
+    @JsonProperty
+    private final long loadSuccessCount;
+
+    /**
+     * Number of mapping function invocations which threw an exception.
+     */
+    @JsonProperty
+    private final long loadFailureCount;
+
+    /**
+     * Total time spent in mapping functions, in nanoseconds.
+     */
+    @JsonProperty
+    private final long totalLoadTime;
+
+    /**
+     * Number of values explicitly stored in the cache.
+     */
+    @JsonProperty
+    private final long putCount;
+
+    /**
+     * Number of entries evicted because the cache reached its capacity.
+     */
+    @JsonProperty
+    private final long evictionCount;
+
+    /**
+     * Current number of entries in the cache.
+     */
+    @JsonProperty
+    private final long size;
+
+    /**
+     * Configured maximum number of entries, or -1 if unbounded.
+     */
+    @JsonProperty
+    private final long maximumSize;
+
+    /**
+     * Current size of the stored values in bytes, or 0 if not tracked by the
+     * cache.
+     */
+    @JsonProperty
+    private final long memorySize;
+
+    /**
+     * Configured maximum size of the stored values in bytes, or 0 if the cache
+     * is not bounded by memory size.
+     */
+    @JsonProperty
+    private final long maximumMemorySize;
+
+    /**
+     * Returns the ratio of lookups which found a cached value, or 1.0 if the
+     * cache has not been accessed.
+     *
+     * @return the hit ratio between 0.0 and 1.0.
+     */
+    @JsonProperty
+    public double getHitRatio()
+    {
+        long requestCount = hitCount + missCount;
+
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Returns the average time spent in a mapping function, in nanoseconds.
+     *
+     * @return the average load time in nanoseconds.
+     */
+    @JsonProperty
+    public double getAverageLoadPenalty()
+    {
+        long loadCount = loadSuccessCount + loadFailureCount;
+
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+}
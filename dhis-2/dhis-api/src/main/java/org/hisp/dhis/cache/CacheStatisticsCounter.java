@@ -0,0 +1,146 @@
+package org.hisp.dhis.cache;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread safe accumulator of cache usage counters shared by the {@link Cache}
+ * implementations. Counters are backed by {@link LongAdder} to keep the
+ * recording overhead low under contention.
+ */
+public class CacheStatisticsCounter
+{
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder loadSuccessCount = new LongAdder();
+
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    private final LongAdder putCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Records a lookup as hit if the given value is not null, otherwise as
+     * miss.
+     *
+     * @param value the value found by the lookup.
+     * @return the given value.
+     */
+    public <V> V recordLookup( V value )
+    {
+        if ( value != null )
+        {
+            hitCount.increment();
+        }
+        else
+        {
+            missCount.increment();
+        }
+
+        return value;
+    }
+
+    /**
+     * Applies the given mapping function and records its outcome and the time
+     * spent.
+     *
+     * @param key the key to compute the value for.
+     * @param mappingFunction the function to compute the value.
+     * @return the computed value.
+     */
+    public <V> V recordLoad( String key, Function<String, V> mappingFunction )
+    {
+        long startTime = System.nanoTime();
+        boolean success = false;
+
+        try
+        {
+            V value = mappingFunction.apply( key );
+            success = true;
+            return value;
+        }
+        finally
+        {
+            totalLoadTime.add( System.nanoTime() - startTime );
+
+            if ( success )
+            {
+                loadSuccessCount.increment();
+            }
+            else
+            {
+                loadFailureCount.increment();
+            }
+        }
+    }
+
+    public void recordPut()
+    {
+        putCount.increment();
+    }
+
+    public void recordEviction()
+    {
+        evictionCount.increment();
+    }
+
+    /**
+     * Creates an immutable snapshot of the current counters.
+     *
+     * @param region the cache region.
+     * @param cacheType the cache type.
+     * @param size the current number of entries.
+     * @param maximumSize the maximum number of entries, -1 if unbounded.
+     * @return the cache statistics.
+     */
+    public CacheStatistics snapshot( String region, CacheType cacheType, long size, long maximumSize )
+    {
+        return CacheStatistics.builder()
+            .region( region )
+            .cacheType( cacheType )
+            .hitCount( hitCount.sum() )
+            .missCount( missCount.sum() )
+            .loadSuccessCount( loadSuccessCount.sum() )
+            .loadFailureCount( loadFailureCount.sum() )
+            .totalLoadTime( totalLoadTime.sum() )
+            .putCount( putCount.sum() )
+            .evictionCount( evictionCount.sum() )
+            .size( size )
+            .maximumSize( maximumSize )
+            .build();
+    }
+}
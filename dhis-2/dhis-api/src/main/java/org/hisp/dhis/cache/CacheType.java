@@ -32,5 +32,7 @@ public enum CacheType
 {
     NONE,
     IN_MEMORY,
-    REDIS;
+    OFF_HEAP,
+    REDIS,
+    HYBRID;
 }
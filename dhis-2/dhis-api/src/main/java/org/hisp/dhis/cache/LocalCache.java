@@ -35,9 +35,12 @@ import static org.springframework.util.Assert.hasText;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.cache2k.Cache2kBuilder;
+import org.cache2k.configuration.Cache2kConfiguration;
+import org.cache2k.event.CacheEntryEvictedListener;
 
 /**
  * Local cache implementation of {@link Cache}. This implementation is backed by
@@ -51,6 +54,14 @@ public class LocalCache<V> implements Cache<V>
 
     private V defaultValue;
 
+    private String region;
+
+    private long maximumSize;
+
+    private final SingleFlightLoader<V> loader = new SingleFlightLoader<>();
+
+    private final CacheStatisticsCounter statistics = new CacheStatisticsCounter();
+
     /**
      * Constructor to instantiate LocalCache object.
      *
@@ -59,7 +70,7 @@ public class LocalCache<V> implements Cache<V>
     @SuppressWarnings("unchecked")
     public LocalCache( final CacheBuilder<V> cacheBuilder )
     {
-        Cache2kBuilder<?, ?> builder = Cache2kBuilder.forUnknownTypes();
+        Cache2kBuilder<Object, Object> builder = Cache2kBuilder.forUnknownTypes();
 
         if ( cacheBuilder.isExpiryEnabled() )
         {
@@ -84,41 +95,72 @@ public class LocalCache<V> implements Cache<V>
             builder.entryCapacity( cacheBuilder.getMaximumSize() );
         }
 
+        builder.addListener( (CacheEntryEvictedListener<Object, Object>) ( cache, entry ) -> statistics.recordEviction() );
+
         // Using unknown typed key for builder and casting it
-        this.cache2kInstance = (org.cache2k.Cache<String, V>) builder.build();
+        this.cache2kInstance = (org.cache2k.Cache<String, V>) (org.cache2k.Cache<?, ?>) builder.build();
         this.defaultValue = cacheBuilder.getDefaultValue();
+        this.region = cacheBuilder.getRegion();
+        this.maximumSize = cacheBuilder.getMaximumSize() > 0 ? cacheBuilder.getMaximumSize()
+            : Cache2kConfiguration.DEFAULT_ENTRY_CAPACITY;
     }
 
     @Override
     public Optional<V> getIfPresent( String key )
     {
-        return Optional.ofNullable( cache2kInstance.get( key ) );
+        return Optional.ofNullable( statistics.recordLookup( cache2kInstance.get( key ) ) );
     }
 
     @Override
     public Optional<V> get( String key )
     {
-        return Optional.ofNullable( Optional.ofNullable( cache2kInstance.get( key ) ).orElse( defaultValue ) );
+        V value = statistics.recordLookup( cache2kInstance.get( key ) );
+
+        return Optional.ofNullable( Optional.ofNullable( value ).orElse( defaultValue ) );
     }
 
     @Override
     public Optional<V> get( String key, Function<String, V> mappingFunction )
+    {
+        return get( key, mappingFunction, value -> {
+            statistics.recordPut();
+            cache2kInstance.put( key, value );
+        } );
+    }
+
+    @Override
+    public Optional<V> get( String key, Function<String, V> mappingFunction, long ttlInSeconds )
+    {
+        return get( key, mappingFunction, value -> put( key, value, ttlInSeconds ) );
+    }
+
+    private Optional<V> get( String key, Function<String, V> mappingFunction, Consumer<V> store )
     {
         if ( null == mappingFunction )
         {
             throw new IllegalArgumentException( "MappingFunction cannot be null" );
         }
 
-        V value = cache2kInstance.get( key );
+        V value = statistics.recordLookup( cache2kInstance.get( key ) );
 
         if ( value == null )
         {
-            value = mappingFunction.apply( key );
-
-            if ( value != null )
-            {
-                cache2kInstance.put( key, value );
-            }
+            value = loader.load( key, k -> {
+                // Re-check as a concurrent load might just have completed
+                V loadedValue = cache2kInstance.get( k );
+
+                if ( loadedValue == null )
+                {
+                    loadedValue = statistics.recordLoad( k, mappingFunction );
+
+                    if ( loadedValue != null )
+                    {
+                        store.accept( loadedValue );
+                    }
+                }
+
+                return loadedValue;
+            } );
         }
 
         return Optional.ofNullable( Optional.ofNullable( value ).orElse( defaultValue ) );
@@ -137,6 +179,7 @@ public class LocalCache<V> implements Cache<V>
         {
             throw new IllegalArgumentException( "Value cannot be null" );
         }
+        statistics.recordPut();
         cache2kInstance.put( key, value );
     }
 
@@ -144,6 +187,7 @@ public class LocalCache<V> implements Cache<V>
     public void put( String key, V value, long ttlInSeconds )
     {
         hasText( key, "Value cannot be null" );
+        statistics.recordPut();
         cache2kInstance.invoke( key,
             e -> e.setValue( value ).setExpiryTime( currentTimeMillis() + SECONDS.toMillis( ttlInSeconds ) ) );
     }
@@ -160,6 +204,12 @@ public class LocalCache<V> implements Cache<V>
         cache2kInstance.clear();
     }
 
+    @Override
+    public CacheStatistics getStatistics()
+    {
+        return statistics.snapshot( region, getCacheType(), cache2kInstance.asMap().size(), maximumSize );
+    }
+
     @Override
     public CacheType getCacheType()
     {
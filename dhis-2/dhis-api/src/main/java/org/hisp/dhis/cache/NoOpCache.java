@@ -47,20 +47,27 @@ public class NoOpCache<V> implements Cache<V>
 {
     private V defaultValue;
 
+    private String region;
+
+    private final CacheStatisticsCounter statistics = new CacheStatisticsCounter();
+
     public NoOpCache( CacheBuilder<V> cacheBuilder )
     {
         this.defaultValue = cacheBuilder.getDefaultValue();
+        this.region = cacheBuilder.getRegion();
     }
 
     @Override
     public Optional<V> getIfPresent( String key )
     {
+        statistics.recordLookup( null );
         return Optional.empty();
     }
 
     @Override
     public Optional<V> get( String key )
     {
+        statistics.recordLookup( null );
         return Optional.ofNullable( defaultValue );
     }
 
@@ -71,7 +78,15 @@ public class NoOpCache<V> implements Cache<V>
         {
             throw new IllegalArgumentException( "MappingFunction cannot be null" );
         }
-        return Optional.ofNullable( Optional.ofNullable( mappingFunction.apply( key ) ).orElse( defaultValue ) );
+        statistics.recordLookup( null );
+        V value = statistics.recordLoad( key, mappingFunction );
+        return Optional.ofNullable( Optional.ofNullable( value ).orElse( defaultValue ) );
+    }
+
+    @Override
+    public Optional<V> get( String key, Function<String, V> mappingFunction, long ttlInSeconds )
+    {
+        return get( key, mappingFunction );
     }
 
     @Override
@@ -109,6 +124,12 @@ public class NoOpCache<V> implements Cache<V>
         // No operation
     }
 
+    @Override
+    public CacheStatistics getStatistics()
+    {
+        return statistics.snapshot( region, getCacheType(), 0, 0 );
+    }
+
     @Override
     public CacheType getCacheType()
     {
@@ -0,0 +1,725 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.springframework.util.Assert.hasText;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local cache implementation of {@link Cache} which keeps values serialized in
+ * direct byte buffers outside of the Java heap, optionally compressed. The
+ * cache is bounded by the total size of the serialized values rather than by
+ * the number of entries, so that a few large values and many small values are
+ * weighed fairly. Least recently used entries are evicted before a buffer is
+ * allocated for a value which would exceed the maximum memory size, and values
+ * larger than the maximum memory size are not cached. Expired entries are
+ * removed when accessed, and before any live entry is evicted. Values are not
+ * cached if direct memory is exhausted.
+ * <p>
+ * Entries are spread over segments which are locked independently, and
+ * buffers are allocated and serialized outside of any lock. Memory for a
+ * value is reserved before its buffer is allocated. Buffers of removed
+ * entries are released right away rather than on garbage collection.
+ * <p>
+ * Values are deserialized on every lookup, so callers receive a copy which is
+ * not shared with other callers.
+ */
+@Slf4j
+public class OffHeapCache<V> implements Cache<V>
+{
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final Consumer<ByteBuffer> BUFFER_CLEANER = getBufferCleaner();
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    private final long maximumMemorySize;
+
+    private final boolean compressed;
+
+    private final long expiryInSeconds;
+
+    private final boolean refreshExpiryOnAccess;
+
+    private final V defaultValue;
+
+    private final String region;
+
+    /**
+     * Memory of stored entries and of buffers being allocated.
+     */
+    private final AtomicLong reservedMemorySize = new AtomicLong();
+
+    /**
+     * Memory of stored entries.
+     */
+    private final AtomicLong memorySize = new AtomicLong();
+
+    /**
+     * Source of access times, which order entries across segments.
+     */
+    private final AtomicLong accessCounter = new AtomicLong();
+
+    private final SingleFlightLoader<V> loader = new SingleFlightLoader<>();
+
+    private final CacheStatisticsCounter statistics = new CacheStatisticsCounter();
+
+    /**
+     * Constructor to instantiate OffHeapCache object.
+     *
+     * @param cacheBuilder CacheBuilder instance
+     */
+    public OffHeapCache( final CacheBuilder<V> cacheBuilder )
+    {
+        this.maximumMemorySize = cacheBuilder.getMaximumMemorySize();
+        this.compressed = cacheBuilder.isCompressed();
+        this.expiryInSeconds = cacheBuilder.isExpiryEnabled() ? cacheBuilder.getExpiryInSeconds() : 0;
+        this.refreshExpiryOnAccess = cacheBuilder.isRefreshExpiryOnAccess();
+        this.defaultValue = cacheBuilder.getDefaultValue();
+        this.region = cacheBuilder.getRegion();
+
+        for ( int i = 0; i < SEGMENT_COUNT; i++ )
+        {
+            segments[i] = new Segment();
+        }
+    }
+
+    @Override
+    public Optional<V> getIfPresent( String key )
+    {
+        return Optional.ofNullable( statistics.recordLookup( getValue( key ) ) );
+    }
+
+    @Override
+    public Optional<V> get( String key )
+    {
+        V value = statistics.recordLookup( getValue( key ) );
+
+        return Optional.ofNullable( Optional.ofNullable( value ).orElse( defaultValue ) );
+    }
+
+    @Override
+    public Optional<V> get( String key, Function<String, V> mappingFunction )
+    {
+        return get( key, mappingFunction, value -> put( key, value ) );
+    }
+
+    @Override
+    public Optional<V> get( String key, Function<String, V> mappingFunction, long ttlInSeconds )
+    {
+        return get( key, mappingFunction, value -> put( key, value, ttlInSeconds ) );
+    }
+
+    private Optional<V> get( String key, Function<String, V> mappingFunction, Consumer<V> store )
+    {
+        if ( null == mappingFunction )
+        {
+            throw new IllegalArgumentException( "MappingFunction cannot be null" );
+        }
+
+        V value = statistics.recordLookup( getValue( key ) );
+
+        if ( value == null )
+        {
+            value = loader.load( key, k -> {
+                // Re-check as a concurrent load might just have completed
+                V loadedValue = getValue( k );
+
+                if ( loadedValue == null )
+                {
+                    loadedValue = statistics.recordLoad( k, mappingFunction );
+
+                    if ( loadedValue != null )
+                    {
+                        store.accept( loadedValue );
+                    }
+                }
+
+                return loadedValue;
+            } );
+        }
+
+        return Optional.ofNullable( Optional.ofNullable( value ).orElse( defaultValue ) );
+    }
+
+    @Override
+    public Collection<V> getAll()
+    {
+        removeExpiredEntries();
+
+        List<byte[]> values = new ArrayList<>();
+
+        for ( Segment segment : segments )
+        {
+            synchronized ( segment )
+            {
+                for ( Entry entry : segment.entries.values() )
+                {
+                    values.add( entry.getBytes() );
+                }
+            }
+        }
+
+        List<V> result = new ArrayList<>( values.size() );
+
+        for ( byte[] bytes : values )
+        {
+            result.add( deserialize( bytes ) );
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put( String key, V value )
+    {
+        put( key, value, expiryInSeconds );
+    }
+
+    @Override
+    public void put( String key, V value, long ttlInSeconds )
+    {
+        hasText( key, "Key cannot be null" );
+
+        if ( null == value )
+        {
+            throw new IllegalArgumentException( "Value cannot be null" );
+        }
+
+        statistics.recordPut();
+
+        byte[] bytes = serialize( value );
+
+        invalidate( key );
+
+        if ( bytes.length > maximumMemorySize )
+        {
+            log.debug( String.format( "Value of size %d bytes exceeds maximum memory size of cache region: '%s'",
+                bytes.length, region ) );
+
+            return;
+        }
+
+        if ( !reserveMemory( bytes.length ) )
+        {
+            return;
+        }
+
+        ByteBuffer buffer = allocateBuffer( bytes );
+
+        if ( buffer == null )
+        {
+            reservedMemorySize.addAndGet( -bytes.length );
+            return;
+        }
+
+        long expiryTime = ttlInSeconds > 0 ? currentTimeMillis() + SECONDS.toMillis( ttlInSeconds ) : 0;
+
+        Entry entry = new Entry( buffer, expiryTime );
+        Segment segment = getSegment( key );
+        Entry replaced;
+
+        synchronized ( segment )
+        {
+            entry.accessTime = accessCounter.incrementAndGet();
+            replaced = segment.entries.put( key, entry );
+            memorySize.addAndGet( entry.getSize() );
+        }
+
+        release( replaced );
+    }
+
+    @Override
+    public void invalidate( String key )
+    {
+        Segment segment = getSegment( key );
+        Entry entry;
+
+        synchronized ( segment )
+        {
+            entry = segment.entries.remove( key );
+        }
+
+        release( entry );
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        for ( Segment segment : segments )
+        {
+            List<Entry> removed;
+
+            synchronized ( segment )
+            {
+                removed = new ArrayList<>( segment.entries.values() );
+                segment.entries.clear();
+            }
+
+            removed.forEach( this::release );
+        }
+    }
+
+    @Override
+    public CacheStatistics getStatistics()
+    {
+        long size = 0;
+
+        for ( Segment segment : segments )
+        {
+            synchronized ( segment )
+            {
+                size += segment.entries.size();
+            }
+        }
+
+        return statistics.snapshot( region, getCacheType(), size, -1 ).toBuilder()
+            .memorySize( memorySize.get() )
+            .maximumMemorySize( maximumMemorySize )
+            .build();
+    }
+
+    @Override
+    public CacheType getCacheType()
+    {
+        return CacheType.OFF_HEAP;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private Segment getSegment( String key )
+    {
+        int hash = key.hashCode();
+
+        return segments[( hash ^ ( hash >>> 16 ) ) & ( SEGMENT_COUNT - 1 )];
+    }
+
+    /**
+     * Returns the deserialized value for the given key, or null if there is no
+     * value or the value is expired.
+     */
+    private V getValue( String key )
+    {
+        Segment segment = getSegment( key );
+        Entry expired;
+        byte[] bytes;
+
+        synchronized ( segment )
+        {
+            Entry entry = segment.entries.get( key );
+
+            if ( entry == null )
+            {
+                return null;
+            }
+
+            if ( entry.isExpired( currentTimeMillis() ) )
+            {
+                expired = segment.entries.remove( key );
+                bytes = null;
+            }
+            else
+            {
+                if ( refreshExpiryOnAccess && expiryInSeconds > 0 )
+                {
+                    entry.expiryTime = currentTimeMillis() + SECONDS.toMillis( expiryInSeconds );
+                }
+
+                entry.accessTime = accessCounter.incrementAndGet();
+                expired = null;
+                bytes = entry.getBytes();
+            }
+        }
+
+        if ( bytes == null )
+        {
+            release( expired );
+            return null;
+        }
+
+        return deserialize( bytes );
+    }
+
+    /**
+     * Reserves memory for a value of the given size. Expired entries and then
+     * least recently used entries are removed until the value fits within the
+     * maximum memory size.
+     *
+     * @param size the size of the value to store, in bytes.
+     * @return true if the memory was reserved, false if the value does not fit.
+     */
+    private boolean reserveMemory( long size )
+    {
+        boolean expiredEntriesRemoved = false;
+
+        while ( true )
+        {
+            long reserved = reservedMemorySize.get();
+
+            if ( reserved + size <= maximumMemorySize )
+            {
+                if ( reservedMemorySize.compareAndSet( reserved, reserved + size ) )
+                {
+                    return true;
+                }
+            }
+            else if ( !expiredEntriesRemoved )
+            {
+                removeExpiredEntries();
+                expiredEntriesRemoved = true;
+            }
+            else if ( !evictLeastRecentlyUsedEntry() )
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes all expired entries.
+     */
+    private void removeExpiredEntries()
+    {
+        long now = currentTimeMillis();
+
+        for ( Segment segment : segments )
+        {
+            List<Entry> removed = new ArrayList<>();
+
+            synchronized ( segment )
+            {
+                Iterator<Entry> iterator = segment.entries.values().iterator();
+
+                while ( iterator.hasNext() )
+                {
+                    Entry entry = iterator.next();
+
+                    if ( entry.isExpired( now ) )
+                    {
+                        removed.add( entry );
+                        iterator.remove();
+                    }
+                }
+            }
+
+            removed.forEach( this::release );
+        }
+    }
+
+    /**
+     * Evicts the least recently used entry across all segments. Each segment
+     * keeps its entries in access order, so only the first entry of each
+     * segment is considered.
+     *
+     * @return true if an entry was evicted or the cache changed concurrently,
+     *         false if the cache is empty.
+     */
+    private boolean evictLeastRecentlyUsedEntry()
+    {
+        Segment oldestSegment = null;
+        long oldestAccessTime = Long.MAX_VALUE;
+
+        for ( Segment segment : segments )
+        {
+            synchronized ( segment )
+            {
+                Iterator<Entry> iterator = segment.entries.values().iterator();
+
+                if ( iterator.hasNext() )
+                {
+                    long accessTime = iterator.next().accessTime;
+
+                    if ( accessTime < oldestAccessTime )
+                    {
+                        oldestSegment = segment;
+                        oldestAccessTime = accessTime;
+                    }
+                }
+            }
+        }
+
+        if ( oldestSegment == null )
+        {
+            return false;
+        }
+
+        Entry evicted = null;
+
+        synchronized ( oldestSegment )
+        {
+            Iterator<Map.Entry<String, Entry>> iterator = oldestSegment.entries.entrySet().iterator();
+
+            if ( iterator.hasNext() )
+            {
+                evicted = iterator.next().getValue();
+                iterator.remove();
+            }
+        }
+
+        if ( evicted != null )
+        {
+            release( evicted );
+            statistics.recordEviction();
+        }
+
+        return true;
+    }
+
+    /**
+     * Releases the memory of the given removed entry, if any, and frees its
+     * buffer. The entry must no longer be reachable from any segment.
+     */
+    private void release( Entry entry )
+    {
+        if ( entry == null )
+        {
+            return;
+        }
+
+        memorySize.addAndGet( -entry.getSize() );
+        reservedMemorySize.addAndGet( -entry.getSize() );
+
+        if ( entry.buffer.isDirect() )
+        {
+            BUFFER_CLEANER.accept( entry.buffer );
+        }
+    }
+
+    /**
+     * Copies the given bytes into a new direct byte buffer.
+     *
+     * @param bytes the bytes.
+     * @return the buffer, or null if direct memory is exhausted.
+     */
+    private ByteBuffer allocateBuffer( byte[] bytes )
+    {
+        ByteBuffer buffer;
+
+        try
+        {
+            buffer = allocateDirect( bytes.length );
+        }
+        catch ( OutOfMemoryError ex )
+        {
+            log.warn( String.format( "Direct memory exhausted, value of size %d bytes not cached for cache region: '%s'",
+                bytes.length, region ) );
+
+            return null;
+        }
+
+        buffer.put( bytes ).flip();
+
+        return buffer;
+    }
+
+    /**
+     * Allocates a direct byte buffer of the given capacity.
+     *
+     * @param capacity the capacity, in bytes.
+     * @return the buffer.
+     * @throws OutOfMemoryError if direct memory is exhausted.
+     */
+    ByteBuffer allocateDirect( int capacity )
+    {
+        return ByteBuffer.allocateDirect( capacity );
+    }
+
+    private byte[] serialize( V value )
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = compressed ? new Deflater( Deflater.BEST_SPEED ) : null;
+
+        try ( ObjectOutputStream oos = new ObjectOutputStream(
+            compressed ? new DeflaterOutputStream( out, deflater ) : out ) )
+        {
+            oos.writeObject( value );
+        }
+        catch ( IOException ex )
+        {
+            throw new IllegalArgumentException( String.format(
+                "Value cannot be serialized for cache region: '%s'", region ), ex );
+        }
+        finally
+        {
+            if ( deflater != null )
+            {
+                deflater.end();
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private V deserialize( byte[] bytes )
+    {
+        InputStream in = new ByteArrayInputStream( bytes );
+
+        try ( ObjectInputStream ois = new ObjectInputStream( compressed ? new InflaterInputStream( in ) : in ) )
+        {
+            return (V) ois.readObject();
+        }
+        catch ( IOException | ClassNotFoundException ex )
+        {
+            throw new IllegalStateException( String.format(
+                "Value cannot be deserialized for cache region: '%s'", region ), ex );
+        }
+    }
+
+    /**
+     * Returns a function which frees the memory of a direct byte buffer. The
+     * buffer must not be used afterwards. Falls back to freeing on garbage
+     * collection if the JVM offers no way to free buffers explicitly.
+     */
+    private static Consumer<ByteBuffer> getBufferCleaner()
+    {
+        try
+        {
+            // Java 9 and later
+
+            Class<?> unsafeClass = Class.forName( "sun.misc.Unsafe" );
+            Method invokeCleaner = unsafeClass.getMethod( "invokeCleaner", ByteBuffer.class );
+            Field theUnsafe = unsafeClass.getDeclaredField( "theUnsafe" );
+            theUnsafe.setAccessible( true );
+            Object unsafe = theUnsafe.get( null );
+
+            return buffer -> freeBuffer( () -> invokeCleaner.invoke( unsafe, buffer ) );
+        }
+        catch ( ReflectiveOperationException | RuntimeException ex )
+        {
+            // Not available before Java 9
+        }
+
+        try
+        {
+            // Java 8
+
+            Method cleaner = Class.forName( "sun.nio.ch.DirectBuffer" ).getMethod( "cleaner" );
+            Method clean = Class.forName( "sun.misc.Cleaner" ).getMethod( "clean" );
+
+            return buffer -> freeBuffer( () -> clean.invoke( cleaner.invoke( buffer ) ) );
+        }
+        catch ( ReflectiveOperationException | RuntimeException ex )
+        {
+            log.warn( "Direct buffers of off-heap caches will be freed on garbage collection only" );
+
+            return buffer -> {};
+        }
+    }
+
+    private static void freeBuffer( ReflectiveCall call )
+    {
+        try
+        {
+            call.invoke();
+        }
+        catch ( ReflectiveOperationException | RuntimeException ex )
+        {
+            log.debug( "Direct buffer could not be freed", ex );
+        }
+    }
+
+    @FunctionalInterface
+    private interface ReflectiveCall
+    {
+        void invoke()
+            throws ReflectiveOperationException;
+    }
+
+    /**
+     * Entries of a segment in access order, guarded by the segment.
+     */
+    private static class Segment
+    {
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>( 16, 0.75f, true );
+    }
+
+    /**
+     * Cache entry holding a serialized value in a direct byte buffer.
+     */
+    private static class Entry
+    {
+        private final ByteBuffer buffer;
+
+        private long expiryTime;
+
+        private long accessTime;
+
+        Entry( ByteBuffer buffer, long expiryTime )
+        {
+            this.buffer = buffer;
+            this.expiryTime = expiryTime;
+        }
+
+        int getSize()
+        {
+            return buffer.capacity();
+        }
+
+        boolean isExpired( long now )
+        {
+            return expiryTime > 0 && expiryTime <= now;
+        }
+
+        byte[] getBytes()
+        {
+            byte[] bytes = new byte[buffer.capacity()];
+            buffer.duplicate().get( bytes );
+            return bytes;
+        }
+    }
+}
@@ -59,6 +59,12 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
 
     private boolean disabled;
 
+    private boolean distributedLoadLock;
+
+    private long maximumMemorySize;
+
+    private boolean compressed;
+
     public SimpleCacheBuilder()
     {
         // Applying sensible defaults explicitly
@@ -69,6 +75,9 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
         this.defaultValue = null;
         this.expiryEnabled = false;
         this.disabled = false;
+        this.distributedLoadLock = false;
+        this.maximumMemorySize = 0;
+        this.compressed = false;
         this.initialCapacity = 16;
     }
     
@@ -132,6 +141,23 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
         return this;
     }
 
+    public CacheBuilder<V> withDistributedLoadLock()
+    {
+        this.distributedLoadLock = true;
+        return this;
+    }
+
+    public CacheBuilder<V> withOffHeapStorage( long maximumMemorySize, boolean compressed )
+    {
+        if ( maximumMemorySize < 0 )
+        {
+            throw new IllegalArgumentException( "MaximumMemorySize cannot be negative" );
+        }
+        this.maximumMemorySize = maximumMemorySize;
+        this.compressed = compressed;
+        return this;
+    }
+
     public CacheBuilder<V> disabled()
     {
         this.disabled = true;
@@ -140,11 +166,12 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
 
     /**
      * Creates and returns a {@link LocalCache}. If {@code maximumSize} is 0 or {@code disabled} is true then a
-     * NoOpCache instance will be returned which does not cache anything.
+     * NoOpCache instance will be returned which does not cache anything. If {@code maximumMemorySize} is
+     * greater than 0 then an {@link OffHeapCache} will be returned.
      * 
      * @return A cache instance based on the input
-     *         parameters. Returns one of {@link LocalCache}
-     *         or {@link NoOpCache}
+     *         parameters. Returns one of {@link LocalCache},
+     *         {@link OffHeapCache} or {@link NoOpCache}
      */
     public Cache<V> build()
     {
@@ -153,6 +180,11 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
             log.info( String.format( "NoOp Cache instance created for region:'%s'", region ) );
             return new NoOpCache<V>( this );
         }
+        else if ( maximumMemorySize > 0 )
+        {
+            log.info( String.format( "Off-heap Local Cache instance created for region:'%s'", region ) );
+            return new OffHeapCache<V>( this );
+        }
         else
         {
             log.info( String.format( "Simple Local Cache instance created for region:'%s'", region ) );
@@ -190,11 +222,26 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
         return disabled;
     }
 
+    public boolean isDistributedLoadLock()
+    {
+        return distributedLoadLock;
+    }
+
     public long getExpiryInSeconds()
     {
         return expiryInSeconds;
     }
 
+    public long getMaximumMemorySize()
+    {
+        return maximumMemorySize;
+    }
+
+    public boolean isCompressed()
+    {
+        return compressed;
+    }
+
     public V getDefaultValue()
     {
         return defaultValue;
@@ -0,0 +1,115 @@
+package org.hisp.dhis.cache;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Coordinates concurrent loading of cache values so that for any given key at
+ * most one loader is executing at a time within this JVM. Threads asking for a
+ * key which is already being loaded wait for and share the result of the
+ * ongoing load instead of running the loader themselves. This prevents cache
+ * stampedes where many requests recompute the same expensive value at the
+ * moment a hot key expires.
+ *
+ * The loader is expected to re-check the backing cache before computing, as a
+ * thread may start a new load just after a previous load for the same key
+ * completed and stored its value.
+ *
+ * @param <V> The Value type to be loaded
+ */
+public class SingleFlightLoader<V>
+{
+    private final ConcurrentMap<String, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the value for the given key computed by the given loader. If a
+     * load for the same key is already in progress, waits for that load to
+     * complete and returns its result. Exceptions thrown by the loader are
+     * propagated to every thread waiting on the same load.
+     *
+     * @param key the key to load the value for.
+     * @param loader the function computing the value, may return null.
+     * @return the loaded value, or null if the loader returned null.
+     */
+    public V load( String key, Function<String, V> loader )
+    {
+        CompletableFuture<V> load = new CompletableFuture<>();
+
+        CompletableFuture<V> ongoingLoad = inFlightLoads.putIfAbsent( key, load );
+
+        if ( ongoingLoad != null )
+        {
+            return await( ongoingLoad );
+        }
+
+        try
+        {
+            V value = loader.apply( key );
+            load.complete( value );
+            return value;
+        }
+        catch ( RuntimeException | Error ex )
+        {
+            load.completeExceptionally( ex );
+            throw ex;
+        }
+        finally
+        {
+            inFlightLoads.remove( key, load );
+        }
+    }
+
+    private V await( CompletableFuture<V> load )
+    {
+        try
+        {
+            return load.join();
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            if ( ex.getCause() instanceof Error )
+            {
+                throw (Error) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.hisp.dhis.common;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Opaque token identifying the position after the last row of a page in a
+ * keyset paged query. The token holds the values of the sort key of the last
+ * row, which allows the next page to be selected with a where clause on the
+ * sort key instead of an offset. This makes retrieving a page equally cheap
+ * regardless of how far into the result set it is.
+ */
+public class PageToken
+{
+    private static final String SEPARATOR = "|";
+
+    private static final String ERROR_MESSAGE = "Page token is not valid";
+
+    private final List<String> values;
+
+    /**
+     * Constructor.
+     *
+     * @param values the values of the sort key, may not contain the
+     *        separator character.
+     */
+    public PageToken( Object... values )
+    {
+        this.values = Collections.unmodifiableList( Arrays.stream( values )
+            .map( String::valueOf )
+            .collect( Collectors.toList() ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Decodes the given token.
+     *
+     * @param token the encoded token.
+     * @param size the expected number of sort key values.
+     * @return a {@link PageToken}.
+     * @throws IllegalQueryException if the token is not valid.
+     */
+    public static PageToken decode( String token, int size )
+    {
+        String decoded;
+
+        try
+        {
+            decoded = new String( Base64.getUrlDecoder().decode( token ), StandardCharsets.UTF_8 );
+        }
+        catch ( IllegalArgumentException ex )
+        {
+            throw new IllegalQueryException( ERROR_MESSAGE );
+        }
+
+        String[] values = decoded.split( "\\" + SEPARATOR, -1 );
+
+        if ( values.length != size )
+        {
+            throw new IllegalQueryException( ERROR_MESSAGE );
+        }
+
+        return new PageToken( (Object[]) values );
+    }
+
+    /**
+     * Encodes this token into a URL safe string.
+     *
+     * @return the encoded token.
+     */
+    public String encode()
+    {
+        String joined = String.join( SEPARATOR, values );
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( joined.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    public int size()
+    {
+        return values.size();
+    }
+
+    public String getString( int index )
+    {
+        return values.get( index );
+    }
+
+    /**
+     * Returns the value at the given index as a long.
+     *
+     * @throws IllegalQueryException if the value is not a valid long.
+     */
+    public long getLong( int index )
+    {
+        try
+        {
+            return Long.parseLong( values.get( index ) );
+        }
+        catch ( NumberFormatException ex )
+        {
+            throw new IllegalQueryException( ERROR_MESSAGE );
+        }
+    }
+
+    /**
+     * Returns the value at the given index as a timestamp.
+     *
+     * @throws IllegalQueryException if the value is not a valid timestamp.
+     */
+    public Timestamp getTimestamp( int index )
+    {
+        try
+        {
+            return Timestamp.valueOf( values.get( index ) );
+        }
+        catch ( IllegalArgumentException ex )
+        {
+            throw new IllegalQueryException( ERROR_MESSAGE );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[Page token: " + values + "]";
+    }
+}
@@ -50,6 +50,8 @@ public class Pager
 
     private String prevPage;
 
+    private String nextPageToken;
+
     public Pager()
     {
 
@@ -178,4 +180,23 @@ public class Pager
     {
         this.prevPage = prevPage;
     }
+
+    /**
+     * Token identifying the position after the last item of this page, to be
+     * used for retrieving the next page with keyset paging. Null if keyset
+     * paging is not supported for the query or if this is the last page.
+     *
+     * @return the next page token.
+     */
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public String getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken( String nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+    }
 }
@@ -191,6 +191,16 @@ public interface DataValueService
      */
     List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params );
 
+    /**
+     * Returns deflated data values which match the data element, period,
+     * source, category option combo and attribute option combo of any of the
+     * given data values, including soft deleted data values.
+     *
+     * @param dataValues the data values to match.
+     * @return a list of deflated data values.
+     */
+    List<DeflatedDataValue> getDeflatedDataValues( Collection<DataValue> dataValues );
+
     /**
      * Gets the number of DataValues persisted since the given number of days.
      *
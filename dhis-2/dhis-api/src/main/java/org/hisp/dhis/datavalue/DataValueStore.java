@@ -144,6 +144,17 @@ public interface DataValueStore
      */
     List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params );
 
+    /**
+     * Returns deflated data values which match the data element, period,
+     * source, category option combo and attribute option combo of any of the
+     * given data values, including soft deleted data values. The data values
+     * are retrieved with a single query.
+     *
+     * @param dataValues the data values to match.
+     * @return a list of deflated data values.
+     */
+    List<DeflatedDataValue> getDeflatedDataValues( Collection<DataValue> dataValues );
+
     /**
      * Gets the number of DataValues which have been updated between the given
      * start and end date. The <pre>startDate</pre> and <pre>endDate</pre> parameters
@@ -0,0 +1,98 @@
+package org.hisp.dhis.expression;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.List;
+import java.util.Set;
+
+import org.hisp.dhis.common.IdentifiableObject;
+
+/**
+ * Maintains an index from metadata items to the objects whose expressions
+ * reference them: indicators, validation rules, predictors and program
+ * indicators. Items are identified by uid, so that e.g. both data element
+ * and data element operand references are found by the data element uid.
+ */
+public interface ExpressionDependencyService
+{
+    /**
+     * Builds the index from the expressions of all dependent objects,
+     * replacing any existing index.
+     */
+    void buildIndex();
+
+    /**
+     * Gets the uids of the objects of the given type with expressions
+     * referencing the item with the given uid.
+     *
+     * @param uid the uid of the referenced item.
+     * @param klass the type of dependent objects.
+     * @return the uids of the dependent objects.
+     */
+    Set<String> getDependentUids( String uid, Class<? extends IdentifiableObject> klass );
+
+    /**
+     * Gets the objects of the given type with expressions referencing the
+     * item with the given uid.
+     *
+     * @param uid the uid of the referenced item.
+     * @param klass the type of dependent objects.
+     * @return the dependent objects.
+     */
+    <T extends IdentifiableObject> List<T> getDependents( String uid, Class<T> klass );
+
+    /**
+     * Indexes the expressions of the given object, replacing any previous
+     * entries for it. Objects of types without expressions are ignored.
+     *
+     * @param object the object.
+     */
+    void updateDependencies( IdentifiableObject object );
+
+    /**
+     * Re-indexes the object owning the given expression, replacing the
+     * entries of the given expression with those of its current content.
+     * Expressions which are not owned by an indexed object are ignored.
+     *
+     * @param expression the expression.
+     */
+    void updateDependencies( Expression expression );
+
+    /**
+     * Removes the entries of the given object from the index.
+     *
+     * @param object the object.
+     */
+    void removeDependencies( IdentifiableObject object );
+
+    /**
+     * Marks the index as stale, so that it is rebuilt when next used.
+     */
+    void invalidate();
+}
@@ -224,6 +224,8 @@ public enum ErrorCode
     E7225( "Program stage is mandatory for data element dimensions in enrollment analytics queries: `{0}`" ),
     E7226( "Dimension is not a valid query item: `{0}`" ),
     E7227( "Relationship entity type not supported: `{0}`" ),
+    E7228( "Tile coordinates are invalid: `{0}`" ),
+    E7229( "Cluster tiles are only available for root organisation units: `{0}`" ),
 
     /* Org unit analytics */
     E7300( "At least one organisation unit must be specified" ),
@@ -0,0 +1,84 @@
+package org.hisp.dhis.organisationunit;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Serves organisation unit geometries at a resolution suitable for a map zoom
+ * level. Simplified geometries are computed by the database when the
+ * geometry of an organisation unit is saved.
+ */
+public interface OrganisationUnitGeometryService
+{
+    /**
+     * Maximum zoom level for which low resolution geometries are served.
+     */
+    int LOW_RESOLUTION_MAX_ZOOM = 5;
+
+    /**
+     * Maximum zoom level for which medium resolution geometries are served.
+     * Full resolution geometries are served for higher zoom levels.
+     */
+    int MEDIUM_RESOLUTION_MAX_ZOOM = 8;
+
+    /**
+     * Maximum supported zoom level for vector tiles.
+     */
+    int MAX_ZOOM = 22;
+
+    /**
+     * Gets the geometries of the given organisation units simplified for the
+     * given zoom level. Organisation units without a simplified geometry for
+     * the zoom level are not included.
+     *
+     * @param organisationUnits the organisation units.
+     * @param zoom the map zoom level.
+     * @return a map of organisation unit uid to geometry.
+     */
+    Map<String, Geometry> getSimplifiedGeometries( Collection<OrganisationUnit> organisationUnits, int zoom );
+
+    /**
+     * Gets a Mapbox vector tile with the boundaries of the organisation units
+     * at the given level which are descendants of, or equal to, any of the
+     * given parents. The tile has a single layer "orgUnits" with the feature
+     * attributes id, name, code and level.
+     *
+     * @param z the zoom level.
+     * @param x the tile column.
+     * @param y the tile row.
+     * @param level the organisation unit level.
+     * @param parents the parent organisation units.
+     * @return the tile encoded as protocol buffer.
+     */
+    byte[] getVectorTile( int z, int x, int y, int level, Collection<OrganisationUnit> parents );
+}
@@ -64,6 +64,12 @@ public class ContinuousAnalyticsJobParameters
      */
     private Integer lastYears;
 
+    /**
+     * Whether to update the aggregate analytics tables incrementally in between
+     * full updates, instead of regenerating the latest partition.
+     */
+    private boolean incrementalUpdate = false;
+
     /**
      * The types of analytics tables for which to skip update.
      */
@@ -105,6 +111,18 @@ public class ContinuousAnalyticsJobParameters
         this.lastYears = lastYears;
     }
 
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public boolean isIncrementalUpdate()
+    {
+        return incrementalUpdate;
+    }
+
+    public void setIncrementalUpdate( boolean incrementalUpdate )
+    {
+        this.incrementalUpdate = incrementalUpdate;
+    }
+
     @JsonProperty
     @JacksonXmlElementWrapper( localName = "skipTableTypes", namespace = DxfNamespaces.DXF_2_0 )
     @JacksonXmlProperty( localName = "skipTableType", namespace = DxfNamespaces.DXF_2_0 )
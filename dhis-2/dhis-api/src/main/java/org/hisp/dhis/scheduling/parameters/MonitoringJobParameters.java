@@ -42,6 +42,7 @@ import org.hisp.dhis.scheduling.JobParameters;
 import org.hisp.dhis.scheduling.parameters.jackson.MonitoringJobParametersDeserializer;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -67,6 +68,13 @@ public class MonitoringJobParameters
 
     private boolean persistResults;
 
+    private boolean changedDataOnly;
+
+    /**
+     * Start time of the last successful run, set by the job itself.
+     */
+    private Date lastSuccessfulStart;
+
     public MonitoringJobParameters()
     {
     }
@@ -142,6 +150,30 @@ public class MonitoringJobParameters
         this.persistResults = persistResults;
     }
 
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public boolean isChangedDataOnly()
+    {
+        return changedDataOnly;
+    }
+
+    public void setChangedDataOnly( boolean changedDataOnly )
+    {
+        this.changedDataOnly = changedDataOnly;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public Date getLastSuccessfulStart()
+    {
+        return lastSuccessfulStart;
+    }
+
+    public void setLastSuccessfulStart( Date lastSuccessfulStart )
+    {
+        this.lastSuccessfulStart = lastSuccessfulStart;
+    }
+
     @Override
     public Optional<ErrorReport> validate()
     {
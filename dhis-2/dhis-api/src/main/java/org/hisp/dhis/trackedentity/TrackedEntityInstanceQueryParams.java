@@ -217,6 +217,12 @@ public class TrackedEntityInstanceQueryParams
      */
     private boolean skipPaging;
 
+    /**
+     * Token of the last tracked entity instance of the previous page, used for
+     * keyset paging.
+     */
+    private String pageToken;
+
     /**
      * Indicates whether to include soft-deleted elements
      */
@@ -257,6 +263,12 @@ public class TrackedEntityInstanceQueryParams
      */
     private transient User user;
 
+    /**
+     * Token of the last tracked entity instance of the current page, set when
+     * the tracked entity instances are retrieved and more may follow.
+     */
+    private transient String nextPageToken;
+
     // -------------------------------------------------------------------------
     // Constructors
     // -------------------------------------------------------------------------
@@ -742,6 +754,23 @@ public class TrackedEntityInstanceQueryParams
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
     }
 
+    /**
+     * Indicates whether a page token is specified.
+     */
+    public boolean hasPageToken()
+    {
+        return pageToken != null;
+    }
+
+    /**
+     * Indicates whether tracked entity instances are ordered by the default
+     * sort key, which is required for keyset paging.
+     */
+    public boolean isDefaultOrder()
+    {
+        return orders == null || orders.isEmpty();
+    }
+
     /**
      * Sets paging properties to default values.
      */
@@ -785,6 +814,7 @@ public class TrackedEntityInstanceQueryParams
             .add( "page", page )
             .add( "pageSize", pageSize )
             .add( "totalPages", totalPages )
+            .add( "pageToken", pageToken )
             .add( "skipPaging", skipPaging )
             .add( "includeDeleted", includeDeleted )
             .add( "includeAllAttributes", includeAllAttributes )
@@ -1074,6 +1104,17 @@ public class TrackedEntityInstanceQueryParams
         return this;
     }
 
+    public String getPageToken()
+    {
+        return pageToken;
+    }
+
+    public TrackedEntityInstanceQueryParams setPageToken( String pageToken )
+    {
+        this.pageToken = pageToken;
+        return this;
+    }
+
     public boolean isIncludeDeleted()
     {
         return includeDeleted;
@@ -1140,6 +1181,17 @@ public class TrackedEntityInstanceQueryParams
         return this;
     }
 
+    public String getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public TrackedEntityInstanceQueryParams setNextPageToken( String nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+        return this;
+    }
+
     public List<String> getOrders()
     {
         return orders;
@@ -53,6 +53,15 @@ public interface TrackedEntityInstanceStore
 
     int getTrackedEntityInstanceCountForGrid( TrackedEntityInstanceQueryParams params );
 
+    /**
+     * Returns an estimate of the number of tracked entity instances matching
+     * the given params, based on the statistics of the query planner.
+     *
+     * @param params the {@link TrackedEntityInstanceQueryParams}.
+     * @return the estimated number of tracked entity instances.
+     */
+    int getTrackedEntityInstanceCountEstimateForGrid( TrackedEntityInstanceQueryParams params );
+
     /**
      * Checks for the existence of a TEI by UID. Deleted TEIs are not taken into account.
      *
@@ -33,6 +33,7 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
 
 import java.util.Collection;
+import java.util.Date;
 
 /**
  * This class represents the most fundamental parameters to run a validation rule analysis.
@@ -72,6 +73,8 @@ public final class ValidationAnalysisParams
 
     private int dayInPeriod = -1;
 
+    private Date changedSince;
+
     /**
      * Gets the rules selected for analysis
      *
@@ -156,6 +159,18 @@ public final class ValidationAnalysisParams
         return dayInPeriod;
     }
 
+    /**
+     * Gets the date since which data must have changed to be validated. If set, rules are only validated for
+     * organisation units and periods where data referenced by the rule has changed since this date, and stored
+     * results for these are kept up to date. Rules which do not depend only on data values are always validated.
+     *
+     * @return the date, or null if all data is validated.
+     */
+    public Date getChangedSince()
+    {
+        return changedSince;
+    }
+
     /**
      * Limits the number of results we should look for. This can help prevent the analysis running too long by stopping
      * after a set number of results, as well as limit any payload trough api.
@@ -242,6 +257,18 @@ public final class ValidationAnalysisParams
             return this;
         }
 
+        /**
+         * Validates only data which has changed since the given date.
+         *
+         * @param changedSince the date, or null to validate all data
+         * @return the updated builder object
+         */
+        public Builder withChangedSince( Date changedSince )
+        {
+            this.params.changedSince = changedSince;
+            return this;
+        }
+
         /**
          * The max number of results we want from the analysis.
          *
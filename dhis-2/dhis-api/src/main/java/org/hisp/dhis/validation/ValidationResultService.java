@@ -68,6 +68,13 @@ public interface ValidationResultService
      */
     void deleteValidationResult( ValidationResult validationResult );
 
+    /**
+     * Deletes the given validationResults in a bulk action.
+     *
+     * @param validationResults the validation results.
+     */
+    void deleteValidationResults( Collection<ValidationResult> validationResults );
+
     /**
      * Updates a list of ValidationResults.
      * 
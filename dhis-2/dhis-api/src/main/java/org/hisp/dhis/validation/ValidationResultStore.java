@@ -52,4 +52,11 @@ public interface ValidationResultStore
 
     List<ValidationResult> getValidationResults( OrganisationUnit orgUnit,
         boolean includeOrgUnitDescendants, Collection<ValidationRule> validationRules, Collection<Period> periods );
+
+    /**
+     * Deletes the given validation results with bulk delete statements.
+     *
+     * @param validationResults the validation results.
+     */
+    void delete( Collection<ValidationResult> validationResults );
 }
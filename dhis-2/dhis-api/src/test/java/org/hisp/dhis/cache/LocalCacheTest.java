@@ -0,0 +1,193 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocalCacheTest
+{
+    private static final int THREADS = 16;
+
+    private Cache<String> cache;
+
+    @Before
+    public void setUp()
+    {
+        cache = new SimpleCacheBuilder<String>().forRegion( "test" ).withMaximumSize( 100 ).build();
+    }
+
+    @Test
+    public void testGetWithMappingFunction()
+    {
+        assertEquals( Optional.of( "valueA" ), cache.get( "keyA", key -> "valueA" ) );
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+        assertEquals( Optional.of( "valueA" ), cache.get( "keyA", key -> "valueB" ) );
+        assertEquals( Optional.empty(), cache.get( "keyB", key -> null ) );
+        assertEquals( Optional.empty(), cache.getIfPresent( "keyB" ) );
+    }
+
+    @Test
+    public void testGetStatistics()
+    {
+        cache.get( "keyA", key -> "valueA" );
+        cache.get( "keyA", key -> "valueA" );
+        cache.getIfPresent( "keyB" );
+        cache.put( "keyC", "valueC" );
+
+        CacheStatistics statistics = cache.getStatistics();
+
+        assertEquals( "test", statistics.getRegion() );
+        assertEquals( CacheType.IN_MEMORY, statistics.getCacheType() );
+        assertEquals( 1, statistics.getHitCount() );
+        assertEquals( 2, statistics.getMissCount() );
+        assertEquals( 1, statistics.getLoadSuccessCount() );
+        assertEquals( 0, statistics.getLoadFailureCount() );
+        assertEquals( 2, statistics.getPutCount() );
+        assertEquals( 2, statistics.getSize() );
+        assertEquals( 100, statistics.getMaximumSize() );
+        assertEquals( 1d / 3, statistics.getHitRatio(), 0.0001 );
+    }
+
+    @Test
+    public void testConcurrentGetInvokesMappingFunctionOnce()
+        throws Exception
+    {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+
+        List<Future<Optional<String>>> results = new ArrayList<>();
+
+        try
+        {
+            for ( int i = 0; i < THREADS; i++ )
+            {
+                results.add( executor.submit( () -> {
+                    start.await();
+
+                    return cache.get( "key", key -> {
+                        loads.incrementAndGet();
+                        sleep( 200 );
+                        return "value";
+                    } );
+                } ) );
+            }
+
+            start.countDown();
+
+            for ( Future<Optional<String>> result : results )
+            {
+                assertEquals( Optional.of( "value" ), result.get( 10, TimeUnit.SECONDS ) );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals( 1, loads.get() );
+    }
+
+    @Test
+    public void testConcurrentGetPropagatesMappingFunctionFailure()
+        throws Exception
+    {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+
+        List<Future<Optional<String>>> results = new ArrayList<>();
+
+        try
+        {
+            for ( int i = 0; i < THREADS; i++ )
+            {
+                results.add( executor.submit( () -> {
+                    start.await();
+
+                    return cache.get( "key", key -> {
+                        loads.incrementAndGet();
+                        sleep( 200 );
+                        throw new IllegalStateException( "Load failed" );
+                    } );
+                } ) );
+            }
+
+            start.countDown();
+
+            for ( Future<Optional<String>> result : results )
+            {
+                try
+                {
+                    result.get( 10, TimeUnit.SECONDS );
+                    fail( "Expected load failure" );
+                }
+                catch ( ExecutionException ex )
+                {
+                    assertTrue( ex.getCause() instanceof IllegalStateException );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals( 1, loads.get() );
+        assertEquals( Optional.empty(), cache.getIfPresent( "key" ) );
+    }
+
+    private static void sleep( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+public class OffHeapCacheTest
+{
+    private static final String VALUE_A = StringUtils.repeat( 'a', 1000 );
+
+    private static final String VALUE_B = StringUtils.repeat( 'b', 1000 );
+
+    private static final String VALUE_C = StringUtils.repeat( 'c', 1000 );
+
+    @Test
+    public void testBuild()
+    {
+        Cache<String> cache = newCache( 1000, false );
+
+        assertTrue( cache instanceof OffHeapCache );
+        assertEquals( CacheType.OFF_HEAP, cache.getCacheType() );
+    }
+
+    @Test
+    public void testGetWithMappingFunction()
+    {
+        Cache<String> cache = newCache( 10000, true );
+
+        assertEquals( Optional.of( VALUE_A ), cache.get( "keyA", key -> VALUE_A ) );
+        assertEquals( Optional.of( VALUE_A ), cache.getIfPresent( "keyA" ) );
+        assertEquals( Optional.of( VALUE_A ), cache.get( "keyA", key -> VALUE_B ) );
+        assertEquals( Optional.empty(), cache.get( "keyB", key -> null ) );
+        assertEquals( Optional.empty(), cache.getIfPresent( "keyB" ) );
+    }
+
+    @Test
+    public void testGetReturnsCopy()
+    {
+        Cache<ArrayList<String>> cache = new SimpleCacheBuilder<ArrayList<String>>().forRegion( "test" )
+            .withOffHeapStorage( 10000, false ).build();
+
+        ArrayList<String> value = new ArrayList<>();
+        value.add( "a" );
+
+        cache.put( "keyA", value );
+
+        assertEquals( value, cache.getIfPresent( "keyA" ).get() );
+        assertNotSame( value, cache.getIfPresent( "keyA" ).get() );
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed()
+    {
+        Cache<String> cache = newCache( 2500, false );
+
+        cache.put( "keyA", VALUE_A );
+        cache.put( "keyB", VALUE_B );
+        cache.getIfPresent( "keyA" );
+        cache.put( "keyC", VALUE_C );
+
+        assertTrue( cache.getIfPresent( "keyA" ).isPresent() );
+        assertFalse( cache.getIfPresent( "keyB" ).isPresent() );
+        assertTrue( cache.getIfPresent( "keyC" ).isPresent() );
+
+        CacheStatistics statistics = cache.getStatistics();
+
+        assertEquals( 2, statistics.getSize() );
+        assertEquals( 1, statistics.getEvictionCount() );
+        assertEquals( 2500, statistics.getMaximumMemorySize() );
+        assertTrue( statistics.getMemorySize() > 2000 );
+        assertTrue( statistics.getMemorySize() <= 2500 );
+    }
+
+    @Test
+    public void testCompression()
+    {
+        Cache<String> cache = newCache( 2500, true );
+
+        cache.put( "keyA", VALUE_A );
+        cache.put( "keyB", VALUE_B );
+        cache.put( "keyC", VALUE_C );
+
+        assertEquals( Optional.of( VALUE_A ), cache.getIfPresent( "keyA" ) );
+        assertEquals( Optional.of( VALUE_B ), cache.getIfPresent( "keyB" ) );
+        assertEquals( Optional.of( VALUE_C ), cache.getIfPresent( "keyC" ) );
+        assertEquals( 0, cache.getStatistics().getEvictionCount() );
+    }
+
+    @Test
+    public void testValueExceedingMaximumMemorySize()
+    {
+        Cache<String> cache = newCache( 500, false );
+
+        cache.put( "keyA", VALUE_A );
+
+        assertFalse( cache.getIfPresent( "keyA" ).isPresent() );
+        assertEquals( 0, cache.getStatistics().getMemorySize() );
+    }
+
+    @Test
+    public void testEvictBeforeAllocating()
+    {
+        OffHeapCache<String> cache = new OffHeapCache<String>( newCacheBuilder( 2500 ) )
+        {
+            @Override
+            ByteBuffer allocateDirect( int capacity )
+            {
+                assertTrue( getStatistics().getMemorySize() + capacity <= 2500 );
+
+                return super.allocateDirect( capacity );
+            }
+        };
+
+        cache.put( "keyA", VALUE_A );
+        cache.put( "keyB", VALUE_B );
+        cache.put( "keyC", VALUE_C );
+
+        assertEquals( 2, cache.getStatistics().getSize() );
+        assertEquals( 1, cache.getStatistics().getEvictionCount() );
+    }
+
+    @Test
+    public void testDirectMemoryExhausted()
+    {
+        AtomicBoolean exhausted = new AtomicBoolean();
+
+        OffHeapCache<String> cache = new OffHeapCache<String>( newCacheBuilder( 10000 ) )
+        {
+            @Override
+            ByteBuffer allocateDirect( int capacity )
+            {
+                if ( exhausted.get() )
+                {
+                    throw new OutOfMemoryError( "Direct buffer memory" );
+                }
+
+                return super.allocateDirect( capacity );
+            }
+        };
+
+        cache.put( "keyA", VALUE_A );
+
+        exhausted.set( true );
+
+        cache.put( "keyA", VALUE_B );
+
+        assertFalse( cache.getIfPresent( "keyA" ).isPresent() );
+        assertEquals( Optional.of( VALUE_C ), cache.get( "keyC", key -> VALUE_C ) );
+        assertFalse( cache.getIfPresent( "keyC" ).isPresent() );
+        assertEquals( 0, cache.getStatistics().getMemorySize() );
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        Cache<String> cache = newCache( 10000, false );
+
+        cache.put( "keyA", VALUE_A );
+        cache.put( "keyB", VALUE_B );
+        cache.invalidate( "keyA" );
+
+        assertFalse( cache.getIfPresent( "keyA" ).isPresent() );
+        assertEquals( 1, cache.getAll().size() );
+
+        cache.invalidateAll();
+
+        assertEquals( 0, cache.getAll().size() );
+        assertEquals( 0, cache.getStatistics().getMemorySize() );
+    }
+
+    @Test
+    public void testConcurrentPutsStayWithinMaximumMemorySize()
+        throws Exception
+    {
+        Cache<String> cache = newCache( 5500, false );
+
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+
+        List<Future<?>> futures = new ArrayList<>();
+
+        for ( int i = 0; i < 8; i++ )
+        {
+            int thread = i;
+
+            futures.add( executor.submit( () -> {
+                for ( int j = 0; j < 200; j++ )
+                {
+                    String key = "key" + thread + "-" + ( j % 10 );
+
+                    cache.put( key, VALUE_A );
+                    cache.getIfPresent( key );
+                }
+            } ) );
+        }
+
+        for ( Future<?> future : futures )
+        {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        CacheStatistics statistics = cache.getStatistics();
+
+        assertTrue( statistics.getSize() <= 5 );
+        assertTrue( statistics.getMemorySize() <= 5500 );
+        assertEquals( statistics.getSize(), cache.getAll().size() );
+    }
+
+    private CacheBuilder<String> newCacheBuilder( long maximumMemorySize )
+    {
+        return new SimpleCacheBuilder<String>().forRegion( "test" ).withOffHeapStorage( maximumMemorySize, false );
+    }
+
+    private Cache<String> newCache( long maximumMemorySize, boolean compressed )
+    {
+        return new SimpleCacheBuilder<String>().forRegion( "test" )
+            .withOffHeapStorage( maximumMemorySize, compressed ).build();
+    }
+}
@@ -0,0 +1,80 @@
+package org.hisp.dhis.common;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+public class PageTokenTest
+{
+    @Test
+    public void testEncodeDecode()
+    {
+        Timestamp timestamp = Timestamp.valueOf( "2020-03-14 10:15:30.123456" );
+
+        String token = new PageToken( timestamp, 4213L ).encode();
+
+        PageToken decoded = PageToken.decode( token, 2 );
+
+        assertEquals( 2, decoded.size() );
+        assertEquals( timestamp, decoded.getTimestamp( 0 ) );
+        assertEquals( 4213L, decoded.getLong( 1 ) );
+    }
+
+    @Test
+    public void testEncodeIsUrlSafe()
+    {
+        String token = new PageToken( "ACTIVE", Timestamp.valueOf( "2020-03-14 10:15:30.0" ), 1L ).encode();
+
+        assertEquals( token, token.replaceAll( "[^A-Za-z0-9_-]", "" ) );
+        assertEquals( "ACTIVE", PageToken.decode( token, 3 ).getString( 0 ) );
+    }
+
+    @Test( expected = IllegalQueryException.class )
+    public void testDecodeInvalidSize()
+    {
+        PageToken.decode( new PageToken( 1L, 2L ).encode(), 3 );
+    }
+
+    @Test( expected = IllegalQueryException.class )
+    public void testDecodeInvalidEncoding()
+    {
+        PageToken.decode( "not a token!", 2 );
+    }
+
+    @Test( expected = IllegalQueryException.class )
+    public void testGetInvalidTimestamp()
+    {
+        PageToken.decode( new PageToken( "yesterday", 2L ).encode(), 2 ).getTimestamp( 0 );
+    }
+}
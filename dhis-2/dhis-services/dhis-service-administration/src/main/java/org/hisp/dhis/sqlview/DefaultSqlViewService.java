@@ -46,7 +46,7 @@ import org.hisp.dhis.feedback.ErrorMessage;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.query.QueryParserException;
 import org.hisp.dhis.query.QueryUtils;
-import org.hisp.dhis.system.grid.ListGrid;
+import org.hisp.dhis.system.grid.ColumnarGrid;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.util.ObjectUtils;
@@ -186,7 +186,7 @@ public class DefaultSqlViewService
     {
         validateSqlView( sqlView, criteria, variables );
 
-        Grid grid = new ListGrid();
+        Grid grid = new ColumnarGrid();
         grid.setTitle( sqlView.getName() );
         grid.setSubtitle( sqlView.getDescription() );
 
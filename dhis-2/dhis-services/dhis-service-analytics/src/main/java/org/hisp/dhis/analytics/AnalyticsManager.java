@@ -29,7 +29,7 @@ package org.hisp.dhis.analytics;
  */
 
 import java.util.Map;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.IllegalQueryException;
@@ -46,7 +46,9 @@ public interface AnalyticsManager
      * Retrieves aggregated data values for the given query. The data is returned
      * as a mapping where the key is concatenated from the dimension options for
      * all dimensions separated by "-", and the value is the data value. This
-     * method is invoked asynchronously. The value class can be Double or String.
+     * method is invoked asynchronously, where cancelling the returned future
+     * before the query has started prevents it from being executed. The value
+     * class can be Double or String.
      *
      * @param params the query to retrieve aggregated data for.
      * @param tableType the {@link AnalyticsTableType}.
@@ -54,7 +56,7 @@ public interface AnalyticsManager
      * @return a map.
      * @throws IllegalQueryException if query result set exceeds the max limit.
      */
-    Future<Map<String, Object>> getAggregatedDataValues( DataQueryParams params, AnalyticsTableType tableType, int maxLimit );
+    CompletableFuture<Map<String, Object>> getAggregatedDataValues( DataQueryParams params, AnalyticsTableType tableType, int maxLimit );
 
     /**
      * Inserts entries for the aggregation periods mapped to each data period
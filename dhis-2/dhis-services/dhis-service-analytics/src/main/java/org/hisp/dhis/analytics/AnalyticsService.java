@@ -32,6 +32,7 @@ import org.hisp.dhis.common.AnalyticalObject;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
+import org.hisp.dhis.system.grid.StreamingGrid;
 
 import java.util.List;
 import java.util.Map;
@@ -132,6 +133,17 @@ public interface AnalyticsService
      */
     Grid getRawDataValues( DataQueryParams params );
 
+    /**
+     * Writes raw data values for the given query to the given streaming grid.
+     * The grid will represent the same table as {@link #getRawDataValues},
+     * but rows are written to the underlying output as they are read instead
+     * of being held in memory. The grid is closed when all rows are written.
+     *
+     * @param params the data query parameters.
+     * @param grid the streaming grid to write to.
+     */
+    void writeRawDataValues( DataQueryParams params, StreamingGrid grid );
+
     /**
      * Generates a data value set for the given query. The query must contain
      * a data, period and organisation unit dimension.
@@ -30,6 +30,7 @@ package org.hisp.dhis.analytics;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
@@ -87,6 +88,42 @@ public interface AnalyticsTableManager
      */
     void removeUpdatedData( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables );
 
+    /**
+     * Indicates whether this manager supports incremental updates, i.e. replacing
+     * changed data directly in the existing table partitions.
+     *
+     * @return true if incremental updates are supported.
+     */
+    boolean isIncrementalUpdateSupported();
+
+    /**
+     * Collects the data which changed since the last successful analytics table
+     * update and returns the analytics tables with the existing partitions which
+     * are affected by the changes. Partitions which do not exist yet are skipped
+     * and will be populated by the next full update.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @return the list of {@link AnalyticsTable}, empty if no data changed.
+     */
+    List<AnalyticsTable> prepareIncrementalUpdate( AnalyticsTableUpdateParams params );
+
+    /**
+     * Removes and repopulates the changed data in the given existing partition,
+     * and applies aggregation levels to the repopulated data.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param aggregationLevels mapping of aggregation level to the identifiers
+     *        of the data elements with that aggregation level.
+     */
+    void applyIncrementalUpdate( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition,
+        Map<Integer, Collection<String>> aggregationLevels );
+
+    /**
+     * Removes the changed data collected for the incremental update.
+     */
+    void completeIncrementalUpdate();
+
     /**
      * Attempts to drop and then create analytics table.
      *
@@ -126,6 +163,35 @@ public interface AnalyticsTableManager
      */
     Future<?> populateTablesAsync( AnalyticsTableUpdateParams params, ConcurrentLinkedQueue<AnalyticsTablePartition> tablePartitions );
 
+    /**
+     * Returns the rollup tables with pre-aggregated data to generate for the
+     * given analytics tables.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the list of {@link AnalyticsTable}.
+     * @return the list of rollup {@link AnalyticsTable}, empty if rollup tables
+     *         are not supported or not enabled.
+     */
+    List<AnalyticsTable> getRollupTables( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables );
+
+    /**
+     * Populates the given rollup table partitions from the corresponding
+     * temporary analytics table partitions.
+     *
+     * @param partitions the rollup table partitions.
+     * @return a future representing the asynchronous task.
+     */
+    Future<?> populateRollupTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions );
+
+    /**
+     * Drops the rollup table partitions which are out of date after the
+     * given analytics tables were updated without generating rollup tables.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the list of updated {@link AnalyticsTable}.
+     */
+    void dropRollupTables( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables );
+
     /**
      * Invokes analytics table SQL hooks for the table type.
      *
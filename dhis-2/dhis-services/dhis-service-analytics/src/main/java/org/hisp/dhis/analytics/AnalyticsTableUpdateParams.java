@@ -56,6 +56,13 @@ public class AnalyticsTableUpdateParams
      */
     private Integer lastYears;
 
+    /**
+     * Indicates whether to update tables incrementally, i.e. replace data
+     * which changed since the last update directly in the existing table
+     * partitions. Applies to "latest" updates of tables which support it.
+     */
+    private boolean incrementalUpdate;
+
     /**
      * Indicates whether to skip update of resource tables.
      */
@@ -101,6 +108,11 @@ public class AnalyticsTableUpdateParams
         return lastYears;
     }
 
+    public boolean isIncrementalUpdate()
+    {
+        return incrementalUpdate;
+    }
+
     public boolean isSkipResourceTables()
     {
         return skipResourceTables;
@@ -153,6 +165,7 @@ public class AnalyticsTableUpdateParams
     {
         return MoreObjects.toStringHelper( this )
             .add( "last years", lastYears )
+            .add( "incremental update", incrementalUpdate )
             .add( "skip resource tables", skipResourceTables )
             .add( "skip table types", skipTableTypes )
             .add( "start time", DateUtils.getLongDateString( startTime ) )
@@ -195,6 +208,7 @@ public class AnalyticsTableUpdateParams
         AnalyticsTableUpdateParams params = new AnalyticsTableUpdateParams();
 
         params.lastYears = this.lastYears;
+        params.incrementalUpdate = this.incrementalUpdate;
         params.skipResourceTables = this.skipResourceTables;
         params.skipTableTypes = new HashSet<>( this.skipTableTypes );
         params.jobId = this.jobId;
@@ -243,6 +257,12 @@ public class AnalyticsTableUpdateParams
             return this;
         }
 
+        public Builder withIncrementalUpdate( boolean incrementalUpdate )
+        {
+            this.params.incrementalUpdate = incrementalUpdate;
+            return this;
+        }
+
         public Builder withSkipResourceTables( boolean skipResourceTables )
         {
             this.params.skipResourceTables = skipResourceTables;
@@ -32,6 +32,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.logging.LogFactory.getLog;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_CACHE_COMPRESSION;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_CACHE_MAX_MEMORY;
 import static org.hisp.dhis.commons.util.SystemUtils.isTestRun;
 
 import java.util.Optional;
@@ -42,8 +44,11 @@ import javax.annotation.PostConstruct;
 import org.apache.commons.logging.Log;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheBuilder;
 import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.system.grid.ColumnarGrid;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
@@ -65,19 +70,25 @@ public class AnalyticsCache
 
     private final AnalyticsCacheSettings analyticsCacheSettings;
 
+    private final DhisConfigurationProvider configurationProvider;
+
     private static final int MAX_CACHE_ENTRIES = 20000;
 
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
     private static final String CACHE_REGION = "analyticsResponse";
 
     public AnalyticsCache( final CacheProvider cacheProvider, final Environment environment,
-        final AnalyticsCacheSettings analyticsCacheSettings )
+        final AnalyticsCacheSettings analyticsCacheSettings, final DhisConfigurationProvider configurationProvider )
     {
         checkNotNull( cacheProvider );
         checkNotNull( environment );
         checkNotNull( analyticsCacheSettings );
+        checkNotNull( configurationProvider );
         this.cacheProvider = cacheProvider;
         this.environment = environment;
         this.analyticsCacheSettings = analyticsCacheSettings;
+        this.configurationProvider = configurationProvider;
     }
 
     public Optional<Grid> get( final String key )
@@ -91,29 +102,23 @@ public class AnalyticsCache
      * fetched by the function provided. In this case, the fetched Grid will be
      * cached, so the next consumers can hit the cache only.
      * 
+     * Concurrent requests for the same DataQueryParams are coalesced, so that
+     * the Grid is fetched only once while the other consumers wait for it.
+     * 
      * The TTL of the cached object will be set accordingly to the cache settings
      * available at {@link org.hisp.dhis.analytics.cache.AnalyticsCacheSettings}.
      * 
+     * Grids are cached as {@link ColumnarGrid} instances, which hold values in
+     * primitive arrays and a string dictionary rather than as boxed objects.
+     * 
      * @param params the current DataQueryParams.
      * @param function that fetches a grid based on the given DataQueryParams.
      * @return the cached or fetched Grid.
      */
     public Grid getOrFetch( final DataQueryParams params, final Function<DataQueryParams, Grid> function )
     {
-        final Optional<Grid> cachedGrid = get( params.getKey() );
-
-        if ( cachedGrid.isPresent() )
-        {
-            return cachedGrid.get();
-        }
-        else
-        {
-            final Grid grid = function.apply( params );
-
-            put( params, grid );
-
-            return grid;
-        }
+        return queryCache.get( params.getKey(), key -> toColumnarGrid( function.apply( params ) ),
+            getTimeToLive( params ) ).orElse( null );
     }
 
     /**
@@ -127,16 +132,21 @@ public class AnalyticsCache
      * @param grid the associated Grid.
      */
     public void put( final DataQueryParams params, final Grid grid )
+    {
+        put( params.getKey(), grid, getTimeToLive( params ) );
+    }
+
+    private long getTimeToLive( final DataQueryParams params )
     {
         if ( analyticsCacheSettings.isProgressiveCachingEnabled() )
         {
             // Uses the progressive TTL
-            put( params.getKey(), grid, analyticsCacheSettings.progressiveExpirationTimeOrDefault( params.getLatestEndDate() ) );
+            return analyticsCacheSettings.progressiveExpirationTimeOrDefault( params.getLatestEndDate() );
         }
         else
         {
             // Respects the fixed (predefined) caching TTL
-            put( params.getKey(), grid, analyticsCacheSettings.fixedExpirationTimeOrDefault() );
+            return analyticsCacheSettings.fixedExpirationTimeOrDefault();
         }
     }
 
@@ -150,7 +160,12 @@ public class AnalyticsCache
      */
     public void put( final String key, final Grid grid, final long ttlInSeconds )
     {
-        queryCache.put( key, grid, ttlInSeconds );
+        queryCache.put( key, toColumnarGrid( grid ), ttlInSeconds );
+    }
+
+    private Grid toColumnarGrid( final Grid grid )
+    {
+        return grid == null || grid instanceof ColumnarGrid ? grid : new ColumnarGrid( grid );
     }
 
     /**
@@ -176,9 +191,20 @@ public class AnalyticsCache
 
         final boolean nonTestEnv = !isTestRun( this.environment.getActiveProfiles() );
 
-        queryCache = cacheProvider.newCacheBuilder( Grid.class ).forRegion( CACHE_REGION )
+        // If a memory size is configured, the number of entries is not bounded
+        // and grids are kept serialized off-heap within the given memory size.
+        final long maxMemory = Long.parseLong( configurationProvider.getProperty( ANALYTICS_CACHE_MAX_MEMORY ) ) * BYTES_PER_MB;
+
+        final CacheBuilder<Grid> cacheBuilder = cacheProvider.newCacheBuilder( Grid.class ).forRegion( CACHE_REGION )
             .expireAfterWrite( initialExpirationTime, SECONDS ).withMaximumSize( nonTestEnv ? MAX_CACHE_ENTRIES : 0 )
-            .build();
+            .withDistributedLoadLock();
+
+        if ( maxMemory > 0 )
+        {
+            cacheBuilder.withOffHeapStorage( maxMemory, configurationProvider.isEnabled( ANALYTICS_CACHE_COMPRESSION ) );
+        }
+
+        queryCache = cacheBuilder.build();
 
         log.info( format( "Analytics server-side cache is enabled with expiration time (in seconds): %d",
             initialExpirationTime ) );
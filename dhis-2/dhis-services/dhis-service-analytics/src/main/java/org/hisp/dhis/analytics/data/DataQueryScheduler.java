@@ -0,0 +1,360 @@
+package org.hisp.dhis.analytics.data;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.commons.util.DebugUtils.getStackTrace;
+import static org.hisp.dhis.commons.util.SystemUtils.getCpuCores;
+import static org.hisp.dhis.setting.SettingKey.DATABASE_SERVER_CPUS;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.common.DimensionalObject;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Maps;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes the planned queries of an analytics request concurrently. The
+ * planned queries of a request produce disjoint sets of keys and have no
+ * dependencies on each other, hence queries of all query groups are submitted
+ * in group order without waiting for a group to complete before the next
+ * group is started. The number of concurrently running queries is bounded per
+ * request and globally across all requests, where the global bound is the
+ * number of database server CPUs as specified by system setting, or the
+ * number of CPU cores of the current server.
+ * <p>
+ * Queries are started as soon as a global slot is available and their
+ * futures are composed without blocking, so no thread is held while a query
+ * waits for a slot or runs. Only the requesting thread waits for completed
+ * queries to merge their results. Cancelling the queries of a failed request
+ * cancels the underlying query futures, and queries still waiting for a slot
+ * are not started.
+ */
+@Slf4j
+@Component
+public class DataQueryScheduler
+{
+    private static final int MAX_ESTIMATED_SIZE = 100_000;
+
+    private final SystemSettingManager systemSettingManager;
+
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Queries waiting for a global slot, in the order they were scheduled.
+     */
+    private final Queue<Runnable> waitingQueries = new ArrayDeque<>();
+
+    private int runningQueries = 0;
+
+    public DataQueryScheduler( SystemSettingManager systemSettingManager )
+    {
+        checkNotNull( systemSettingManager );
+
+        this.systemSettingManager = systemSettingManager;
+    }
+
+    /**
+     * Executes the given query groups and merges the results into a single map.
+     * At most {@code maxConcurrentQueries} queries of the request are running at
+     * any time, and a query is only started when the global bound allows for it.
+     *
+     * @param queryGroups the query groups, where the groups are started in the
+     *        given order.
+     * @param queryFunction the function starting a single query.
+     * @param maxConcurrentQueries the maximum number of concurrently running
+     *        queries for this request.
+     * @return a mapping between a dimension key and the aggregated value.
+     */
+    public Map<String, Object> execute( List<List<DataQueryParams>> queryGroups,
+        Function<DataQueryParams, CompletableFuture<Map<String, Object>>> queryFunction, int maxConcurrentQueries )
+    {
+        List<DataQueryParams> queries = new ArrayList<>();
+
+        queryGroups.forEach( queries::addAll );
+
+        Map<String, Object> map = Maps.newHashMapWithExpectedSize( getEstimatedSize( queries ) );
+
+        BlockingQueue<CompletableFuture<Map<String, Object>>> completedTasks = new LinkedBlockingQueue<>();
+
+        List<CompletableFuture<Map<String, Object>>> tasks = new ArrayList<>();
+
+        int completed = 0;
+
+        try
+        {
+            for ( DataQueryParams query : queries )
+            {
+                if ( tasks.size() - completed >= maxConcurrentQueries )
+                {
+                    merge( map, completedTasks.take() );
+                    completed++;
+                }
+
+                CompletableFuture<Map<String, Object>> task = schedule( query, queryFunction );
+
+                tasks.add( task );
+
+                task.whenComplete( ( values, ex ) -> completedTasks.add( task ) );
+            }
+
+            while ( completed < tasks.size() )
+            {
+                merge( map, completedTasks.take() );
+                completed++;
+            }
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            tasks.forEach( task -> task.cancel( true ) );
+            throw new RuntimeException( "Interrupted during execution of aggregation query task", ex );
+        }
+        catch ( RuntimeException ex )
+        {
+            tasks.forEach( task -> task.cancel( true ) );
+            throw ex;
+        }
+
+        return map;
+    }
+
+    /**
+     * Schedules a single query to be started once a global slot is available.
+     * The slot is held until the query completes. Cancelling the returned
+     * future cancels the query, or prevents it from being started if it is
+     * still waiting for a slot.
+     */
+    private CompletableFuture<Map<String, Object>> schedule( DataQueryParams query,
+        Function<DataQueryParams, CompletableFuture<Map<String, Object>>> queryFunction )
+    {
+        CompletableFuture<Map<String, Object>> task = new CompletableFuture<>();
+
+        acquireSlot( () -> start( query, queryFunction, task ) );
+
+        return task;
+    }
+
+    /**
+     * Starts the given query while holding a global slot, and completes the
+     * given task with the result of the query.
+     */
+    private void start( DataQueryParams query,
+        Function<DataQueryParams, CompletableFuture<Map<String, Object>>> queryFunction,
+        CompletableFuture<Map<String, Object>> task )
+    {
+        if ( task.isDone() )
+        {
+            releaseSlot(); // Cancelled while waiting for a slot
+            return;
+        }
+
+        CompletableFuture<Map<String, Object>> future;
+
+        try
+        {
+            future = checkNotNull( queryFunction.apply( query ) );
+        }
+        catch ( RuntimeException ex )
+        {
+            releaseSlot();
+            task.completeExceptionally( ex );
+            return;
+        }
+
+        future.whenComplete( ( values, ex ) -> {
+            releaseSlot();
+
+            if ( ex != null )
+            {
+                task.completeExceptionally( ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex );
+            }
+            else
+            {
+                task.complete( values );
+            }
+        } );
+
+        task.whenComplete( ( values, ex ) -> {
+            if ( task.isCancelled() )
+            {
+                future.cancel( true );
+            }
+        } );
+    }
+
+    private void merge( Map<String, Object> map, CompletableFuture<Map<String, Object>> future )
+        throws InterruptedException
+    {
+        try
+        {
+            Map<String, Object> taskValues = future.get();
+
+            if ( taskValues != null )
+            {
+                map.putAll( taskValues );
+            }
+        }
+        catch ( ExecutionException ex )
+        {
+            log.error( getStackTrace( ex ) );
+            log.error( getStackTrace( ex.getCause() ) );
+
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause(); // Throw the real exception instead of execution exception
+            }
+            else
+            {
+                throw new RuntimeException( "Error during execution of aggregation query task", ex );
+            }
+        }
+    }
+
+    /**
+     * Runs the given start action once a global slot is available, either
+     * immediately or when a running query releases its slot.
+     */
+    private void acquireSlot( Runnable start )
+    {
+        lock.lock();
+
+        try
+        {
+            if ( runningQueries >= getMaxConcurrentQueries() )
+            {
+                waitingQueries.add( start );
+                return;
+            }
+
+            runningQueries++;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        start.run();
+    }
+
+    /**
+     * Releases a global slot, handing it over to the next waiting query if
+     * the global bound allows for it.
+     */
+    private void releaseSlot()
+    {
+        Runnable next;
+
+        lock.lock();
+
+        try
+        {
+            next = runningQueries <= getMaxConcurrentQueries() ? waitingQueries.poll() : null;
+
+            if ( next == null )
+            {
+                runningQueries--;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        if ( next != null )
+        {
+            next.run();
+        }
+    }
+
+    /**
+     * Gets the global maximum number of concurrently running queries. Uses
+     * explicit number of database server CPUs from system setting if available.
+     * Detects number of cores from current server runtime if not.
+     *
+     * @return the global maximum number of concurrently running queries.
+     */
+    private int getMaxConcurrentQueries()
+    {
+        Integer cores = (Integer) systemSettingManager.getSystemSetting( DATABASE_SERVER_CPUS );
+
+        return Math.max( 1, (cores == null || cores == 0) ? getCpuCores() : cores );
+    }
+
+    /**
+     * Estimates the number of values returned by the given queries as the sum
+     * of the number of item permutations of the dimensions of each query.
+     */
+    private int getEstimatedSize( List<DataQueryParams> queries )
+    {
+        long size = 0;
+
+        for ( DataQueryParams query : queries )
+        {
+            long permutations = 1;
+
+            for ( DimensionalObject dimension : query.getDimensions() )
+            {
+                permutations *= Math.max( 1, dimension.getItems().size() );
+
+                if ( permutations > MAX_ESTIMATED_SIZE )
+                {
+                    break;
+                }
+            }
+
+            size += permutations;
+
+            if ( size > MAX_ESTIMATED_SIZE )
+            {
+                return MAX_ESTIMATED_SIZE;
+            }
+        }
+
+        return (int) size;
+    }
+}
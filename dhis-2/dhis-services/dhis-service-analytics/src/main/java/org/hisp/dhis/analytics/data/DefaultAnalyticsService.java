@@ -56,6 +56,7 @@ import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.system.grid.ListGrid;
+import org.hisp.dhis.system.grid.StreamingGrid;
 import org.hisp.dhis.visualization.Visualization;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
@@ -135,6 +136,16 @@ public class DefaultAnalyticsService
         return dataAggregator.getRawDataGrid( params );
     }
 
+    @Override
+    public void writeRawDataValues( DataQueryParams params, StreamingGrid grid )
+    {
+        params = checkSecurityConstraints( params );
+
+        queryValidator.validate( params );
+
+        dataAggregator.writeRawDataGrid( params, grid );
+    }
+
     @Override
     public DataValueSet getAggregatedDataValueSet( DataQueryParams params )
     {
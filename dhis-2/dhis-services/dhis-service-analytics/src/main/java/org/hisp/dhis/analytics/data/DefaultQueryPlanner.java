@@ -52,6 +52,7 @@ import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.util.PeriodOffsetUtils;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.analytics.table.RollupUtils;
 import org.hisp.dhis.common.BaseDimensionalObject;
 import org.hisp.dhis.common.DataDimensionItemType;
 import org.hisp.dhis.common.DimensionType;
@@ -132,6 +133,15 @@ public class DefaultQueryPlanner
             currentQueries.forEach( query -> queries.addAll( grouper.apply( query ) ) );
         }
 
+        // ---------------------------------------------------------------------
+        // Route queries to rollup tables where possible
+        // ---------------------------------------------------------------------
+
+        if ( AnalyticsTableType.DATA_VALUE == plannerParams.getTableType() )
+        {
+            queries.replaceAll( this::withRollupTable );
+        }
+
         // ---------------------------------------------------------------------
         // Split queries until optimal number
         // ---------------------------------------------------------------------
@@ -189,6 +199,38 @@ public class DefaultQueryPlanner
             .build();
     }
 
+    /**
+     * Returns the given query with the rollup table as table name if the query
+     * can be answered from the rollup table and all partitions of the query
+     * exist for the rollup table. Returns the query unchanged if not.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @return a {@link DataQueryParams}.
+     */
+    private DataQueryParams withRollupTable( DataQueryParams params )
+    {
+        final String rollupTable = AnalyticsTableType.DATA_VALUE_ROLLUP.getTableName();
+
+        if ( params.isSkipPartitioning() || !params.hasPartitions() || !RollupUtils.isRollupQuery( params ) )
+        {
+            return params;
+        }
+
+        boolean partitionsExist = params.getPartitions().getPartitions().stream()
+            .allMatch( partition -> partitionManager.tableExistsCached( PartitionUtils.getPartitionName( rollupTable, partition ) ) );
+
+        if ( !partitionsExist )
+        {
+            return params;
+        }
+
+        log.debug( String.format( "Using rollup table: '%s', partitions: %s", rollupTable, params.getPartitions() ) );
+
+        return DataQueryParams.newBuilder( params )
+            .withTableName( rollupTable )
+            .build();
+    }
+
     // -------------------------------------------------------------------------
     // Supportive split methods
     // -------------------------------------------------------------------------
@@ -35,6 +35,10 @@ import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getUids;
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -50,8 +54,8 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.util.DateUtils;
 import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
@@ -70,6 +74,8 @@ public class JdbcRawAnalyticsManager
 {
     private static final String DIM_NAME_OU = "ou.path";
 
+    private static final int FETCH_SIZE = 10000;
+
     private final JdbcTemplate jdbcTemplate;
 
     public JdbcRawAnalyticsManager( @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate )
@@ -101,19 +107,10 @@ public class JdbcRawAnalyticsManager
 
         log.debug( "Get raw data SQL: " + sql );
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
-
-        while ( rowSet.next() )
-        {
-            grid.addRow();
-
-            for ( DimensionalObject dim : dimensions )
-            {
-                grid.addValue( rowSet.getString( dim.getDimensionName() ) );
-            }
-
-            grid.addValue( rowSet.getDouble( "value" ) );
-        }
+        jdbcTemplate.execute( (ConnectionCallback<Void>) connection -> {
+            addRows( connection, sql, dimensions, grid );
+            return null;
+        } );
 
         return grid;
     }
@@ -122,6 +119,57 @@ public class JdbcRawAnalyticsManager
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Executes the given SQL query and adds a row to the grid for each row in
+     * the result set. The result set is read in batches through a database
+     * cursor, which requires auto-commit to be disabled for the duration of
+     * the query, so that rows can be passed on to a streaming grid without
+     * holding the full result in memory.
+     *
+     * @param connection the database connection.
+     * @param sql the SQL query.
+     * @param dimensions the list of dimensions.
+     * @param grid the grid.
+     */
+    private void addRows( Connection connection, String sql, List<DimensionalObject> dimensions, Grid grid )
+        throws SQLException
+    {
+        boolean autoCommit = connection.getAutoCommit();
+
+        if ( autoCommit )
+        {
+            connection.setAutoCommit( false );
+        }
+
+        try ( Statement statement = connection.createStatement( ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY ) )
+        {
+            statement.setFetchSize( FETCH_SIZE );
+
+            try ( ResultSet rs = statement.executeQuery( sql ) )
+            {
+                while ( rs.next() )
+                {
+                    grid.addRow();
+
+                    for ( DimensionalObject dim : dimensions )
+                    {
+                        grid.addValue( rs.getString( dim.getDimensionName() ) );
+                    }
+
+                    grid.addValue( rs.getDouble( "value" ) );
+                }
+            }
+        }
+        finally
+        {
+            if ( autoCommit )
+            {
+                connection.rollback();
+                connection.setAutoCommit( true );
+            }
+        }
+    }
+
     /**
      * Returns a SQL select statement.
      *
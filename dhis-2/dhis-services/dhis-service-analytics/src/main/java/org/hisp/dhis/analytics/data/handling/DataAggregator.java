@@ -42,6 +42,7 @@ import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.system.grid.ListGrid;
+import org.hisp.dhis.system.grid.StreamingGrid;
 import org.springframework.stereotype.Component;
 
 /**
@@ -143,6 +144,30 @@ public class DataAggregator
         return grid;
     }
 
+    /**
+     * Writes headers, meta data and raw data to the given streaming grid. Meta
+     * data is added ahead of the data, as rows are written to the underlying
+     * output as they are read from the database. The grid is closed when all
+     * rows are written.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param grid the {@link StreamingGrid}.
+     */
+    public void writeRawDataGrid( DataQueryParams params, StreamingGrid grid )
+    {
+        params = dataHandler.prepareForRawDataQuery( params );
+
+        headerHandler.addHeaders( params, grid );
+
+        metaDataHandler.addMetaData( params, grid );
+
+        metaDataHandler.applyIdScheme( params, grid );
+
+        dataHandler.addRawData( params, grid );
+
+        grid.close();
+    }
+
     /**
      * Performs pre-handling of the given query and returns the immutable, handled
      * query. If the query has a single indicator as item for the data filter, the
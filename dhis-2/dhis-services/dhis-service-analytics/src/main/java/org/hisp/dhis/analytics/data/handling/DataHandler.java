@@ -93,7 +93,6 @@ import static org.hisp.dhis.common.ReportingRateMetric.ACTUAL_REPORTS;
 import static org.hisp.dhis.common.ReportingRateMetric.ACTUAL_REPORTS_ON_TIME;
 import static org.hisp.dhis.common.ReportingRateMetric.EXPECTED_REPORTS;
 import static org.hisp.dhis.common.ReportingRateMetric.REPORTING_RATE_ON_TIME;
-import static org.hisp.dhis.commons.util.DebugUtils.getStackTrace;
 import static org.hisp.dhis.commons.util.SystemUtils.getCpuCores;
 import static org.hisp.dhis.dataelement.DataElementOperand.TotalType.values;
 import static org.hisp.dhis.period.DailyPeriodType.NAME;
@@ -113,7 +112,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -129,6 +127,7 @@ import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.RawAnalyticsManager;
+import org.hisp.dhis.analytics.data.DataQueryScheduler;
 import org.hisp.dhis.analytics.event.EventAnalyticsService;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.resolver.ExpressionResolver;
@@ -189,12 +188,15 @@ public class DataHandler
 
     private final OrganisationUnitService organisationUnitService;
 
+    private final DataQueryScheduler dataQueryScheduler;
+
     private DataAggregator dataAggregator;
 
     public DataHandler( EventAnalyticsService eventAnalyticsService, RawAnalyticsManager rawAnalyticsManager,
         ConstantService constantService, ExpressionResolver resolver, ExpressionService expressionService,
         QueryPlanner queryPlanner, QueryValidator queryValidator, SystemSettingManager systemSettingManager,
-        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService )
+        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService,
+        DataQueryScheduler dataQueryScheduler )
     {
         checkNotNull( eventAnalyticsService );
         checkNotNull( rawAnalyticsManager );
@@ -206,6 +208,7 @@ public class DataHandler
         checkNotNull( systemSettingManager );
         checkNotNull( analyticsManager );
         checkNotNull( organisationUnitService );
+        checkNotNull( dataQueryScheduler );
 
         this.eventAnalyticsService = eventAnalyticsService;
         this.rawAnalyticsManager = rawAnalyticsManager;
@@ -217,6 +220,7 @@ public class DataHandler
         this.systemSettingManager = systemSettingManager;
         this.analyticsManager = analyticsManager;
         this.organisationUnitService = organisationUnitService;
+        this.dataQueryScheduler = dataQueryScheduler;
     }
 
     /**
@@ -1100,57 +1104,14 @@ public class DataHandler
         timer.getSplitTime(
             "Planned analytics query, got: " + queryGroups.getLargestGroupSize() + " for optimal: " + optimalQueries );
 
-        Map<String, Object> map = new HashMap<>();
-
-        for ( List<DataQueryParams> queries : queryGroups.getSequentialQueries() )
-        {
-            executeQueries( tableType, maxLimit, map, queries );
-        }
+        Map<String, Object> map = dataQueryScheduler.execute( queryGroups.getSequentialQueries(),
+            query -> analyticsManager.getAggregatedDataValues( query, tableType, maxLimit ), optimalQueries );
 
         timer.getTime( "Got analytics values" );
 
         return map;
     }
 
-    private void executeQueries( AnalyticsTableType tableType, int maxLimit, Map<String, Object> map,
-        List<DataQueryParams> queries )
-    {
-        List<Future<Map<String, Object>>> futures = new ArrayList<>();
-
-        for ( DataQueryParams query : queries )
-        {
-            futures.add( analyticsManager.getAggregatedDataValues( query, tableType, maxLimit ) );
-        }
-
-        for ( Future<Map<String, Object>> future : futures )
-        {
-            try
-            {
-                Map<String, Object> taskValues = future.get();
-
-                if ( taskValues != null )
-                {
-                    map.putAll( taskValues );
-                }
-            }
-            catch ( Exception ex )
-            {
-                log.error( getStackTrace( ex ) );
-                log.error( getStackTrace( ex.getCause() ) );
-
-                if ( ex.getCause() instanceof RuntimeException )
-                {
-                    throw (RuntimeException) ex.getCause(); // Throw the real exception instead of execution
-                    // exception
-                }
-                else
-                {
-                    throw new RuntimeException( "Error during execution of aggregation query task", ex );
-                }
-            }
-        }
-    }
-
     /**
      * Gets the number of available cores. Uses explicit number from system setting
      * if available. Detects number of cores from current server runtime if not.
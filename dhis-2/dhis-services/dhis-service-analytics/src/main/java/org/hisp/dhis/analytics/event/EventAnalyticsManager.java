@@ -43,6 +43,8 @@ public interface EventAnalyticsManager
 
     Grid getEventClusters( EventQueryParams params, Grid grid, int maxLimit );
 
+    Grid getEventClusterTile( EventQueryParams params, int zoom, int x, int y, Grid grid );
+
     long getEventCount( EventQueryParams params );
 
     Rectangle getRectangle( EventQueryParams params );
@@ -110,6 +110,20 @@ public interface EventAnalyticsService
      */
     Grid getEventClusters( EventQueryParams params );
 
+    /**
+     * Returns the precomputed event clusters of the tile with the given
+     * coordinates. The query must specify a program and root organisation
+     * units only, as cluster tiles are generated per root organisation unit
+     * without filters.
+     *
+     * @param params the event query parameters.
+     * @param zoom the tile zoom level.
+     * @param x the tile column.
+     * @param y the tile row.
+     * @return event clusters as a Grid object.
+     */
+    Grid getEventClusterTile( EventQueryParams params, int zoom, int x, int y );
+
     /**
      * Returns a Rectangle with information about event count and extent of the
      * spatial rectangle for the given query.
@@ -43,6 +43,7 @@ import static org.hisp.dhis.analytics.DataQueryParams.NUMERATOR_HEADER_NAME;
 import static org.hisp.dhis.analytics.DataQueryParams.NUMERATOR_ID;
 import static org.hisp.dhis.analytics.DataQueryParams.VALUE_HEADER_NAME;
 import static org.hisp.dhis.analytics.DataQueryParams.VALUE_ID;
+import static org.hisp.dhis.analytics.table.JdbcEventAnalyticsTableManager.MAX_CLUSTER_TILE_ZOOM;
 import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
 import static org.hisp.dhis.reporttable.ReportTable.COLUMN_NAMES;
@@ -74,6 +75,7 @@ import org.hisp.dhis.analytics.event.EventQueryPlanner;
 import org.hisp.dhis.analytics.event.EventQueryValidator;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.common.AnalyticalObject;
+import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.EventAnalyticalObject;
 import org.hisp.dhis.common.Grid;
@@ -89,6 +91,7 @@ import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.legend.Legend;
 import org.hisp.dhis.option.Option;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.system.database.DatabaseInfo;
 import org.hisp.dhis.system.grid.ListGrid;
 import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
@@ -602,6 +605,48 @@ public class DefaultEventAnalyticsService
         return grid;
     }
 
+    @Override
+    public Grid getEventClusterTile( EventQueryParams params, int zoom, int x, int y )
+    {
+        if ( !databaseInfo.isSpatialSupport() )
+        {
+            throwIllegalQueryEx( ErrorCode.E7218 );
+        }
+
+        int tiles = 1 << Math.min( zoom, MAX_CLUSTER_TILE_ZOOM );
+
+        if ( zoom < 0 || zoom > MAX_CLUSTER_TILE_ZOOM || x < 0 || x >= tiles || y < 0 || y >= tiles )
+        {
+            throwIllegalQueryEx( ErrorCode.E7228, zoom + "/" + x + "/" + y );
+        }
+
+        securityManager.decideAccessEventQuery( params );
+
+        List<DimensionalItemObject> orgUnits = params.getOrganisationUnits();
+
+        for ( DimensionalItemObject orgUnit : orgUnits )
+        {
+            if ( ((OrganisationUnit) orgUnit).getParent() != null )
+            {
+                throwIllegalQueryEx( ErrorCode.E7229, orgUnit.getUid() );
+            }
+        }
+
+        Grid grid = new ListGrid();
+
+        grid.addHeader( new GridHeader( ITEM_COUNT, NAME_COUNT, ValueType.NUMBER, Long.class.getName(), false, false ) )
+            .addHeader( new GridHeader( ITEM_CENTER, NAME_CENTER, ValueType.TEXT, String.class.getName(), false, false ) )
+            .addHeader( new GridHeader( ITEM_EXTENT, NAME_EXTENT, ValueType.TEXT, String.class.getName(), false, false ) )
+            .addHeader( new GridHeader( ITEM_POINTS, NAME_POINTS, ValueType.TEXT, String.class.getName(), false, false ) );
+
+        if ( !orgUnits.isEmpty() )
+        {
+            eventAnalyticsManager.getEventClusterTile( params, zoom, x, y, grid );
+        }
+
+        return grid;
+    }
+
     @Override
     public Rectangle getRectangle( EventQueryParams params )
     {
@@ -55,10 +55,12 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.math3.util.Precision;
 import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.Rectangle;
 import org.hisp.dhis.analytics.event.EventAnalyticsManager;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.ProgramIndicatorSubqueryBuilder;
+import org.hisp.dhis.analytics.table.PartitionUtils;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.common.DimensionType;
 import org.hisp.dhis.common.DimensionalItemObject;
@@ -209,6 +211,41 @@ public class JdbcEventAnalyticsManager
         return grid;
     }
 
+    @Override
+    public Grid getEventClusterTile( EventQueryParams params, int zoom, int x, int y, Grid grid )
+    {
+        String tableName = AnalyticsTableType.EVENT_CLUSTER.getTableName() + PartitionUtils.SEP + params.getProgram().getUid().toLowerCase();
+
+        String sql = "select count, center, extent, points " +
+            "from " + tableName + " " +
+            "where zoom = " + zoom + " " +
+            "and tilex = " + x + " " +
+            "and tiley = " + y + " " +
+            "and uidlevel1 in (" + getQuotedCommaDelimitedString( getUids( params.getOrganisationUnits() ) ) + ") ";
+
+        log.debug( String.format( "Analytics event cluster tile SQL: %s", sql ) );
+
+        try
+        {
+            SqlRowSet rowSet = queryForRows( sql );
+
+            while ( rowSet.next() )
+            {
+                grid.addRow()
+                    .addValue( rowSet.getLong( "count" ) )
+                    .addValue( rowSet.getString( "center" ) )
+                    .addValue( rowSet.getString( "extent" ) )
+                    .addValue( rowSet.getString( "points" ) );
+            }
+        }
+        catch ( BadSqlGrammarException ex )
+        {
+            log.info( AnalyticsUtils.ERR_MSG_TABLE_NOT_EXISTING, ex );
+        }
+
+        return grid;
+    }
+
     @Override
     public long getEventCount( EventQueryParams params )
     {
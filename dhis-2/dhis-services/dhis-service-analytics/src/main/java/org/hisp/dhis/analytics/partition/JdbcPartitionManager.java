@@ -32,14 +32,21 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
@@ -55,9 +62,25 @@ public class JdbcPartitionManager
 {
     private Map<AnalyticsTableType, Set<String>> analyticsPartitions = new HashMap<>();
 
+    private Cache<Boolean> tableExistsCache;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private CacheProvider cacheProvider;
+
+    @Autowired
+    private Environment environment;
+
+    @PostConstruct
+    public void init()
+    {
+        tableExistsCache = cacheProvider.newCacheBuilder( Boolean.class )
+            .forRegion( "analyticsTableExists" ).expireAfterWrite( 1, TimeUnit.HOURS )
+            .withMaximumSize( SystemUtils.isTestRun( environment.getActiveProfiles() ) ? 0 : 1000 ).build();
+    }
+
     @Override
     public Set<String> getAnalyticsPartitions( AnalyticsTableType tableType )
     {
@@ -95,6 +118,18 @@ public class JdbcPartitionManager
         return count > 0;
     }
 
+    @Override
+    public boolean tableExistsCached( String table )
+    {
+        return tableExistsCache.get( table, this::tableExists ).orElse( false );
+    }
+
+    @Override
+    public void clearTableExistsCache()
+    {
+        tableExistsCache.invalidateAll();
+    }
+
     @Override
     public void filterNonExistingPartitions( Partitions partitions, String tableName )
     {
@@ -116,6 +151,7 @@ public class JdbcPartitionManager
     public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
     {
         analyticsPartitions = new HashMap<>();
+        tableExistsCache.invalidateAll();
         log.info( "Analytics partition cache cleared" );
     }
 }
@@ -55,6 +55,20 @@ public interface PartitionManager
      */
     boolean tableExists( String table );
 
+    /**
+     * Indicates whether the given analytics table exists. The result is
+     * cached until the cache is cleared through {@link #clearTableExistsCache()},
+     * which is done when analytics tables are swapped or dropped.
+     *
+     * @param table the analytics table name.
+     */
+    boolean tableExistsCached( String table );
+
+    /**
+     * Clears the cache of {@link #tableExistsCached(String)}.
+     */
+    void clearTableExistsCache();
+
     /**
      * Filters the set of integers for which a database partition table
      * exists.
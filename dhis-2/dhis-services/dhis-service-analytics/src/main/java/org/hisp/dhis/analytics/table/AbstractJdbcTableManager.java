@@ -47,6 +47,7 @@ import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.commons.timer.SystemTimer;
 import org.hisp.dhis.commons.timer.Timer;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.dataapproval.DataApprovalLevelService;
 import org.hisp.dhis.jdbc.StatementBuilder;
@@ -180,6 +181,41 @@ public abstract class AbstractJdbcTableManager
     {
     }
 
+    /**
+     * Override in order to support incremental updates.
+     */
+    @Override
+    public boolean isIncrementalUpdateSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Returns no tables. Override in order to support incremental updates.
+     */
+    @Override
+    public List<AnalyticsTable> prepareIncrementalUpdate( AnalyticsTableUpdateParams params )
+    {
+        return new ArrayList<>();
+    }
+
+    /**
+     * Override in order to support incremental updates.
+     */
+    @Override
+    public void applyIncrementalUpdate( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition,
+        Map<Integer, Collection<String>> aggregationLevels )
+    {
+    }
+
+    /**
+     * Override in order to support incremental updates.
+     */
+    @Override
+    public void completeIncrementalUpdate()
+    {
+    }
+
     @Override
     public void createTable( AnalyticsTable table )
     {
@@ -235,6 +271,8 @@ public abstract class AbstractJdbcTableManager
             table.getTablePartitions().stream().forEach( p -> swapInheritance( p.getTableName(),table.getTempTableName(), table.getTableName() ) );
             dropTempTable( table );
         }
+
+        partitionManager.clearTableExistsCache();
     }
 
     @Override
@@ -247,12 +285,16 @@ public abstract class AbstractJdbcTableManager
     public void dropTable( String tableName )
     {
         executeSilently( "drop table if exists " + tableName );
+
+        partitionManager.clearTableExistsCache();
     }
 
     @Override
     public void dropTableCascade( String tableName )
     {
         executeSilently( "drop table if exists " + tableName + " cascade" );
+
+        partitionManager.clearTableExistsCache();
     }
 
     @Override
@@ -282,6 +324,26 @@ public abstract class AbstractJdbcTableManager
         return null;
     }
 
+    /**
+     * Override in order to support rollup tables.
+     */
+    @Override
+    public List<AnalyticsTable> getRollupTables( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Future<?> populateRollupTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    {
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    public void dropRollupTables( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+    }
+
     @Override
     public int invokeAnalyticsTableSqlHooks()
     {
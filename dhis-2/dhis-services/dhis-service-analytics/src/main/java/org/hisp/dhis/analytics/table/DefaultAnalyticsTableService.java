@@ -38,6 +38,7 @@ import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
+import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.dataelement.DataElementService;
@@ -53,7 +54,9 @@ import com.google.common.collect.Lists;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
@@ -135,6 +138,12 @@ public class DefaultAnalyticsTableService
             return;
         }
 
+        if ( params.isIncrementalUpdate() && tableManager.isIncrementalUpdateSupported() )
+        {
+            updateIncrementally( params, clock );
+            return;
+        }
+
         final List<AnalyticsTable> tables = tableManager.getAnalyticsTables( params );
 
         if ( tables.isEmpty() )
@@ -184,14 +193,29 @@ public class DefaultAnalyticsTableService
             clock.logTime( "Tables vacuumed" );
         }
 
+        final List<AnalyticsTable> rollupTables = tableManager.getRollupTables( params, tables );
+
+        if ( !rollupTables.isEmpty() )
+        {
+            notifier.notify( jobId, "Populating rollup tables" );
+
+            dropTempTables( rollupTables );
+            createTables( rollupTables );
+            populateRollupTables( rollupTables );
+
+            clock.logTime( "Populated rollup tables" );
+        }
+
+        final List<AnalyticsTable> allTables = ListUtils.union( tables, rollupTables );
+
         notifier.notify( jobId, "Creating indexes" );
 
-        createIndexes( tables );
+        createIndexes( allTables );
 
         clock.logTime( "Created indexes" );
         notifier.notify( jobId, "Analyzing analytics tables" );
 
-        analyzeTables( tables );
+        analyzeTables( allTables );
 
         clock.logTime( "Analyzed tables" );
         notifier.notify( jobId, "Removing updated and deleted data" );
@@ -201,7 +225,12 @@ public class DefaultAnalyticsTableService
         clock.logTime( "Removed updated and deleted data" );
         notifier.notify( jobId, "Swapping analytics tables" );
 
-        swapTables( params, tables );
+        swapTables( params, allTables );
+
+        if ( rollupTables.isEmpty() )
+        {
+            tableManager.dropRollupTables( params, tables );
+        }
 
         clock.logTime( "Table update done: " + tableType.getTableName() );
         notifier.notify( jobId, "Table update done" );
@@ -231,6 +260,55 @@ public class DefaultAnalyticsTableService
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Updates the analytics tables incrementally by replacing the data which
+     * changed since the last update in the existing table partitions.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param clock the {@link Clock}.
+     */
+    private void updateIncrementally( AnalyticsTableUpdateParams params, Clock clock )
+    {
+        JobConfiguration jobId = params.getJobId();
+
+        AnalyticsTableType tableType = tableManager.getAnalyticsTableType();
+
+        notifier.notify( jobId, "Collecting changed data" );
+
+        final List<AnalyticsTable> tables = tableManager.prepareIncrementalUpdate( params );
+
+        if ( tables.isEmpty() )
+        {
+            clock.logTime( String.format( "Table update aborted, no changed data in existing partitions: '%s'", tableType.getTableName() ) );
+            notifier.notify( jobId, "Table update aborted, no changed data in existing partitions" );
+            return;
+        }
+
+        try
+        {
+            clock.logTime( "Collected changed data" );
+            notifier.notify( jobId, "Replacing changed data" );
+
+            Map<Integer, Collection<String>> aggregationLevels = getAggregationLevels();
+
+            for ( AnalyticsTablePartition partition : PartitionUtils.getTablePartitions( tables ) )
+            {
+                tableManager.applyIncrementalUpdate( params, partition, aggregationLevels );
+
+                clock.logTime( "Replaced changed data in partition: " + partition.getTableName() );
+            }
+        }
+        finally
+        {
+            tableManager.completeIncrementalUpdate();
+        }
+
+        tableManager.dropRollupTables( params, tables );
+
+        clock.logTime( "Incremental table update done: " + tableType.getTableName() );
+        notifier.notify( jobId, "Table update done" );
+    }
+
     /**
      * Drops the given temporary analytics tables.
      *
@@ -276,6 +354,29 @@ public class DefaultAnalyticsTableService
         ConcurrentUtils.waitForCompletion( futures );
     }
 
+    /**
+     * Populates the given rollup tables.
+     *
+     * @param rollupTables the list of rollup {@link AnalyticsTable}.
+     */
+    private void populateRollupTables( List<AnalyticsTable> rollupTables )
+    {
+        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( rollupTables );
+
+        int taskNo = Math.min( getProcessNo(), partitions.size() );
+
+        ConcurrentLinkedQueue<AnalyticsTablePartition> partitionQ = new ConcurrentLinkedQueue<>( partitions );
+
+        List<Future<?>> futures = new ArrayList<>();
+
+        for ( int i = 0; i < taskNo; i++ )
+        {
+            futures.add( tableManager.populateRollupTablesAsync( partitionQ ) );
+        }
+
+        ConcurrentUtils.waitForCompletion( futures );
+    }
+
     /**
      * Applies aggregation levels to the given analytics tables.
      *
@@ -286,21 +387,13 @@ public class DefaultAnalyticsTableService
     {
         List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
 
-        int maxLevels = organisationUnitService.getNumberOfOrganisationalLevels();
-
         int aggLevels = 0;
 
-        levelLoop : for ( int i = 0; i < maxLevels; i++ )
+        for ( Map.Entry<Integer, Collection<String>> entry : getAggregationLevels().entrySet() )
         {
-            int level = maxLevels - i;
-
-            Collection<String> dataElements = IdentifiableObjectUtils.getUids(
-                dataElementService.getDataElementsByAggregationLevel( level ) );
+            int level = entry.getKey();
 
-            if ( dataElements.isEmpty() )
-            {
-                continue levelLoop;
-            }
+            Collection<String> dataElements = entry.getValue();
 
             ConcurrentLinkedQueue<AnalyticsTablePartition> partitionQ = new ConcurrentLinkedQueue<>( partitions );
 
@@ -319,6 +412,35 @@ public class DefaultAnalyticsTableService
         return aggLevels;
     }
 
+    /**
+     * Returns a mapping of aggregation level to the identifiers of the data
+     * elements with that aggregation level, ordered from the lowest to the
+     * highest level in the hierarchy. Levels without data elements are omitted.
+     *
+     * @return a mapping of aggregation level to data element identifiers.
+     */
+    private Map<Integer, Collection<String>> getAggregationLevels()
+    {
+        Map<Integer, Collection<String>> aggregationLevels = new LinkedHashMap<>();
+
+        int maxLevels = organisationUnitService.getNumberOfOrganisationalLevels();
+
+        for ( int i = 0; i < maxLevels; i++ )
+        {
+            int level = maxLevels - i;
+
+            Collection<String> dataElements = IdentifiableObjectUtils.getUids(
+                dataElementService.getDataElementsByAggregationLevel( level ) );
+
+            if ( !dataElements.isEmpty() )
+            {
+                aggregationLevels.put( level, dataElements );
+            }
+        }
+
+        return aggregationLevels;
+    }
+
     /**
      * Vacuums the given analytics tables.
      *
@@ -32,6 +32,7 @@ import static com.google.common.collect.Lists.newArrayList;
 import static org.hisp.dhis.analytics.ColumnDataType.*;
 import static org.hisp.dhis.analytics.ColumnNotNullConstraint.NOT_NULL;
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.removeQuote;
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
 import static org.hisp.dhis.dataapproval.DataApprovalLevelService.APPROVAL_LEVEL_UNAPPROVED;
 import static org.hisp.dhis.util.DateUtils.getLongDateString;
@@ -40,9 +41,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -57,6 +60,7 @@ import org.hisp.dhis.analytics.ColumnDataType;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
+import org.hisp.dhis.calendar.Calendar;
 import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryOptionGroupSet;
 import org.hisp.dhis.category.CategoryService;
@@ -71,6 +75,7 @@ import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupSet;
 import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.resourcetable.ResourceTableService;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
@@ -82,6 +87,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -99,6 +105,20 @@ import com.google.common.collect.Sets;
  * and the category dimensions, as well as organisation unit group set dimensions.
  * <p>
  * This analytics table is partitioned by year.
+ * <p>
+ * The analytics table supports incremental updates. Data values which were
+ * created, updated or deleted since the last update are collected into a delta
+ * table of changed data element, period, organisation unit and attribute option
+ * combination slices. The slices are then removed from and repopulated in the
+ * existing yearly partitions, without creating and swapping temporary tables.
+ * <p>
+ * When enabled through {@link SettingKey#GENERATE_ANALYTICS_ROLLUP_TABLES}, a
+ * rollup table with the same yearly partitions is generated from the analytics
+ * table during full updates. See {@link RollupUtils}. Partial and incremental
+ * updates which do not regenerate the rollup table drop the rollup partitions
+ * of the updated years. Full updates without rollup tables and updates of the
+ * latest partition, which remove updated data from the yearly partitions, drop
+ * the rollup table.
  *
  * @author Lars Helge Overland
  */
@@ -222,9 +242,227 @@ public class JdbcAnalyticsTableManager
         invokeTimeAndLog( sql, "Remove updated data values" );
     }
 
+    @Override
+    public boolean isIncrementalUpdateSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public List<AnalyticsTable> prepareIncrementalUpdate( AnalyticsTableUpdateParams params )
+    {
+        Date lastFullTableUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE );
+        Date lastLatestPartitionUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE );
+
+        Assert.notNull( lastFullTableUpdate, "A full analytics table update process must be run prior to an incremental update process" );
+
+        final Date startDate = DateUtils.getLatest( lastLatestPartitionUpdate, lastFullTableUpdate );
+        final Date endDate = params.getStartTime();
+        final String deltaTable = getDeltaTableName();
+
+        dropTable( deltaTable );
+
+        String sql =
+            "create table " + deltaTable + " as " +
+            "select distinct dv.dataelementid, dv.periodid, dv.sourceid, dv.attributeoptioncomboid, " +
+                "de.uid as dx, ps.iso as pe, ps.year as year, ou.uid as ou, ao.uid as ao " +
+            "from datavalue dv " +
+            "inner join dataelement de on dv.dataelementid=de.dataelementid " +
+            "inner join _periodstructure ps on dv.periodid=ps.periodid " +
+            "inner join organisationunit ou on dv.sourceid=ou.organisationunitid " +
+            "inner join categoryoptioncombo ao on dv.attributeoptioncomboid=ao.categoryoptioncomboid " +
+            "where de.domaintype = 'AGGREGATE' " +
+            "and dv.lastupdated >= '" + getLongDateString( startDate ) + "' " +
+            "and dv.lastupdated < '" + getLongDateString( endDate ) + "'";
+
+        invokeTimeAndLog( sql, String.format( "Collect data changed since: '%s'", getLongDateString( startDate ) ) );
+
+        List<Integer> dataYears = jdbcTemplate.queryForList( "select distinct year from " + deltaTable, Integer.class );
+
+        Calendar calendar = PeriodType.getCalendar();
+
+        AnalyticsTable table = new AnalyticsTable( getAnalyticsTableType(), getDimensionColumns(), getValueColumns() );
+
+        dataYears.stream().sorted().forEach( year -> {
+            String partitionName = PartitionUtils.getPartitionName( getTableName(), year );
+
+            if ( partitionManager.tableExists( partitionName ) )
+            {
+                table.addPartitionTable( year, PartitionUtils.getStartDate( calendar, year ), PartitionUtils.getEndDate( calendar, year ) );
+            }
+            else
+            {
+                log.warn( String.format( "Partition does not exist, changed data will be included in next full update: '%s'", partitionName ) );
+            }
+        } );
+
+        if ( !table.hasPartitionTables() )
+        {
+            dropTable( deltaTable );
+
+            return newArrayList();
+        }
+
+        analyzeTable( deltaTable );
+
+        return newArrayList( table );
+    }
+
+    @Override
+    @Transactional
+    public void applyIncrementalUpdate( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition,
+        Map<Integer, Collection<String>> aggregationLevels )
+    {
+        final String tableName = partition.getTableName();
+        final String deltaTable = getDeltaTableName();
+        final String deltaClause =
+            "ax.dx=dt.dx and ax.pe=dt.pe and ax.ou=dt.ou and ax.ao=dt.ao " +
+            "and dt.year = " + partition.getYear() + " ";
+
+        String sql =
+            "delete from " + quote( getTableName() ) + " ax " +
+            "using " + deltaTable + " dt " +
+            "where " + deltaClause +
+            "and ax.year = " + partition.getYear();
+
+        invokeTimeAndLog( sql, String.format( "Remove changed data from %s", tableName ) );
+
+        String deltaJoinClause =
+            "inner join " + deltaTable + " dt on dv.dataelementid=dt.dataelementid and dv.periodid=dt.periodid " +
+                "and dv.sourceid=dt.sourceid and dv.attributeoptioncomboid=dt.attributeoptioncomboid ";
+
+        populateTable( params, partition, tableName, deltaJoinClause );
+
+        for ( Map.Entry<Integer, Collection<String>> entry : aggregationLevels.entrySet() )
+        {
+            sql =
+                "update " + tableName + " ax " +
+                "set " + getAggregationLevelSetClause( entry.getKey() ) + " " +
+                "from " + deltaTable + " dt " +
+                "where " + deltaClause +
+                "and ax.level > " + entry.getKey() + " " +
+                "and ax.dx in (" + getQuotedCommaDelimitedString( entry.getValue() ) + ")";
+
+            invokeTimeAndLog( sql, String.format( "Apply aggregation level %d to %s", entry.getKey(), tableName ) );
+        }
+    }
+
+    @Override
+    public void completeIncrementalUpdate()
+    {
+        dropTable( getDeltaTableName() );
+    }
+
+    @Override
+    public List<AnalyticsTable> getRollupTables( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        if ( !isRollupEnabled() || params.isLatestUpdate() ||
+            params.getSkipTableTypes().contains( AnalyticsTableType.DATA_VALUE_ROLLUP ) )
+        {
+            return newArrayList();
+        }
+
+        Set<String> rollupColumns = RollupUtils.getDimensionNames();
+        rollupColumns.add( "year" );
+
+        List<AnalyticsTable> rollupTables = new ArrayList<>();
+
+        for ( AnalyticsTable table : tables )
+        {
+            List<AnalyticsTableColumn> dimensionColumns = table.getDimensionColumns().stream()
+                .filter( col -> rollupColumns.contains( removeQuote( col.getName() ) ) )
+                .map( col -> new AnalyticsTableColumn( col.getName(), col.getDataType(), col.getNotNull(), col.getName() ) )
+                .collect( Collectors.toList() );
+
+            List<AnalyticsTableColumn> valueColumns = Lists.newArrayList(
+                new AnalyticsTableColumn( quote( "daysxvalue" ), DOUBLE, "sum(daysxvalue)" ),
+                new AnalyticsTableColumn( quote( "value" ), DOUBLE, "sum(value)" ) );
+
+            AnalyticsTable rollupTable = new AnalyticsTable( AnalyticsTableType.DATA_VALUE_ROLLUP, dimensionColumns, valueColumns );
+
+            table.getTablePartitions().forEach( p -> rollupTable.addPartitionTable( p.getYear(), p.getStartDate(), p.getEndDate() ) );
+
+            rollupTables.add( rollupTable );
+        }
+
+        return rollupTables;
+    }
+
+    @Override
+    @Async
+    public Future<?> populateRollupTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    {
+        taskLoop:
+        while ( true )
+        {
+            AnalyticsTablePartition partition = partitions.poll();
+
+            if ( partition == null )
+            {
+                break taskLoop;
+            }
+
+            final String sourceTable = PartitionUtils.getPartitionName( getTableName() + TABLE_TEMP_SUFFIX, partition.getYear() );
+            final List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
+            final List<AnalyticsTableColumn> values = partition.getMasterTable().getValueColumns();
+            final String groupBy = columns.stream().map( AnalyticsTableColumn::getName ).collect( Collectors.joining( "," ) );
+
+            String sql = "insert into " + partition.getTempTableName() + " (";
+
+            for ( AnalyticsTableColumn col : ListUtils.union( columns, values ) )
+            {
+                sql += col.getName() + ",";
+            }
+
+            sql = TextUtils.removeLastComma( sql ) + ") select ";
+
+            for ( AnalyticsTableColumn col : ListUtils.union( columns, values ) )
+            {
+                sql += col.getAlias() + ",";
+            }
+
+            sql = TextUtils.removeLastComma( sql ) + " " +
+                "from " + sourceTable + " " +
+                "where value is not null " +
+                "group by " + groupBy;
+
+            invokeTimeAndLog( sql, String.format( "Populate rollup table %s", partition.getTempTableName() ) );
+        }
+
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    public void dropRollupTables( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        final String rollupTable = AnalyticsTableType.DATA_VALUE_ROLLUP.getTableName();
+
+        if ( !params.isLatestUpdate() && ( params.isPartialUpdate() || params.isIncrementalUpdate() ) )
+        {
+            List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables ).stream()
+                .filter( p -> !p.isLatestPartition() )
+                .collect( Collectors.toList() );
+
+            partitions.forEach( p -> dropTable( PartitionUtils.getPartitionName( rollupTable, p.getYear() ) ) );
+
+            log.info( String.format( "Dropped rollup table partitions: %s", partitions ) );
+        }
+        else
+        {
+            dropTableCascade( rollupTable );
+
+            log.info( String.format( "Dropped rollup table: '%s'", rollupTable ) );
+        }
+    }
+
     @Override
     protected List<String> getPartitionChecks( AnalyticsTablePartition partition )
     {
+        if ( AnalyticsTableType.DATA_VALUE_ROLLUP == partition.getMasterTable().getTableType() )
+        {
+            return newArrayList( "year = " + partition.getYear() + "" );
+        }
+
         return partition.isLatestPartition() ?
             newArrayList() :
             newArrayList(
@@ -234,6 +472,19 @@ public class JdbcAnalyticsTableManager
 
     @Override
     protected void populateTable( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        populateTable( params, partition, partition.getTempTableName(), StringUtils.EMPTY );
+    }
+
+    /**
+     * Populates the given analytics table.
+     *
+     * @param tableName the name of the table to populate.
+     * @param deltaJoinClause join clause to constrain the data to changed data,
+     *        can be empty.
+     */
+    private void populateTable( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition,
+        String tableName, String deltaJoinClause )
     {
         final String dbl = statementBuilder.getDoubleColumnType();
         final boolean skipDataTypeValidation = (Boolean) systemSettingManager.getSystemSetting( SettingKey.SKIP_DATA_TYPE_VALIDATION_IN_ANALYTICS_TABLE_EXPORT );
@@ -244,24 +495,27 @@ public class JdbcAnalyticsTableManager
         final String zeroValueClause = "(dv.value != '0' or de.aggregationtype in ('" + AggregationType.AVERAGE + ',' + AggregationType.AVERAGE_SUM_ORG_UNIT + "')" + zeroValueCondition + ") ";
         final String intClause = zeroValueClause + numericClause;
 
-        populateTable( params, partition, "cast(dv.value as " + dbl + ")", "null", ValueType.NUMERIC_TYPES, intClause );
-        populateTable( params, partition, "1", "null", Sets.newHashSet( ValueType.BOOLEAN, ValueType.TRUE_ONLY ), "dv.value = 'true'" );
-        populateTable( params, partition, "0", "null", Sets.newHashSet( ValueType.BOOLEAN ), "dv.value = 'false'" );
-        populateTable( params, partition, "null", "dv.value", Sets.union( ValueType.TEXT_TYPES, ValueType.DATE_TYPES ), null );
+        populateTable( params, partition, tableName, deltaJoinClause, "cast(dv.value as " + dbl + ")", "null", ValueType.NUMERIC_TYPES, intClause );
+        populateTable( params, partition, tableName, deltaJoinClause, "1", "null", Sets.newHashSet( ValueType.BOOLEAN, ValueType.TRUE_ONLY ), "dv.value = 'true'" );
+        populateTable( params, partition, tableName, deltaJoinClause, "0", "null", Sets.newHashSet( ValueType.BOOLEAN ), "dv.value = 'false'" );
+        populateTable( params, partition, tableName, deltaJoinClause, "null", "dv.value", Sets.union( ValueType.TEXT_TYPES, ValueType.DATE_TYPES ), null );
     }
 
     /**
      * Populates the given analytics table.
      *
+     * @param tableName the name of the table to populate.
+     * @param deltaJoinClause join clause to constrain the data to changed data,
+     *        can be empty.
      * @param valueExpression numeric value expression.
      * @param textValueExpression textual value expression.
      * @param valueTypes data element value types to include data for.
      * @param whereClause where clause to constrain data query.
      */
     private void populateTable( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition,
-        String valueExpression, String textValueExpression, Set<ValueType> valueTypes, String whereClause )
+        String tableName, String deltaJoinClause, String valueExpression, String textValueExpression,
+        Set<ValueType> valueTypes, String whereClause )
     {
-        final String tableName = partition.getTempTableName();
         final String valTypes = TextUtils.getQuotedCommaDelimitedString( ObjectUtils.asStringList( valueTypes ) );
         final boolean respectStartEndDates = (Boolean) systemSettingManager.getSystemSetting( SettingKey.RESPECT_META_DATA_START_END_DATES_IN_ANALYTICS_TABLE_EXPORT );
         final String approvalClause = getApprovalJoinClause( partition.getYear() );
@@ -269,7 +523,7 @@ public class JdbcAnalyticsTableManager
             "and dv.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' " :
             "and ps.year = " + partition.getYear() + " ";
 
-        String sql = "insert into " + partition.getTempTableName() + " (";
+        String sql = "insert into " + tableName + " (";
 
         List<AnalyticsTableColumn> columns = getDimensionColumns( partition.getYear() );
         List<AnalyticsTableColumn> values = partition.getMasterTable().getValueColumns();
@@ -309,7 +563,7 @@ public class JdbcAnalyticsTableManager
             "inner join _categorystructure acs on dv.attributeoptioncomboid=acs.categoryoptioncomboid " +
             "inner join _categoryoptioncomboname aon on dv.attributeoptioncomboid=aon.categoryoptioncomboid " +
             "inner join _categoryoptioncomboname con on dv.categoryoptioncomboid=con.categoryoptioncomboid " +
-
+            deltaJoinClause +
             approvalClause +
             "where de.valuetype in (" + valTypes + ") " +
             "and de.domaintype = 'AGGREGATE' " +
@@ -499,16 +753,7 @@ public class JdbcAnalyticsTableManager
 
             StringBuilder sql = new StringBuilder( "update " + partition.getTempTableName() + " set " );
 
-            for ( int i = 0; i < aggregationLevel; i++ )
-            {
-                int level = i + 1;
-
-                String column = quote( DataQueryParams.LEVEL_PREFIX + level );
-
-                sql.append( column + " = null," );
-            }
-
-            sql.deleteCharAt( sql.length() - ",".length() );
+            sql.append( getAggregationLevelSetClause( aggregationLevel ) );
 
             sql.append( " where level > " + aggregationLevel );
             sql.append( " and dx in (" + getQuotedCommaDelimitedString( dataElements ) + ")" );
@@ -521,6 +766,43 @@ public class JdbcAnalyticsTableManager
         return ConcurrentUtils.getImmediateFuture();
     }
 
+    /**
+     * Returns the set clause which nulls the organisation unit level columns
+     * above the given aggregation level.
+     *
+     * @param aggregationLevel the aggregation level.
+     */
+    private String getAggregationLevelSetClause( int aggregationLevel )
+    {
+        List<String> columns = new ArrayList<>();
+
+        for ( int i = 0; i < aggregationLevel; i++ )
+        {
+            int level = i + 1;
+
+            columns.add( quote( DataQueryParams.LEVEL_PREFIX + level ) + " = null" );
+        }
+
+        return StringUtils.join( columns, "," );
+    }
+
+    /**
+     * Indicates whether rollup tables are enabled.
+     */
+    private boolean isRollupEnabled()
+    {
+        return (Boolean) systemSettingManager.getSystemSetting( SettingKey.GENERATE_ANALYTICS_ROLLUP_TABLES );
+    }
+
+    /**
+     * Returns the name of the table holding the data changed since the
+     * last update.
+     */
+    private String getDeltaTableName()
+    {
+        return getTableName() + "_delta" + TABLE_TEMP_SUFFIX;
+    }
+
     @Override
     @Async
     public Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
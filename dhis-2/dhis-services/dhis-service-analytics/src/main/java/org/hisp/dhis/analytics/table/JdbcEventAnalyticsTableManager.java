@@ -28,10 +28,12 @@ package org.hisp.dhis.analytics.table;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import static org.hisp.dhis.analytics.ColumnDataType.BIGINT;
 import static org.hisp.dhis.analytics.ColumnDataType.CHARACTER_11;
 import static org.hisp.dhis.analytics.ColumnDataType.CHARACTER_50;
 import static org.hisp.dhis.analytics.ColumnDataType.DOUBLE;
 import static org.hisp.dhis.analytics.ColumnDataType.GEOMETRY;
+import static org.hisp.dhis.analytics.ColumnDataType.INTEGER;
 import static org.hisp.dhis.analytics.ColumnDataType.TEXT;
 import static org.hisp.dhis.analytics.ColumnDataType.TIMESTAMP;
 import static org.hisp.dhis.analytics.ColumnNotNullConstraint.NOT_NULL;
@@ -42,6 +44,8 @@ import static org.hisp.dhis.util.DateUtils.getLongDateString;
 import static org.hisp.dhis.analytics.util.AnalyticsUtils.getColumnType;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableSet;
@@ -60,6 +64,9 @@ import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.commons.collection.ListUtils;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.dataapproval.DataApprovalLevelService;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.jdbc.StatementBuilder;
@@ -73,6 +80,7 @@ import org.hisp.dhis.system.database.DatabaseInfo;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 import org.hisp.dhis.util.DateUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
@@ -92,6 +100,20 @@ public class JdbcEventAnalyticsTableManager
     public static final String OU_NAME_COL_SUFFIX = "_name";
     public static final String OU_GEOMETRY_COL_SUFFIX = "_geom";
 
+    /**
+     * Highest zoom level for which event cluster tiles are generated.
+     */
+    public static final int MAX_CLUSTER_TILE_ZOOM = 12;
+
+    /**
+     * Number of cluster cells along each axis of a cluster tile.
+     */
+    public static final int CLUSTER_CELLS_PER_TILE = 8;
+
+    private static final double WEB_MERCATOR_EXTENT = 20037508.342789244;
+
+    private static final double WEB_MERCATOR_MAX_LAT = 85.0511;
+
     public JdbcEventAnalyticsTableManager( IdentifiableObjectManager idObjectManager,
         OrganisationUnitService organisationUnitService, CategoryService categoryService,
         SystemSettingManager systemSettingManager, DataApprovalLevelService dataApprovalLevelService,
@@ -274,6 +296,123 @@ public class JdbcEventAnalyticsTableManager
         }
     }
 
+    @Override
+    public List<AnalyticsTable> getRollupTables( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        if ( !isEventClusterEnabled() || params.isPartialUpdate() || !databaseInfo.isSpatialSupport() ||
+            params.getSkipTableTypes().contains( AnalyticsTableType.EVENT_CLUSTER ) )
+        {
+            return Lists.newArrayList();
+        }
+
+        List<AnalyticsTable> clusterTables = new ArrayList<>();
+
+        for ( AnalyticsTable table : tables )
+        {
+            List<AnalyticsTableColumn> dimensionColumns = Lists.newArrayList(
+                new AnalyticsTableColumn( quote( "zoom" ), INTEGER, NOT_NULL, "zoom" )
+                    .withIndexColumns( Lists.newArrayList( quote( "zoom" ), quote( "tilex" ), quote( "tiley" ) ) ),
+                new AnalyticsTableColumn( quote( "tilex" ), INTEGER, NOT_NULL, "cx / " + CLUSTER_CELLS_PER_TILE ).withSkipIndex( true ),
+                new AnalyticsTableColumn( quote( "tiley" ), INTEGER, NOT_NULL, "cy / " + CLUSTER_CELLS_PER_TILE ).withSkipIndex( true ),
+                new AnalyticsTableColumn( quote( PREFIX_ORGUNITLEVEL + 1 ), CHARACTER_11, NOT_NULL, PREFIX_ORGUNITLEVEL + 1 ) );
+
+            List<AnalyticsTableColumn> valueColumns = Lists.newArrayList(
+                new AnalyticsTableColumn( quote( "count" ), BIGINT, "count(psi)" ),
+                new AnalyticsTableColumn( quote( "center" ), TEXT, "case when count(psi) = 1 then ST_AsGeoJSON(array_to_string(array_agg(psigeometry), ','), 6) " +
+                    "else ST_AsGeoJSON(ST_Centroid(ST_Collect(psigeometry)), 6) end" ),
+                new AnalyticsTableColumn( quote( "extent" ), TEXT, "cast(ST_Extent(psigeometry) as text)" ),
+                new AnalyticsTableColumn( quote( "points" ), TEXT, "case when count(psi) = 1 then array_to_string(array_agg(psi), ',') end" ) );
+
+            clusterTables.add( new AnalyticsTable( AnalyticsTableType.EVENT_CLUSTER, dimensionColumns, valueColumns, table.getProgram() ) );
+        }
+
+        return clusterTables;
+    }
+
+    /**
+     * Populates event cluster tables from the temporary event analytics tables.
+     * Events are assigned to a grid of {@link #CLUSTER_CELLS_PER_TILE} cells per
+     * tile axis in web mercator for each zoom level up to
+     * {@link #MAX_CLUSTER_TILE_ZOOM}, and one row is written per cell and root
+     * organisation unit.
+     */
+    @Override
+    @Async
+    public Future<?> populateRollupTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    {
+        taskLoop:
+        while ( true )
+        {
+            AnalyticsTablePartition partition = partitions.poll();
+
+            if ( partition == null )
+            {
+                break taskLoop;
+            }
+
+            final AnalyticsTable table = partition.getMasterTable();
+            final String sourceTable = getTableName() + TABLE_TEMP_SUFFIX + PartitionUtils.SEP + table.getProgram().getUid().toLowerCase();
+            final List<AnalyticsTableColumn> columns = ListUtils.union( table.getDimensionColumns(), table.getValueColumns() );
+            final String cellSize = "(" + ( 2 * WEB_MERCATOR_EXTENT ) + " / (" + CLUSTER_CELLS_PER_TILE + " * power(2, z.zoom)))";
+            final String maxCell = "(" + CLUSTER_CELLS_PER_TILE + " * power(2, z.zoom) - 1)";
+            final String uidLevel = quote( PREFIX_ORGUNITLEVEL + 1 );
+
+            String sql = "insert into " + partition.getTempTableName() + " (";
+
+            for ( AnalyticsTableColumn col : columns )
+            {
+                sql += col.getName() + ",";
+            }
+
+            sql = TextUtils.removeLastComma( sql ) + ") select ";
+
+            for ( AnalyticsTableColumn col : columns )
+            {
+                sql += col.getAlias() + ",";
+            }
+
+            sql = TextUtils.removeLastComma( sql ) + " " +
+                "from (" +
+                    "select z.zoom, ev.psi, ev.psigeometry, ev." + uidLevel + ", " +
+                    "cast(greatest(0, least(" + maxCell + ", floor((ST_X(ev.pt) + " + WEB_MERCATOR_EXTENT + ") / " + cellSize + "))) as integer) as cx, " +
+                    "cast(greatest(0, least(" + maxCell + ", floor((" + WEB_MERCATOR_EXTENT + " - ST_Y(ev.pt)) / " + cellSize + "))) as integer) as cy " +
+                    "from (" +
+                        "select psi, psigeometry, " + uidLevel + ", " +
+                        "ST_Transform(ST_SetSRID(ST_Centroid(psigeometry), 4326), 3857) as pt " +
+                        "from " + sourceTable + " " +
+                        "where psigeometry is not null " +
+                        "and " + uidLevel + " is not null " +
+                        "and ST_Y(ST_Centroid(psigeometry)) between -" + WEB_MERCATOR_MAX_LAT + " and " + WEB_MERCATOR_MAX_LAT + ") as ev " +
+                    "cross join generate_series(0, " + MAX_CLUSTER_TILE_ZOOM + ") as z(zoom)) as cl " +
+                "group by zoom, cx, cy, " + uidLevel;
+
+            invokeTimeAndLog( sql, String.format( "Populate event cluster table %s", partition.getTempTableName() ) );
+        }
+
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    /**
+     * Drops the event cluster tables of the given event tables on full updates
+     * where cluster tables are not generated. Cluster tables are kept on partial
+     * updates and reflect the last full update.
+     */
+    @Override
+    public void dropRollupTables( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        if ( params.isPartialUpdate() )
+        {
+            return;
+        }
+
+        for ( AnalyticsTable table : tables )
+        {
+            AnalyticsTable clusterTable = new AnalyticsTable( AnalyticsTableType.EVENT_CLUSTER, Lists.newArrayList(), Lists.newArrayList(), table.getProgram() );
+
+            dropTable( clusterTable.getTableName() );
+        }
+    }
+
     @Override
     public List<AnalyticsTableColumn> getFixedColumns()
     {
@@ -530,6 +669,11 @@ public class JdbcEventAnalyticsTableManager
         return jdbcTemplate.queryForList( sql, Integer.class );
     }
 
+    private boolean isEventClusterEnabled()
+    {
+        return (Boolean) systemSettingManager.getSystemSetting( SettingKey.GENERATE_ANALYTICS_EVENT_CLUSTER_TABLES );
+    }
+
     private AnalyticsTableColumn toCharColumn( String name, String prefix, Date created )
     {
         return new AnalyticsTableColumn( name, CHARACTER_11, prefix + "." + name ).withCreated( created );
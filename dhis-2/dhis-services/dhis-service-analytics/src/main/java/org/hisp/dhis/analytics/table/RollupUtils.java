@@ -0,0 +1,132 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.analytics.DataQueryParams.LEVEL_PREFIX;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.common.DimensionalObject;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.PeriodType;
+
+/**
+ * Utilities for the aggregate analytics rollup tables. A rollup table holds
+ * the sum of the values of the analytics table per data element, organisation
+ * unit at the upper levels of the hierarchy and period of monthly or lower
+ * frequency. A query which is constrained to these dimensions and is summed
+ * can be answered from the rollup table with the same result as from the
+ * analytics table.
+ */
+public class RollupUtils
+{
+    /**
+     * The lowest organisation unit level included in rollup tables.
+     */
+    public static final int MAX_ORGUNIT_LEVEL = 3;
+
+    /**
+     * Returns the period types included in rollup tables, which are the
+     * period types with monthly or lower frequency.
+     *
+     * @return a list of {@link PeriodType}.
+     */
+    public static List<PeriodType> getPeriodTypes()
+    {
+        return PeriodType.getAvailablePeriodTypes().stream()
+            .filter( pt -> pt.getFrequencyOrder() >= MonthlyPeriodType.FREQUENCY_ORDER )
+            .collect( Collectors.toList() );
+    }
+
+    /**
+     * Returns the names of the dimension columns of rollup tables, which are
+     * the data dimension, the organisation unit levels up to and including
+     * {@link #MAX_ORGUNIT_LEVEL} and the period types of {@link #getPeriodTypes()}.
+     *
+     * @return a set of unquoted column names.
+     */
+    public static Set<String> getDimensionNames()
+    {
+        Set<String> names = new HashSet<>();
+
+        names.add( DATA_X_DIM_ID );
+
+        for ( int level = 1; level <= MAX_ORGUNIT_LEVEL; level++ )
+        {
+            names.add( LEVEL_PREFIX + level );
+        }
+
+        getPeriodTypes().forEach( pt -> names.add( pt.getName().toLowerCase() ) );
+
+        return names;
+    }
+
+    /**
+     * Indicates whether the given query can be answered from a rollup table.
+     * This requires that the query is a sum aggregation, and that all dimensions
+     * and filters of the query are dimension columns of rollup tables. Queries
+     * which require columns not present in rollup tables, such as data approval
+     * and start and end date restrictions, are not supported.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @return true if the query can be answered from a rollup table.
+     */
+    public static boolean isRollupQuery( DataQueryParams params )
+    {
+        AnalyticsAggregationType aggType = params.getAggregationType();
+
+        if ( aggType == null || !params.isAggregation() || !aggType.isAggregationType( AggregationType.SUM ) ||
+            aggType.isFirstOrLastOrLastInPeriodAggregationType() || params.isDisaggregation() ||
+            params.hasPreAggregateMeasureCriteria() || params.isDataApproval() || params.hasStartEndDate() ||
+            params.isRestrictByOrgUnitOpeningClosedDate() || params.isRestrictByCategoryOptionStartEndDate() ||
+            params.isTimely() )
+        {
+            return false;
+        }
+
+        Set<String> dimensionNames = getDimensionNames();
+
+        for ( DimensionalObject dimension : params.getDimensionsAndFilters() )
+        {
+            if ( !dimensionNames.contains( dimension.getDimensionName() ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
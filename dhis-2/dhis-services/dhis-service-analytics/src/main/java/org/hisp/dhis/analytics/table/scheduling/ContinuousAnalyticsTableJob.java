@@ -56,6 +56,10 @@ import lombok.extern.slf4j.Slf4j;
  * update time is persisted using a system setting. A full analytics table update is performed
  * when the current time is after the next scheduled full update time. Otherwise, a partial
  * update of the latest analytics partition table is performed.
+ * <p>
+ * When {@link ContinuousAnalyticsJobParameters#isIncrementalUpdate()} is set, tables which
+ * support it are updated incrementally instead, meaning that data which changed since the
+ * last update is replaced directly in the existing yearly partitions.
  *
  * @author Lars Helge Overland
  */
@@ -120,10 +124,12 @@ public class ContinuousAnalyticsTableJob
         }
         else
         {
-            log.info( "Performing latest analytics table partition update" );
+            log.info( String.format( "Performing latest analytics table partition update, incremental: %b",
+                parameters.isIncrementalUpdate() ) );
 
             AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
                 .withLatestPartition()
+                .withIncrementalUpdate( parameters.isIncrementalUpdate() )
                 .withSkipResourceTables( true )
                 .withSkipTableTypes( parameters.getSkipTableTypes() )
                 .withJobId( jobConfiguration )
@@ -0,0 +1,179 @@
+package org.hisp.dhis.analytics.data;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.setting.SettingKey.DATABASE_SERVER_CPUS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class DataQuerySchedulerTest
+{
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private DataQueryScheduler scheduler;
+
+    @Before
+    public void setUp()
+    {
+        when( systemSettingManager.getSystemSetting( DATABASE_SERVER_CPUS ) ).thenReturn( 8 );
+
+        scheduler = new DataQueryScheduler( systemSettingManager );
+    }
+
+    @Test
+    public void testExecuteMergesResultsOfAllGroups()
+    {
+        List<List<DataQueryParams>> groups = Arrays.asList( getQueries( 5 ), getQueries( 3 ) );
+
+        AtomicInteger counter = new AtomicInteger();
+
+        Map<String, Object> map = scheduler.execute( groups, query -> {
+            Map<String, Object> values = new HashMap<>();
+            values.put( "key" + counter.incrementAndGet(), 1d );
+            return CompletableFuture.completedFuture( values );
+        }, 2 );
+
+        assertEquals( 8, map.size() );
+    }
+
+    @Test
+    public void testExecuteBoundsConcurrentQueriesPerRequest()
+    {
+        List<List<DataQueryParams>> groups = Arrays.asList( getQueries( 6 ), getQueries( 6 ) );
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger counter = new AtomicInteger();
+
+        Map<String, Object> map = scheduler.execute( groups, query -> CompletableFuture.supplyAsync( () -> {
+            maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+            sleep( 50 );
+            running.decrementAndGet();
+
+            Map<String, Object> values = new HashMap<>();
+            values.put( "key" + counter.incrementAndGet(), 1d );
+            return values;
+        } ), 3 );
+
+        assertEquals( 12, map.size() );
+        assertTrue( maxRunning.get() <= 3 );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void testExecuteRethrowsQueryFailure()
+    {
+        List<List<DataQueryParams>> groups = Arrays.asList( getQueries( 2 ) );
+
+        scheduler.execute( groups, query -> {
+            CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+            future.completeExceptionally( new IllegalStateException( "Query failed" ) );
+            return future;
+        }, 2 );
+    }
+
+    @Test
+    public void testExecuteCancelsRunningQueriesOnFailure()
+    {
+        List<List<DataQueryParams>> groups = Arrays.asList( getQueries( 2 ) );
+
+        List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>();
+
+        try
+        {
+            scheduler.execute( groups, query -> {
+                CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+
+                if ( futures.isEmpty() )
+                {
+                    future.completeExceptionally( new IllegalStateException( "Query failed" ) );
+                }
+
+                futures.add( future );
+                return future;
+            }, 2 );
+
+            fail( "Expected query failure" );
+        }
+        catch ( IllegalStateException ex )
+        {
+            assertEquals( "Query failed", ex.getMessage() );
+        }
+
+        assertEquals( 2, futures.size() );
+        assertTrue( futures.get( 1 ).isCancelled() );
+    }
+
+    private List<DataQueryParams> getQueries( int count )
+    {
+        List<DataQueryParams> queries = new ArrayList<>();
+
+        for ( int i = 0; i < count; i++ )
+        {
+            queries.add( DataQueryParams.newBuilder().build() );
+        }
+
+        return queries;
+    }
+
+    private static void sleep( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.DhisConvenienceTest.createCategory;
+import static org.hisp.dhis.DhisConvenienceTest.createCategoryOption;
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_DATA_X;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_ORGUNIT;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryGroups;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryPlannerParams;
+import org.hisp.dhis.analytics.QueryValidator;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.category.Category;
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.common.BaseDimensionalObject;
+import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.WeeklyPeriodType;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class DefaultQueryPlannerRollupTest
+{
+    private DefaultQueryPlanner subject;
+
+    @Mock
+    private QueryValidator queryValidator;
+
+    @Mock
+    private PartitionManager partitionManager;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private final QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder()
+        .withTableType( AnalyticsTableType.DATA_VALUE ).build();
+
+    @Before
+    public void setUp()
+    {
+        subject = new DefaultQueryPlanner( queryValidator, partitionManager );
+    }
+
+    @Test
+    public void testPlanQueryUsesRollupTable()
+    {
+        when( partitionManager.tableExistsCached( "analytics_rollup_2014" ) ).thenReturn( true );
+
+        List<DataQueryParams> queries = planQuery( createDataElement( 'A', new CategoryCombo() ), monthlyPeriods() );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( "analytics_rollup", queries.get( 0 ).getTableName() );
+    }
+
+    @Test
+    public void testPlanQueryRollupPartitionNotExisting()
+    {
+        when( partitionManager.tableExistsCached( "analytics_rollup_2014" ) ).thenReturn( false );
+
+        List<DataQueryParams> queries = planQuery( createDataElement( 'A', new CategoryCombo() ), monthlyPeriods() );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( "analytics", queries.get( 0 ).getTableName() );
+    }
+
+    @Test
+    public void testPlanQueryNonSumAggregationType()
+    {
+        when( partitionManager.tableExistsCached( "analytics_rollup_2014" ) ).thenReturn( true );
+
+        List<DataQueryParams> queries = planQuery( createDataElement( 'A', ValueType.INTEGER, AggregationType.AVERAGE ), monthlyPeriods() );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( "analytics", queries.get( 0 ).getTableName() );
+    }
+
+    @Test
+    public void testPlanQueryWeeklyPeriods()
+    {
+        when( partitionManager.tableExistsCached( "analytics_rollup_2014" ) ).thenReturn( true );
+
+        List<DimensionalItemObject> periods = Lists.newArrayList( new WeeklyPeriodType().createPeriod( new DateTime( 2014, 4, 9, 0, 0 ).toDate() ) );
+
+        List<DataQueryParams> queries = planQuery( createDataElement( 'A', new CategoryCombo() ), periods );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( "analytics", queries.get( 0 ).getTableName() );
+    }
+
+    @Test
+    public void testPlanQueryCategoryDimension()
+    {
+        when( partitionManager.tableExistsCached( "analytics_rollup_2014" ) ).thenReturn( true );
+
+        Category category = createCategory( 'A', createCategoryOption( 'A' ) );
+
+        DataQueryParams params = DataQueryParams.newBuilder( createDataQueryParams( createDataElement( 'A', new CategoryCombo() ), monthlyPeriods() ) )
+            .addDimension( new BaseDimensionalObject( category.getUid(), DimensionType.CATEGORY, category.getCategoryOptions() ) )
+            .build();
+
+        List<DataQueryParams> queries = subject.planQuery( params, plannerParams ).getAllQueries();
+
+        assertEquals( 1, queries.size() );
+        assertEquals( "analytics", queries.get( 0 ).getTableName() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private List<DimensionalItemObject> monthlyPeriods()
+    {
+        return Lists.newArrayList( new MonthlyPeriodType().createPeriod( new DateTime( 2014, 4, 1, 0, 0 ).toDate() ) );
+    }
+
+    private List<DataQueryParams> planQuery( DimensionalItemObject dataElement, List<? extends DimensionalItemObject> periods )
+    {
+        DataQueryGroups queryGroups = subject.planQuery( createDataQueryParams( dataElement, periods ), plannerParams );
+
+        return queryGroups.getAllQueries();
+    }
+
+    private DataQueryParams createDataQueryParams( DimensionalItemObject dataElement, List<? extends DimensionalItemObject> periods )
+    {
+        return DataQueryParams.newBuilder()
+            .withDimensions( Lists.newArrayList(
+                new BaseDimensionalObject( "dx", DimensionType.DATA_X, DISPLAY_NAME_DATA_X, "display name",
+                    Lists.newArrayList( dataElement ) ),
+                new BaseDimensionalObject( "pe", DimensionType.PERIOD, Lists.newArrayList( periods ) ) ) )
+            .withFilters( Lists.newArrayList(
+                new BaseDimensionalObject( "ou", DimensionType.ORGANISATION_UNIT, null, DISPLAY_NAME_ORGUNIT,
+                    ImmutableList.of( new OrganisationUnit( "bbb", "bbb", "OU_2", null, null, "c2" ) ) ) ) )
+            .build();
+    }
+}
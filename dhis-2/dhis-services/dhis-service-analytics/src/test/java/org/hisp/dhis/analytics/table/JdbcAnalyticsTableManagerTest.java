@@ -44,11 +44,14 @@ import com.google.common.collect.Lists;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
 import org.hisp.dhis.analytics.AnalyticsTableManager;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
 import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.category.CategoryService;
@@ -63,10 +66,13 @@ import org.hisp.dhis.system.database.DatabaseInfo;
 import org.joda.time.DateTime;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -80,6 +86,9 @@ public class JdbcAnalyticsTableManagerTest
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Mock
+    private PartitionManager partitionManager;
+
     @Rule
     public MockitoRule mockitoRule = MockitoJUnit.rule();
 
@@ -91,7 +100,7 @@ public class JdbcAnalyticsTableManagerTest
         subject = new JdbcAnalyticsTableManager( mock( IdentifiableObjectManager.class ), mock( OrganisationUnitService.class ),
             mock( CategoryService.class ), systemSettingManager, mock( DataApprovalLevelService.class ),
             mock( ResourceTableService.class ), mock( AnalyticsTableHookService.class ), mock( StatementBuilder.class ),
-            mock( PartitionManager.class ), mock( DatabaseInfo.class ), jdbcTemplate );
+            partitionManager, mock( DatabaseInfo.class ), jdbcTemplate );
     }
 
     @Test
@@ -183,4 +192,168 @@ public class JdbcAnalyticsTableManagerTest
 
         subject.getAnalyticsTables( params );
     }
+
+    @Test
+    public void testPrepareIncrementalUpdate()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date lastLatestPartitionUpdate = new DateTime( 2019, 3, 1, 9, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .withIncrementalUpdate( true )
+            .build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) ).thenReturn( lastFullTableUpdate );
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) ).thenReturn( lastLatestPartitionUpdate );
+        when( jdbcTemplate.queryForList( Mockito.anyString(), ArgumentMatchers.<Class<Integer>>any() ) ).thenReturn( Lists.newArrayList( 2019, 2017, 2018 ) );
+        when( partitionManager.tableExists( "analytics_2017" ) ).thenReturn( true );
+        when( partitionManager.tableExists( "analytics_2018" ) ).thenReturn( false );
+        when( partitionManager.tableExists( "analytics_2019" ) ).thenReturn( true );
+
+        assertTrue( subject.isIncrementalUpdateSupported() );
+
+        List<AnalyticsTable> tables = subject.prepareIncrementalUpdate( params );
+
+        assertEquals( 1, tables.size() );
+
+        AnalyticsTable table = tables.get( 0 );
+
+        assertEquals( 2, table.getTablePartitions().size() );
+        assertEquals( "analytics_2017", table.getTablePartitions().get( 0 ).getTableName() );
+        assertEquals( "analytics_2019", table.getTablePartitions().get( 1 ).getTableName() );
+        assertFalse( table.getTablePartitions().get( 0 ).isLatestPartition() );
+
+        verify( jdbcTemplate ).execute( Mockito.contains( "dv.lastupdated >= '2019-03-01T09:00:00" ) );
+    }
+
+    @Test
+    public void testPrepareIncrementalUpdateNoExistingPartitions()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .withIncrementalUpdate( true )
+            .build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) ).thenReturn( lastFullTableUpdate );
+        when( jdbcTemplate.queryForList( Mockito.anyString(), ArgumentMatchers.<Class<Integer>>any() ) ).thenReturn( Lists.newArrayList( 2020 ) );
+        when( partitionManager.tableExists( "analytics_2020" ) ).thenReturn( false );
+
+        List<AnalyticsTable> tables = subject.prepareIncrementalUpdate( params );
+
+        assertTrue( tables.isEmpty() );
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testPrepareIncrementalUpdateNoFullTableUpdate()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( new DateTime( 2019, 3, 1, 10, 0 ).toDate() )
+            .withLatestPartition()
+            .withIncrementalUpdate( true )
+            .build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) ).thenReturn( null );
+
+        subject.prepareIncrementalUpdate( params );
+    }
+
+    @Test
+    public void testGetRollupTables()
+    {
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+        List<Integer> dataYears = Lists.newArrayList( 2018, 2019 );
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.GENERATE_ANALYTICS_ROLLUP_TABLES ) ).thenReturn( true );
+        when( jdbcTemplate.queryForList( Mockito.anyString(), ArgumentMatchers.<Class<Integer>>any() ) ).thenReturn( dataYears );
+
+        List<AnalyticsTable> tables = subject.getAnalyticsTables( params );
+        List<AnalyticsTable> rollupTables = subject.getRollupTables( params, tables );
+
+        assertEquals( 1, rollupTables.size() );
+
+        AnalyticsTable rollupTable = rollupTables.get( 0 );
+
+        assertEquals( AnalyticsTableType.DATA_VALUE_ROLLUP, rollupTable.getTableType() );
+        assertEquals( 2, rollupTable.getTablePartitions().size() );
+        assertEquals( "analytics_rollup_2018", rollupTable.getTablePartitions().get( 0 ).getTableName() );
+        assertEquals( "analytics_rollup_temp_2019", rollupTable.getTablePartitions().get( 1 ).getTempTableName() );
+        assertEquals( 2, rollupTable.getValueColumns().size() );
+
+        List<String> columns = rollupTable.getDimensionColumns().stream()
+            .map( AnalyticsTableColumn::getName )
+            .collect( Collectors.toList() );
+
+        assertTrue( columns.contains( "\"dx\"" ) );
+        assertTrue( columns.contains( "\"year\"" ) );
+        assertTrue( columns.contains( "\"monthly\"" ) );
+        assertTrue( columns.contains( "\"yearly\"" ) );
+        assertFalse( columns.contains( "\"co\"" ) );
+        assertFalse( columns.contains( "\"weekly\"" ) );
+    }
+
+    @Test
+    public void testGetRollupTablesLatestUpdate()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( new DateTime( 2019, 3, 1, 10, 0 ).toDate() )
+            .withLatestPartition()
+            .build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.GENERATE_ANALYTICS_ROLLUP_TABLES ) ).thenReturn( true );
+
+        assertTrue( subject.getRollupTables( params, Lists.newArrayList() ).isEmpty() );
+    }
+
+    @Test
+    public void testGetRollupTablesDisabled()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( new DateTime( 2019, 3, 1, 10, 0 ).toDate() )
+            .build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.GENERATE_ANALYTICS_ROLLUP_TABLES ) ).thenReturn( false );
+
+        assertTrue( subject.getRollupTables( params, Lists.newArrayList() ).isEmpty() );
+    }
+
+    @Test
+    public void testDropRollupTablesPartialUpdate()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( new DateTime( 2019, 3, 1, 10, 0 ).toDate() )
+            .withLastYears( 2 )
+            .build();
+
+        when( jdbcTemplate.queryForList( Mockito.anyString(), ArgumentMatchers.<Class<Integer>>any() ) )
+            .thenReturn( Lists.newArrayList( 2018, 2019 ) );
+
+        subject.dropRollupTables( params, subject.getAnalyticsTables( params ) );
+
+        verify( jdbcTemplate ).execute( "drop table if exists analytics_rollup_2018" );
+        verify( jdbcTemplate ).execute( "drop table if exists analytics_rollup_2019" );
+        verify( jdbcTemplate, never() ).execute( "drop table if exists analytics_rollup cascade" );
+    }
+
+    @Test
+    public void testDropRollupTablesFullUpdate()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( new DateTime( 2019, 3, 1, 10, 0 ).toDate() )
+            .build();
+
+        subject.dropRollupTables( params, Lists.newArrayList() );
+
+        verify( jdbcTemplate ).execute( "drop table if exists analytics_rollup cascade" );
+    }
 }
@@ -41,6 +41,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 import org.hisp.dhis.analytics.*;
@@ -578,6 +579,93 @@ public class JdbcEventAnalyticsTableManagerTest
         assertThat( sql.getValue(), containsString( String.format( ouQuery, "name") ) );
     }
 
+    @Test
+    public void verifyGetEventClusterTables()
+    {
+        Program prA = createProgram( 'A' );
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( START_TIME ).build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.GENERATE_ANALYTICS_EVENT_CLUSTER_TABLES ) ).thenReturn( true );
+        when( databaseInfo.isSpatialSupport() ).thenReturn( true );
+
+        List<AnalyticsTable> tables = Lists.newArrayList(
+            new AnalyticsTable( AnalyticsTableType.EVENT, subject.getFixedColumns(), Lists.newArrayList(), prA ) );
+
+        List<AnalyticsTable> clusterTables = subject.getRollupTables( params, tables );
+
+        assertThat( clusterTables, hasSize( 1 ) );
+
+        AnalyticsTable clusterTable = clusterTables.get( 0 );
+
+        assertThat( clusterTable.getTableType(), is( AnalyticsTableType.EVENT_CLUSTER ) );
+        assertThat( clusterTable.getTableName(), is( "analytics_eventcluster_" + prA.getUid().toLowerCase() ) );
+        assertThat( clusterTable.hasPartitionTables(), is( false ) );
+
+        List<String> columns = clusterTable.getDimensionColumns().stream()
+            .map( AnalyticsTableColumn::getName )
+            .collect( Collectors.toList() );
+
+        assertThat( columns, contains( quote( "zoom" ), quote( "tilex" ), quote( "tiley" ), quote( "uidlevel1" ) ) );
+        assertThat( clusterTable.getValueColumns(), hasSize( 4 ) );
+    }
+
+    @Test
+    public void verifyGetEventClusterTablesPartialUpdate()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( START_TIME ).withLatestPartition().build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.GENERATE_ANALYTICS_EVENT_CLUSTER_TABLES ) ).thenReturn( true );
+        when( databaseInfo.isSpatialSupport() ).thenReturn( true );
+
+        assertThat( subject.getRollupTables( params, Lists.newArrayList() ), hasSize( 0 ) );
+    }
+
+    @Test
+    public void verifyGetEventClusterTablesDisabled()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( START_TIME ).build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.GENERATE_ANALYTICS_EVENT_CLUSTER_TABLES ) ).thenReturn( false );
+        when( databaseInfo.isSpatialSupport() ).thenReturn( true );
+
+        assertThat( subject.getRollupTables( params, Lists.newArrayList() ), hasSize( 0 ) );
+    }
+
+    @Test
+    public void verifyPopulateEventClusterTable()
+    {
+        Program prA = createProgram( 'A' );
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( START_TIME ).build();
+
+        when( systemSettingManager.getSystemSetting( SettingKey.GENERATE_ANALYTICS_EVENT_CLUSTER_TABLES ) ).thenReturn( true );
+        when( databaseInfo.isSpatialSupport() ).thenReturn( true );
+
+        List<AnalyticsTable> tables = Lists.newArrayList(
+            new AnalyticsTable( AnalyticsTableType.EVENT, subject.getFixedColumns(), Lists.newArrayList(), prA ) );
+
+        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( subject.getRollupTables( params, tables ) );
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass( String.class );
+
+        subject.populateRollupTablesAsync( new ConcurrentLinkedQueue<>( partitions ) );
+
+        verify( jdbcTemplate ).execute( sql.capture() );
+
+        String uid = prA.getUid().toLowerCase();
+
+        assertThat( sql.getValue(), startsWith( "insert into analytics_eventcluster_temp_" + uid +
+            " (\"zoom\",\"tilex\",\"tiley\",\"uidlevel1\",\"count\",\"center\",\"extent\",\"points\") select " ) );
+        assertThat( sql.getValue(), containsString( "from analytics_event_temp_" + uid + " " ) );
+        assertThat( sql.getValue(), containsString( "generate_series(0, 12)" ) );
+        assertThat( sql.getValue(), endsWith( "group by zoom, cx, cy, \"uidlevel1\"" ) );
+    }
+
     private String toAlias( String template, String uid )
     {
         return String.format( template, uid, uid, uid );
@@ -35,6 +35,7 @@ import org.hisp.dhis.constant.ConstantService;
 import org.hisp.dhis.dataelement.DataElementDefaultDimensionPopulator;
 import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.dataentryform.DataEntryFormService;
+import org.hisp.dhis.expression.ExpressionDependencyService;
 import org.hisp.dhis.expression.ExpressionService;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
@@ -49,6 +50,7 @@ import org.hisp.dhis.scheduling.SchedulingManager;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.startup.ConfigurationPopulator;
 import org.hisp.dhis.startup.DefaultAdminUserPopulator;
+import org.hisp.dhis.startup.ExpressionDependencyIndexPopulator;
 import org.hisp.dhis.startup.ExpressionUpgrader;
 import org.hisp.dhis.startup.I18nLocalePopulator;
 import org.hisp.dhis.startup.ModelUpgrader;
@@ -141,6 +143,18 @@ public class StartupConfig
         return upgrader;
     }
 
+    @Bean( "org.hisp.dhis.startup.ExpressionDependencyIndexPopulator" )
+    public ExpressionDependencyIndexPopulator expressionDependencyIndexPopulator(
+        ExpressionDependencyService expressionDependencyService )
+    {
+        ExpressionDependencyIndexPopulator populator = new ExpressionDependencyIndexPopulator(
+            expressionDependencyService );
+        populator.setName( "ExpressionDependencyIndexPopulator" );
+        populator.setRunlevel( 15 );
+        populator.setSkipInTests( true );
+        return populator;
+    }
+
     @Bean( "org.hisp.dhis.startup.SettingUpgrader" )
     public SettingUpgrader settingUpgrader( SystemSettingManager systemSettingManager )
     {
@@ -437,7 +437,7 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
 
         if ( params.hasLastUpdated() )
         {
-            where += sqlHelper.whereAnd() + "dv.lastupdated >= " + DateUtils.getMediumDateString( params.getLastUpdated() );
+            where += sqlHelper.whereAnd() + "dv.lastupdated >= '" + DateUtils.getLongDateString( params.getLastUpdated() ) + "'";
         }
 
         if ( !params.isIncludeDeleted() )
@@ -476,6 +476,44 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
         return result;
     }
 
+    @Override
+    public List<DeflatedDataValue> getDeflatedDataValues( Collection<DataValue> dataValues )
+    {
+        if ( dataValues.isEmpty() )
+        {
+            return new ArrayList<>();
+        }
+
+        String keyList = dataValues.stream()
+            .map( dv -> "(" + dv.getDataElement().getId() + "," + dv.getPeriod().getId() + "," + dv.getSource().getId() +
+                "," + dv.getCategoryOptionCombo().getId() + "," + dv.getAttributeOptionCombo().getId() + ")" )
+            .distinct()
+            .collect( Collectors.joining( "," ) );
+
+        String sql = "select dv.dataelementid, dv.periodid, dv.sourceid" +
+            ", dv.categoryoptioncomboid, dv.attributeoptioncomboid, dv.value" +
+            ", dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted" +
+            " from datavalue dv" +
+            " where (dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid)" +
+            " in (" + keyList + ")";
+
+        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+
+        List<DeflatedDataValue> result = new ArrayList<>();
+
+        while ( rowSet.next() )
+        {
+            result.add( new DeflatedDataValue( rowSet.getInt( 1 ), rowSet.getInt( 2 ),
+                rowSet.getInt( 3 ), rowSet.getInt( 4 ), rowSet.getInt( 5 ),
+                rowSet.getString( 6 ), rowSet.getString( 7 ), rowSet.getDate( 8 ), rowSet.getDate( 9 ),
+                rowSet.getString( 10 ), rowSet.getBoolean( 11 ), rowSet.getBoolean( 12 ) ) );
+        }
+
+        log.debug( result.size() + " DeflatedDataValues returned for " + dataValues.size() + " data values" );
+
+        return result;
+    }
+
     @Override
     public int getDataValueCountLastUpdatedBetween( Date startDate, Date endDate, boolean includeDeleted )
     {
@@ -0,0 +1,435 @@
+package org.hisp.dhis.expression;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.expression.ParseType.INDICATOR_EXPRESSION;
+import static org.hisp.dhis.expression.ParseType.PREDICTOR_EXPRESSION;
+import static org.hisp.dhis.expression.ParseType.PREDICTOR_SKIP_TEST;
+import static org.hisp.dhis.expression.ParseType.VALIDATION_RULE_EXPRESSION;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hisp.dhis.antlr.ParserException;
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.common.DimensionalItemId;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.SetMap;
+import org.hisp.dhis.indicator.Indicator;
+import org.hisp.dhis.predictor.Predictor;
+import org.hisp.dhis.program.ProgramIndicator;
+import org.hisp.dhis.validation.ValidationRule;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.collect.ImmutableList;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the index in memory. The index is built on startup or when first
+ * used, and kept up to date as dependent objects are saved and deleted.
+ */
+@Slf4j
+@Service( "org.hisp.dhis.expression.ExpressionDependencyService" )
+public class DefaultExpressionDependencyService
+    implements ExpressionDependencyService
+{
+    private static final List<Class<? extends IdentifiableObject>> DEPENDENT_CLASSES = ImmutableList.of(
+        Indicator.class, ValidationRule.class, Predictor.class, ProgramIndicator.class );
+
+    /**
+     * Matches data element and attribute items of program indicator
+     * expressions, e.g. #{stageUid.dataElementUid} and A{attributeUid}.
+     */
+    private static final Pattern PROGRAM_INDICATOR_ITEM_PATTERN = Pattern.compile( "[#A]\\{([^}]+)\\}" );
+
+    private final ExpressionService expressionService;
+
+    private final IdentifiableObjectManager idObjectManager;
+
+    /**
+     * Dependent object uids by dependent object type and referenced item uid.
+     */
+    private final Map<Class<?>, SetMap<String, String>> dependents = new HashMap<>();
+
+    /**
+     * Referenced item uids by dependent object type and dependent object uid.
+     */
+    private final Map<Class<?>, SetMap<String, String>> dependencies = new HashMap<>();
+
+    /**
+     * Indexed {@link Expression} objects by expression id, for dependent
+     * objects which keep their expressions as such.
+     */
+    private final Map<Long, IndexedExpression> expressions = new HashMap<>();
+
+    /**
+     * Ids of indexed expressions by dependent object type and dependent
+     * object uid.
+     */
+    private final Map<Class<?>, SetMap<String, Long>> expressionIds = new HashMap<>();
+
+    private boolean indexBuilt = false;
+
+    public DefaultExpressionDependencyService( ExpressionService expressionService,
+        IdentifiableObjectManager idObjectManager )
+    {
+        checkNotNull( expressionService );
+        checkNotNull( idObjectManager );
+
+        this.expressionService = expressionService;
+        this.idObjectManager = idObjectManager;
+    }
+
+    // -------------------------------------------------------------------------
+    // ExpressionDependencyService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    @Transactional( readOnly = true )
+    public synchronized void buildIndex()
+    {
+        dependents.clear();
+        dependencies.clear();
+        expressions.clear();
+        expressionIds.clear();
+
+        for ( Class<? extends IdentifiableObject> klass : DEPENDENT_CLASSES )
+        {
+            for ( IdentifiableObject object : idObjectManager.getAllNoAcl( klass ) )
+            {
+                index( klass, object.getUid(), getReferencedUids( klass, object ) );
+            }
+        }
+
+        indexBuilt = true;
+
+        log.info( "Built expression dependency index for " + dependencies.values().stream()
+            .mapToInt( SetMap::size ).sum() + " objects" );
+    }
+
+    @Override
+    @Transactional( readOnly = true )
+    public synchronized Set<String> getDependentUids( String uid, Class<? extends IdentifiableObject> klass )
+    {
+        if ( !indexBuilt )
+        {
+            buildIndex();
+        }
+
+        SetMap<String, String> itemDependents = dependents.get( klass );
+
+        Set<String> uids = itemDependents != null ? itemDependents.get( uid ) : null;
+
+        return uids != null ? new HashSet<>( uids ) : new HashSet<>();
+    }
+
+    @Override
+    @Transactional( readOnly = true )
+    public <T extends IdentifiableObject> List<T> getDependents( String uid, Class<T> klass )
+    {
+        Set<String> uids = getDependentUids( uid, klass );
+
+        return uids.isEmpty() ? new ArrayList<>() : idObjectManager.getByUid( klass, uids );
+    }
+
+    @Override
+    public synchronized void updateDependencies( IdentifiableObject object )
+    {
+        Class<? extends IdentifiableObject> klass = getDependentClass( object );
+
+        if ( klass == null || !indexBuilt )
+        {
+            return;
+        }
+
+        unindex( klass, object.getUid() );
+        index( klass, object.getUid(), getReferencedUids( klass, object ) );
+    }
+
+    @Override
+    public synchronized void updateDependencies( Expression expression )
+    {
+        IndexedExpression indexed = indexBuilt ? expressions.get( expression.getId() ) : null;
+
+        if ( indexed == null )
+        {
+            return;
+        }
+
+        indexed.referencedUids = getItemUids( expression.getExpression(), indexed.parseType );
+
+        Set<String> referencedUids = new HashSet<>();
+
+        for ( Long id : expressionIds.get( indexed.klass ).get( indexed.uid ) )
+        {
+            referencedUids.addAll( expressions.get( id ).referencedUids );
+        }
+
+        unindexDependencies( indexed.klass, indexed.uid );
+        index( indexed.klass, indexed.uid, referencedUids );
+    }
+
+    @Override
+    public synchronized void removeDependencies( IdentifiableObject object )
+    {
+        Class<? extends IdentifiableObject> klass = getDependentClass( object );
+
+        if ( klass == null || !indexBuilt )
+        {
+            return;
+        }
+
+        unindex( klass, object.getUid() );
+    }
+
+    @Override
+    public synchronized void invalidate()
+    {
+        indexBuilt = false;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private Class<? extends IdentifiableObject> getDependentClass( IdentifiableObject object )
+    {
+        return DEPENDENT_CLASSES.stream()
+            .filter( klass -> klass.isInstance( object ) )
+            .findFirst()
+            .orElse( null );
+    }
+
+    private void index( Class<?> klass, String uid, Set<String> referencedUids )
+    {
+        if ( referencedUids.isEmpty() )
+        {
+            return;
+        }
+
+        SetMap<String, String> itemDependents = dependents.computeIfAbsent( klass, k -> new SetMap<>() );
+
+        for ( String referencedUid : referencedUids )
+        {
+            itemDependents.putValue( referencedUid, uid );
+        }
+
+        dependencies.computeIfAbsent( klass, k -> new SetMap<>() ).putValues( uid, referencedUids );
+    }
+
+    private void unindex( Class<?> klass, String uid )
+    {
+        SetMap<String, Long> objectExpressionIds = expressionIds.get( klass );
+
+        Set<Long> ids = objectExpressionIds != null ? objectExpressionIds.remove( uid ) : null;
+
+        if ( ids != null )
+        {
+            ids.forEach( expressions::remove );
+        }
+
+        unindexDependencies( klass, uid );
+    }
+
+    private void unindexDependencies( Class<?> klass, String uid )
+    {
+        SetMap<String, String> objectDependencies = dependencies.get( klass );
+
+        Set<String> referencedUids = objectDependencies != null ? objectDependencies.remove( uid ) : null;
+
+        if ( referencedUids == null )
+        {
+            return;
+        }
+
+        SetMap<String, String> itemDependents = dependents.get( klass );
+
+        for ( String referencedUid : referencedUids )
+        {
+            Set<String> uids = itemDependents.get( referencedUid );
+
+            uids.remove( uid );
+
+            if ( uids.isEmpty() )
+            {
+                itemDependents.remove( referencedUid );
+            }
+        }
+    }
+
+    /**
+     * Gets the uids of all items referenced by the expressions of the given
+     * object, and records the {@link Expression} objects of the given
+     * object by id.
+     */
+    private Set<String> getReferencedUids( Class<?> klass, IdentifiableObject object )
+    {
+        Set<String> uids = new HashSet<>();
+
+        if ( object instanceof Indicator )
+        {
+            Indicator indicator = (Indicator) object;
+
+            addItemUids( uids, indicator.getNumerator(), INDICATOR_EXPRESSION );
+            addItemUids( uids, indicator.getDenominator(), INDICATOR_EXPRESSION );
+        }
+        else if ( object instanceof ValidationRule )
+        {
+            ValidationRule rule = (ValidationRule) object;
+
+            addItemUids( uids, klass, rule.getUid(), rule.getLeftSide(), VALIDATION_RULE_EXPRESSION );
+            addItemUids( uids, klass, rule.getUid(), rule.getRightSide(), VALIDATION_RULE_EXPRESSION );
+        }
+        else if ( object instanceof Predictor )
+        {
+            Predictor predictor = (Predictor) object;
+
+            addItemUids( uids, klass, predictor.getUid(), predictor.getGenerator(), PREDICTOR_EXPRESSION );
+            addItemUids( uids, klass, predictor.getUid(), predictor.getSampleSkipTest(), PREDICTOR_SKIP_TEST );
+        }
+        else if ( object instanceof ProgramIndicator )
+        {
+            ProgramIndicator programIndicator = (ProgramIndicator) object;
+
+            addProgramIndicatorItemUids( uids, programIndicator.getExpression() );
+            addProgramIndicatorItemUids( uids, programIndicator.getFilter() );
+        }
+
+        return uids;
+    }
+
+    private void addItemUids( Set<String> uids, Class<?> klass, String uid, Expression expression,
+        ParseType parseType )
+    {
+        if ( expression == null )
+        {
+            return;
+        }
+
+        Set<String> expressionUids = getItemUids( expression.getExpression(), parseType );
+
+        if ( expression.getId() != 0 )
+        {
+            expressions.put( expression.getId(), new IndexedExpression( klass, uid, parseType, expressionUids ) );
+            expressionIds.computeIfAbsent( klass, k -> new SetMap<>() ).putValue( uid, expression.getId() );
+        }
+
+        uids.addAll( expressionUids );
+    }
+
+    private Set<String> getItemUids( String expression, ParseType parseType )
+    {
+        Set<String> uids = new HashSet<>();
+
+        addItemUids( uids, expression, parseType );
+
+        return uids;
+    }
+
+    private void addItemUids( Set<String> uids, String expression, ParseType parseType )
+    {
+        if ( expression == null )
+        {
+            return;
+        }
+
+        try
+        {
+            for ( DimensionalItemId itemId : expressionService.getExpressionDimensionalItemIds( expression, parseType ) )
+            {
+                addUid( uids, itemId.getId0() );
+                addUid( uids, itemId.getId1() );
+                addUid( uids, itemId.getId2() );
+            }
+        }
+        catch ( ParserException ex )
+        {
+            log.debug( "Skipping invalid expression '" + expression + "': " + ex.getMessage() );
+        }
+    }
+
+    private void addProgramIndicatorItemUids( Set<String> uids, String expression )
+    {
+        if ( expression == null )
+        {
+            return;
+        }
+
+        Matcher matcher = PROGRAM_INDICATOR_ITEM_PATTERN.matcher( expression );
+
+        while ( matcher.find() )
+        {
+            for ( String id : matcher.group( 1 ).split( "\\." ) )
+            {
+                addUid( uids, id.trim() );
+            }
+        }
+    }
+
+    private void addUid( Set<String> uids, String uid )
+    {
+        if ( uid != null && CodeGenerator.isValidUid( uid ) )
+        {
+            uids.add( uid );
+        }
+    }
+
+    /**
+     * An indexed {@link Expression} with its dependent object and the uids
+     * of the items it references.
+     */
+    private static class IndexedExpression
+    {
+        private final Class<?> klass;
+
+        private final String uid;
+
+        private final ParseType parseType;
+
+        private Set<String> referencedUids;
+
+        IndexedExpression( Class<?> klass, String uid, ParseType parseType, Set<String> referencedUids )
+        {
+            this.klass = klass;
+            this.uid = uid;
+            this.parseType = parseType;
+            this.referencedUids = referencedUids;
+        }
+    }
+}
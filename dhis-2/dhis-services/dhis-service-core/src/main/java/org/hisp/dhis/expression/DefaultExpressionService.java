@@ -31,8 +31,10 @@ package org.hisp.dhis.expression;
 import com.google.common.collect.ImmutableMap;
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.analytics.DataType;
-import org.hisp.dhis.antlr.Parser;
+import org.antlr.v4.runtime.tree.ParseTree;
 import org.hisp.dhis.antlr.ParserException;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.DimensionService;
 import org.hisp.dhis.common.DimensionalItemId;
@@ -58,6 +60,7 @@ import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
 import org.hisp.dhis.parser.expression.CommonExpressionVisitor;
 import org.hisp.dhis.parser.expression.ExpressionItem;
+import org.hisp.dhis.parser.expression.ParserUtils;
 import org.hisp.dhis.parser.expression.ExpressionItemMethod;
 import org.hisp.dhis.parser.expression.function.VectorAvg;
 import org.hisp.dhis.parser.expression.function.VectorCount;
@@ -82,6 +85,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -143,6 +147,17 @@ public class DefaultExpressionService
     // Static data
     // -------------------------------------------------------------------------
 
+    /**
+     * Parse trees by expression, so that expressions which are evaluated for
+     * many org units, periods and attribute option combos are parsed once.
+     */
+    private static final Cache<ParseTree> PARSE_TREE_CACHE = new SimpleCacheBuilder<ParseTree>()
+        .forRegion( "expressionParseTree" )
+        .expireAfterAccess( 1, TimeUnit.HOURS )
+        .withInitialCapacity( 1000 )
+        .withMaximumSize( 20000 )
+        .build();
+
     private final static ImmutableMap<Integer, ExpressionItem> VALIDATION_RULE_EXPRESSION_ITEMS = ImmutableMap.<Integer, ExpressionItem>builder()
         .putAll( COMMON_EXPRESSION_ITEMS )
         .put( HASH_BRACE, new DimItemDataElementAndOperand() )
@@ -638,7 +653,9 @@ public class DefaultExpressionService
     {
         try
         {
-            Object result = Parser.visit( expression, visitor );
+            ParseTree parseTree = PARSE_TREE_CACHE.get( expression, ParserUtils::parse ).orElse( null );
+
+            Object result = visitor.visit( parseTree );
 
             switch( dataType )
             {
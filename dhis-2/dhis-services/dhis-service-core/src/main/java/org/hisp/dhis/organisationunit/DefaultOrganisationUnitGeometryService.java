@@ -0,0 +1,202 @@
+package org.hisp.dhis.organisationunit;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
+import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.commons.util.SystemUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+
+/**
+ * Simplified geometries are stored in the geometrysimplifiedlow and
+ * geometrysimplifiedmedium columns of the organisationunit table, which are
+ * maintained by a database trigger. Vector tiles are encoded by PostGIS and
+ * cached.
+ */
+@Service( "org.hisp.dhis.organisationunit.OrganisationUnitGeometryService" )
+public class DefaultOrganisationUnitGeometryService
+    implements OrganisationUnitGeometryService
+{
+    private static final double WEB_MERCATOR_EXTENT = 20037508.342789244;
+
+    private static final int TILE_EXTENT = 4096;
+
+    private static final int TILE_BUFFER = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Cache<byte[]> tileCache;
+
+    public DefaultOrganisationUnitGeometryService( JdbcTemplate jdbcTemplate, CacheProvider cacheProvider,
+        Environment env )
+    {
+        checkNotNull( jdbcTemplate );
+        checkNotNull( cacheProvider );
+        checkNotNull( env );
+
+        this.jdbcTemplate = jdbcTemplate;
+
+        this.tileCache = cacheProvider.newCacheBuilder( byte[].class ).forRegion( "orgUnitVectorTile" )
+            .expireAfterWrite( 2, TimeUnit.HOURS ).withInitialCapacity( 1000 ).forceInMemory()
+            .withMaximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 20000 ).build();
+    }
+
+    // -------------------------------------------------------------------------
+    // OrganisationUnitGeometryService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Map<String, Geometry> getSimplifiedGeometries( Collection<OrganisationUnit> organisationUnits, int zoom )
+    {
+        Map<String, Geometry> geometries = new HashMap<>();
+
+        if ( zoom > MEDIUM_RESOLUTION_MAX_ZOOM || organisationUnits.isEmpty() )
+        {
+            return geometries;
+        }
+
+        String column = getSimplifiedGeometryColumn( zoom );
+
+        String sql = "select uid, ST_AsBinary(" + column + ") as geometry from organisationunit " +
+            "where organisationunitid in (" + getCommaDelimitedString( getIdentifiers( organisationUnits ) ) + ") " +
+            "and " + column + " is not null";
+
+        WKBReader reader = new WKBReader();
+
+        jdbcTemplate.query( sql, rs -> {
+            try
+            {
+                geometries.put( rs.getString( "uid" ), reader.read( rs.getBytes( "geometry" ) ) );
+            }
+            catch ( ParseException ex )
+            {
+                throw new IllegalStateException( "Invalid geometry for organisation unit: " + rs.getString( "uid" ), ex );
+            }
+        } );
+
+        return geometries;
+    }
+
+    @Override
+    public byte[] getVectorTile( int z, int x, int y, int level, Collection<OrganisationUnit> parents )
+    {
+        int tiles = 1 << Math.min( z, MAX_ZOOM );
+
+        if ( z < 0 || z > MAX_ZOOM || x < 0 || x >= tiles || y < 0 || y >= tiles )
+        {
+            throw new IllegalQueryException( "Invalid tile coordinates: " + z + "/" + x + "/" + y );
+        }
+
+        List<String> parentPaths = parents.stream()
+            .map( OrganisationUnit::getPath )
+            .collect( Collectors.toList() );
+
+        String key = z + "-" + x + "-" + y + "-" + level + "-" + String.join( "-", getUids( parents ) );
+
+        return tileCache.get( key, k -> getVectorTileFromDatabase( z, x, y, level, parentPaths ) ).orElse( new byte[0] );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private byte[] getVectorTileFromDatabase( int z, int x, int y, int level, List<String> parentPaths )
+    {
+        if ( parentPaths.isEmpty() )
+        {
+            return new byte[0];
+        }
+
+        double tileSize = 2 * WEB_MERCATOR_EXTENT / ( 1 << z );
+        double xmin = -WEB_MERCATOR_EXTENT + x * tileSize;
+        double ymax = WEB_MERCATOR_EXTENT - y * tileSize;
+
+        String envelope = "ST_MakeEnvelope(" + xmin + "," + ( ymax - tileSize ) + "," + ( xmin + tileSize ) + "," + ymax + ",3857)";
+
+        String geometry = z <= MEDIUM_RESOLUTION_MAX_ZOOM ?
+            "coalesce(ou." + getSimplifiedGeometryColumn( z ) + ", ou.geometry)" : "ou.geometry";
+
+        List<Object> args = new ArrayList<>();
+
+        String pathFilter = parentPaths.stream()
+            .map( path -> {
+                args.add( path + "%" );
+                return "ou.path like ?";
+            } )
+            .collect( Collectors.joining( " or " ) );
+
+        args.add( level );
+
+        String sql = "select ST_AsMVT(tile, 'orgUnits', " + TILE_EXTENT + ", 'geom') from (" +
+            "select ou.uid as id, ou.name as name, ou.code as code, ou.hierarchylevel as level, " +
+            "ST_AsMVTGeom(ST_Transform(ST_SetSRID(" + geometry + ", 4326), 3857), " + envelope + ", " +
+            TILE_EXTENT + ", " + TILE_BUFFER + ", true) as geom " +
+            "from organisationunit ou " +
+            "where ou.geometry && ST_Transform(" + envelope + ", 4326) " +
+            "and (" + pathFilter + ") " +
+            "and ou.hierarchylevel = ?) as tile " +
+            "where tile.geom is not null";
+
+        byte[] tile = jdbcTemplate.queryForObject( sql, args.toArray(), byte[].class );
+
+        return tile != null ? tile : new byte[0];
+    }
+
+    private String getSimplifiedGeometryColumn( int zoom )
+    {
+        return zoom <= LOW_RESOLUTION_MAX_ZOOM ? "geometrysimplifiedlow" : "geometrysimplifiedmedium";
+    }
+
+    private List<String> getUids( Collection<OrganisationUnit> organisationUnits )
+    {
+        return organisationUnits.stream()
+            .map( OrganisationUnit::getUid )
+            .sorted()
+            .collect( Collectors.toList() );
+    }
+}
@@ -0,0 +1,277 @@
+package org.hisp.dhis.preheat;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.EmbeddedObject;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.MetadataObject;
+import org.hisp.dhis.commons.util.SystemUtils;
+import org.hisp.dhis.fieldfilter.Defaults;
+import org.hisp.dhis.query.Query;
+import org.hisp.dhis.query.QueryService;
+import org.hisp.dhis.query.Restrictions;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.security.acl.AclService;
+import org.hisp.dhis.user.User;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cached objects are verified against the requested identifier when loaded,
+ * so that a stale entry, such as one for a deleted object or a changed code,
+ * results in a regular query rather than a wrong object. Cached identifiers
+ * are resolved through the Hibernate second level cache where possible, and
+ * the objects of the remaining cached identifiers of a query are loaded in
+ * one database query. The identifier cache is shared between instances when
+ * a shared cache is configured, so that invalidation applies to all of them.
+ */
+@Service( "org.hisp.dhis.preheat.PreheatCache" )
+public class DefaultPreheatCache
+    implements PreheatCache
+{
+    private final QueryService queryService;
+
+    private final SessionFactory sessionFactory;
+
+    private final AclService aclService;
+
+    private final CacheProvider cacheProvider;
+
+    private final Environment env;
+
+    private Cache<Long> identifierCache;
+
+    public DefaultPreheatCache( QueryService queryService, SessionFactory sessionFactory,
+        AclService aclService, CacheProvider cacheProvider, Environment env )
+    {
+        checkNotNull( queryService );
+        checkNotNull( sessionFactory );
+        checkNotNull( aclService );
+        checkNotNull( cacheProvider );
+        checkNotNull( env );
+
+        this.queryService = queryService;
+        this.sessionFactory = sessionFactory;
+        this.aclService = aclService;
+        this.cacheProvider = cacheProvider;
+        this.env = env;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        identifierCache = cacheProvider.newCacheBuilder( Long.class )
+            .forRegion( "preheatIdentifierCache" )
+            .expireAfterAccess( 6, TimeUnit.HOURS )
+            .withInitialCapacity( 10000 )
+            .withMaximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 500000 )
+            .build();
+    }
+
+    // -------------------------------------------------------------------------
+    // PreheatCache implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public List<? extends IdentifiableObject> query( Schema schema, User user, Defaults defaults,
+        PreheatIdentifier identifier, Collection<String> identifiers )
+    {
+        Class<? extends IdentifiableObject> klass = (Class<? extends IdentifiableObject>) schema.getKlass();
+
+        boolean cacheable = isCacheable( klass );
+
+        List<IdentifiableObject> objects = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        Map<String, Long> cachedIds = new LinkedHashMap<>();
+
+        for ( String id : identifiers )
+        {
+            Optional<Long> cachedId = cacheable ? identifierCache.getIfPresent( getKey( klass, identifier, id ) )
+                : Optional.empty();
+
+            if ( cachedId.isPresent() )
+            {
+                cachedIds.put( id, cachedId.get() );
+            }
+            else
+            {
+                missing.add( id );
+            }
+        }
+
+        if ( !cachedIds.isEmpty() )
+        {
+            Map<Long, IdentifiableObject> cachedObjects = new HashMap<>();
+
+            getObjects( klass, cachedIds.values() ).forEach( object -> cachedObjects.put( object.getId(), object ) );
+
+            cachedIds.forEach( ( id, cachedId ) -> {
+                IdentifiableObject object = cachedObjects.get( cachedId );
+
+                if ( object != null && id.equals( identifier.getIdentifier( object ) ) )
+                {
+                    if ( isVisible( object, user, defaults ) )
+                    {
+                        objects.add( object );
+                    }
+                }
+                else
+                {
+                    missing.add( id );
+                }
+            } );
+        }
+
+        if ( !missing.isEmpty() )
+        {
+            Query query = Query.from( schema );
+            query.setUser( user );
+            query.add( Restrictions.in( PreheatIdentifier.CODE == identifier ? "code" : "id", missing ) );
+            query.setDefaults( defaults );
+
+            List<? extends IdentifiableObject> queried = queryService.query( query );
+
+            if ( cacheable )
+            {
+                queried.forEach( object -> identifierCache.put(
+                    getKey( klass, identifier, identifier.getIdentifier( object ) ), object.getId() ) );
+            }
+
+            objects.addAll( queried );
+        }
+
+        return objects;
+    }
+
+    @Override
+    public void invalidate( IdentifiableObject object )
+    {
+        Class<?> klass = Preheat.getRealClass( object.getClass() );
+
+        if ( object.getUid() != null )
+        {
+            identifierCache.invalidate( getKey( klass, PreheatIdentifier.UID, object.getUid() ) );
+        }
+
+        if ( object.getCode() != null )
+        {
+            identifierCache.invalidate( getKey( klass, PreheatIdentifier.CODE, object.getCode() ) );
+        }
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        identifierCache.invalidateAll();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Loads the objects with the given ids. Objects in the second level cache
+     * are read from it, the others are loaded in one query.
+     */
+    private List<IdentifiableObject> getObjects( Class<? extends IdentifiableObject> klass, Collection<Long> ids )
+    {
+        Session session = sessionFactory.getCurrentSession();
+
+        List<IdentifiableObject> objects = new ArrayList<>();
+        List<Long> uncachedIds = new ArrayList<>();
+
+        for ( Long id : new LinkedHashSet<>( ids ) )
+        {
+            if ( sessionFactory.getCache().containsEntity( klass, id ) )
+            {
+                IdentifiableObject object = session.get( klass, id );
+
+                if ( object != null )
+                {
+                    objects.add( object );
+                }
+            }
+            else
+            {
+                uncachedIds.add( id );
+            }
+        }
+
+        if ( !uncachedIds.isEmpty() )
+        {
+            List<? extends IdentifiableObject> loaded = session.byMultipleIds( klass )
+                .enableSessionCheck( true )
+                .multiLoad( uncachedIds );
+
+            loaded.stream().filter( Objects::nonNull ).forEach( objects::add );
+        }
+
+        return objects;
+    }
+
+    private boolean isCacheable( Class<?> klass )
+    {
+        return MetadataObject.class.isAssignableFrom( klass ) && !EmbeddedObject.class.isAssignableFrom( klass );
+    }
+
+    private boolean isVisible( IdentifiableObject object, User user, Defaults defaults )
+    {
+        if ( Defaults.EXCLUDE == defaults && Preheat.isDefaultClass( object ) && "default".equals( object.getName() ) )
+        {
+            return false;
+        }
+
+        return user == null || aclService.canRead( user, object );
+    }
+
+    private String getKey( Class<?> klass, PreheatIdentifier identifier, String id )
+    {
+        return klass.getName() + ":" + identifier.name() + ":" + id;
+    }
+}
@@ -47,12 +47,12 @@ import org.hisp.dhis.commons.timer.SystemTimer;
 import org.hisp.dhis.commons.timer.Timer;
 import org.hisp.dhis.dataelement.DataElementOperand;
 import org.hisp.dhis.dataset.DataSetElement;
+import org.hisp.dhis.fieldfilter.Defaults;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
 import org.hisp.dhis.period.PeriodStore;
 import org.hisp.dhis.query.Query;
 import org.hisp.dhis.query.QueryService;
-import org.hisp.dhis.query.Restrictions;
 import org.hisp.dhis.schema.MergeParams;
 import org.hisp.dhis.schema.MergeService;
 import org.hisp.dhis.schema.Property;
@@ -110,10 +110,12 @@ public class DefaultPreheatService implements PreheatService
 
     private final SchemaToDataFetcher schemaToDataFetcher;
 
+    private final PreheatCache preheatCache;
+
     public DefaultPreheatService( SchemaService schemaService, QueryService queryService,
         IdentifiableObjectManager manager, CurrentUserService currentUserService, PeriodStore periodStore,
         PeriodService periodService, AttributeService attributeService, MergeService mergeService,
-        SchemaToDataFetcher schemaToDataFetcher )
+        SchemaToDataFetcher schemaToDataFetcher, PreheatCache preheatCache )
     {
         checkNotNull( schemaService );
         checkNotNull( queryService );
@@ -123,6 +125,7 @@ public class DefaultPreheatService implements PreheatService
         checkNotNull( periodService );
         checkNotNull( attributeService );
         checkNotNull( mergeService );
+        checkNotNull( preheatCache );
 
         this.schemaService = schemaService;
         this.queryService = queryService;
@@ -133,6 +136,7 @@ public class DefaultPreheatService implements PreheatService
         this.attributeService = attributeService;
         this.mergeService = mergeService;
         this.schemaToDataFetcher = schemaToDataFetcher;
+        this.preheatCache = preheatCache;
     }
 
     @Override
@@ -203,10 +207,9 @@ public class DefaultPreheatService implements PreheatService
                     {
                         for ( List<String> ids : identifiers )
                         {
-                            Query query = Query.from( schemaService.getDynamicSchema( klass ) );
-                            query.setUser( preheat.getUser() );
-                            query.add( Restrictions.in( "id", ids ) );
-                            List<? extends IdentifiableObject> objects = queryService.query( query );
+                            List<? extends IdentifiableObject> objects = preheatCache.query(
+                                schemaService.getDynamicSchema( klass ), preheat.getUser(), Defaults.EXCLUDE,
+                                PreheatIdentifier.UID, ids );
                             preheat.put( PreheatIdentifier.UID, objects );
                         }
                     }
@@ -223,10 +226,9 @@ public class DefaultPreheatService implements PreheatService
                     {
                         for ( List<String> ids : identifiers )
                         {
-                            Query query = Query.from( schemaService.getDynamicSchema( klass ) );
-                            query.setUser( preheat.getUser() );
-                            query.add( Restrictions.in( "code", ids ) );
-                            List<? extends IdentifiableObject> objects = queryService.query( query );
+                            List<? extends IdentifiableObject> objects = preheatCache.query(
+                                schemaService.getDynamicSchema( klass ), preheat.getUser(), Defaults.EXCLUDE,
+                                PreheatIdentifier.CODE, ids );
                             preheat.put( PreheatIdentifier.CODE, objects );
                         }
                     }
@@ -236,7 +238,7 @@ public class DefaultPreheatService implements PreheatService
             for ( Class<? extends IdentifiableObject> klass : klasses )
             {
                 List<? extends IdentifiableObject> objects = schemaToDataFetcher
-                    .fetch( schemaService.getDynamicSchema( klass ) );
+                    .fetch( schemaService.getDynamicSchema( klass ), params.getObjects().get( klass ) );
                 if ( !objects.isEmpty() )
                 {
                     uniqueCollectionMap.put( klass, new ArrayList<>( objects ) );
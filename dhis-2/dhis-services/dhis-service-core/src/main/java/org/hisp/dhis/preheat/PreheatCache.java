@@ -0,0 +1,73 @@
+package org.hisp.dhis.preheat;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Collection;
+import java.util.List;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.fieldfilter.Defaults;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.user.User;
+
+/**
+ * Cache of the database identifiers of metadata objects by class and UID or
+ * code, shared between imports. Metadata objects which have been looked up
+ * before are loaded by their database identifier, which is served from the
+ * Hibernate second level cache, instead of being queried again.
+ */
+public interface PreheatCache
+{
+    /**
+     * Returns the objects of the given schema with the given identifiers
+     * which are readable by the given user. Objects which are not in the
+     * cache are queried and added to the cache.
+     *
+     * @param schema the schema of the objects.
+     * @param user the user, can be null.
+     * @param defaults whether to include default objects.
+     * @param identifier the identifier type, either UID or CODE.
+     * @param identifiers the identifiers.
+     * @return a list of objects.
+     */
+    List<? extends IdentifiableObject> query( Schema schema, User user, Defaults defaults,
+        PreheatIdentifier identifier, Collection<String> identifiers );
+
+    /**
+     * Removes the given object from the cache.
+     *
+     * @param object the object.
+     */
+    void invalidate( IdentifiableObject object );
+
+    /**
+     * Removes all objects from the cache.
+     */
+    void invalidateAll();
+}
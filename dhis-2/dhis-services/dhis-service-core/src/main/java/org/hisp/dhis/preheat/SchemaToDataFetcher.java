@@ -31,10 +31,12 @@ package org.hisp.dhis.preheat;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.apache.commons.beanutils.BeanUtils;
@@ -44,8 +46,11 @@ import org.hibernate.SessionFactory;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.schema.Property;
 import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.system.util.ReflectionUtils;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.Lists;
+
 /**
  * This component is responsible for fetching all the unique attributes for a {@link IdentifiableObject} subclass.
  *
@@ -56,6 +61,8 @@ public class SchemaToDataFetcher
 {
     protected static final Log log = LogFactory.getLog( SchemaToDataFetcher.class );
 
+    private static final int PARTITION_SIZE = 20000;
+
     private final SessionFactory sessionFactory;
 
     public SchemaToDataFetcher( SessionFactory sessionFactory )
@@ -82,6 +89,55 @@ public class SchemaToDataFetcher
         return mapUniqueFields(schema);
     }
 
+    /**
+     * Executes a read-only query for the given Schema class and fetches only the fields
+     * marked as "unique", for the objects which share a unique value with any of the
+     * given objects. The query is restricted on the unique columns, which are indexed,
+     * so that only the objects which may conflict with the given objects are loaded.
+     *
+     * @param schema a {@link Schema}
+     * @param objects the objects to fetch conflicting objects for
+     * @return a List of objects corresponding to the "klass" of the given Schema
+     */
+    @SuppressWarnings("unchecked")
+    public List<? extends IdentifiableObject> fetch( Schema schema, Collection<? extends IdentifiableObject> objects )
+    {
+        if ( schema == null || objects == null || objects.isEmpty() )
+        {
+            return Collections.emptyList();
+        }
+
+        List<Property> uniqueProperties = schema.getUniqueProperties();
+
+        List results = new ArrayList();
+
+        if ( !uniqueProperties.isEmpty() )
+        {
+            final String fields = extractUniqueFields( uniqueProperties );
+
+            for ( Property property : uniqueProperties )
+            {
+                List<Object> values = objects.stream()
+                    .map( object -> ReflectionUtils.invokeMethod( object, property.getGetterMethod() ) )
+                    .filter( Objects::nonNull )
+                    .distinct()
+                    .collect( Collectors.toList() );
+
+                for ( List<Object> partition : Lists.partition( values, PARTITION_SIZE ) )
+                {
+                    results.addAll( sessionFactory.getCurrentSession()
+                        .createQuery( "SELECT " + fields + " from " + schema.getKlass().getSimpleName() +
+                            " where " + property.getFieldName() + " in (:values)" )
+                        .setParameterList( "values", partition )
+                        .setReadOnly( true )
+                        .getResultList() );
+                }
+            }
+        }
+
+        return mapResults( results, uniqueProperties, schema );
+    }
+
     @SuppressWarnings("unchecked")
     private List<? extends IdentifiableObject> mapUniqueFields( Schema schema )
     {
@@ -99,11 +155,17 @@ public class SchemaToDataFetcher
                 .getResultList();
         }
 
+        return mapResults( objects, uniqueProperties, schema );
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<? extends IdentifiableObject> mapResults( List objects, List<Property> uniqueProperties,
+        Schema schema )
+    {
         // Hibernate returns a List containing an array of Objects if multiple columns are used in the query
         // or a "simple" List if only one columns is used in the query
         return uniqueProperties.size() == 1 ? handleSingleColumn( objects, uniqueProperties, schema )
             : handleMultipleColumn( objects, uniqueProperties, schema );
-
     }
 
     private List<IdentifiableObject> handleMultipleColumn( List<Object[]> objects, List<Property> uniqueProperties,
@@ -43,9 +43,13 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -66,18 +70,18 @@ public class DefaultReservedValueService
 
     private ReservedValueStore reservedValueStore;
 
-    private SequentialNumberCounterStore sequentialNumberCounterStore;
+    private SequentialNumberCounterAllocator sequentialNumberCounterAllocator;
 
     public DefaultReservedValueService( TextPatternService textPatternService, ReservedValueStore reservedValueStore,
-        SequentialNumberCounterStore sequentialNumberCounterStore )
+        SequentialNumberCounterAllocator sequentialNumberCounterAllocator )
     {
         checkNotNull( textPatternService );
         checkNotNull( reservedValueStore );
-        checkNotNull( sequentialNumberCounterStore );
+        checkNotNull( sequentialNumberCounterAllocator );
 
         this.textPatternService = textPatternService;
         this.reservedValueStore = reservedValueStore;
-        this.sequentialNumberCounterStore = sequentialNumberCounterStore;
+        this.sequentialNumberCounterAllocator = sequentialNumberCounterAllocator;
     }
 
     @Override
@@ -117,7 +121,7 @@ public class DefaultReservedValueService
             return reservedValueStore.reserveValues( reservedValue, Lists.newArrayList( key ) );
         }
 
-        List<String> usedGeneratedValues = new ArrayList<>();
+        Set<String> usedGeneratedValues = new HashSet<>();
 
         int numberOfValuesLeftToGenerate = numberOfReservations;
 
@@ -217,18 +221,28 @@ public class DefaultReservedValueService
 
         if ( segment.getMethod().equals( TextPatternMethod.SEQUENTIAL ) )
         {
-            generatedValues.addAll( sequentialNumberCounterStore
-                .getNextValues( textPattern.getOwnerUid(), key, numberOfValues )
+            generatedValues.addAll( sequentialNumberCounterAllocator
+                .getNextValues( textPattern.getOwnerUid(), key, numberOfValues,
+                    TextPatternValidationUtils.getTotalValuesPotential( segment ) )
                 .stream()
                 .map( ( n ) -> String.format( "%0" + segment.getParameter().length() + "d", n ) )
                 .collect( Collectors.toList() ) );
         }
         else if ( segment.getMethod().equals( TextPatternMethod.RANDOM ) )
         {
-            for ( int i = 0; i < numberOfValues; i++ )
+            // Generate distinct values in bulk, availability is checked in a
+            // single query when the values are reserved
+
+            Set<String> randomValues = new LinkedHashSet<>();
+            Random random = ThreadLocalRandom.current();
+            int attemptsLeft = numberOfValues * 10;
+
+            while ( randomValues.size() < numberOfValues && attemptsLeft-- > 0 )
             {
-                generatedValues.add( TextPatternMethodUtils.generateRandom( new Random(), segment.getParameter() ) );
+                randomValues.add( TextPatternMethodUtils.generateRandom( random, segment.getParameter() ) );
             }
+
+            generatedValues.addAll( randomValues );
         }
 
         return generatedValues;
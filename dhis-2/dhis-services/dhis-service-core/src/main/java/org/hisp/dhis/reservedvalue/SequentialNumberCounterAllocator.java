@@ -0,0 +1,193 @@
+package org.hisp.dhis.reservedvalue;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hisp.dhis.commons.util.SystemUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out sequential numbers from blocks which are reserved from the
+ * persisted counter in advance. Numbers within a block are served from memory
+ * using atomic increments, so the counter row is only locked once per block.
+ * Blocks, and requests for more numbers than a block holds, are allocated in a
+ * separate transaction, which means the persisted counter always holds the
+ * high-water mark for all nodes, numbers are never handed out twice, even if
+ * the requesting transaction is rolled back, and the counter row is never
+ * locked by the requesting transaction. Numbers which are left in a block
+ * when the instance is stopped are not used.
+ */
+@Component( "org.hisp.dhis.reservedvalue.SequentialNumberCounterAllocator" )
+public class SequentialNumberCounterAllocator
+{
+    private static final int MAX_BLOCK_SIZE = 1000;
+
+    /**
+     * A block covers at most this fraction of the potential values of a
+     * pattern, so that short patterns are not exhausted by unused blocks.
+     */
+    private static final int BLOCK_FRACTION = 1000;
+
+    private final Map<String, AtomicReference<Block>> blocks = new ConcurrentHashMap<>();
+
+    private final SequentialNumberCounterStore sequentialNumberCounterStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean blockAllocation;
+
+    public SequentialNumberCounterAllocator( SequentialNumberCounterStore sequentialNumberCounterStore,
+        PlatformTransactionManager transactionManager, Environment env )
+    {
+        checkNotNull( sequentialNumberCounterStore );
+        checkNotNull( transactionManager );
+        checkNotNull( env );
+
+        this.sequentialNumberCounterStore = sequentialNumberCounterStore;
+        this.transactionTemplate = new TransactionTemplate( transactionManager );
+        this.transactionTemplate.setPropagationBehavior( TransactionDefinition.PROPAGATION_REQUIRES_NEW );
+        this.blockAllocation = !SystemUtils.isTestRun( env.getActiveProfiles() );
+    }
+
+    /**
+     * Returns the next sequential numbers for the given owner and key.
+     *
+     * @param uid the uid of the owner of the counter.
+     * @param key the resolved pattern the counter belongs to.
+     * @param length the number of values to return.
+     * @param totalValues the total number of values the pattern can produce.
+     * @return a list of sequential numbers.
+     */
+    public List<Integer> getNextValues( String uid, String key, int length, long totalValues )
+    {
+        int blockSize = getBlockSize( totalValues );
+
+        if ( blockSize <= length )
+        {
+            return allocateValues( uid, key, length );
+        }
+
+        AtomicReference<Block> current = blocks.computeIfAbsent( uid + ":" + key,
+            k -> new AtomicReference<>( Block.EMPTY ) );
+
+        List<Integer> values = new ArrayList<>( length );
+
+        while ( values.size() < length )
+        {
+            Block block = current.get();
+            int value = block.next();
+
+            if ( value != -1 )
+            {
+                values.add( value );
+            }
+            else
+            {
+                synchronized ( current )
+                {
+                    if ( current.get() == block )
+                    {
+                        current.set( allocateBlock( uid, key, blockSize ) );
+                    }
+                }
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Discards the blocks held for the counters of the given owner. Should be
+     * invoked when the counters are deleted.
+     *
+     * @param uid the uid of the owner of the counters.
+     */
+    public void invalidate( String uid )
+    {
+        blocks.keySet().removeIf( k -> k.startsWith( uid + ":" ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private int getBlockSize( long totalValues )
+    {
+        return blockAllocation ? (int) Math.min( MAX_BLOCK_SIZE, totalValues / BLOCK_FRACTION ) : 0;
+    }
+
+    private Block allocateBlock( String uid, String key, int blockSize )
+    {
+        List<Integer> values = allocateValues( uid, key, blockSize );
+
+        return new Block( values.get( 0 ), values.get( 0 ) + blockSize );
+    }
+
+    private List<Integer> allocateValues( String uid, String key, int length )
+    {
+        return transactionTemplate.execute( status -> sequentialNumberCounterStore.getNextValues( uid, key, length ) );
+    }
+
+    private static class Block
+    {
+        private static final Block EMPTY = new Block( 0, 0 );
+
+        private final AtomicInteger next;
+
+        private final int end;
+
+        Block( int start, int end )
+        {
+            this.next = new AtomicInteger( start );
+            this.end = end;
+        }
+
+        /**
+         * Returns the next value of this block, or -1 if the block is used up.
+         */
+        int next()
+        {
+            int value = next.getAndIncrement();
+
+            return value < end ? value : -1;
+        }
+    }
+}
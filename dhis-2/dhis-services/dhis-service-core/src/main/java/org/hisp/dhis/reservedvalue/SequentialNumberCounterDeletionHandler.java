@@ -39,10 +39,14 @@ public class SequentialNumberCounterDeletionHandler
 
     private final SequentialNumberCounterStore sequentialNumberCounterStore;
 
+    private final SequentialNumberCounterAllocator sequentialNumberCounterAllocator;
+
     public SequentialNumberCounterDeletionHandler(
-        SequentialNumberCounterStore sequentialNumberCounterStore )
+        SequentialNumberCounterStore sequentialNumberCounterStore,
+        SequentialNumberCounterAllocator sequentialNumberCounterAllocator )
     {
         this.sequentialNumberCounterStore = sequentialNumberCounterStore;
+        this.sequentialNumberCounterAllocator = sequentialNumberCounterAllocator;
     }
 
     @Override
@@ -55,5 +59,6 @@ public class SequentialNumberCounterDeletionHandler
     public void deleteTrackedEntityAttribute( TrackedEntityAttribute attribute )
     {
         sequentialNumberCounterStore.deleteCounter( attribute.getUid() );
+        sequentialNumberCounterAllocator.invalidate( attribute.getUid() );
     }
 }
@@ -374,12 +374,17 @@ public class DefaultTrackedEntityInstanceService
         {
             int count = 0;
 
-            if ( params.isTotalPages() )
+            if ( params.isTotalPages() && params.hasPageToken() )
+            {
+                count = trackedEntityInstanceStore.getTrackedEntityInstanceCountEstimateForGrid( params );
+            }
+            else if ( params.isTotalPages() )
             {
                 count = trackedEntityInstanceStore.getTrackedEntityInstanceCountForGrid( params );
             }
 
             Pager pager = new Pager( params.getPageWithDefault(), count, params.getPageSizeWithDefault() );
+            pager.setNextPageToken( params.getNextPageToken() );
             metaData.put( PAGER_META_KEY, pager );
         }
 
@@ -570,6 +575,11 @@ public class DefaultTrackedEntityInstanceService
             violation = "Duration is not valid: " + params.getLastUpdatedDuration();
         }
 
+        if ( params.hasPageToken() && !params.isDefaultOrder() )
+        {
+            violation = "Page token cannot be specified together with order";
+        }
+
         if ( violation != null )
         {
             log.warn( "Validation failed: " + violation );
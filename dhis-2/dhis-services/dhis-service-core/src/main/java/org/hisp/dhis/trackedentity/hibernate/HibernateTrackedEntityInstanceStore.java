@@ -49,6 +49,7 @@ import static org.hisp.dhis.util.DateUtils.getDateAfterAddition;
 import static org.hisp.dhis.util.DateUtils.getLongGmtDateString;
 import static org.hisp.dhis.util.DateUtils.getMediumDateString;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -59,6 +60,8 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import javax.persistence.criteria.CriteriaBuilder;
@@ -70,6 +73,7 @@ import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.query.Query;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryOperator;
@@ -114,6 +118,10 @@ public class HibernateTrackedEntityInstanceStore
     private final StatementBuilder statementBuilder;
 
     private final static String SELECT_TEI = "select tei from";
+
+    private final static Pattern PLAN_ROWS_PATTERN = Pattern.compile( "\"Plan Rows\":\\s*(\\d+)" );
+
+    private final static String PROGRAM_STATUS_RANK = "case when pi.status = 'ACTIVE' then 1 when pi.status = 'COMPLETED' then 2 else 3 end";
     
     public HibernateTrackedEntityInstanceStore( SessionFactory sessionFactory, JdbcTemplate jdbcTemplate,
         ApplicationEventPublisher publisher, CurrentUserService currentUserService,
@@ -144,7 +152,7 @@ public class HibernateTrackedEntityInstanceStore
     @Override
     public List<TrackedEntityInstance> getTrackedEntityInstances( TrackedEntityInstanceQueryParams params )
     {
-        String hql = buildTrackedEntityInstanceHql( params, false );
+        String hql = buildTrackedEntityInstanceHql( params, false, true );
 
         //If it is a sync job running a query, I need to adjust an HQL a bit, because I am adding 2 joins and don't want duplicates in results
         if ( params.isSynchronizationQuery() )
@@ -154,11 +162,7 @@ public class HibernateTrackedEntityInstanceStore
 
         Query query = getQuery( hql );
 
-        if ( params.isPaging() )
-        {
-            query.setFirstResult( params.getOffset() );
-            query.setMaxResults( params.getPageSizeWithDefault() );
-        }
+        setPaging( query, params );
 
         return query.list();
     }
@@ -167,7 +171,7 @@ public class HibernateTrackedEntityInstanceStore
     @SuppressWarnings( "unchecked" )
     public List<Long> getTrackedEntityInstanceIds( TrackedEntityInstanceQueryParams params )
     {
-        String hql = buildTrackedEntityInstanceHql( params, true )
+        String hql = buildTrackedEntityInstanceHql( params, true, true )
         .replaceFirst( "inner join fetch tei.programInstances", "inner join tei.programInstances" )
         .replaceFirst( "inner join fetch pi.programStageInstances", "inner join pi.programStageInstances" )
         .replaceFirst( "inner join fetch psi.assignedUser", "inner join psi.assignedUser" )
@@ -179,27 +183,68 @@ public class HibernateTrackedEntityInstanceStore
             hql = hql.replaceFirst( SELECT_TEI, "select distinct tei from" );
         }
 
+        boolean keysetPaging = isKeysetPaging( params );
+
+        // Select the sort key along with the id to create the next page token
+
+        if ( keysetPaging )
+        {
+            hql = hql.replaceFirst( "select tei.id from", "select tei.id, tei.lastUpdated"
+                + (params.hasProgram() ? ", " + PROGRAM_STATUS_RANK : "") + " from" );
+        }
+
         Query query = getSession().createQuery( hql );
 
-        if ( params.isPaging() )
+        setPaging( query, params );
+
+        if ( !keysetPaging )
         {
-            query.setFirstResult( params.getOffset() );
-            query.setMaxResults( params.getPageSizeWithDefault() );
+            return query.list();
         }
 
-        return query.list();
+        List<Object[]> rows = query.list();
+
+        if ( rows.size() >= params.getPageSizeWithDefault() )
+        {
+            Object[] last = rows.get( rows.size() - 1 );
+
+            PageToken pageToken = params.hasProgram() ?
+                new PageToken( last[2], getTimestamp( (Date) last[1] ), last[0] ) :
+                new PageToken( getTimestamp( (Date) last[1] ), last[0] );
+
+            params.setNextPageToken( pageToken.encode() );
+        }
+
+        return rows.stream().map( row -> (Long) row[0] ).collect( Collectors.toList() );
     }
 
     private String buildTrackedEntityInstanceCountHql( TrackedEntityInstanceQueryParams params )
     {
-        return buildTrackedEntityInstanceHql( params, false )
+        return buildTrackedEntityInstanceHql( params, false, false )
             .replaceFirst( SELECT_TEI, "select count(distinct tei) from" )
             .replaceFirst( "inner join fetch tei.programInstances", "inner join tei.programInstances" )
             .replaceFirst( "inner join fetch pi.programStageInstances", "inner join pi.programStageInstances" )
             .replaceFirst( "inner join fetch psi.assignedUser", "inner join psi.assignedUser" )
-            .replaceFirst( "inner join fetch tei.programOwners", "inner join tei.programOwners" )
-            .replaceFirst( "order by case when pi.status = 'ACTIVE' then 1 when pi.status = 'COMPLETED' then 2 else 3 end asc, tei.lastUpdated desc ", "" )
-            .replaceFirst( "order by tei.lastUpdated desc ", "" );
+            .replaceFirst( "inner join fetch tei.programOwners", "inner join tei.programOwners" );
+    }
+
+    /**
+     * Indicates whether the HQL query is paged by sort key rather than offset.
+     * Synchronization queries select distinct instances and are always paged
+     * by offset.
+     */
+    private boolean isKeysetPaging( TrackedEntityInstanceQueryParams params )
+    {
+        return params.isPaging() && !params.isSynchronizationQuery();
+    }
+
+    private void setPaging( Query query, TrackedEntityInstanceQueryParams params )
+    {
+        if ( params.isPaging() )
+        {
+            query.setFirstResult( isKeysetPaging( params ) && params.hasPageToken() ? 0 : params.getOffset() );
+            query.setMaxResults( params.getPageSizeWithDefault() );
+        }
     }
     
     private String withProgram( TrackedEntityInstanceQueryParams params, SqlHelper hlp )
@@ -307,7 +352,14 @@ public class HibernateTrackedEntityInstanceStore
         return hql;
     }
     
-    private String buildTrackedEntityInstanceHql( TrackedEntityInstanceQueryParams params, boolean idOnly )
+    /**
+     * Builds the HQL query for tracked entity instances.
+     *
+     * @param idOnly whether to select the id only.
+     * @param paged whether to include the page token restriction and the
+     *        order clause.
+     */
+    private String buildTrackedEntityInstanceHql( TrackedEntityInstanceQueryParams params, boolean idOnly, boolean paged )
     {
         SqlHelper hlp = new SqlHelper( true );
 
@@ -370,13 +422,51 @@ public class HibernateTrackedEntityInstanceStore
 
         hql += addWhereConditionally( hlp, !params.isIncludeDeleted(), () -> " tei.deleted is false " );
 
+        if ( !paged )
+        {
+            return hql;
+        }
+
+        if ( isKeysetPaging( params ) && params.hasPageToken() )
+        {
+            hql += hlp.whereAnd() + getKeysetHql( params );
+        }
+
         hql += addConditionally( params.hasProgram(),
-            "order by case when pi.status = 'ACTIVE' then 1 when pi.status = 'COMPLETED' then 2 else 3 end asc, tei.lastUpdated desc",
-            "order by tei.lastUpdated desc" );
+            "order by " + PROGRAM_STATUS_RANK + " asc, tei.lastUpdated desc, tei.id desc",
+            "order by tei.lastUpdated desc, tei.id desc" );
 
         return hql;
     }
 
+    /**
+     * Returns a restriction on instances which are ordered after the sort key
+     * of the page token. The sort key is the program status rank ascending if
+     * a program is specified, then last updated and id descending.
+     */
+    private String getKeysetHql( TrackedEntityInstanceQueryParams params )
+    {
+        PageToken pageToken = PageToken.decode( params.getPageToken(), params.hasProgram() ? 3 : 2 );
+
+        int index = params.hasProgram() ? 1 : 0;
+
+        String lastUpdated = pageToken.getTimestamp( index ).toString();
+        long id = pageToken.getLong( index + 1 );
+
+        String hql = "(tei.lastUpdated < '" + lastUpdated + "' or (tei.lastUpdated = '" + lastUpdated +
+            "' and tei.id < " + id + "))";
+
+        if ( params.hasProgram() )
+        {
+            long rank = pageToken.getLong( 0 );
+
+            hql = "(" + PROGRAM_STATUS_RANK + " > " + rank + " or (" + PROGRAM_STATUS_RANK + " = " + rank +
+                " and " + hql + "))";
+        }
+
+        return " " + hql + " ";
+    }
+
     @Override
     public List<Map<String, String>> getTrackedEntityInstancesGrid( TrackedEntityInstanceQueryParams params )
     {
@@ -395,7 +485,8 @@ public class HibernateTrackedEntityInstanceStore
                 "te.uid as " + TRACKED_ENTITY_ID + ", " +
                 (params.hasProgram() ? "en.status as enrollment_status, " : "") +
                 (params.isIncludeDeleted() ? "tei.deleted as " + DELETED + ", " : "") +
-                "tei.inactive as " + INACTIVE_ID + ", ";
+                "tei.inactive as " + INACTIVE_ID + ", " +
+                "tei.trackedentityinstanceid as tei_id, ";
 
         for ( QueryItem item : params.getAttributes() )
         {
@@ -414,6 +505,13 @@ public class HibernateTrackedEntityInstanceStore
 
         sql += getFromWhereClause( params, hlp );
 
+        boolean keysetPaging = params.isPaging() && params.isDefaultOrder();
+
+        if ( keysetPaging && params.hasPageToken() )
+        {
+            sql += hlp.whereAnd() + getKeysetClause( params );
+        }
+
         // ---------------------------------------------------------------------
         // Order clause
         // ---------------------------------------------------------------------
@@ -424,8 +522,15 @@ public class HibernateTrackedEntityInstanceStore
         // Paging clause
         // ---------------------------------------------------------------------
 
-        sql += addConditionally( params.isPaging(),
-            () -> " limit " + params.getPageSizeWithDefault() + " offset " + params.getOffset() );
+        if ( keysetPaging && params.hasPageToken() )
+        {
+            sql += " limit " + params.getPageSizeWithDefault();
+        }
+        else
+        {
+            sql += addConditionally( params.isPaging(),
+                () -> " limit " + params.getPageSizeWithDefault() + " offset " + params.getOffset() );
+        }
 
         // ---------------------------------------------------------------------
         // Query
@@ -437,8 +542,14 @@ public class HibernateTrackedEntityInstanceStore
 
         List<Map<String, String>> list = new ArrayList<>();
 
+        PageToken lastPageToken = null;
+
         while ( rowSet.next() )
         {
+            lastPageToken = params.hasProgram() ?
+                new PageToken( rowSet.getInt( "enrollment_status" ), rowSet.getTimestamp( LAST_UPDATED_ID ), rowSet.getLong( "tei_id" ) ) :
+                new PageToken( rowSet.getTimestamp( LAST_UPDATED_ID ), rowSet.getLong( "tei_id" ) );
+
             final Map<String, String> map = new HashMap<>();
 
             map.put( TRACKED_ENTITY_INSTANCE_ID, rowSet.getString( TRACKED_ENTITY_INSTANCE_ID ) );
@@ -464,6 +575,11 @@ public class HibernateTrackedEntityInstanceStore
             list.add( map );
         }
 
+        if ( keysetPaging && list.size() >= params.getPageSizeWithDefault() )
+        {
+            params.setNextPageToken( lastPageToken.encode() );
+        }
+
         return list;
     }
 
@@ -495,6 +611,22 @@ public class HibernateTrackedEntityInstanceStore
         return count;
     }
 
+    @Override
+    public int getTrackedEntityInstanceCountEstimateForGrid( TrackedEntityInstanceQueryParams params )
+    {
+        SqlHelper hlp = new SqlHelper();
+
+        String sql = "explain (format json) select tei.uid " + getFromWhereClause( params, hlp );
+
+        String plan = jdbcTemplate.queryForObject( sql, String.class );
+
+        log.debug( "Tracked entity instance count estimate SQL: " + sql );
+
+        Matcher matcher = PLAN_ROWS_PATTERN.matcher( plan );
+
+        return matcher.find() ? Integer.parseInt( matcher.group( 1 ) ) : 0;
+    }
+
     /**
      * From, join and where clause. For attribute params, restriction is set in
      * inner join. For query params, restriction is set in where clause.
@@ -701,10 +833,34 @@ public class HibernateTrackedEntityInstanceStore
 
         if ( params.hasProgram() )
         {
-            return "order by en.status asc, lastUpdated desc ";
+            return "order by en.status asc, lastUpdated desc, tei_id desc ";
         }
 
-        return "order by lastUpdated desc ";
+        return "order by lastUpdated desc, tei_id desc ";
+    }
+
+    /**
+     * Returns a restriction on instances which are ordered after the sort key
+     * of the page token. The sort key is the enrollment status ascending if a
+     * program is specified, then last updated and id descending.
+     */
+    private String getKeysetClause( TrackedEntityInstanceQueryParams params )
+    {
+        PageToken pageToken = PageToken.decode( params.getPageToken(), params.hasProgram() ? 3 : 2 );
+
+        int index = params.hasProgram() ? 1 : 0;
+
+        String sql = "(tei.lastupdated, tei.trackedentityinstanceid) < ('" + pageToken.getTimestamp( index ) + "', " +
+            pageToken.getLong( index + 1 ) + ")";
+
+        if ( params.hasProgram() )
+        {
+            long status = pageToken.getLong( 0 );
+
+            sql = "(en.status > " + status + " or (en.status = " + status + " and " + sql + "))";
+        }
+
+        return " " + sql + " ";
     }
 
     private List<String> getStaticGridColumns()
@@ -902,6 +1058,11 @@ public class HibernateTrackedEntityInstanceStore
         return (trackedEntityInstance == null || trackedEntityInstance.isDeleted()) ? null : trackedEntityInstance;
     }
 
+    private Timestamp getTimestamp( Date date )
+    {
+        return date instanceof Timestamp ? (Timestamp) date : new Timestamp( date.getTime() );
+    }
+
     private boolean isOrgUnit( QueryItem item )
     {
         return item.getValueType().isOrganisationUnit();
@@ -0,0 +1,206 @@
+package org.hisp.dhis.datavalue;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hisp.dhis.DhisTest;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.jdbc.batchhandler.DataValueBatchHandler;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.PeriodService;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.quick.BatchHandler;
+import org.hisp.quick.BatchHandlerFactory;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.Lists;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the throughput of looking up existing data values one by one
+ * through the data value batch handler, as done by the data value set import
+ * before, with looking them up in chunks through a single query per chunk.
+ */
+@Slf4j
+@Ignore( "Test to run manually" )
+public class DataValueLookupBenchmarkTest
+    extends DhisTest
+{
+    private static final int DATA_ELEMENTS = 20;
+    private static final int ORG_UNITS = 50;
+    private static final int PERIODS = 12;
+    private static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private BatchHandlerFactory batchHandlerFactory;
+
+    @Autowired
+    private DataValueService dataValueService;
+
+    @Autowired
+    private DataElementService dataElementService;
+
+    @Autowired
+    private PeriodService periodService;
+
+    @Autowired
+    private OrganisationUnitService organisationUnitService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    private List<DataValue> dataValues = new ArrayList<>();
+
+    // -------------------------------------------------------------------------
+    // Fixture
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void setUpTest()
+    {
+        CategoryOptionCombo coc = categoryService.getDefaultCategoryOptionCombo();
+
+        PeriodType periodType = PeriodType.getPeriodTypeByName( MonthlyPeriodType.NAME );
+
+        List<DataElement> dataElements = new ArrayList<>();
+        List<OrganisationUnit> orgUnits = new ArrayList<>();
+        List<Period> periods = new ArrayList<>();
+
+        for ( int i = 0; i < DATA_ELEMENTS; i++ )
+        {
+            DataElement dataElement = createDataElement( 'A' );
+            dataElement.setName( "DataElement" + i );
+            dataElement.setShortName( "DataElementShort" + i );
+            dataElement.setCode( "DataElementCode" + i );
+            dataElementService.addDataElement( dataElement );
+            dataElements.add( dataElement );
+        }
+
+        for ( int i = 0; i < ORG_UNITS; i++ )
+        {
+            OrganisationUnit orgUnit = createOrganisationUnit( "OrgUnit" + i );
+            organisationUnitService.addOrganisationUnit( orgUnit );
+            orgUnits.add( orgUnit );
+        }
+
+        for ( int i = 1; i <= PERIODS; i++ )
+        {
+            Period period = createPeriod( periodType, getDate( 2000, i, 1 ), getDate( 2000, i, 28 ) );
+            periodService.addPeriod( period );
+            periods.add( period );
+        }
+
+        BatchHandler<DataValue> batchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
+
+        for ( DataElement dataElement : dataElements )
+        {
+            for ( OrganisationUnit orgUnit : orgUnits )
+            {
+                for ( Period period : periods )
+                {
+                    DataValue dataValue = createDataValue( dataElement, period, orgUnit, coc, coc, "10" );
+                    batchHandler.addObject( dataValue );
+                    dataValues.add( dataValue );
+                }
+            }
+        }
+
+        batchHandler.flush();
+    }
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testLookupThroughput()
+    {
+        BatchHandler<DataValue> batchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
+
+        long start = System.nanoTime();
+        int found = 0;
+
+        for ( DataValue dataValue : dataValues )
+        {
+            if ( batchHandler.findObject( dataValue ) != null )
+            {
+                found++;
+            }
+        }
+
+        long rowTime = System.nanoTime() - start;
+
+        batchHandler.flush();
+
+        assertEquals( dataValues.size(), found );
+
+        start = System.nanoTime();
+        found = 0;
+
+        for ( List<DataValue> chunk : Lists.partition( dataValues, CHUNK_SIZE ) )
+        {
+            found += dataValueService.getDeflatedDataValues( chunk ).size();
+        }
+
+        long chunkTime = System.nanoTime() - start;
+
+        assertEquals( dataValues.size(), found );
+
+        log.info( String.format( "Looked up %d data values, one by one: %d values/s, in chunks of %d: %d values/s",
+            dataValues.size(), getThroughput( rowTime ), CHUNK_SIZE, getThroughput( chunkTime ) ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private long getThroughput( long nanos )
+    {
+        return dataValues.size() * 1_000_000_000L / Math.max( nanos, 1 );
+    }
+}
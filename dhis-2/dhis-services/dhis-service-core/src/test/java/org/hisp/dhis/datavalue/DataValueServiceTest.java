@@ -492,6 +492,29 @@ public class DataValueServiceTest
         assertEquals( 1, dataValueService.getDataValues(  sourceA,  periodA, Lists.newArrayList( dataElementA, dataElementB ), optionCombo ).size() );
     }
 
+    @Test
+    public void testGetDeflatedDataValuesForDataValues()
+    {
+        DataValue dataValueA = new DataValue( dataElementA, periodA, sourceA, optionCombo, optionCombo, "1" );
+        DataValue dataValueB = new DataValue( dataElementB, periodA, sourceA, optionCombo, optionCombo, "2" );
+        DataValue dataValueC = new DataValue( dataElementC, periodB, sourceB, optionCombo, optionCombo, "3" );
+        dataValueB.setDeleted( true );
+
+        dataValueService.addDataValue( dataValueA );
+        dataValueService.addDataValue( dataValueB );
+        dataValueService.addDataValue( dataValueC );
+
+        DataValue dataValueD = new DataValue( dataElementD, periodA, sourceA, optionCombo, optionCombo, "4" );
+
+        List<DeflatedDataValue> values = dataValueService.getDeflatedDataValues( Lists.newArrayList( dataValueA, dataValueB, dataValueD ) );
+
+        assertEquals( 2, values.size() );
+        assertTrue( values.contains( new DeflatedDataValue( dataValueA ) ) );
+        assertTrue( values.contains( new DeflatedDataValue( dataValueB ) ) );
+        assertTrue( values.stream().anyMatch( DeflatedDataValue::isDeleted ) );
+        assertTrue( dataValueService.getDeflatedDataValues( Lists.newArrayList() ).isEmpty() );
+    }
+
     @Test
     public void testMissingPeriod()
     {
@@ -0,0 +1,136 @@
+package org.hisp.dhis.expression;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.indicator.Indicator;
+import org.hisp.dhis.indicator.IndicatorType;
+import org.hisp.dhis.validation.ValidationRule;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.Sets;
+
+public class ExpressionDependencyServiceTest
+    extends DhisSpringTest
+{
+    @Autowired
+    private ExpressionDependencyService expressionDependencyService;
+
+    @Autowired
+    private IdentifiableObjectManager idObjectManager;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    private DataElement dataElementA;
+
+    private DataElement dataElementB;
+
+    private CategoryOptionCombo coc;
+
+    private IndicatorType indicatorType;
+
+    @Override
+    public void setUpTest()
+    {
+        dataElementA = createDataElement( 'A' );
+        dataElementB = createDataElement( 'B' );
+
+        idObjectManager.save( dataElementA );
+        idObjectManager.save( dataElementB );
+
+        coc = categoryService.getDefaultCategoryOptionCombo();
+
+        indicatorType = createIndicatorType( 'A' );
+
+        idObjectManager.save( indicatorType );
+    }
+
+    @Test
+    public void testGetDependents()
+    {
+        Indicator indicatorA = createIndicator( 'A', indicatorType );
+        indicatorA.setNumerator( "#{" + dataElementA.getUid() + "}" );
+        indicatorA.setDenominator( "1" );
+
+        Indicator indicatorB = createIndicator( 'B', indicatorType );
+        indicatorB.setNumerator( "#{" + dataElementA.getUid() + "." + coc.getUid() + "}" );
+        indicatorB.setDenominator( "#{" + dataElementB.getUid() + "}" );
+
+        idObjectManager.save( indicatorA );
+        idObjectManager.save( indicatorB );
+
+        expressionDependencyService.buildIndex();
+
+        assertEquals( Sets.newHashSet( indicatorA.getUid(), indicatorB.getUid() ),
+            expressionDependencyService.getDependentUids( dataElementA.getUid(), Indicator.class ) );
+        assertEquals( Sets.newHashSet( indicatorB.getUid() ),
+            expressionDependencyService.getDependentUids( dataElementB.getUid(), Indicator.class ) );
+        assertEquals( Sets.newHashSet( indicatorB.getUid() ),
+            expressionDependencyService.getDependentUids( coc.getUid(), Indicator.class ) );
+        assertTrue( expressionDependencyService.getDependentUids( dataElementA.getUid(), ValidationRule.class ).isEmpty() );
+
+        assertEquals( 2, expressionDependencyService.getDependents( dataElementA.getUid(), Indicator.class ).size() );
+    }
+
+    @Test
+    public void testUpdateAndRemoveDependencies()
+    {
+        Indicator indicatorA = createIndicator( 'A', indicatorType );
+        indicatorA.setNumerator( "#{" + dataElementA.getUid() + "}" );
+        indicatorA.setDenominator( "1" );
+
+        idObjectManager.save( indicatorA );
+
+        expressionDependencyService.buildIndex();
+
+        assertEquals( Sets.newHashSet( indicatorA.getUid() ),
+            expressionDependencyService.getDependentUids( dataElementA.getUid(), Indicator.class ) );
+
+        indicatorA.setNumerator( "#{" + dataElementB.getUid() + "}" );
+
+        expressionDependencyService.updateDependencies( indicatorA );
+
+        assertTrue( expressionDependencyService.getDependentUids( dataElementA.getUid(), Indicator.class ).isEmpty() );
+        assertEquals( Sets.newHashSet( indicatorA.getUid() ),
+            expressionDependencyService.getDependentUids( dataElementB.getUid(), Indicator.class ) );
+
+        expressionDependencyService.removeDependencies( indicatorA );
+
+        assertTrue( expressionDependencyService.getDependentUids( dataElementB.getUid(), Indicator.class ).isEmpty() );
+    }
+}
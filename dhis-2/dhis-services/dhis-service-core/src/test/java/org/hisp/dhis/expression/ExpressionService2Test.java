@@ -627,6 +627,24 @@ public class ExpressionService2Test
                 NEVER_SKIP ), DELTA );
     }
 
+    @Test
+    public void testGetExpressionValueReusesParsedExpression()
+    {
+        Map<DimensionalItemObject, Double> valueMap = new HashMap<>();
+        valueMap.put( new DataElementOperand( deA, coc ), 12d );
+        valueMap.put( new DataElementOperand( deB, coc ), 34d );
+
+        assertEquals( 46d, target
+            .getExpressionValue( expressionA, INDICATOR_EXPRESSION, valueMap, constantMap(), null, null, NEVER_SKIP ),
+            DELTA );
+
+        valueMap.put( new DataElementOperand( deA, coc ), 20d );
+
+        assertEquals( 54d, target
+            .getExpressionValue( expressionA, INDICATOR_EXPRESSION, valueMap, constantMap(), null, null, NEVER_SKIP ),
+            DELTA );
+    }
+
     @Test
     public void testGetIndicatorValueObject()
     {
@@ -0,0 +1,210 @@
+package org.hisp.dhis.preheat;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.Cache;
+import org.hibernate.MultiIdentifierLoadAccess;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.fieldfilter.Defaults;
+import org.hisp.dhis.query.Query;
+import org.hisp.dhis.query.QueryService;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.security.acl.AclService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+
+import com.google.common.collect.Lists;
+
+public class DefaultPreheatCacheTest
+    extends DhisConvenienceTest
+{
+    @Mock
+    private QueryService queryService;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    @Mock
+    private MultiIdentifierLoadAccess<DataElement> multiLoadAccess;
+
+    @Mock
+    private AclService aclService;
+
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private Environment env;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private final Schema schema = new Schema( DataElement.class, "dataElement", "dataElements" );
+
+    private DataElement deA;
+
+    private DataElement deB;
+
+    private DefaultPreheatCache preheatCache;
+
+    @Before
+    public void setUp()
+    {
+        when( env.getActiveProfiles() ).thenReturn( new String[0] );
+        when( cacheProvider.newCacheBuilder( Long.class ) ).thenReturn( new SimpleCacheBuilder<>() );
+        when( sessionFactory.getCurrentSession() ).thenReturn( session );
+        when( sessionFactory.getCache() ).thenReturn( secondLevelCache );
+        when( session.byMultipleIds( DataElement.class ) ).thenReturn( multiLoadAccess );
+        when( multiLoadAccess.enableSessionCheck( true ) ).thenReturn( multiLoadAccess );
+
+        preheatCache = new DefaultPreheatCache( queryService, sessionFactory, aclService, cacheProvider, env );
+        preheatCache.init();
+
+        deA = createDataElement( 'A' );
+        deA.setId( 1L );
+        deB = createDataElement( 'B' );
+        deB.setId( 2L );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testCachedIdentifiersAreLoadedInOneQuery()
+    {
+        when( (List<DataElement>) queryService.query( any( Query.class ) ) ).thenReturn( Lists.newArrayList( deA, deB ) );
+        when( multiLoadAccess.multiLoad( anyList() ) ).thenReturn( Lists.newArrayList( deA, deB ) );
+
+        List<? extends IdentifiableObject> queried = query( deA.getUid(), deB.getUid() );
+        List<? extends IdentifiableObject> cached = query( deA.getUid(), deB.getUid() );
+
+        assertThat( queried, containsInAnyOrder( deA, deB ) );
+        assertThat( cached, containsInAnyOrder( deA, deB ) );
+
+        verify( queryService, times( 1 ) ).query( any( Query.class ) );
+        verify( multiLoadAccess, times( 1 ) ).multiLoad( Lists.newArrayList( 1L, 2L ) );
+        verify( session, never() ).get( eq( DataElement.class ), anyLong() );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testCachedIdentifiersAreReadFromSecondLevelCache()
+    {
+        when( (List<DataElement>) queryService.query( any( Query.class ) ) ).thenReturn( Lists.newArrayList( deA, deB ) );
+        when( secondLevelCache.containsEntity( DataElement.class, 1L ) ).thenReturn( true );
+        when( session.get( DataElement.class, 1L ) ).thenReturn( deA );
+        when( multiLoadAccess.multiLoad( anyList() ) ).thenReturn( Lists.newArrayList( deB ) );
+
+        query( deA.getUid(), deB.getUid() );
+
+        List<? extends IdentifiableObject> cached = query( deA.getUid(), deB.getUid() );
+
+        assertThat( cached, containsInAnyOrder( deA, deB ) );
+
+        verify( session, times( 1 ) ).get( DataElement.class, 1L );
+        verify( multiLoadAccess, times( 1 ) ).multiLoad( Lists.newArrayList( 2L ) );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testUpdatedObjectIsQueriedAgainAfterInvalidation()
+    {
+        when( (List<DataElement>) queryService.query( any( Query.class ) ) )
+            .thenReturn( Lists.newArrayList( deA, deB ) )
+            .thenReturn( Lists.newArrayList( deA ) );
+        when( multiLoadAccess.multiLoad( anyList() ) ).thenReturn( Lists.newArrayList( deB ) );
+
+        query( deA.getUid(), deB.getUid() );
+
+        new PreheatCacheInvalidationListener( preheatCache )
+            .onPostUpdate( new PostUpdateEvent( deA, deA.getId(), null, null, null, null, null ) );
+
+        List<? extends IdentifiableObject> objects = query( deA.getUid(), deB.getUid() );
+
+        assertThat( objects, containsInAnyOrder( deA, deB ) );
+
+        ArgumentCaptor<List<Long>> ids = ArgumentCaptor.forClass( List.class );
+
+        verify( queryService, times( 2 ) ).query( any( Query.class ) );
+        verify( multiLoadAccess, times( 1 ) ).multiLoad( ids.capture() );
+        assertThat( ids.getValue(), containsInAnyOrder( 2L ) );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testStaleCachedIdentifierIsQueriedAgain()
+    {
+        when( (List<DataElement>) queryService.query( any( Query.class ) ) ).thenReturn( Lists.newArrayList( deA ) );
+        when( multiLoadAccess.multiLoad( anyList() ) ).thenReturn( Collections.singletonList( null ) );
+
+        query( deA.getUid() );
+
+        List<? extends IdentifiableObject> objects = query( deA.getUid() );
+
+        assertThat( objects, containsInAnyOrder( deA ) );
+
+        verify( queryService, times( 2 ) ).query( any( Query.class ) );
+    }
+
+    private List<? extends IdentifiableObject> query( String... uids )
+    {
+        return preheatCache.query( schema, null, Defaults.INCLUDE, PreheatIdentifier.UID, Lists.newArrayList( uids ) );
+    }
+}
@@ -34,6 +34,8 @@ import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -212,6 +214,54 @@ public class SchemaToDataFetcherTest extends DhisConvenienceTest
 
     }
 
+    @Test
+    public void verifyUniqueFieldsAreFetchedForGivenObjectsOnly()
+        throws NoSuchMethodException
+    {
+        Property code = createUniqueProperty( String.class, "code", true, true );
+        code.setGetterMethod( DataElement.class.getMethod( "getCode" ) );
+
+        Schema schema = createSchema( DataElement.class, "dataElement",
+            Stream.of(
+                createProperty( String.class, "name", true, true ),
+                code ).collect( toList() ) );
+
+        String hql = "SELECT code from DataElement where code in (:values)";
+        mockSession( hql );
+        when( query.setParameterList( eq( "values" ), anyCollection() ) ).thenReturn( query );
+
+        List<Object> l = new ArrayList<>();
+
+        l.add( "abc" );
+
+        when( query.getResultList() ).thenReturn( l );
+
+        DataElement dataElementA = createDataElement( 'A' );
+        dataElementA.setCode( "abc" );
+        DataElement dataElementB = createDataElement( 'B' );
+        dataElementB.setCode( "bce" );
+
+        List<DataElement> result = (List<DataElement>) subject.fetch( schema,
+            Lists.newArrayList( dataElementA, dataElementB ) );
+
+        assertThat( result, hasSize( 1 ) );
+        assertThat( result.get( 0 ), hasProperty( "code", is( "abc" ) ) );
+
+        verify( session, times( 1 ) ).createQuery( hql );
+        verify( query ).setParameterList( "values", Lists.newArrayList( "abc", "bce" ) );
+    }
+
+    @Test
+    public void verifyNoSqlWhenNoObjectsAreGiven()
+    {
+        Schema schema = createSchema( DataElement.class, "dataElement",
+            Stream.of( createUniqueProperty( String.class, "code", true, true ) ).collect( toList() ) );
+
+        subject.fetch( schema, new ArrayList<>() );
+
+        verify( sessionFactory, times( 0 ) ).getCurrentSession();
+    }
+
     @Test
     public void verifyNoSqlWhenUniquePropertiesListIsEmpty()
     {
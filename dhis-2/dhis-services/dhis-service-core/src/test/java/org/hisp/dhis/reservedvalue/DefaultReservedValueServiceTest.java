@@ -49,6 +49,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static java.util.Calendar.DATE;
 import static org.junit.Assert.assertEquals;
@@ -227,6 +228,24 @@ public class DefaultReservedValueServiceTest
 
     }
 
+    @Test
+    public void testReserveReserveSequentialValuesRetriesAfterCollisions()
+        throws Exception
+    {
+        List<ReservedValue> reserved = reservedValueService
+            .reserve( simpleSequentialTextPattern, 10, new HashMap<>(), future );
+
+        // Reserve the next values of the counter, so that they collide
+
+        reservedValueStore.reserveValues( reserved.get( 0 ), Lists.newArrayList( "TEST-11", "TEST-12", "TEST-13" ) );
+
+        List<ReservedValue> res = reservedValueService.reserve( simpleSequentialTextPattern, 5, new HashMap<>(), future );
+
+        assertEquals( Lists.newArrayList( "TEST-14", "TEST-15", "TEST-16", "TEST-17", "TEST-18" ),
+            res.stream().map( ReservedValue::getValue ).sorted().collect( Collectors.toList() ) );
+        assertEquals( 18, reservedValueStore.getCount() );
+    }
+
     @Test
     public void testReserveReserveTooManySequentialValuesWhenNoneExists()
         throws Exception
@@ -0,0 +1,135 @@
+package org.hisp.dhis.reservedvalue;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class SequentialNumberCounterAllocatorTest
+{
+    @Mock
+    private SequentialNumberCounterStore sequentialNumberCounterStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Environment env;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private SequentialNumberCounterAllocator allocator;
+
+    private int counter;
+
+    @Before
+    public void setUp()
+    {
+        counter = 1;
+
+        when( env.getActiveProfiles() ).thenReturn( new String[0] );
+        when( sequentialNumberCounterStore.getNextValues( any(), any(), anyInt() ) ).thenAnswer( invocation -> {
+            int length = invocation.getArgument( 2 );
+            List<Integer> values = IntStream.range( counter, counter + length ).boxed().collect( Collectors.toList() );
+            counter += length;
+            return values;
+        } );
+
+        allocator = new SequentialNumberCounterAllocator( sequentialNumberCounterStore, transactionManager, env );
+    }
+
+    @Test
+    public void verifyValuesAreServedFromAllocatedBlock()
+    {
+        assertEquals( Arrays.asList( 1, 2, 3 ), allocator.getNextValues( "uid", "key", 3, 9999999 ) );
+        assertEquals( Arrays.asList( 4, 5 ), allocator.getNextValues( "uid", "key", 2, 9999999 ) );
+
+        verify( sequentialNumberCounterStore, times( 1 ) ).getNextValues( "uid", "key", 1000 );
+    }
+
+    @Test
+    public void verifyNewBlockIsAllocatedWhenBlockIsUsedUp()
+    {
+        List<Integer> values = allocator.getNextValues( "uid", "key", 150, 99999 );
+
+        assertEquals( 150, values.size() );
+        assertEquals( IntStream.range( 1, 151 ).boxed().collect( Collectors.toList() ), values );
+
+        verify( sequentialNumberCounterStore, times( 2 ) ).getNextValues( "uid", "key", 99 );
+    }
+
+    @Test
+    public void verifyShortPatternsAreNotAllocatedInBlocks()
+    {
+        assertEquals( Arrays.asList( 1, 2 ), allocator.getNextValues( "uid", "key", 2, 99 ) );
+
+        verify( sequentialNumberCounterStore ).getNextValues( "uid", "key", 2 );
+    }
+
+    @Test
+    public void verifyAllRequestSizesAreAllocatedInSeparateTransaction()
+    {
+        allocator.getNextValues( "uid", "key", 2, 99 );
+        allocator.getNextValues( "uid", "key", 1, 9999999 );
+
+        verify( transactionManager, times( 2 ) ).getTransaction( any() );
+        verify( transactionManager, times( 2 ) ).commit( any() );
+    }
+
+    @Test
+    public void verifyInvalidatedBlocksAreDiscarded()
+    {
+        allocator.getNextValues( "uid", "key", 1, 9999999 );
+        allocator.invalidate( "uid" );
+
+        assertEquals( Arrays.asList( 1001 ), allocator.getNextValues( "uid", "key", 1, 9999999 ) );
+
+        verify( sequentialNumberCounterStore, times( 2 ) ).getNextValues( eq( "uid" ), eq( "key" ), eq( 1000 ) );
+    }
+}
@@ -47,8 +47,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
@@ -289,6 +291,39 @@ public class TrackedEntityInstanceStoreTest
         assertTrue( teis.contains( teiE ) );
     }
 
+    @Test
+    public void testGetTrackedEntityInstanceIdsWithPageToken()
+    {
+        teiStore.save( teiA );
+        teiStore.save( teiB );
+        teiStore.save( teiC );
+        teiStore.save( teiD );
+        teiStore.save( teiE );
+        teiStore.save( teiF );
+
+        TrackedEntityInstanceQueryParams params = new TrackedEntityInstanceQueryParams()
+            .setPageSize( 4 );
+
+        List<Long> firstPage = teiStore.getTrackedEntityInstanceIds( params );
+
+        assertEquals( 4, firstPage.size() );
+        assertNotNull( params.getNextPageToken() );
+
+        params = new TrackedEntityInstanceQueryParams()
+            .setPageSize( 4 )
+            .setPageToken( params.getNextPageToken() );
+
+        List<Long> secondPage = teiStore.getTrackedEntityInstanceIds( params );
+
+        assertEquals( 2, secondPage.size() );
+        assertNull( params.getNextPageToken() );
+
+        Set<Long> ids = new HashSet<>( firstPage );
+        ids.addAll( secondPage );
+
+        assertEquals( 6, ids.size() );
+    }
+
     @Test
     public void testProgramAttributeOfTypeOrgUnitIsResolvedToOrgUnitName()
     {
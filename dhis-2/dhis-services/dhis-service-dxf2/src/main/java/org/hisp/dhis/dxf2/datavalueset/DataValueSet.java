@@ -58,6 +58,7 @@ public class DataValueSet
 
     protected static final String FIELD_DATAVALUESET = "dataValueSet";
     protected static final String FIELD_DATAVALUE = "dataValue";
+    protected static final String FIELD_DATAVALUES = "dataValues";
     protected static final String FIELD_DATASET = "dataSet";
     protected static final String FIELD_COMPLETEDATE = "completeDate";
     protected static final String FIELD_PERIOD = "period";
@@ -30,6 +30,7 @@ package org.hisp.dhis.dxf2.datavalueset;
 
 import com.csvreader.CsvReader;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.BooleanUtils;
 import org.hisp.dhis.calendar.CalendarService;
@@ -45,6 +46,7 @@ import org.hisp.dhis.common.IdentifiableProperty;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.commons.collection.CachingMap;
 import org.hisp.dhis.commons.util.DebugUtils;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.commons.util.StreamUtils;
 import org.hisp.dhis.dataapproval.DataApproval;
 import org.hisp.dhis.dataapproval.DataApprovalService;
@@ -60,6 +62,7 @@ import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
 import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.datavalue.DeflatedDataValue;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.importsummary.ImportConflict;
 import org.hisp.dhis.dxf2.importsummary.ImportCount;
@@ -107,6 +110,7 @@ import org.hisp.dhis.util.ObjectUtils;
 import org.hisp.quick.BatchHandler;
 import org.hisp.quick.BatchHandlerFactory;
 import org.hisp.staxwax.factory.XMLFactory;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -115,10 +119,17 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -140,6 +151,11 @@ public class DefaultDataValueSetService
 {
     private static final String ERROR_OBJECT_NEEDED_TO_COMPLETE = "Must be provided to complete data set";
     private static final int CACHE_MISS_THRESHOLD = 250;
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int WRITER_THREADS = Math.max( 1, Math.min( 4, SystemUtils.getCpuCores() / 2 ) );
+
+    private static final ExecutorService WRITER_EXECUTOR = Executors.newFixedThreadPool( WRITER_THREADS,
+        new ThreadFactoryBuilder().setNameFormat( "DATA-VALUE-SET-WRITER-%d" ).setDaemon( true ).build() );
 
     private final IdentifiableObjectManager identifiableObjectManager;
 
@@ -183,6 +199,8 @@ public class DefaultDataValueSetService
 
     private final ObjectMapper jsonMapper;
 
+    private final Environment env;
+
     public DefaultDataValueSetService(
         IdentifiableObjectManager identifiableObjectManager,
         CategoryService categoryService,
@@ -204,7 +222,8 @@ public class DefaultDataValueSetService
         AclService aclService,
         AggregateAccessManager accessManager,
         DhisConfigurationProvider config,
-        ObjectMapper jsonMapper )
+        ObjectMapper jsonMapper,
+        Environment env )
     {
         checkNotNull( identifiableObjectManager );
         checkNotNull( categoryService );
@@ -227,6 +246,7 @@ public class DefaultDataValueSetService
         checkNotNull( accessManager );
         checkNotNull( config );
         checkNotNull( jsonMapper );
+        checkNotNull( env );
 
         this.identifiableObjectManager = identifiableObjectManager;
         this.categoryService = categoryService;
@@ -249,6 +269,7 @@ public class DefaultDataValueSetService
         this.accessManager = accessManager;
         this.config = config;
         this.jsonMapper = jsonMapper;
+        this.env = env;
     }
 
     /**
@@ -648,7 +669,7 @@ public class DefaultDataValueSetService
         {
             in = StreamUtils.wrapAndCheckCompressionFormat( in );
             DataValueSet dataValueSet = new StreamingXmlDataValueSet( XMLFactory.getXMLReader( in ) );
-            return saveDataValueSet( importOptions, id, dataValueSet );
+            return saveStreamingDataValueSet( importOptions, id, dataValueSet );
         }
         catch ( Exception ex )
         {
@@ -665,8 +686,8 @@ public class DefaultDataValueSetService
         try
         {
             in = StreamUtils.wrapAndCheckCompressionFormat( in );
-            DataValueSet dataValueSet = jsonMapper.readValue( in, DataValueSet.class );
-            return saveDataValueSet( importOptions, id, dataValueSet );
+            DataValueSet dataValueSet = new StreamingJsonDataValueSet( jsonMapper, in );
+            return saveStreamingDataValueSet( importOptions, id, dataValueSet );
         }
         catch ( Exception ex )
         {
@@ -691,7 +712,7 @@ public class DefaultDataValueSetService
             }
 
             DataValueSet dataValueSet = new StreamingCsvDataValueSet( csvReader );
-            return saveDataValueSet( importOptions, id, dataValueSet );
+            return saveStreamingDataValueSet( importOptions, id, dataValueSet );
         }
         catch ( Exception ex )
         {
@@ -724,6 +745,26 @@ public class DefaultDataValueSetService
         return saveDataValueSetPdf( in, importOptions, null );
     }
 
+    /**
+     * Imports the given streaming data value set. The data values are read
+     * ahead on a separate thread through a {@link PrefetchingDataValueSet},
+     * while validation and persistence run on the current thread, which holds
+     * the transaction and session used to look up meta-data.
+     */
+    private ImportSummary saveStreamingDataValueSet( ImportOptions importOptions, JobConfiguration id, DataValueSet dataValueSet )
+    {
+        DataValueSet prefetchingDataValueSet = new PrefetchingDataValueSet( dataValueSet );
+
+        try
+        {
+            return saveDataValueSet( importOptions, id, prefetchingDataValueSet );
+        }
+        finally
+        {
+            prefetchingDataValueSet.close();
+        }
+    }
+
     /**
      * There are specific id schemes for data elements and organisation units and
      * a generic id scheme for all objects. The specific id schemes will take
@@ -740,6 +781,11 @@ public class DefaultDataValueSetService
      * <p>
      * If id scheme is specific in the data value set, any id schemes in the import
      * options will be ignored.
+     * <p>
+     * Data values are validated on the current thread, which holds the
+     * Hibernate session, and imported in chunks. Each chunk is partitioned by
+     * org unit and period and written by a set of writers on the shared writer
+     * thread pool, while the next chunk is validated.
      */
     private ImportSummary saveDataValueSet( ImportOptions importOptions, JobConfiguration id, DataValueSet dataValueSet )
     {
@@ -935,14 +981,23 @@ public class DefaultDataValueSetService
 
         final Set<OrganisationUnit> currentOrgUnits = currentUserService.getCurrentUserOrganisationUnits();
 
-        BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
-        BatchHandler<DataValueAudit> auditBatchHandler = skipAudit ? null : batchHandlerFactory.createBatchHandler( DataValueAuditBatchHandler.class ).init();
+        int writerCount = SystemUtils.isTestRun( env.getActiveProfiles() ) ? 1 : WRITER_THREADS;
+
+        List<DataValueWriter> writers = new ArrayList<>();
+
+        for ( int i = 0; i < writerCount; i++ )
+        {
+            writers.add( new DataValueWriter(
+                batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init(),
+                skipAudit ? null : batchHandlerFactory.createBatchHandler( DataValueAuditBatchHandler.class ).init() ) );
+        }
+
+        List<Future<?>> pendingWrites = new ArrayList<>();
 
-        int importCount = 0;
-        int updateCount = 0;
-        int deleteCount = 0;
         int totalCount = 0;
 
+        List<DataValue> dataValueChunk = new ArrayList<>();
+
         // ---------------------------------------------------------------------
         // Data values
         // ---------------------------------------------------------------------
@@ -1263,15 +1318,11 @@ public class DefaultDataValueSetService
                 continue;
             }
 
-            DataValue actualDataValue = null;
-            if ( strategy.isDelete() && dataElement.isFileType() )
+            if ( strategy.isDelete() && dataElement.isFileType() &&
+                dataValueService.getDataValue( dataElement, period, orgUnit, categoryOptionCombo, attrOptionCombo ) == null )
             {
-                actualDataValue = dataValueService.getDataValue( dataElement, period, orgUnit, categoryOptionCombo, attrOptionCombo );
-                if ( actualDataValue == null )
-                {
-                    summary.getConflicts().add( new ImportConflict( dataElement.getUid(), "No data value for file resource exist for the given combination" ) );
-                    continue;
-                }
+                summary.getConflicts().add( new ImportConflict( dataElement.getUid(), "No data value for file resource exist for the given combination" ) );
+                continue;
             }
 
             // -----------------------------------------------------------------
@@ -1293,11 +1344,280 @@ public class DefaultDataValueSetService
             internalValue.setFollowup( dataValue.getFollowup() );
             internalValue.setDeleted( BooleanUtils.isTrue( dataValue.getDeleted() ) );
 
+            dataValueChunk.add( internalValue );
+
+            if ( dataValueChunk.size() >= IMPORT_CHUNK_SIZE )
+            {
+                awaitDataValueWrites( pendingWrites, writers );
+
+                pendingWrites = writeDataValues( dataValueChunk, writers, strategy, dryRun, skipExistingCheck, skipAudit );
+
+                dataValueChunk = new ArrayList<>();
+            }
+        }
+
+        awaitDataValueWrites( pendingWrites, writers );
+        awaitDataValueWrites( writeDataValues( dataValueChunk, writers, strategy, dryRun, skipExistingCheck, skipAudit ), writers );
+
+        ImportCount importCount = new ImportCount();
+
+        for ( DataValueWriter writer : writers )
+        {
+            writer.dataValueBatchHandler.flush();
+
+            if ( !skipAudit )
+            {
+                writer.auditBatchHandler.flush();
+            }
+
+            importCount.incrementImported( writer.importCount.getImported() );
+            importCount.incrementUpdated( writer.importCount.getUpdated() );
+            importCount.incrementDeleted( writer.importCount.getDeleted() );
+        }
+
+        importCount.setIgnored( totalCount - importCount.getImported() - importCount.getUpdated() - importCount.getDeleted() );
+
+        summary.setImportCount( importCount );
+        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
+        summary.setDescription( "Import process completed successfully" );
+
+        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount.getImported() +
+            ", update: " + importCount.getUpdated() + ", delete: " + importCount.getDeleted() );
+        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
+
+        dataValueSet.close();
+
+        return summary;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void handleComplete( DataSet dataSet, Date completeDate, Period period, OrganisationUnit orgUnit,
+        CategoryOptionCombo attributeOptionCombo, String currentUserName, ImportSummary summary )
+    {
+        if ( orgUnit == null )
+        {
+            summary.getConflicts().add( new ImportConflict( OrganisationUnit.class.getSimpleName(), ERROR_OBJECT_NEEDED_TO_COMPLETE ) );
+            return;
+        }
+
+        if ( period == null )
+        {
+            summary.getConflicts().add( new ImportConflict( Period.class.getSimpleName(), ERROR_OBJECT_NEEDED_TO_COMPLETE ) );
+            return;
+        }
+
+        period = periodService.reloadPeriod( period );
+
+        CompleteDataSetRegistration completeAlready = registrationService
+            .getCompleteDataSetRegistration( dataSet, period, orgUnit, attributeOptionCombo );
+
+        if ( completeAlready != null )
+        {
+            // At this point, DataSet is completed. Override, eventual non-completeness
+            completeAlready.setDate( completeDate );
+            completeAlready.setStoredBy( currentUserName );
+            completeAlready.setLastUpdated( new Date() );
+            completeAlready.setLastUpdatedBy( currentUserName );
+            completeAlready.setCompleted( true );
+
+            registrationService.updateCompleteDataSetRegistration( completeAlready );
+        }
+        else
+        {
+            CompleteDataSetRegistration registration = new CompleteDataSetRegistration( dataSet, period, orgUnit,
+                attributeOptionCombo, completeDate, currentUserName, new Date(), currentUserName, true );
+
+            registrationService.saveCompleteDataSetRegistration( registration );
+        }
+
+        summary.setDataSetComplete( DateUtils.getMediumDateString( completeDate ) );
+    }
+
+    /**
+     * Writes the given chunk of validated data values. The data values are
+     * partitioned by org unit and period over the given writers, so that all
+     * data values of a partition are written by the same writer, also across
+     * chunks. With a single writer the chunk is written on the current thread,
+     * otherwise each writer runs on the shared writer thread pool.
+     *
+     * @param dataValues        the data values.
+     * @param writers           the data value writers.
+     * @param strategy          the import strategy.
+     * @param dryRun            whether to skip persisting changes.
+     * @param skipExistingCheck whether to skip the check for existing data values.
+     * @param skipAudit         whether to skip auditing of changes.
+     * @return the pending writes, empty if the chunk was written on the
+     *         current thread.
+     */
+    private List<Future<?>> writeDataValues( List<DataValue> dataValues, List<DataValueWriter> writers,
+        ImportStrategy strategy, boolean dryRun, boolean skipExistingCheck, boolean skipAudit )
+    {
+        List<Future<?>> writes = new ArrayList<>();
+
+        if ( writers.size() == 1 )
+        {
+            importDataValues( dataValues, strategy, dryRun, skipExistingCheck, skipAudit, writers.get( 0 ) );
+
+            return writes;
+        }
+
+        List<List<DataValue>> partitions = new ArrayList<>();
+
+        for ( int i = 0; i < writers.size(); i++ )
+        {
+            partitions.add( new ArrayList<>() );
+        }
+
+        for ( DataValue dataValue : dataValues )
+        {
+            int partition = Math.floorMod( Objects.hash( dataValue.getSource().getId(), dataValue.getPeriod().getId() ), writers.size() );
+
+            partitions.get( partition ).add( dataValue );
+        }
+
+        for ( int i = 0; i < writers.size(); i++ )
+        {
+            List<DataValue> partition = partitions.get( i );
+            DataValueWriter writer = writers.get( i );
+
+            if ( !partition.isEmpty() )
+            {
+                writes.add( WRITER_EXECUTOR.submit( () ->
+                    importDataValues( partition, strategy, dryRun, skipExistingCheck, skipAudit, writer ) ) );
+            }
+        }
+
+        return writes;
+    }
+
+    /**
+     * Waits for the given pending writes to finish and applies the file
+     * resource updates of the writers on the current thread, which holds the
+     * Hibernate session. All writes are waited for before the first failure
+     * is rethrown, so that no writer is left running.
+     *
+     * @param writes  the pending writes.
+     * @param writers the data value writers.
+     */
+    private void awaitDataValueWrites( List<Future<?>> writes, List<DataValueWriter> writers )
+    {
+        RuntimeException failure = null;
+
+        for ( Future<?> write : writes )
+        {
+            try
+            {
+                write.get();
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+
+                throw new IllegalStateException( "Data value import was interrupted", ex );
+            }
+            catch ( ExecutionException ex )
+            {
+                if ( failure == null )
+                {
+                    failure = ex.getCause() instanceof RuntimeException ?
+                        (RuntimeException) ex.getCause() : new IllegalStateException( ex.getCause() );
+                }
+            }
+        }
+
+        if ( failure != null )
+        {
+            throw failure;
+        }
+
+        for ( DataValueWriter writer : writers )
+        {
+            for ( String fileResource : writer.assignedFileResources )
+            {
+                FileResource fr = fileResourceService.getFileResource( fileResource );
+
+                fr.setAssigned( true );
+
+                fileResourceService.updateFileResource( fr );
+            }
+
+            for ( String fileResource : writer.deletedFileResources )
+            {
+                FileResource fr = fileResourceService.getFileResource( fileResource );
+
+                fileResourceService.updateFileResource( fr );
+            }
+
+            writer.assignedFileResources.clear();
+            writer.deletedFileResources.clear();
+        }
+    }
+
+    /**
+     * Saves, updates or deletes the given chunk of validated data values.
+     * Existing data values for the chunk are retrieved with a single query
+     * instead of one query per data value. The retrieved values are updated
+     * as the chunk is written, so that data values occurring more than once
+     * in the chunk see the result of the previous occurrence. File resources
+     * to update are collected in the writer, as this method may run outside
+     * of the Hibernate session.
+     *
+     * @param dataValues        the data values.
+     * @param strategy          the import strategy.
+     * @param dryRun            whether to skip persisting changes.
+     * @param skipExistingCheck whether to skip the check for existing data values.
+     * @param skipAudit         whether to skip auditing of changes.
+     * @param writer            the data value writer.
+     */
+    private void importDataValues( List<DataValue> dataValues, ImportStrategy strategy, boolean dryRun, boolean skipExistingCheck,
+        boolean skipAudit, DataValueWriter writer )
+    {
+        BatchHandler<DataValue> dataValueBatchHandler = writer.dataValueBatchHandler;
+        BatchHandler<DataValueAudit> auditBatchHandler = writer.auditBatchHandler;
+        ImportCount importCount = writer.importCount;
+
+        if ( dataValues.isEmpty() )
+        {
+            return;
+        }
+
+        Map<String, DeflatedDataValue> existingValues = new HashMap<>();
+
+        if ( !skipExistingCheck )
+        {
+            for ( DeflatedDataValue value : dataValueService.getDeflatedDataValues( dataValues ) )
+            {
+                existingValues.put( getDataValueKey( value.getDataElementId(), value.getPeriodId(), value.getSourceId(),
+                    value.getCategoryOptionComboId(), value.getAttributeOptionComboId() ), value );
+            }
+        }
+
+        Set<String> pendingKeys = new HashSet<>();
+
+        for ( DataValue internalValue : dataValues )
+        {
+            DataElement dataElement = internalValue.getDataElement();
+            String storedBy = internalValue.getStoredBy();
+
+            String key = getDataValueKey( dataElement.getId(), internalValue.getPeriod().getId(),
+                internalValue.getSource().getId(), internalValue.getCategoryOptionCombo().getId(),
+                internalValue.getAttributeOptionCombo().getId() );
+
+            DeflatedDataValue existingValue = existingValues.get( key );
+
             // -----------------------------------------------------------------
-            // Save, update or delete data value
+            // Flush buffered inserts of the same data value before updating it
             // -----------------------------------------------------------------
 
-            DataValue existingValue = !skipExistingCheck ? dataValueBatchHandler.findObject( internalValue ) : null;
+            if ( !dryRun && existingValue != null && pendingKeys.contains( key ) )
+            {
+                dataValueBatchHandler.flush();
+
+                pendingKeys.clear();
+            }
 
             // -----------------------------------------------------------------
             // Check soft deleted data values on update and import
@@ -1315,17 +1635,19 @@ public class DefaultDataValueSetService
 
                         auditType = AuditType.DELETE;
 
-                        deleteCount++;
+                        importCount.incrementDeleted();
                     }
                     else
                     {
-                        updateCount++;
+                        importCount.incrementUpdated();
                     }
 
                     if ( !dryRun )
                     {
                         dataValueBatchHandler.updateObject( internalValue );
 
+                        existingValues.put( key, new DeflatedDataValue( internalValue ) );
+
                         if ( !skipAudit )
                         {
                             DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), storedBy, auditType );
@@ -1335,11 +1657,7 @@ public class DefaultDataValueSetService
 
                         if ( dataElement.isFileType() )
                         {
-                            FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
-
-                            fr.setAssigned( true );
-
-                            fileResourceService.updateFileResource( fr );
+                            writer.assignedFileResources.add( internalValue.getValue() );
                         }
 
                     }
@@ -1348,19 +1666,19 @@ public class DefaultDataValueSetService
                 {
                     internalValue.setDeleted( true );
 
-                    deleteCount++;
+                    importCount.incrementDeleted();
 
                     if ( !dryRun )
                     {
-                        if ( dataElement.isFileType() && actualDataValue != null )
+                        if ( dataElement.isFileType() )
                         {
-                            FileResource fr = fileResourceService.getFileResource( actualDataValue.getValue() );
-
-                            fileResourceService.updateFileResource( fr );
+                            writer.deletedFileResources.add( existingValue.getValue() );
                         }
 
                         dataValueBatchHandler.updateObject( internalValue );
 
+                        existingValues.put( key, new DeflatedDataValue( internalValue ) );
+
                         if ( !skipAudit )
                         {
                             DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), storedBy, AuditType.DELETE );
@@ -1378,19 +1696,17 @@ public class DefaultDataValueSetService
                     {
                         if ( existingValue != null && existingValue.isDeleted() )
                         {
-                            importCount++;
+                            importCount.incrementImported();
 
                             if ( !dryRun )
                             {
                                 dataValueBatchHandler.updateObject( internalValue );
 
+                                existingValues.put( key, new DeflatedDataValue( internalValue ) );
+
                                 if ( dataElement.isFileType() )
                                 {
-                                    FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
-
-                                    fr.setAssigned( true );
-
-                                    fileResourceService.updateFileResource( fr );
+                                    writer.assignedFileResources.add( internalValue.getValue() );
                                 }
                             }
                         }
@@ -1402,91 +1718,33 @@ public class DefaultDataValueSetService
                             {
                                 added = dataValueBatchHandler.addObject( internalValue );
 
-                                if ( added && dataElement.isFileType() )
+                                if ( added && !skipExistingCheck )
                                 {
-                                    FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
-
-                                    fr.setAssigned( true );
+                                    existingValues.put( key, new DeflatedDataValue( internalValue ) );
+                                    pendingKeys.add( key );
+                                }
 
-                                    fileResourceService.updateFileResource( fr );
+                                if ( added && dataElement.isFileType() )
+                                {
+                                    writer.assignedFileResources.add( internalValue.getValue() );
                                 }
                             }
 
                             if ( dryRun || added )
                             {
-                                importCount++;
+                                importCount.incrementImported();
                             }
                         }
                     }
                 }
             }
         }
-
-        dataValueBatchHandler.flush();
-
-        if ( !skipAudit )
-        {
-            auditBatchHandler.flush();
-        }
-
-        int ignores = totalCount - importCount - updateCount - deleteCount;
-
-        summary.setImportCount( new ImportCount( importCount, updateCount, ignores, deleteCount ) );
-        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
-        summary.setDescription( "Import process completed successfully" );
-
-        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount + ", update: " + updateCount + ", delete: " + deleteCount );
-        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
-
-        dataValueSet.close();
-
-        return summary;
     }
 
-    // -------------------------------------------------------------------------
-    // Supportive methods
-    // -------------------------------------------------------------------------
-
-    private void handleComplete( DataSet dataSet, Date completeDate, Period period, OrganisationUnit orgUnit,
-        CategoryOptionCombo attributeOptionCombo, String currentUserName, ImportSummary summary )
+    private String getDataValueKey( long dataElementId, long periodId, long sourceId,
+        long categoryOptionComboId, long attributeOptionComboId )
     {
-        if ( orgUnit == null )
-        {
-            summary.getConflicts().add( new ImportConflict( OrganisationUnit.class.getSimpleName(), ERROR_OBJECT_NEEDED_TO_COMPLETE ) );
-            return;
-        }
-
-        if ( period == null )
-        {
-            summary.getConflicts().add( new ImportConflict( Period.class.getSimpleName(), ERROR_OBJECT_NEEDED_TO_COMPLETE ) );
-            return;
-        }
-
-        period = periodService.reloadPeriod( period );
-
-        CompleteDataSetRegistration completeAlready = registrationService
-            .getCompleteDataSetRegistration( dataSet, period, orgUnit, attributeOptionCombo );
-
-        if ( completeAlready != null )
-        {
-            // At this point, DataSet is completed. Override, eventual non-completeness
-            completeAlready.setDate( completeDate );
-            completeAlready.setStoredBy( currentUserName );
-            completeAlready.setLastUpdated( new Date() );
-            completeAlready.setLastUpdatedBy( currentUserName );
-            completeAlready.setCompleted( true );
-
-            registrationService.updateCompleteDataSetRegistration( completeAlready );
-        }
-        else
-        {
-            CompleteDataSetRegistration registration = new CompleteDataSetRegistration( dataSet, period, orgUnit,
-                attributeOptionCombo, completeDate, currentUserName, new Date(), currentUserName, true );
-
-            registrationService.saveCompleteDataSetRegistration( registration );
-        }
-
-        summary.setDataSetComplete( DateUtils.getMediumDateString( completeDate ) );
+        return dataElementId + "-" + periodId + "-" + sourceId + "-" + categoryOptionComboId + "-" + attributeOptionComboId;
     }
 
     /**
@@ -1501,4 +1759,28 @@ public class DefaultDataValueSetService
     {
         return dataSet.isLocked( user, period, null ) && (skipLockExceptionCheck || lockExceptionStore.getCount( dataSet, period, organisationUnit ) == 0L);
     }
+
+    /**
+     * Writes the data values of one partition of a data value set import
+     * through its own batch handlers. A writer is used by one thread at a
+     * time.
+     */
+    private static class DataValueWriter
+    {
+        private final BatchHandler<DataValue> dataValueBatchHandler;
+
+        private final BatchHandler<DataValueAudit> auditBatchHandler;
+
+        private final ImportCount importCount = new ImportCount();
+
+        private final List<String> assignedFileResources = new ArrayList<>();
+
+        private final List<String> deletedFileResources = new ArrayList<>();
+
+        DataValueWriter( BatchHandler<DataValue> dataValueBatchHandler, BatchHandler<DataValueAudit> auditBatchHandler )
+        {
+            this.dataValueBatchHandler = dataValueBatchHandler;
+            this.auditBatchHandler = auditBatchHandler;
+        }
+    }
 }
@@ -0,0 +1,287 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hisp.dhis.dxf2.datavalue.DataValue;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Data value set which reads the data values of another data value set on a
+ * separate thread, ahead of the consumer, through a bounded queue. This lets
+ * parsing of a streaming data value set run concurrently with validation and
+ * persistence of the data values. The properties of the data value set are
+ * read on construction, before the data values, and each data value is copied
+ * so that it does not depend on the state of the underlying reader. The data
+ * values are returned in the order of the underlying data value set. The
+ * underlying data value set is closed only after the reader has stopped.
+ */
+public class PrefetchingDataValueSet
+    extends DataValueSet
+{
+    private static final int DEFAULT_CAPACITY = 10000;
+
+    private static final DataValue END_OF_DATA_VALUES = new DataValue();
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder()
+        .setNameFormat( "DATA-VALUE-SET-READER-%d" )
+        .setDaemon( true )
+        .build();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool( THREAD_FACTORY );
+
+    private final DataValueSet dataValueSet;
+
+    private final BlockingQueue<DataValue> queue;
+
+    private final Future<?> reader;
+
+    private final AtomicBoolean readerStarted = new AtomicBoolean();
+
+    private final CountDownLatch readerDone = new CountDownLatch( 1 );
+
+    private volatile RuntimeException readException;
+
+    private DataValue nextDataValue;
+
+    private boolean endOfDataValues = false;
+
+    private boolean closed = false;
+
+    public PrefetchingDataValueSet( DataValueSet dataValueSet )
+    {
+        this( dataValueSet, DEFAULT_CAPACITY );
+    }
+
+    public PrefetchingDataValueSet( DataValueSet dataValueSet, int capacity )
+    {
+        this.dataValueSet = dataValueSet;
+        this.queue = new ArrayBlockingQueue<>( capacity );
+
+        this.idScheme = dataValueSet.getIdScheme();
+        this.dataElementIdScheme = dataValueSet.getDataElementIdScheme();
+        this.orgUnitIdScheme = dataValueSet.getOrgUnitIdScheme();
+        this.categoryOptionComboIdScheme = dataValueSet.getCategoryOptionComboIdScheme();
+        this.dataSetIdScheme = dataValueSet.getDataSetIdScheme();
+        this.dryRun = dataValueSet.getDryRun();
+        this.strategy = dataValueSet.getStrategy();
+        this.dataSet = dataValueSet.getDataSet();
+        this.completeDate = dataValueSet.getCompleteDate();
+        this.period = dataValueSet.getPeriod();
+        this.orgUnit = dataValueSet.getOrgUnit();
+        this.attributeOptionCombo = dataValueSet.getAttributeOptionCombo();
+        this.attributeCategoryOptions = dataValueSet.getAttributeCategoryOptions();
+
+        this.reader = EXECUTOR.submit( this::readDataValues );
+    }
+
+    // -------------------------------------------------------------------------
+    // DataValueSet implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean hasNextDataValue()
+    {
+        if ( nextDataValue != null )
+        {
+            return true;
+        }
+
+        if ( endOfDataValues )
+        {
+            return false;
+        }
+
+        DataValue dataValue;
+
+        try
+        {
+            dataValue = queue.take();
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( "Interrupted while reading data values", ex );
+        }
+
+        if ( dataValue == END_OF_DATA_VALUES )
+        {
+            endOfDataValues = true;
+
+            if ( readException != null )
+            {
+                throw readException;
+            }
+
+            return false;
+        }
+
+        nextDataValue = dataValue;
+
+        return true;
+    }
+
+    @Override
+    public DataValue getNextDataValue()
+    {
+        if ( !hasNextDataValue() )
+        {
+            throw new NoSuchElementException();
+        }
+
+        DataValue dataValue = nextDataValue;
+        nextDataValue = null;
+        return dataValue;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( closed )
+        {
+            return;
+        }
+
+        closed = true;
+
+        if ( !readerStarted.compareAndSet( false, true ) )
+        {
+            reader.cancel( true );
+
+            awaitReader();
+        }
+
+        dataValueSet.close();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void readDataValues()
+    {
+        if ( !readerStarted.compareAndSet( false, true ) )
+        {
+            return; // Closed before the reader started
+        }
+
+        try
+        {
+            doReadDataValues();
+        }
+        finally
+        {
+            readerDone.countDown();
+        }
+    }
+
+    private void doReadDataValues()
+    {
+        try
+        {
+            while ( dataValueSet.hasNextDataValue() )
+            {
+                queue.put( copyOf( dataValueSet.getNextDataValue() ) );
+            }
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch ( Throwable ex )
+        {
+            readException = ex instanceof RuntimeException ? (RuntimeException) ex : new RuntimeException( ex );
+        }
+
+        try
+        {
+            queue.put( END_OF_DATA_VALUES );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for the reader to stop. The reader is interrupted by then, so it
+     * stops at the latest when putting the next data value on the queue.
+     */
+    private void awaitReader()
+    {
+        boolean interrupted = false;
+
+        while ( true )
+        {
+            try
+            {
+                readerDone.await();
+                break;
+            }
+            catch ( InterruptedException ex )
+            {
+                interrupted = true;
+            }
+        }
+
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private DataValue copyOf( DataValue dataValue )
+    {
+        DataValue copy = new DataValue();
+        copy.setDataElement( dataValue.getDataElement() );
+        copy.setPeriod( dataValue.getPeriod() );
+        copy.setOrgUnit( dataValue.getOrgUnit() );
+        copy.setCategoryOptionCombo( dataValue.getCategoryOptionCombo() );
+        copy.setAttributeOptionCombo( dataValue.getAttributeOptionCombo() );
+        copy.setValue( dataValue.getValue() );
+        copy.setStoredBy( dataValue.getStoredBy() );
+        copy.setCreated( dataValue.getCreated() );
+        copy.setLastUpdated( dataValue.getLastUpdated() );
+        copy.setComment( dataValue.getComment() );
+        copy.setFollowup( dataValue.getFollowup() );
+        copy.setDeleted( dataValue.getDeleted() );
+        return copy;
+    }
+}
@@ -30,14 +30,29 @@ package org.hisp.dhis.dxf2.datavalueset;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.hisp.dhis.dxf2.datavalue.DataValue;
 import org.hisp.dhis.dxf2.datavalue.StreamingJsonDataValue;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
+ * Data value set which writes to or reads from a JSON stream. When reading,
+ * the properties of the data value set are read up to the data values array,
+ * and the data values are then read one by one from the stream. Properties
+ * which follow the data values array can no longer be applied to the data
+ * values already read, so reading fails if such a property changes the data
+ * value set.
+ *
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
 public class StreamingJsonDataValueSet extends DataValueSet
@@ -46,6 +61,14 @@ public class StreamingJsonDataValueSet extends DataValueSet
 
     private boolean startedArray;
 
+    private ObjectMapper jsonMapper;
+
+    private JsonParser parser;
+
+    private boolean readingDataValues;
+
+    private boolean nextDataValueRead;
+
     public StreamingJsonDataValueSet( OutputStream out )
     {
         try
@@ -63,6 +86,68 @@ public class StreamingJsonDataValueSet extends DataValueSet
         }
     }
 
+    public StreamingJsonDataValueSet( ObjectMapper jsonMapper, InputStream in )
+        throws IOException
+    {
+        this.jsonMapper = jsonMapper;
+        this.parser = jsonMapper.getFactory().createParser( in );
+
+        readProperties();
+    }
+
+    @Override
+    public boolean hasNextDataValue()
+    {
+        if ( nextDataValueRead )
+        {
+            return true;
+        }
+
+        if ( !readingDataValues )
+        {
+            return false;
+        }
+
+        try
+        {
+            JsonToken token = parser.nextToken();
+
+            if ( token == null || token == JsonToken.END_ARRAY )
+            {
+                readingDataValues = false;
+                readTrailingProperties();
+                return false;
+            }
+        }
+        catch ( IOException ex )
+        {
+            throw new RuntimeException( "Failed to read JSON data values", ex );
+        }
+
+        nextDataValueRead = true;
+        return true;
+    }
+
+    @Override
+    public DataValue getNextDataValue()
+    {
+        if ( !hasNextDataValue() )
+        {
+            throw new NoSuchElementException();
+        }
+
+        nextDataValueRead = false;
+
+        try
+        {
+            return jsonMapper.readValue( parser, DataValue.class );
+        }
+        catch ( IOException ex )
+        {
+            throw new RuntimeException( "Failed to read JSON data value", ex );
+        }
+    }
+
     @Override
     public void setDataElementIdScheme( String dataElementIdScheme )
     {
@@ -138,6 +223,17 @@ public class StreamingJsonDataValueSet extends DataValueSet
     @Override
     public void close()
     {
+        if ( parser != null )
+        {
+            try
+            {
+                parser.close();
+            }
+            catch ( IOException ignored )
+            {
+            }
+        }
+
         if ( generator == null )
         {
             return;
@@ -182,4 +278,103 @@ public class StreamingJsonDataValueSet extends DataValueSet
         {
         }
     }
+
+    /**
+     * Reads the properties of the data value set up to the data values array
+     * and leaves the parser positioned at the start of the array. The
+     * properties are bound through the same mapping as a complete data value
+     * set.
+     */
+    private void readProperties()
+        throws IOException
+    {
+        if ( parser.nextToken() != JsonToken.START_OBJECT )
+        {
+            throw new IllegalArgumentException( "Data value set must be a JSON object" );
+        }
+
+        ObjectNode properties = jsonMapper.createObjectNode();
+
+        while ( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if ( FIELD_DATAVALUES.equals( fieldName ) && token == JsonToken.START_ARRAY )
+            {
+                readingDataValues = true;
+                break;
+            }
+
+            properties.set( fieldName, jsonMapper.readTree( parser ) );
+        }
+
+        DataValueSet dataValueSet = jsonMapper.treeToValue( properties, DataValueSet.class );
+
+        this.idScheme = dataValueSet.getIdScheme();
+        this.dataElementIdScheme = dataValueSet.getDataElementIdScheme();
+        this.orgUnitIdScheme = dataValueSet.getOrgUnitIdScheme();
+        this.categoryOptionComboIdScheme = dataValueSet.getCategoryOptionComboIdScheme();
+        this.dataSetIdScheme = dataValueSet.getDataSetIdScheme();
+        this.dryRun = dataValueSet.getDryRun();
+        this.strategy = dataValueSet.getStrategy();
+        this.dataSet = dataValueSet.getDataSet();
+        this.completeDate = dataValueSet.getCompleteDate();
+        this.period = dataValueSet.getPeriod();
+        this.orgUnit = dataValueSet.getOrgUnit();
+        this.attributeOptionCombo = dataValueSet.getAttributeOptionCombo();
+        this.attributeCategoryOptions = dataValueSet.getAttributeCategoryOptions();
+    }
+
+    /**
+     * Reads the properties of the data value set which follow the data values
+     * array. A property which repeats the value read before the data values
+     * is accepted, while a property which changes the data value set fails
+     * the import, as it would apply to data values already read.
+     */
+    private void readTrailingProperties()
+        throws IOException
+    {
+        ObjectNode properties = jsonMapper.createObjectNode();
+
+        while ( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+
+            properties.set( fieldName, jsonMapper.readTree( parser ) );
+        }
+
+        DataValueSet dataValueSet = jsonMapper.treeToValue( properties, DataValueSet.class );
+
+        List<String> conflicts = new ArrayList<>();
+
+        addConflict( conflicts, FIELD_IDSCHEME, this.idScheme, dataValueSet.getIdScheme() );
+        addConflict( conflicts, FIELD_DATAELEMENTIDSCHEME, this.dataElementIdScheme, dataValueSet.getDataElementIdScheme() );
+        addConflict( conflicts, FIELD_ORGUNITIDSCHEME, this.orgUnitIdScheme, dataValueSet.getOrgUnitIdScheme() );
+        addConflict( conflicts, FIELD_CATEGORYOPTCOMBOIDSCHEME, this.categoryOptionComboIdScheme, dataValueSet.getCategoryOptionComboIdScheme() );
+        addConflict( conflicts, FIELD_DATASETIDSCHEME, this.dataSetIdScheme, dataValueSet.getDataSetIdScheme() );
+        addConflict( conflicts, FIELD_DRYRUN, this.dryRun, dataValueSet.getDryRun() );
+        addConflict( conflicts, "strategy", this.strategy, dataValueSet.getStrategy() );
+        addConflict( conflicts, FIELD_DATASET, this.dataSet, dataValueSet.getDataSet() );
+        addConflict( conflicts, FIELD_COMPLETEDATE, this.completeDate, dataValueSet.getCompleteDate() );
+        addConflict( conflicts, FIELD_PERIOD, this.period, dataValueSet.getPeriod() );
+        addConflict( conflicts, FIELD_ORGUNIT, this.orgUnit, dataValueSet.getOrgUnit() );
+        addConflict( conflicts, FIELD_ATTRIBUTE_OPTION_COMBO, this.attributeOptionCombo, dataValueSet.getAttributeOptionCombo() );
+        addConflict( conflicts, "attributeCategoryOptions", this.attributeCategoryOptions, dataValueSet.getAttributeCategoryOptions() );
+
+        if ( !conflicts.isEmpty() )
+        {
+            throw new IllegalArgumentException( "Data value set properties must be specified before data values: " +
+                String.join( ", ", conflicts ) );
+        }
+    }
+
+    private void addConflict( List<String> conflicts, String fieldName, Object value, Object trailingValue )
+    {
+        if ( trailingValue != null && !Objects.equals( value, trailingValue ) )
+        {
+            conflicts.add( fieldName );
+        }
+    }
 }
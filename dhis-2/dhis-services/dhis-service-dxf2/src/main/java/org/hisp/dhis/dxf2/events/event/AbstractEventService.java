@@ -249,21 +249,26 @@ public abstract class AbstractEventService implements EventService
 
         Events events = new Events();
 
+        List<Event> eventList = eventStore.getEvents( params, organisationUnits, Collections.emptyMap() );
+
         if ( params.isPaging() )
         {
             int count = 0;
 
-            if ( params.isTotalPages() )
+            if ( params.isTotalPages() && params.hasPageToken() )
+            {
+                count = eventStore.getEventCountEstimate( params, organisationUnits );
+            }
+            else if ( params.isTotalPages() )
             {
                 count = eventStore.getEventCount( params, organisationUnits );
             }
 
             Pager pager = new Pager( params.getPageWithDefault(), count, params.getPageSizeWithDefault() );
+            pager.setNextPageToken( params.getNextPageToken() );
             events.setPager( pager );
         }
 
-        List<Event> eventList = eventStore.getEvents( params, organisationUnits, Collections.emptyMap() );
-
         for ( Event event : eventList )
         {
             if ( trackerOwnershipAccessManager.hasAccess( user,
@@ -903,6 +908,11 @@ public abstract class AbstractEventService implements EventService
             violation = "Duration is not valid: " + params.getLastUpdatedDuration();
         }
 
+        if ( params.hasPageToken() && !params.isDefaultOrder() )
+        {
+            violation = "Page token cannot be specified together with order";
+        }
+
         if ( violation != null )
         {
             log.warn( "Validation failed: " + violation );
@@ -131,6 +131,17 @@ public class EventSearchParams
 
     private boolean skipPaging;
 
+    /**
+     * Token of the last event of the previous page, used for keyset paging.
+     */
+    private String pageToken;
+
+    /**
+     * Token of the last event of the current page, set when the events are
+     * retrieved and more events may follow.
+     */
+    private String nextPageToken;
+
     private List<Order> orders;
 
     private List<String> gridOrders;
@@ -198,6 +209,21 @@ public class EventSearchParams
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
     }
 
+    public boolean hasPageToken()
+    {
+        return pageToken != null;
+    }
+
+    /**
+     * Indicates whether events are ordered by the default sort key, which is
+     * last updated and id descending. Keyset paging is only supported for the
+     * default sort key.
+     */
+    public boolean isDefaultOrder()
+    {
+        return (orders == null || orders.isEmpty()) && (gridOrders == null || gridOrders.isEmpty());
+    }
+
     /**
      * Sets paging properties to default values.
      */
@@ -540,6 +566,28 @@ public class EventSearchParams
         return this;
     }
 
+    public String getPageToken()
+    {
+        return pageToken;
+    }
+
+    public EventSearchParams setPageToken( String pageToken )
+    {
+        this.pageToken = pageToken;
+        return this;
+    }
+
+    public String getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public EventSearchParams setNextPageToken( String nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+        return this;
+    }
+
     public boolean isIncludeAttributes()
     {
         return includeAttributes;
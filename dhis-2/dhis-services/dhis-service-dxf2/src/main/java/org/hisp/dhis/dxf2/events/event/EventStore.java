@@ -72,6 +72,17 @@ public interface EventStore
 
     int getEventCount( EventSearchParams params, List<OrganisationUnit> organisationUnits );
 
+    /**
+     * Returns an estimate of the number of events matching the given params,
+     * based on the statistics of the query planner. Cheaper than
+     * {@link #getEventCount(EventSearchParams, List)} for large result sets.
+     *
+     * @param params the {@link EventSearchParams}.
+     * @param organisationUnits the organisation units.
+     * @return the estimated number of events.
+     */
+    int getEventCountEstimate( EventSearchParams params, List<OrganisationUnit> organisationUnits );
+
     /**
      * Delete list of given events to be removed. This operation also remove comments
      * connected to each Event.
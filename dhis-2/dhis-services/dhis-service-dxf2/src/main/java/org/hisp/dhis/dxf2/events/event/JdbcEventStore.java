@@ -76,6 +76,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -83,6 +85,7 @@ import org.hisp.dhis.common.BaseIdentifiableObject;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.PageToken;
 import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryOperator;
@@ -146,6 +149,8 @@ public class JdbcEventStore implements EventStore
 
     private static final String DOT_NAME = ".name)";
 
+    private static final Pattern PLAN_ROWS_PATTERN = Pattern.compile( "\"Plan Rows\":\\s*(\\d+)" );
+
     private static final Map<String, String> QUERY_PARAM_COL_MAP = ImmutableMap.<String, String> builder()
         .put( "event", "psi_uid" ).put( "program", "p_uid" ).put( "programStage", "ps_uid" )
         .put( "enrollment", "pi_uid" ).put( "enrollmentStatus", "pi_status" ).put( "orgUnit", "ou_uid" )
@@ -279,8 +284,20 @@ public class JdbcEventStore implements EventStore
 
         Set<String> notes = new HashSet<>();
 
+        int rowCount = 0;
+        long lastEventId = -1;
+        Timestamp lastEventLastUpdated = null;
+
         while ( rowSet.next() )
         {
+            rowCount++;
+
+            if ( rowSet.getString( "psi_uid" ) != null )
+            {
+                lastEventId = rowSet.getLong( "psi_id" );
+                lastEventLastUpdated = rowSet.getTimestamp( "psi_lastupdated" );
+            }
+
             if ( rowSet.getString( "psi_uid" ) == null
                 || ( params.getCategoryOptionCombo() == null && !isSuper( user ) && !userHasAccess( rowSet ) ) )
             {
@@ -416,6 +433,15 @@ public class JdbcEventStore implements EventStore
             }
         }
 
+        // A page with fewer rows than the page size is the last page, as
+        // the joins of the outer query never reduce the number of rows
+
+        if ( params.isPaging() && params.isDefaultOrder() && lastEventLastUpdated != null
+            && rowCount >= params.getPageSizeWithDefault() )
+        {
+            params.setNextPageToken( new PageToken( lastEventLastUpdated, lastEventId ).encode() );
+        }
+
         IdSchemes idSchemes = ObjectUtils.firstNonNull( params.getIdSchemes(), new IdSchemes() );
         IdScheme dataElementIdScheme = idSchemes.getDataElementIdScheme();
 
@@ -722,7 +748,7 @@ public class JdbcEventStore implements EventStore
         }
         else
         {
-            sql = getEventSelectQuery( params, organisationUnits, user );
+            sql = getEventSelectQuery( params, organisationUnits, user, false );
         }
 
         sql = sql.replaceFirst( "select .*? from", "select count(*) from" );
@@ -736,6 +762,23 @@ public class JdbcEventStore implements EventStore
         return jdbcTemplate.queryForObject( sql, Integer.class );
     }
 
+    @Override
+    public int getEventCountEstimate( EventSearchParams params, List<OrganisationUnit> organisationUnits )
+    {
+        User user = currentUserService.getCurrentUser();
+        setAccessiblePrograms( user, params );
+
+        String sql = "explain (format json) " + getEventSelectQuery( params, organisationUnits, user, false );
+
+        log.debug( "Event query count estimate SQL: " + sql );
+
+        String plan = jdbcTemplate.queryForObject( sql, String.class );
+
+        Matcher matcher = PLAN_ROWS_PATTERN.matcher( plan );
+
+        return matcher.find() ? Integer.parseInt( matcher.group( 1 ) ) : 0;
+    }
+
     private DataValue convertEventDataValueIntoDtoDataValue( EventDataValue eventDataValue )
     {
         DataValue dataValue = new DataValue();
@@ -812,7 +855,7 @@ public class JdbcEventStore implements EventStore
     {
         StringBuilder sqlBuilder = new StringBuilder().append( "select * from (" );
 
-        sqlBuilder.append( getEventSelectQuery( params, organisationUnits, user ) );
+        sqlBuilder.append( getEventSelectQuery( params, organisationUnits, user, true ) );
 
         sqlBuilder.append( getOrderQuery( params ) );
 
@@ -836,7 +879,14 @@ public class JdbcEventStore implements EventStore
         return sqlBuilder.toString();
     }
 
-    private String getEventSelectQuery( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user )
+    /**
+     * Returns the event select query.
+     *
+     * @param keysetPaging whether to restrict the query to events after the
+     *        page token of the params, if any.
+     */
+    private String getEventSelectQuery( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user,
+        boolean keysetPaging )
     {
         List<Long> orgUnitIds = getIdentifiers( organisationUnits );
 
@@ -1094,6 +1144,14 @@ public class JdbcEventStore implements EventStore
             sqlBuilder.append( hlp.whereAnd() ).append( " psi.lastupdated > psi.lastsynchronized " );
         }
 
+        if ( keysetPaging && params.hasPageToken() )
+        {
+            PageToken pageToken = PageToken.decode( params.getPageToken(), 2 );
+
+            sqlBuilder.append( hlp.whereAnd() ).append( " (psi.lastupdated, psi.programstageinstanceid) < ('" )
+                .append( pageToken.getTimestamp( 0 ) ).append( "', " ).append( pageToken.getLong( 1 ) ).append( ") " );
+        }
+
         return sqlBuilder.toString();
     }
 
@@ -1349,7 +1407,11 @@ public class JdbcEventStore implements EventStore
     {
         StringBuilder sqlBuilder = new StringBuilder().append( " " );
 
-        if ( params.isPaging() )
+        if ( params.isPaging() && params.hasPageToken() )
+        {
+            sqlBuilder.append( "limit " ).append( params.getPageSizeWithDefault() ).append( " " );
+        }
+        else if ( params.isPaging() )
         {
             sqlBuilder.append( "limit " ).append( params.getPageSizeWithDefault() ).append( " offset " )
                 .append( params.getOffset() ).append( " " );
@@ -1456,7 +1518,7 @@ public class JdbcEventStore implements EventStore
         }
         else
         {
-            return "order by psi_lastupdated desc ";
+            return "order by psi_lastupdated desc, psi_id desc ";
         }
     }
 
@@ -53,7 +53,9 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
+import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.dxf2.common.ImportOptions;
+import org.hisp.dhis.dxf2.importsummary.ImportConflict;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
 import org.hisp.dhis.importexport.ImportStrategy;
@@ -92,6 +94,7 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @author Lars Helge Overland
@@ -121,6 +124,9 @@ public class DataValueSetServiceTest
     @Autowired
     private DataValueSetService dataValueSetService;
 
+    @Autowired
+    private DataValueService dataValueService;
+
     @Autowired
     private CompleteDataSetRegistrationService registrationService;
 
@@ -763,6 +769,35 @@ public class DataValueSetServiceTest
         assertEquals( 0, dataValues.size() );
     }
 
+    @Test
+    public void testImportDataValuesConflictsInInputOrder()
+        throws Exception
+    {
+        in = new ClassPathResource( "datavalueset/dataValueSetBConflicts.xml" ).getInputStream();
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in );
+
+        assertEquals( 3, summary.getImportCount().getImported() );
+        assertEquals( 0, summary.getImportCount().getUpdated() );
+        assertEquals( 0, summary.getImportCount().getDeleted() );
+        assertEquals( 3, summary.getImportCount().getIgnored() );
+        assertEquals( ImportStatus.WARNING, summary.getStatus() );
+
+        List<String> conflictObjects = summary.getConflicts().stream()
+            .map( ImportConflict::getObject )
+            .collect( Collectors.toList() );
+
+        assertEquals( Lists.newArrayList( "invalidA", "xxxxxxxxxxx", "invalidB" ), conflictObjects );
+
+        Collection<DataValue> dataValues = mockDataValueBatchHandler.getInserts();
+
+        assertNotNull( dataValues );
+        assertEquals( 3, dataValues.size() );
+        assertTrue( dataValues.contains( new DataValue( deA, peA, ouA, ocDef, ocDef ) ) );
+        assertTrue( dataValues.contains( new DataValue( deA, peB, ouB, ocDef, ocDef ) ) );
+        assertTrue( dataValues.contains( new DataValue( deB, peB, ouB, ocDef, ocDef ) ) );
+    }
+
     @Test
     public void testImportDataValuesWithNonExistingDataElementOrgUnit()
         throws Exception
@@ -963,7 +998,7 @@ public class DataValueSetServiceTest
     public void testImportDataValuesUpdatedAudit()
         throws Exception
     {
-        mockDataValueBatchHandler.withFindSelf( true );
+        addExistingDataValues();
 
         in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
 
@@ -986,11 +1021,61 @@ public class DataValueSetServiceTest
         assertEquals( 3, auditValues.size() );
     }
 
+    @Test
+    public void testImportDataValuesDuplicateInPayload()
+        throws Exception
+    {
+        in = new ClassPathResource( "datavalueset/dataValueSetADuplicate.xml" ).getInputStream();
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in );
+
+        assertNotNull( summary );
+        assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+        assertEquals( summary.getConflicts().toString(), 0, summary.getConflicts().size() );
+        assertEquals( 2, summary.getImportCount().getImported() );
+        assertEquals( 1, summary.getImportCount().getUpdated() );
+
+        List<DataValue> inserts = mockDataValueBatchHandler.getInserts();
+        List<DataValue> updates = mockDataValueBatchHandler.getUpdates();
+
+        assertEquals( 2, inserts.size() );
+        assertEquals( 1, updates.size() );
+        assertEquals( new DataValue( deA, peA, ouA, ocDef, ocDef ), updates.get( 0 ) );
+        assertEquals( "10004", updates.get( 0 ).getValue() );
+    }
+
+    @Test
+    public void testImportDataValuesDuplicateInPayloadAudit()
+        throws Exception
+    {
+        addExistingDataValues();
+
+        in = new ClassPathResource( "datavalueset/dataValueSetADuplicate.xml" ).getInputStream();
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in );
+
+        assertNotNull( summary );
+        assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+        assertEquals( 0, summary.getImportCount().getImported() );
+        assertEquals( 3, summary.getImportCount().getUpdated() );
+
+        List<DataValue> updates = mockDataValueBatchHandler.getUpdates();
+        List<DataValueAudit> auditValues = mockDataValueAuditBatchHandler.getInserts();
+
+        assertEquals( 3, updates.size() );
+        assertEquals( "10004", updates.get( 2 ).getValue() );
+
+        assertEquals( 3, auditValues.size() );
+        assertEquals( "1", auditValues.get( 0 ).getValue() );
+        assertEquals( "2", auditValues.get( 1 ).getValue() );
+        assertEquals( "10001", auditValues.get( 2 ).getValue() );
+    }
+
     @Test
     public void testImportDataValuesUpdatedSkipAudit()
         throws Exception
     {
-        mockDataValueBatchHandler.withFindSelf( true );
+        addExistingDataValues();
 
         in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
 
@@ -1240,6 +1325,15 @@ public class DataValueSetServiceTest
         assertTrue( dataValues.contains( new DataValue( deC, peB, ouB, ocDef, ocDef ) ) );
     }
 
+    private void addExistingDataValues()
+    {
+        dataValueService.addDataValue( new DataValue( deA, peA, ouA, ocDef, ocDef, "1" ) );
+        dataValueService.addDataValue( new DataValue( deA, peA, ouB, ocDef, ocDef, "2" ) );
+        dataValueService.addDataValue( new DataValue( deA, peB, ouA, ocDef, ocDef, "3" ) );
+
+        dbmsManager.flushSession();
+    }
+
     private Period createMonthlyPeriod( Date monthStart )
     {
         Date monthEnd = DateUtils.addDays( DateUtils.addMonths( monthStart, 1 ), -1 );
@@ -0,0 +1,196 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hisp.dhis.dxf2.datavalue.DataValue;
+import org.junit.Test;
+
+public class PrefetchingDataValueSetTest
+{
+    @Test
+    public void testReadDataValues()
+    {
+        DataValueSet dataValueSet = createDataValueSet( 25 );
+        dataValueSet.setDataSet( "pBOMPrpg1QX" );
+        dataValueSet.setPeriod( "201201" );
+        dataValueSet.setOrgUnit( "DiszpKrYNg8" );
+        dataValueSet.setDryRun( true );
+
+        DataValueSet prefetchingDataValueSet = new PrefetchingDataValueSet( dataValueSet, 4 );
+
+        assertEquals( "pBOMPrpg1QX", prefetchingDataValueSet.getDataSet() );
+        assertEquals( "201201", prefetchingDataValueSet.getPeriod() );
+        assertEquals( "DiszpKrYNg8", prefetchingDataValueSet.getOrgUnit() );
+        assertTrue( prefetchingDataValueSet.getDryRun() );
+
+        List<DataValue> dataValues = new ArrayList<>();
+
+        while ( prefetchingDataValueSet.hasNextDataValue() )
+        {
+            assertTrue( prefetchingDataValueSet.hasNextDataValue() );
+
+            dataValues.add( prefetchingDataValueSet.getNextDataValue() );
+        }
+
+        prefetchingDataValueSet.close();
+
+        assertEquals( 25, dataValues.size() );
+
+        for ( int i = 0; i < dataValues.size(); i++ )
+        {
+            DataValue expected = dataValueSet.getDataValues().get( i );
+
+            assertNotSame( expected, dataValues.get( i ) );
+            assertEquals( expected.getDataElement(), dataValues.get( i ).getDataElement() );
+            assertEquals( expected.getPeriod(), dataValues.get( i ).getPeriod() );
+            assertEquals( expected.getValue(), dataValues.get( i ).getValue() );
+            assertEquals( expected.getDeleted(), dataValues.get( i ).getDeleted() );
+        }
+    }
+
+    @Test
+    public void testReadNoDataValues()
+    {
+        DataValueSet prefetchingDataValueSet = new PrefetchingDataValueSet( createDataValueSet( 0 ) );
+
+        assertFalse( prefetchingDataValueSet.hasNextDataValue() );
+        assertFalse( prefetchingDataValueSet.hasNextDataValue() );
+
+        prefetchingDataValueSet.close();
+    }
+
+    @Test
+    public void testCloseBeforeAllDataValuesRead()
+    {
+        DataValueSet prefetchingDataValueSet = new PrefetchingDataValueSet( createDataValueSet( 100 ), 2 );
+
+        assertTrue( prefetchingDataValueSet.hasNextDataValue() );
+        assertEquals( "de0", prefetchingDataValueSet.getNextDataValue().getDataElement() );
+
+        prefetchingDataValueSet.close();
+        prefetchingDataValueSet.close();
+    }
+
+    @Test
+    public void testCloseWaitsForReaderBeforeClosingDataValueSet()
+    {
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean readAfterClose = new AtomicBoolean();
+
+        DataValueSet dataValueSet = new DataValueSet()
+        {
+            @Override
+            public boolean hasNextDataValue()
+            {
+                if ( closed.get() )
+                {
+                    readAfterClose.set( true );
+                }
+
+                return true;
+            }
+
+            @Override
+            public DataValue getNextDataValue()
+            {
+                return new DataValue();
+            }
+
+            @Override
+            public void close()
+            {
+                closed.set( true );
+            }
+        };
+
+        DataValueSet prefetchingDataValueSet = new PrefetchingDataValueSet( dataValueSet, 2 );
+
+        assertTrue( prefetchingDataValueSet.hasNextDataValue() );
+
+        prefetchingDataValueSet.close();
+
+        assertTrue( closed.get() );
+        assertFalse( readAfterClose.get() );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void testReadFailure()
+    {
+        DataValueSet dataValueSet = new DataValueSet()
+        {
+            @Override
+            public boolean hasNextDataValue()
+            {
+                throw new IllegalStateException( "Failed to read data value" );
+            }
+        };
+
+        DataValueSet prefetchingDataValueSet = new PrefetchingDataValueSet( dataValueSet );
+
+        try
+        {
+            prefetchingDataValueSet.hasNextDataValue();
+        }
+        finally
+        {
+            prefetchingDataValueSet.close();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private DataValueSet createDataValueSet( int size )
+    {
+        DataValueSet dataValueSet = new DataValueSet();
+
+        for ( int i = 0; i < size; i++ )
+        {
+            DataValue dataValue = new DataValue();
+            dataValue.setDataElement( "de" + i );
+            dataValue.setPeriod( "201201" );
+            dataValue.setOrgUnit( "DiszpKrYNg8" );
+            dataValue.setValue( String.valueOf( i ) );
+            dataValue.setDeleted( i % 2 == 0 );
+            dataValueSet.getDataValues().add( dataValue );
+        }
+
+        return dataValueSet;
+    }
+}
@@ -0,0 +1,176 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hisp.dhis.commons.config.JacksonObjectMapperConfig;
+import org.hisp.dhis.dxf2.datavalue.DataValue;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class StreamingJsonDataValueSetTest
+{
+    private final ObjectMapper jsonMapper = JacksonObjectMapperConfig.staticJsonMapper();
+
+    @Test
+    public void testReadDataValueSet()
+        throws Exception
+    {
+        DataValueSet expected;
+
+        try ( InputStream in = new ClassPathResource( "datavalueset/dataValueSetA.json" ).getInputStream() )
+        {
+            expected = jsonMapper.readValue( in, DataValueSet.class );
+        }
+
+        DataValueSet dataValueSet = new StreamingJsonDataValueSet( jsonMapper,
+            new ClassPathResource( "datavalueset/dataValueSetA.json" ).getInputStream() );
+
+        assertEquals( expected.getDataSet(), dataValueSet.getDataSet() );
+        assertEquals( expected.getCompleteDate(), dataValueSet.getCompleteDate() );
+        assertEquals( expected.getOrgUnitIdScheme(), dataValueSet.getOrgUnitIdScheme() );
+        assertEquals( expected.getDryRun(), dataValueSet.getDryRun() );
+        assertNull( dataValueSet.getPeriod() );
+
+        List<DataValue> dataValues = readDataValues( dataValueSet );
+
+        assertEquals( 3, dataValues.size() );
+
+        for ( int i = 0; i < dataValues.size(); i++ )
+        {
+            DataValue expectedValue = expected.getDataValues().get( i );
+            DataValue dataValue = dataValues.get( i );
+
+            assertEquals( expectedValue.getDataElement(), dataValue.getDataElement() );
+            assertEquals( expectedValue.getPeriod(), dataValue.getPeriod() );
+            assertEquals( expectedValue.getOrgUnit(), dataValue.getOrgUnit() );
+            assertEquals( expectedValue.getValue(), dataValue.getValue() );
+            assertEquals( expectedValue.getStoredBy(), dataValue.getStoredBy() );
+            assertEquals( expectedValue.getFollowup(), dataValue.getFollowup() );
+        }
+    }
+
+    @Test
+    public void testReadPropertiesWithoutDataValues()
+        throws Exception
+    {
+        DataValueSet dataValueSet = createDataValueSet( "{ \"period\": \"201201\", \"orgUnit\": \"DiszpKrYNg8\" }" );
+
+        assertEquals( "201201", dataValueSet.getPeriod() );
+        assertEquals( "DiszpKrYNg8", dataValueSet.getOrgUnit() );
+        assertFalse( dataValueSet.hasNextDataValue() );
+    }
+
+    @Test
+    public void testAcceptRepeatedPropertiesAfterDataValues()
+        throws Exception
+    {
+        DataValueSet dataValueSet = createDataValueSet( "{ \"period\": \"201201\", " +
+            "\"dataValues\": [ { \"dataElement\": \"f7n9E0hX8qk\", \"value\": \"1\" } ], " +
+            "\"period\": \"201201\", \"href\": \"http://localhost/api/dataValueSets\" }" );
+
+        assertEquals( "201201", dataValueSet.getPeriod() );
+
+        assertTrue( dataValueSet.hasNextDataValue() );
+        assertTrue( dataValueSet.hasNextDataValue() );
+        assertEquals( "f7n9E0hX8qk", dataValueSet.getNextDataValue().getDataElement() );
+        assertFalse( dataValueSet.hasNextDataValue() );
+
+        dataValueSet.close();
+    }
+
+    @Test
+    public void testFailOnPropertiesChangedAfterDataValues()
+        throws Exception
+    {
+        DataValueSet dataValueSet = createDataValueSet( "{ \"period\": \"201201\", " +
+            "\"dataValues\": [ { \"dataElement\": \"f7n9E0hX8qk\", \"value\": \"1\" } ], " +
+            "\"period\": \"201202\", \"orgUnit\": \"DiszpKrYNg8\" }" );
+
+        assertEquals( "f7n9E0hX8qk", dataValueSet.getNextDataValue().getDataElement() );
+
+        try
+        {
+            dataValueSet.hasNextDataValue();
+            fail( "Expected properties after data values to fail" );
+        }
+        catch ( IllegalArgumentException ex )
+        {
+            assertEquals( "Data value set properties must be specified before data values: period, orgUnit", ex.getMessage() );
+        }
+        finally
+        {
+            dataValueSet.close();
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testReadInvalidDataValueSet()
+        throws Exception
+    {
+        createDataValueSet( "[]" );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private DataValueSet createDataValueSet( String json )
+        throws Exception
+    {
+        return new StreamingJsonDataValueSet( jsonMapper, new ByteArrayInputStream( json.getBytes( StandardCharsets.UTF_8 ) ) );
+    }
+
+    private List<DataValue> readDataValues( DataValueSet dataValueSet )
+    {
+        List<DataValue> dataValues = new ArrayList<>();
+
+        while ( dataValueSet.hasNextDataValue() )
+        {
+            dataValues.add( dataValueSet.getNextDataValue() );
+        }
+
+        dataValueSet.close();
+
+        return dataValues;
+    }
+}
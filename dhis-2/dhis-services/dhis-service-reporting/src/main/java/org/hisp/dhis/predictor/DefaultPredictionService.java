@@ -39,6 +39,10 @@ import static org.hisp.dhis.system.notification.NotificationLevel.ERROR;
 import static org.hisp.dhis.system.util.ValidationUtils.dataValueIsZeroAndInsignificant;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.CollectionUtils;
@@ -50,6 +54,7 @@ import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.*;
 import org.hisp.dhis.commons.collection.CachingMap;
 import org.hisp.dhis.commons.util.DebugUtils;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.constant.Constant;
 import org.hisp.dhis.constant.ConstantService;
 import org.hisp.dhis.dataelement.DataElement;
@@ -181,6 +186,12 @@ public class DefaultPredictionService
      */
     private final static String NON_AOC = "x";
 
+    /**
+     * Number of organisation units evaluated by each concurrent prediction
+     * task.
+     */
+    private final static int ORG_UNITS_PER_TASK = 50;
+
     @Override
     public PredictionSummary predictJob( PredictorJobParameters params, JobConfiguration jobId )
     {
@@ -247,9 +258,20 @@ public class DefaultPredictionService
 
         log.info( "Running " + predictorList.size() + " predictors from " + startDate.toString() + " to " + endDate.toString() );
 
-        for ( Predictor predictor : predictorList )
+        // One pool evaluates the predictions of all predictors of the run
+
+        ExecutorService executor = Executors.newFixedThreadPool( getThreadPoolSize() );
+
+        try
         {
-            predict( predictor, startDate, endDate, predictionSummary );
+            for ( Predictor predictor : predictorList )
+            {
+                predict( predictor, startDate, endDate, predictionSummary, executor );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
         }
 
         log.info( "Finished predictors from " + startDate.toString() + " to " + endDate.toString() + ": " + predictionSummary.toString() );
@@ -259,6 +281,31 @@ public class DefaultPredictionService
 
     @Override
     public void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary )
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( getThreadPoolSize() );
+
+        try
+        {
+            predict( predictor, startDate, endDate, predictionSummary, executor );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes a single predictor for a date range, evaluating the predictions
+     * for separate organisation units concurrently on the given executor.
+     *
+     * @param predictor the predictor to run.
+     * @param startDate the start date of the predictor run.
+     * @param endDate the end date of the predictor run.
+     * @param predictionSummary the prediction summary to add to.
+     * @param executor the executor evaluating the predictions.
+     */
+    private void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary,
+        ExecutorService executor )
     {
         Expression generator = predictor.getGenerator();
         Expression skipTest = predictor.getSampleSkipTest();
@@ -279,12 +326,12 @@ public class DefaultPredictionService
             expressionService.getExpressionDimensionalItemObjects( skipTest.getExpression(), PREDICTOR_SKIP_TEST, sampleItems, new HashSet<>() );
         }
         Map<String, Constant> constantMap = constantService.getConstantMap();
-        List<Period> outputPeriods = getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate );
-        Set<Period> existingOutputPeriods = getExistingPeriods( outputPeriods );
-        ListMap<Period, Period> samplePeriodsMap = getSamplePeriodsMap( outputPeriods, predictor );
+        List<Period> periods = getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate );
+        Set<Period> existingOutputPeriods = getExistingPeriods( periods );
+        ListMap<Period, Period> samplePeriodsMap = getSamplePeriodsMap( periods, predictor );
         Set<Period> allSamplePeriods = samplePeriodsMap.uniqueValues();
         Set<Period> existingSamplePeriods = getExistingPeriods( new ArrayList<>( allSamplePeriods ) );
-        outputPeriods = periodService.reloadPeriods( outputPeriods );
+        List<Period> outputPeriods = periodService.reloadPeriods( periods );
         Set<Period> outputPeriodSet = new HashSet<>( outputPeriods );
         CategoryOptionCombo defaultCategoryOptionCombo = categoryService.getDefaultCategoryOptionCombo();
         Set<String> defaultOptionComboAsSet = Sets.newHashSet( defaultCategoryOptionCombo.getUid() );
@@ -294,18 +341,16 @@ public class DefaultPredictionService
         boolean requireData = generator.getMissingValueStrategy() != NEVER_SKIP && ( !items.isEmpty() || !sampleItems.isEmpty() );
         DimensionalItemObject predictionReference = getPredictionReference( outputDataElement, outputOptionCombo, sampleItems );
 
-        Set<OrganisationUnit> currentUserOrgUnits = new HashSet<>();
-        String storedBy = "system-process";
         User currentUser = currentUserService.getCurrentUser();
-
-        if ( currentUser != null )
-        {
-            currentUserOrgUnits = currentUser.getOrganisationUnits();
-            storedBy = currentUser.getUsername();
-        }
+        Set<OrganisationUnit> currentUserOrgUnits = currentUser != null ? currentUser.getOrganisationUnits() : new HashSet<>();
+        String storedBy = currentUser != null ? currentUser.getUsername() : "system-process";
 
         predictionSummary.incrementPredictors();
 
+        // Predictions for separate org units are independent of each other,
+        // so they are evaluated concurrently. Data is fetched and predictions
+        // are written by this thread, within the current transaction.
+
         // Do separate predictor processing for each organisation unit level
         // selected. This is because at each level, predictions might be based
         // on data aggregated from all descendant org units. So to prevent
@@ -333,72 +378,85 @@ public class DefaultPredictionService
                 Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> valueMap4 = items.isEmpty() ?
                         new Map4<>() : getDataValues( items, outputPeriodSet, existingOutputPeriods, orgUnits );
 
-                List<DataValue> predictions = new ArrayList<>();
+                Map<String, CategoryOptionCombo> aocLookup = getAttributeOptionComboLookup( sampleMap4, valueMap4,
+                    defaultCategoryOptionCombo, cocMap );
 
-                // For each org unit, find its sample data and its non-sample
-                // data values.
-                //
-                // We will make independent predictions for each attribute
-                // option combination, but some analytics data that is not
-                // stored by AOC must be evaluated with every AOC found.
+                List<Future<List<DataValue>>> futures = new ArrayList<>();
 
-                for ( OrganisationUnit orgUnit : orgUnits )
+                for ( List<OrganisationUnit> taskOrgUnits : Lists.partition( orgUnits, ORG_UNITS_PER_TASK ) )
                 {
-                    MapMapMap<String, Period, DimensionalItemObject, Double> sampleMap3 = firstNonNull( sampleMap4.get( orgUnit ), new MapMapMap<>() );
-                    MapMapMap<String, Period, DimensionalItemObject, Double> valueMap3 = firstNonNull( valueMap4.get( orgUnit ), new MapMapMap<>() );
+                    futures.add( executor.submit( () -> {
+                        List<DataValue> taskPredictions = new ArrayList<>();
 
-                    MapMap<Period, DimensionalItemObject, Double> sampleMapNonAoc = firstNonNull( sampleMap3.get( NON_AOC ), new MapMap<>() );
-                    MapMap<Period, DimensionalItemObject, Double> valueMapNonAoc = firstNonNull( valueMap3.get( NON_AOC ), new MapMap<>() );
+                        // For each org unit, find its sample data and its non-sample
+                        // data values.
+                        //
+                        // We will make independent predictions for each attribute
+                        // option combination, but some analytics data that is not
+                        // stored by AOC must be evaluated with every AOC found.
 
-                    Set<String> attributeOptionCombos = getAttributeOptionCombos( sampleMap3, valueMap3, defaultOptionComboAsSet );
+                        for ( OrganisationUnit orgUnit : taskOrgUnits )
+                        {
+                            MapMapMap<String, Period, DimensionalItemObject, Double> sampleMap3 = firstNonNull( sampleMap4.get( orgUnit ), new MapMapMap<>() );
+                            MapMapMap<String, Period, DimensionalItemObject, Double> valueMap3 = firstNonNull( valueMap4.get( orgUnit ), new MapMapMap<>() );
 
-                    // Predict independently for each AOC, adding in the data,
-                    // if any, that is stored without an AOC.
+                            MapMap<Period, DimensionalItemObject, Double> sampleMapNonAoc = firstNonNull( sampleMap3.get( NON_AOC ), new MapMap<>() );
+                            MapMap<Period, DimensionalItemObject, Double> valueMapNonAoc = firstNonNull( valueMap3.get( NON_AOC ), new MapMap<>() );
 
-                    for ( String aoc : attributeOptionCombos )
-                    {
-                        MapMap<Period, DimensionalItemObject, Double> sampleMap2 = firstNonNull( sampleMap3.get( aoc ), new MapMap<>() );
-                        MapMap<Period, DimensionalItemObject, Double> valueMap2 = firstNonNull( valueMap3.get( aoc ), new MapMap<>() );
+                            Set<String> attributeOptionCombos = getAttributeOptionCombos( sampleMap3, valueMap3, defaultOptionComboAsSet );
 
-                        sampleMap2.putMap( sampleMapNonAoc );
-                        valueMap2.putMap( valueMapNonAoc );
+                            // Predict independently for each AOC, adding in the data,
+                            // if any, that is stored without an AOC.
 
-                        MapMap<Period, DimensionalItemObject, Double> periodValueMap = applySkipTest( sampleMap2, skipTest, constantMap );
+                            for ( String aoc : attributeOptionCombos )
+                            {
+                                MapMap<Period, DimensionalItemObject, Double> sampleMap2 = firstNonNull( sampleMap3.get( aoc ), new MapMap<>() );
+                                MapMap<Period, DimensionalItemObject, Double> valueMap2 = firstNonNull( valueMap3.get( aoc ), new MapMap<>() );
 
-                        // Predict for each output period.
+                                sampleMap2.putMap( sampleMapNonAoc );
+                                valueMap2.putMap( valueMapNonAoc );
 
-                        for ( Period outputPeriod : outputPeriods )
-                        {
-                            Map<DimensionalItemObject, Double> valueMap = firstNonNull( valueMap2.get( outputPeriod ), new HashMap<>() );
+                                MapMap<Period, DimensionalItemObject, Double> periodValueMap = applySkipTest( sampleMap2, skipTest, constantMap );
 
-                            if ( requireData && dataIsAbsent( outputPeriod, valueMap, samplePeriodsMap, periodValueMap ) )
-                            {
-                                continue;
-                            }
+                                // Predict for each output period.
 
-                            Double value = castDouble( expressionService.getExpressionValue( generator.getExpression(),
-                                    PREDICTOR_EXPRESSION, valueMap, constantMap, null,
-                                    outputPeriod.getDaysInPeriod(), generator.getMissingValueStrategy(),
-                                    samplePeriodsMap.get( outputPeriod ), periodValueMap ) );
+                                for ( Period outputPeriod : outputPeriods )
+                                {
+                                    Map<DimensionalItemObject, Double> valueMap = firstNonNull( valueMap2.get( outputPeriod ), new HashMap<>() );
 
-                            carryPredictionForward( value, outputPeriod, predictionReference, periodValueMap );
+                                    if ( requireData && dataIsAbsent( outputPeriod, valueMap, samplePeriodsMap, periodValueMap ) )
+                                    {
+                                        continue;
+                                    }
 
-                            if ( value != null && !value.isNaN() && !value.isInfinite() &&
-                                !dataValueIsZeroAndInsignificant( Double.toString( value ), outputDataElement ) )
-                            {
-                                String valueString = outputDataElement.getValueType().isInteger() ?
-                                    Long.toString( Math.round( value ) ) :
-                                    Double.toString( MathUtils.roundFraction( value, 4 ) );
-
-                                predictions.add( new DataValue( outputDataElement,
-                                    outputPeriod, orgUnit, outputOptionCombo,
-                                    cocMap.get( aoc, () -> categoryService.getCategoryOptionCombo( aoc ) ),
-                                    valueString, storedBy, now, null ) );
+                                    Double value = castDouble( expressionService.getExpressionValue( generator.getExpression(),
+                                            PREDICTOR_EXPRESSION, valueMap, constantMap, null,
+                                            outputPeriod.getDaysInPeriod(), generator.getMissingValueStrategy(),
+                                            samplePeriodsMap.get( outputPeriod ), periodValueMap ) );
+
+                                    carryPredictionForward( value, outputPeriod, predictionReference, periodValueMap );
+
+                                    if ( value != null && !value.isNaN() && !value.isInfinite() &&
+                                        !dataValueIsZeroAndInsignificant( Double.toString( value ), outputDataElement ) )
+                                    {
+                                        String valueString = outputDataElement.getValueType().isInteger() ?
+                                            Long.toString( Math.round( value ) ) :
+                                            Double.toString( MathUtils.roundFraction( value, 4 ) );
+
+                                        taskPredictions.add( new DataValue( outputDataElement,
+                                            outputPeriod, orgUnit, outputOptionCombo, aocLookup.get( aoc ),
+                                            valueString, storedBy, now, null ) );
+                                    }
+                                }
                             }
                         }
-                    }
+
+                        return taskPredictions;
+                    } ) );
                 }
 
+                List<DataValue> predictions = getPredictions( futures );
+
                 writePredictions( predictions, outputDataElement, outputOptionCombo,
                     outputPeriodSet, existingOutputPeriods, orgUnits, storedBy, predictionSummary );
             }
@@ -409,6 +467,99 @@ public class DefaultPredictionService
     // Supportive Methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Determines how many threads to use for evaluating predictions.
+     *
+     * @return the number of threads to use.
+     */
+    private int getThreadPoolSize()
+    {
+        int threadPoolSize = SystemUtils.getCpuCores();
+
+        if ( threadPoolSize > 2 )
+        {
+            threadPoolSize--;
+        }
+
+        return threadPoolSize;
+    }
+
+    /**
+     * Looks up the attribute option combos found in the data for a list of
+     * organisation units, so that predictions can be evaluated without
+     * accessing the database.
+     *
+     * @param sampleMap4 sample data for the org units.
+     * @param valueMap4 non-sample data for the org units.
+     * @param defaultCategoryOptionCombo system default category option combo.
+     * @param cocMap category option combos found so far.
+     * @return map of attribute option combos by UID.
+     */
+    private Map<String, CategoryOptionCombo> getAttributeOptionComboLookup(
+        Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> sampleMap4,
+        Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> valueMap4,
+        CategoryOptionCombo defaultCategoryOptionCombo, CachingMap<String, CategoryOptionCombo> cocMap )
+    {
+        Set<String> aocs = new HashSet<>();
+
+        sampleMap4.values().forEach( m -> aocs.addAll( m.keySet() ) );
+        valueMap4.values().forEach( m -> aocs.addAll( m.keySet() ) );
+
+        aocs.remove( NON_AOC );
+
+        Map<String, CategoryOptionCombo> aocLookup = new HashMap<>();
+
+        aocLookup.put( defaultCategoryOptionCombo.getUid(), defaultCategoryOptionCombo );
+
+        for ( String aoc : aocs )
+        {
+            aocLookup.put( aoc, cocMap.get( aoc, () -> categoryService.getCategoryOptionCombo( aoc ) ) );
+        }
+
+        return aocLookup;
+    }
+
+    /**
+     * Waits for the concurrent prediction tasks and collects their
+     * predictions, in the order the tasks were submitted.
+     *
+     * @param futures the prediction tasks.
+     * @return the predictions.
+     */
+    private List<DataValue> getPredictions( List<Future<List<DataValue>>> futures )
+    {
+        List<DataValue> predictions = new ArrayList<>();
+
+        try
+        {
+            for ( Future<List<DataValue>> future : futures )
+            {
+                predictions.addAll( future.get() );
+            }
+        }
+        catch ( InterruptedException ex )
+        {
+            futures.forEach( f -> f.cancel( true ) );
+
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "Prediction was interrupted", ex );
+        }
+        catch ( ExecutionException ex )
+        {
+            futures.forEach( f -> f.cancel( true ) );
+
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new IllegalStateException( ex.getCause() );
+        }
+
+        return predictions;
+    }
+
     /**
      * For a predictor and orgUnit, determines the set of attribute option
      * combos for which predictions will be generated.
@@ -216,6 +216,17 @@ public class DataValidationTask
             return;
         }
 
+        // Skip validation if none of the data for the rule has changed
+        if ( !context.hasChangedData( orgUnit, period, ruleX ) )
+        {
+            return;
+        }
+
+        if ( context.isChangedDataOnly() )
+        {
+            context.addRevalidatedTuple( orgUnit, ruleX.getRule(), period );
+        }
+
         Map<String, Double> leftSideValues = getValuesForExpression( ruleX.getRule().getLeftSide(),
             ruleX.getLeftSlidingWindow() );
         Map<String, Double> rightSideValues = getValuesForExpression( ruleX.getRule().getRightSide(),
@@ -250,15 +261,22 @@ public class DataValidationTask
      */
     private void validateOptionCombo( String optionCombo, Double leftSide, Double rightSide )
     {
+        ValidationResult initialResult = context.getInitialValidationResult( orgUnit, ruleX.getRule(), period,
+            optionCombo, periodService.getDayInPeriod( period, new Date() ) );
+
+        boolean violation = isViolation( leftSide, rightSide );
+
+        if ( violation && context.isChangedDataOnly() )
+        {
+            context.confirmValidationResults( orgUnit, ruleX.getRule(), period, optionCombo );
+        }
+
         // Skipping any results we already know
-        if ( context.skipValidationOfTuple( orgUnit, ruleX.getRule(), period, optionCombo,
-            periodService.getDayInPeriod( period, new Date() ) ) )
+        if ( initialResult != null )
         {
             return;
         }
 
-        boolean violation = isViolation( leftSide, rightSide );
-
         if ( violation && !context.isAnalysisComplete() )
         {
             validationResults.add( new ValidationResult(
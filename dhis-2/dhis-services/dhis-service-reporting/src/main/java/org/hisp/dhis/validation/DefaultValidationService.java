@@ -41,8 +41,10 @@ import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.dataelement.DataElementOperand;
 import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.datavalue.DeflatedDataValue;
 import org.hisp.dhis.expression.ExpressionService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
@@ -60,6 +62,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.hisp.dhis.expression.ParseType.VALIDATION_RULE_EXPRESSION;
@@ -176,6 +179,15 @@ public class DefaultValidationService
 
         Collection<ValidationResult> results = Validator.validate( context, applicationContext, analyticsService );
 
+        if ( context.isChangedDataOnly() && context.isPersistResults() && !context.isAnalysisComplete() )
+        {
+            List<ValidationResult> staleResults = new ArrayList<>( context.getStaleValidationResults() );
+
+            validationResultService.deleteValidationResults( staleResults );
+
+            clock.logTime( "Deleted " + staleResults.size() + " stale results" );
+        }
+
         if ( context.isPersistResults() )
         {
             validationResultService.saveValidationResults( context.getValidationResults() );
@@ -286,6 +298,15 @@ public class DefaultValidationService
         addRulesToContext( periodTypeXMap, parameters.getValidationRules() );
         removeAnyUnneededPeriodTypes( periodTypeXMap );
 
+        MapMap<Long, Period, Set<Long>> changedDataElementIds = null;
+
+        if ( parameters.getChangedSince() != null )
+        {
+            changedDataElementIds = getChangedDataElementIds( periodTypeXMap.values(), parameters.getChangedSince() );
+
+            orgUnits = restrictToChangedData( orgUnits, periodTypeXMap.values(), changedDataElementIds );
+        }
+
         ValidationRunContext.Builder builder = ValidationRunContext.newBuilder()
             .withOrgUnits( orgUnits )
             .withPeriodTypeXs( new ArrayList<>( periodTypeXMap.values() ) )
@@ -297,7 +318,8 @@ public class DefaultValidationService
             .withPersistResults( parameters.isPersistResults() )
             .withAttributeCombo( parameters.getAttributeOptionCombo() )
             .withDefaultAttributeCombo( categoryService.getDefaultCategoryOptionCombo() )
-            .withMaxResults( parameters.getMaxResults() );
+            .withMaxResults( parameters.getMaxResults() )
+            .withChangedDataElementIds( changedDataElementIds );
 
         if ( currentUser != null )
         {
@@ -365,6 +387,8 @@ public class DefaultValidationService
 
         SetMap<PeriodTypeExtended, DimensionalItemId> periodItemIds = new SetMap<>();
 
+        SetMap<ValidationRuleExtended, DimensionalItemId> ruleItemIds = new SetMap<>();
+
         for ( ValidationRule rule : rules )
         {
             PeriodTypeExtended periodX = periodTypeXMap.get( rule.getPeriodType() );
@@ -387,6 +411,8 @@ public class DefaultValidationService
 
             periodItemIds.putValues( periodX, itemIds );
 
+            ruleItemIds.putValues( ruleX, itemIds );
+
             allItemIds.addAll( itemIds );
         }
 
@@ -429,6 +455,148 @@ public class DefaultValidationService
                 }
             }
         }
+
+        // 4. Find the data elements of rules which depend only on data elements, so they can be validated for changed data only.
+
+        for ( Map.Entry<ValidationRuleExtended, Set<DimensionalItemId>> entry : ruleItemIds.entrySet() )
+        {
+            ValidationRuleExtended ruleX = entry.getKey();
+
+            boolean changeTracked = !ruleX.getLeftSlidingWindow() && !ruleX.getRightSlidingWindow();
+
+            for ( DimensionalItemId itemId : entry.getValue() )
+            {
+                DimensionalItemObject item = dimensionItemMap.get( itemId );
+
+                if ( item == null )
+                {
+                    continue;
+                }
+
+                if ( DimensionItemType.DATA_ELEMENT == item.getDimensionItemType() )
+                {
+                    ruleX.getDataElementIds().add( item.getId() );
+                }
+                else if ( DimensionItemType.DATA_ELEMENT_OPERAND == item.getDimensionItemType() )
+                {
+                    ruleX.getDataElementIds().add( ( (DataElementOperand) item ).getDataElement().getId() );
+                }
+                else
+                {
+                    changeTracked = false;
+                }
+            }
+
+            ruleX.setChangeTracked( changeTracked );
+        }
+    }
+
+    /**
+     * Gets the ids of the data elements with data added, updated or deleted
+     * since the given date, by organisation unit id and by each period to
+     * validate which the changed data contributes to.
+     *
+     * @param periodTypeXs extended period types to validate.
+     * @param changedSince the date since which data is changed.
+     * @return map of organisation unit id to period to data element ids.
+     */
+    private MapMap<Long, Period, Set<Long>> getChangedDataElementIds( Collection<PeriodTypeExtended> periodTypeXs,
+        Date changedSince )
+    {
+        MapMap<Long, Period, Set<Long>> changedDataElementIds = new MapMap<>();
+
+        Set<Long> trackedDataElementIds = new HashSet<>();
+        Set<DataElement> dataElements = new HashSet<>();
+
+        for ( PeriodTypeExtended periodTypeX : periodTypeXs )
+        {
+            periodTypeX.getRuleXs().stream()
+                .filter( ValidationRuleExtended::isChangeTracked )
+                .forEach( ruleX -> trackedDataElementIds.addAll( ruleX.getDataElementIds() ) );
+
+            dataElements.addAll( periodTypeX.getDataElements() );
+            periodTypeX.getDataElementOperands().forEach( deo -> dataElements.add( deo.getDataElement() ) );
+        }
+
+        dataElements.removeIf( de -> !trackedDataElementIds.contains( de.getId() ) );
+
+        if ( dataElements.isEmpty() )
+        {
+            return changedDataElementIds;
+        }
+
+        DataExportParams params = new DataExportParams()
+            .setDataElements( dataElements )
+            .setLastUpdated( changedSince )
+            .setIncludeDeleted( true );
+
+        Map<Long, Period> periodIdMap = new HashMap<>();
+
+        for ( DeflatedDataValue dv : dataValueService.getDeflatedDataValues( params ) )
+        {
+            Period dataPeriod = periodIdMap.computeIfAbsent( dv.getPeriodId(), periodService::getPeriod );
+
+            for ( PeriodTypeExtended periodTypeX : periodTypeXs )
+            {
+                if ( !periodTypeX.getAllowedPeriodTypes().contains( dataPeriod.getPeriodType() ) )
+                {
+                    continue;
+                }
+
+                for ( Period period : periodTypeX.getPeriods() )
+                {
+                    if ( !period.getStartDate().before( dataPeriod.getStartDate() )
+                        && !period.getStartDate().after( dataPeriod.getEndDate() ) )
+                    {
+                        Set<Long> ids = changedDataElementIds.getValue( dv.getSourceId(), period );
+
+                        if ( ids == null )
+                        {
+                            ids = new HashSet<>();
+                            changedDataElementIds.putEntry( dv.getSourceId(), period, ids );
+                        }
+
+                        ids.add( dv.getDataElementId() );
+                    }
+                }
+            }
+        }
+
+        return changedDataElementIds;
+    }
+
+    /**
+     * Restricts validation to the organisation units and periods with changed
+     * data, if all rules depend only on data elements. Otherwise all
+     * organisation units and periods are kept, and rules which depend only
+     * on data elements are skipped where their data is unchanged.
+     *
+     * @param orgUnits organisation units to validate.
+     * @param periodTypeXs extended period types to validate.
+     * @param changedDataElementIds changed data element ids by organisation
+     *        unit id and period.
+     * @return the organisation units to validate.
+     */
+    private List<OrganisationUnit> restrictToChangedData( List<OrganisationUnit> orgUnits,
+        Collection<PeriodTypeExtended> periodTypeXs, MapMap<Long, Period, Set<Long>> changedDataElementIds )
+    {
+        boolean allChangeTracked = periodTypeXs.stream()
+            .allMatch( periodTypeX -> periodTypeX.getRuleXs().stream().allMatch( ValidationRuleExtended::isChangeTracked ) );
+
+        if ( !allChangeTracked )
+        {
+            return orgUnits;
+        }
+
+        Set<Period> changedPeriods = new HashSet<>();
+
+        changedDataElementIds.values().forEach( periodMap -> changedPeriods.addAll( periodMap.keySet() ) );
+
+        periodTypeXs.forEach( periodTypeX -> periodTypeX.getPeriods().retainAll( changedPeriods ) );
+
+        return orgUnits.stream()
+            .filter( ou -> changedDataElementIds.containsKey( ou.getId() ) )
+            .collect( Collectors.toList() );
     }
 
     /**
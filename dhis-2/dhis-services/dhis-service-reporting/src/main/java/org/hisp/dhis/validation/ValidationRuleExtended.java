@@ -57,6 +57,10 @@ public class ValidationRuleExtended
 
     private boolean rightSlidingWindow;
 
+    private Set<Long> dataElementIds = new HashSet<>();
+
+    private boolean changeTracked;
+
     public ValidationRuleExtended( ValidationRule rule )
     {
         this.rule = rule;
@@ -71,7 +75,8 @@ public class ValidationRuleExtended
             .append( "rule", rule )
             .append( "organisationUnitLevels", organisationUnitLevels )
             .append( "leftSlidingWindow", leftSlidingWindow )
-            .append( "rightSlidingWindow", rightSlidingWindow ).toString();
+            .append( "rightSlidingWindow", rightSlidingWindow )
+            .append( "changeTracked", changeTracked ).toString();
     }
 
     // -------------------------------------------------------------------------
@@ -97,4 +102,26 @@ public class ValidationRuleExtended
     {
         return rightSlidingWindow;
     }
+
+    /**
+     * Gets the ids of the data elements in the rule expressions.
+     */
+    public Set<Long> getDataElementIds()
+    {
+        return dataElementIds;
+    }
+
+    /**
+     * Indicates whether the rule depends only on data values of its own
+     * period, so that it needs validation only when these have changed.
+     */
+    public boolean isChangeTracked()
+    {
+        return changeTracked;
+    }
+
+    public void setChangeTracked( boolean changeTracked )
+    {
+        this.changeTracked = changeTracked;
+    }
 }
@@ -32,6 +32,7 @@ import org.apache.commons.lang3.Validate;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryOptionGroup;
+import org.hisp.dhis.common.MapMap;
 import org.hisp.dhis.common.MapMapMap;
 import org.hisp.dhis.constant.Constant;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -41,6 +42,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -48,6 +50,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import com.google.common.collect.Sets;
+
 /**
  * This class keeps track of a validation analysis. It contains information about the initial params of the analysis,
  * The current state of the analysis and the final results of the analysis.
@@ -88,6 +92,24 @@ public class ValidationRunContext
 
     private MapMapMap<OrganisationUnit, ValidationRule, Period, List<ValidationResult>> initialValidationResults = new MapMapMap<>();
 
+    /**
+     * Ids of the data elements with changed data, by organisation unit id and
+     * period. Null unless only changed data is validated.
+     */
+    private MapMap<Long, Period, Set<Long>> changedDataElementIds;
+
+    /**
+     * Initial results for organisation units, rules and periods which were
+     * validated again, when only changed data is validated.
+     */
+    private Set<ValidationResult> revalidatedResults = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Initial results whose violation was found again, for any day in the
+     * period.
+     */
+    private Set<ValidationResult> confirmedResults = ConcurrentHashMap.newKeySet();
+
     private ValidationRunContext()
     {
         validationResults = new ConcurrentLinkedQueue<>();
@@ -181,8 +203,8 @@ public class ValidationRunContext
     // Logic
     // -------------------------------------------------------------------------
 
-    public boolean skipValidationOfTuple( OrganisationUnit organisationUnit, ValidationRule validationRule,
-        Period period, String attributeOptionCombo, int dayInPeriod )
+    public ValidationResult getInitialValidationResult( OrganisationUnit organisationUnit,
+        ValidationRule validationRule, Period period, String attributeOptionCombo, int dayInPeriod )
     {
         List<ValidationResult> validationResultList = initialValidationResults
             .getValue( organisationUnit, validationRule, period );
@@ -194,13 +216,86 @@ public class ValidationRunContext
                 if ( vr.getAttributeOptionCombo().getUid().equals( attributeOptionCombo ) &&
                     vr.getDayInPeriod() == dayInPeriod )
                 {
-                    return true;
+                    return vr;
                 }
             }
         }
 
-        return false;
+        return null;
+    }
 
+    /**
+     * Indicates whether only changed data is validated.
+     */
+    public boolean isChangedDataOnly()
+    {
+        return changedDataElementIds != null;
+    }
+
+    /**
+     * Checks whether a rule must be validated for an organisation unit and
+     * period. When only changed data is validated, rules which depend only on
+     * data elements are validated if any of their data elements has changed
+     * data for the organisation unit and period.
+     *
+     * @param organisationUnit the organisation unit.
+     * @param period the period.
+     * @param ruleX the rule.
+     * @return true if the rule must be validated.
+     */
+    public boolean hasChangedData( OrganisationUnit organisationUnit, Period period, ValidationRuleExtended ruleX )
+    {
+        if ( changedDataElementIds == null || !ruleX.isChangeTracked() )
+        {
+            return true;
+        }
+
+        Set<Long> dataElementIds = changedDataElementIds.getValue( organisationUnit.getId(), period );
+
+        return dataElementIds != null && !Collections.disjoint( dataElementIds, ruleX.getDataElementIds() );
+    }
+
+    /**
+     * Records that a rule is validated again for an organisation unit and
+     * period, so that initial results which are not found again are stale.
+     */
+    public void addRevalidatedTuple( OrganisationUnit organisationUnit, ValidationRule validationRule, Period period )
+    {
+        List<ValidationResult> validationResultList = initialValidationResults
+            .getValue( organisationUnit, validationRule, period );
+
+        if ( validationResultList != null )
+        {
+            revalidatedResults.addAll( validationResultList );
+        }
+    }
+
+    /**
+     * Records that a violation was found again for an organisation unit, rule,
+     * period and attribute option combo. The initial results of all days in
+     * the period are kept, as the day in period of the current period changes
+     * from run to run.
+     */
+    public void confirmValidationResults( OrganisationUnit organisationUnit, ValidationRule validationRule,
+        Period period, String attributeOptionCombo )
+    {
+        List<ValidationResult> validationResultList = initialValidationResults
+            .getValue( organisationUnit, validationRule, period );
+
+        if ( validationResultList != null )
+        {
+            validationResultList.stream()
+                .filter( vr -> vr.getAttributeOptionCombo().getUid().equals( attributeOptionCombo ) )
+                .forEach( confirmedResults::add );
+        }
+    }
+
+    /**
+     * Gets the initial results which were validated again but not found again.
+     */
+    public Set<ValidationResult> getStaleValidationResults()
+    {
+        return Sets.difference( revalidatedResults, confirmedResults );
     }
 
     public int getNumberOfTasks()
@@ -342,6 +437,19 @@ public class ValidationRunContext
             return this;
         }
 
+        /**
+         * Validates only rules which depend on changed data, for the
+         * organisation units and periods with changed data.
+         *
+         * @param changedDataElementIds ids of the data elements with changed
+         *        data, by organisation unit id and period.
+         */
+        public Builder withChangedDataElementIds( MapMap<Long, Period, Set<Long>> changedDataElementIds )
+        {
+            this.context.changedDataElementIds = changedDataElementIds;
+            return this;
+        }
+
         public Builder withInitialResults( Collection<ValidationResult> results )
         {
             this.context.validationResults.addAll( results );
@@ -112,6 +112,8 @@ public class MonitoringJob
 
         MonitoringJobParameters monitoringJobParameters = (MonitoringJobParameters) jobConfiguration.getJobParameters();
 
+        Date startTime = new Date();
+
         //TODO improve collection usage
 
         try
@@ -153,16 +155,26 @@ public class MonitoringJob
                     .reduce( Lists.newArrayList(), ListUtils::union );
             }
 
-            ValidationAnalysisParams parameters = validationService
+            ValidationAnalysisParams.Builder builder = validationService
                 .newParamsBuilder( validationRules, null, periods )
                 .withIncludeOrgUnitDescendants( true )
                 .withMaxResults( ValidationService.MAX_SCHEDULED_ALERTS )
                 .withSendNotifications( monitoringJobParameters.isSendNotifications() )
-                .withPersistResults( monitoringJobParameters.isPersistResults() )
-                .build();
+                .withPersistResults( monitoringJobParameters.isPersistResults() );
+
+            // Data changed while the last successful run was in progress is included
+
+            if ( monitoringJobParameters.isChangedDataOnly() && monitoringJobParameters.getLastSuccessfulStart() != null )
+            {
+                builder.withChangedSince( monitoringJobParameters.getLastSuccessfulStart() );
+            }
+
+            ValidationAnalysisParams parameters = builder.build();
 
             validationService.validationAnalysis( parameters );
 
+            monitoringJobParameters.setLastSuccessfulStart( startTime );
+
             notifier.notify( jobConfiguration, INFO, "Monitoring process done", true );
         }
         catch ( RuntimeException ex )
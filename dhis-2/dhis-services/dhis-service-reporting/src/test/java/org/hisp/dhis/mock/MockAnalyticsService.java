@@ -43,6 +43,7 @@ import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.period.Period;
+import org.hisp.dhis.system.grid.StreamingGrid;
 
 /**
  * Configurable mock implementation of AnalyticsService for testing purposes.
@@ -102,6 +103,12 @@ public class MockAnalyticsService
         throw new NotImplementedException( "" );
     }
 
+    @Override
+    public void writeRawDataValues( DataQueryParams params, StreamingGrid grid )
+    {
+        throw new NotImplementedException( "" );
+    }
+
     @Override
     public DataValueSet getAggregatedDataValueSet( DataQueryParams params )
     {
@@ -63,6 +63,7 @@ import org.joda.time.DateTime;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -1125,6 +1126,42 @@ public class PredictionServiceTest
         assertEquals( "Pred 2 Ins 0 Upd 0 Del 0 Unch 2", shortSummary( summary ) );
     }
 
+    @Test
+    public void testPredictTaskManyOrgUnits()
+    {
+        List<OrganisationUnit> orgUnits = new ArrayList<>();
+
+        for ( int i = 0; i < 120; i++ )
+        {
+            OrganisationUnit orgUnit = createOrganisationUnit( "OrgUnitG" + i, sourceG );
+            organisationUnitService.addOrganisationUnit( orgUnit );
+            orgUnits.add( orgUnit );
+        }
+
+        Predictor predictorA = createPredictor( dataElementX, defaultCombo, "A", expressionC, null,
+            periodTypeMonthly, orgUnitLevel2, 0, 0, 0 );
+
+        Predictor predictorB = createPredictor( dataElementY, defaultCombo, "B", expressionC, null,
+            periodTypeMonthly, orgUnitLevel2, 0, 0, 0 );
+
+        predictorService.addPredictor( predictorA );
+        predictorService.addPredictor( predictorB );
+
+        List<String> predictors = Lists.newArrayList( predictorA.getUid(), predictorB.getUid() );
+
+        summary = predictionService.predictTask( monthStart( 2001, 7 ), monthStart( 2001, 8 ), predictors, null, null );
+
+        // Org units C and D and the 120 children of G, for two predictors
+
+        assertEquals( "Pred 2 Ins 244 Upd 0 Del 0 Unch 0", shortSummary( summary ) );
+
+        for ( OrganisationUnit orgUnit : Lists.newArrayList( sourceC, orgUnits.get( 0 ), orgUnits.get( 60 ), orgUnits.get( 119 ) ) )
+        {
+            assertEquals( "135.8", getDataValue( dataElementX, defaultCombo, orgUnit, makeMonth( 2001, 7 ) ) );
+            assertEquals( "136", getDataValue( dataElementY, defaultCombo, orgUnit, makeMonth( 2001, 7 ) ) );
+        }
+    }
+
     @Test
     public void testPredictTaskPredictorGroups()
     {
@@ -49,6 +49,7 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.period.*;
 import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.util.DateUtils;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -56,6 +57,7 @@ import java.util.*;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
 import static org.hisp.dhis.expression.Expression.SEPARATOR;
 import static org.hisp.dhis.expression.ExpressionService.SYMBOL_DAYS;
 import static org.hisp.dhis.expression.MissingValueStrategy.*;
@@ -89,6 +91,9 @@ public class ValidationServiceTest
     @Autowired
     private DataValueService dataValueService;
 
+    @Autowired
+    private ValidationResultService validationResultService;
+
     @Autowired
     private DataValueStore dataValueStore;
 
@@ -694,6 +699,110 @@ public class ValidationServiceTest
         assertResultsEquals( reference, results );
     }
 
+    @Test
+    public void testValidateChangedData()
+    {
+        useDataValue( dataElementA, periodA, sourceA, "1" );
+        useDataValue( dataElementB, periodA, sourceA, "2" );
+        useDataValue( dataElementC, periodA, sourceA, "3" );
+        useDataValue( dataElementD, periodA, sourceA, "4" );
+
+        validationRuleService.saveValidationRule( validationRuleA );
+        validationRuleService.saveValidationRule( validationRuleB );
+
+        Collection<ValidationResult> results = validationService.validationAnalysis( validationService.newParamsBuilder( dataSetMonthly, sourceA, periodA )
+            .withChangedSince( DateUtils.getDateAfterAddition( new Date(), -1 ) )
+            .build() );
+
+        Collection<ValidationResult> reference = new HashSet<>();
+
+        reference.add( new ValidationResult( validationRuleA, periodA, sourceA, defaultCombo, 3.0, -1.0, dayInPeriodA ) );
+        reference.add( new ValidationResult( validationRuleB, periodA, sourceA, defaultCombo, -1.0, 4.0, dayInPeriodA ) );
+
+        assertResultsEquals( reference, results );
+
+        results = validationService.validationAnalysis( validationService.newParamsBuilder( dataSetMonthly, sourceA, periodA )
+            .withChangedSince( DateUtils.getDateAfterAddition( new Date(), 1 ) )
+            .build() );
+
+        assertResultsEmpty( results );
+    }
+
+    @Test
+    public void testValidateChangedDataDeletesStaleResults()
+    {
+        useDataValue( dataElementA, periodA, sourceA, "1" );
+        useDataValue( dataElementB, periodA, sourceA, "2" );
+        useDataValue( dataElementC, periodA, sourceA, "3" );
+        useDataValue( dataElementD, periodA, sourceA, "4" );
+
+        validationRuleService.saveValidationRule( validationRuleA );
+        validationRuleService.saveValidationRule( validationRuleB );
+
+        validationService.validationAnalysis( validationService.newParamsBuilder( dataSetMonthly, sourceA, periodA )
+            .withPersistResults( true )
+            .build() );
+
+        assertEquals( 2, validationResultService.getAllValidationResults().size() );
+
+        // Fix the violation of rule A: deA + deB = deC - deD
+
+        DataValue dataValue = dataValueService.getDataValue( dataElementA, periodA, sourceA, optionCombo );
+        dataValue.setValue( "-3" );
+        dataValueService.updateDataValue( dataValue );
+
+        validationService.validationAnalysis( validationService.newParamsBuilder( dataSetMonthly, sourceA, periodA )
+            .withChangedSince( DateUtils.getDateAfterAddition( new Date(), -1 ) )
+            .withPersistResults( true )
+            .build() );
+
+        List<ValidationResult> storedResults = validationResultService.getAllValidationResults();
+
+        assertEquals( 1, storedResults.size() );
+        assertEquals( validationRuleB.getId(), storedResults.get( 0 ).getValidationRule().getId() );
+    }
+
+    @Test
+    public void testValidateChangedDataKeepsResultsOfOtherDays()
+    {
+        useDataValue( dataElementA, periodA, sourceA, "1" );
+        useDataValue( dataElementB, periodA, sourceA, "2" );
+        useDataValue( dataElementC, periodA, sourceA, "3" );
+        useDataValue( dataElementD, periodA, sourceA, "4" );
+
+        validationRuleService.saveValidationRule( validationRuleA );
+
+        validationService.validationAnalysis( validationService.newParamsBuilder( dataSetMonthly, sourceA, periodA )
+            .withPersistResults( true )
+            .build() );
+
+        List<ValidationResult> initialResults = validationResultService.getAllValidationResults();
+
+        assertEquals( 1, initialResults.size() );
+
+        // Move the stored result to the previous day of the period
+
+        ValidationResult initialResult = initialResults.get( 0 );
+        initialResult.setDayInPeriod( initialResult.getDayInPeriod() - 1 );
+        validationResultService.updateValidationResults( Sets.newHashSet( initialResult ) );
+
+        // Change data, rule A is still violated: deA + deB = deC - deD
+
+        DataValue dataValue = dataValueService.getDataValue( dataElementA, periodA, sourceA, optionCombo );
+        dataValue.setValue( "2" );
+        dataValueService.updateDataValue( dataValue );
+
+        validationService.validationAnalysis( validationService.newParamsBuilder( dataSetMonthly, sourceA, periodA )
+            .withChangedSince( DateUtils.getDateAfterAddition( new Date(), -1 ) )
+            .withPersistResults( true )
+            .build() );
+
+        List<ValidationResult> storedResults = validationResultService.getAllValidationResults();
+
+        assertEquals( 2, storedResults.size() );
+        assertTrue( storedResults.stream().anyMatch( vr -> vr.getId() == initialResult.getId() ) );
+    }
+
     @Test
     public void testValidateForm()
     {
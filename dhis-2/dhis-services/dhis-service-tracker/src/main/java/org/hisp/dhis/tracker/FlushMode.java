@@ -42,4 +42,9 @@ public enum FlushMode
      * Let the importer decide the flushing.
      */
     AUTO,
+
+    /**
+     * Write events through batched JDBC statements instead of the session.
+     */
+    BULK,
 }
@@ -29,20 +29,29 @@ package org.hisp.dhis.tracker.bundle;
  */
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import static com.google.api.client.util.Preconditions.checkNotNull;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hisp.dhis.artemis.audit.Audit;
+import org.hisp.dhis.artemis.audit.AuditManager;
+import org.hisp.dhis.artemis.audit.AuditableEntity;
+import org.hisp.dhis.audit.AuditScope;
+import org.hisp.dhis.audit.AuditType;
 import org.hisp.dhis.cache.HibernateCacheManager;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.dxf2.events.event.EventCommentStore;
+import org.hisp.dhis.dxf2.events.event.EventStore;
 import org.hisp.dhis.eventdatavalue.EventDataValue;
 import org.hisp.dhis.fileresource.FileResource;
 import org.hisp.dhis.program.ProgramInstance;
@@ -67,6 +76,8 @@ import org.hisp.dhis.tracker.preheat.TrackerPreheat;
 import org.hisp.dhis.tracker.preheat.TrackerPreheatParams;
 import org.hisp.dhis.tracker.preheat.TrackerPreheatService;
 import org.hisp.dhis.tracker.report.TrackerBundleReport;
+import org.hisp.dhis.tracker.report.TrackerErrorCode;
+import org.hisp.dhis.tracker.report.TrackerErrorReport;
 import org.hisp.dhis.tracker.report.TrackerObjectReport;
 import org.hisp.dhis.tracker.report.TrackerTypeReport;
 import org.hisp.dhis.tracker.sideeffect.SideEffectHandlerService;
@@ -114,6 +125,12 @@ public class DefaultTrackerBundleService
 
     private final TrackedEntityCommentService trackedEntityCommentService;
 
+    private final EventStore eventStore;
+
+    private final EventCommentStore eventCommentStore;
+
+    private final AuditManager auditManager;
+
     private TrackerObjectDeletionService deletionService;
 
     private List<TrackerBundleHook> bundleHooks = new ArrayList<>();
@@ -143,7 +160,8 @@ public class DefaultTrackerBundleService
     private final ImmutableMap<TrackerType, BiFunction<Session, TrackerBundle, TrackerTypeReport>> COMMIT_MAPPER =
         new ImmutableMap.Builder<TrackerType, BiFunction<Session, TrackerBundle, TrackerTypeReport>>()
         .put( TrackerType.ENROLLMENT, this::handleEnrollments )
-        .put( TrackerType.EVENT, this::handleEvents )
+        .put( TrackerType.EVENT, ( s, b ) -> FlushMode.BULK == b.getFlushMode()
+            ? handleEventsBulk( s, b ) : handleEvents( s, b ) )
         .put( TrackerType.TRACKED_ENTITY, this::handleTrackedEntities )
         .put( TrackerType.RELATIONSHIP, this::handleRelationships )
         .build();
@@ -161,7 +179,10 @@ public class DefaultTrackerBundleService
         ReservedValueService reservedValueService,
         TrackerProgramRuleService trackerProgramRuleService,
         TrackedEntityCommentService trackedEntityCommentService,
-        TrackerObjectDeletionService deletionService )
+        TrackerObjectDeletionService deletionService,
+        EventStore eventStore,
+        EventCommentStore eventCommentStore,
+        AuditManager auditManager )
 
     {
         this.trackerPreheatService = trackerPreheatService;
@@ -177,6 +198,9 @@ public class DefaultTrackerBundleService
         this.trackerProgramRuleService = trackerProgramRuleService;
         this.trackedEntityCommentService = trackedEntityCommentService;
         this.deletionService = deletionService;
+        this.eventStore = eventStore;
+        this.eventCommentStore = eventCommentStore;
+        this.auditManager = auditManager;
     }
 
     @Override
@@ -464,6 +488,155 @@ public class DefaultTrackerBundleService
         return typeReport;
     }
 
+    /**
+     * Writes the events of the bundle through batched JDBC statements rather
+     * than through the session. Data values and file resources are resolved
+     * as for {@link #handleEvents(Session, TrackerBundle)}, but events and
+     * their new notes are inserted and updated in one batch each. As the
+     * Hibernate audit listeners are bypassed, audits are sent explicitly.
+     * Stats, notes, audits and side effects only cover the events returned
+     * as persisted by the event store, the other events are reported as
+     * ignored with an error.
+     */
+    private TrackerTypeReport handleEventsBulk( Session session, TrackerBundle bundle )
+    {
+        List<Event> events = bundle.getEvents();
+        TrackerTypeReport typeReport = new TrackerTypeReport( TrackerType.EVENT );
+
+        events.forEach( o -> bundleHooks.forEach( hook -> hook.preCreate( Event.class, o, bundle ) ) );
+        session.flush();
+
+        List<ProgramStageInstance> created = new ArrayList<>();
+        List<ProgramStageInstance> updated = new ArrayList<>();
+        Map<String, TrackerObjectReport> objectReports = new HashMap<>();
+
+        Date now = new Date();
+
+        for ( int idx = 0; idx < events.size(); idx++ )
+        {
+            Event event = events.get( idx );
+
+            ProgramStageInstance programStageInstance = eventConverter.from( bundle.getPreheat(), event );
+
+            programStageInstance.setLastUpdated( now );
+            programStageInstance.setLastUpdatedAtClient( now );
+            programStageInstance.setLastUpdatedBy( bundle.getUser() );
+
+            TrackerObjectReport objectReport = new TrackerObjectReport( TrackerType.EVENT,
+                programStageInstance.getUid(), idx );
+            typeReport.addObjectReport( objectReport );
+            objectReports.put( programStageInstance.getUid(), objectReport );
+
+            handleDataValues( session, bundle.getPreheat(), event.getDataValues(), programStageInstance );
+
+            if ( programStageInstance.getId() == 0 )
+            {
+                created.add( programStageInstance );
+            }
+            else
+            {
+                updated.add( programStageInstance );
+
+                // Keep the session from writing the event a second time on flush
+                session.evict( programStageInstance );
+            }
+        }
+
+        session.flush();
+
+        List<ProgramStageInstance> saved = created.isEmpty() ? created : eventStore.saveEvents( created );
+        reportNotPersistedEvents( created, saved, objectReports, typeReport, bundle );
+        created = saved;
+
+        saved = updated.isEmpty() ? updated : eventStore.updateEvents( updated );
+        reportNotPersistedEvents( updated, saved, objectReports, typeReport, bundle );
+        updated = saved;
+
+        created.forEach( o -> typeReport.getStats().incCreated() );
+        updated.forEach( o -> typeReport.getStats().incUpdated() );
+
+        List<ProgramStageInstance> comments = new ArrayList<>();
+
+        for ( ProgramStageInstance programStageInstance : Iterables.concat( created, updated ) )
+        {
+            List<TrackedEntityComment> newComments = programStageInstance.getComments().stream()
+                .filter( comment -> comment.getId() == 0 )
+                .collect( Collectors.toList() );
+
+            if ( !newComments.isEmpty() )
+            {
+                ProgramStageInstance commentHolder = new ProgramStageInstance();
+                commentHolder.setId( programStageInstance.getId() );
+                commentHolder.setComments( newComments );
+                comments.add( commentHolder );
+            }
+        }
+
+        eventCommentStore.saveAllComments( comments );
+
+        sendAudits( created, AuditType.CREATE, bundle );
+        sendAudits( updated, AuditType.UPDATE, bundle );
+
+        for ( ProgramStageInstance programStageInstance : Iterables.concat( created, updated ) )
+        {
+            bundle.getPreheat().putEvents( bundle.getIdentifier(), Collections.singletonList( programStageInstance ) );
+
+            if ( !bundle.isSkipSideEffects() )
+            {
+                TrackerSideEffectDataBundle sideEffectDataBundle = TrackerSideEffectDataBundle.builder()
+                    .klass( ProgramStageInstance.class )
+                    .enrollmentRuleEffects( bundle.getEnrollmentRuleEffects() )
+                    .eventRuleEffects( bundle.getEventRuleEffects() )
+                    .object( programStageInstance )
+                    .importStrategy( bundle.getImportStrategy() )
+                    .accessedBy( bundle.getUsername() )
+                    .build();
+
+                sideEffectHandlers.forEach( handler -> handler.handleSideEffect( sideEffectDataBundle ) );
+            }
+        }
+
+        Set<String> persisted = Stream.concat( created.stream(), updated.stream() )
+            .map( ProgramStageInstance::getUid )
+            .collect( Collectors.toSet() );
+
+        events.stream()
+            .filter( o -> persisted.contains( o.getEvent() ) )
+            .forEach( o -> bundleHooks.forEach( hook -> hook.postCreate( Event.class, o, bundle ) ) );
+
+        return typeReport;
+    }
+
+    /**
+     * Reports the events which the event store did not persist as ignored,
+     * with an error on the object report of each event.
+     */
+    private void reportNotPersistedEvents( List<ProgramStageInstance> events, List<ProgramStageInstance> persisted,
+        Map<String, TrackerObjectReport> objectReports, TrackerTypeReport typeReport, TrackerBundle bundle )
+    {
+        Set<String> persistedUids = persisted.stream()
+            .map( ProgramStageInstance::getUid )
+            .collect( Collectors.toSet() );
+
+        for ( ProgramStageInstance programStageInstance : events )
+        {
+            if ( !persistedUids.contains( programStageInstance.getUid() ) )
+            {
+                TrackerErrorReport errorReport = TrackerErrorReport.builder()
+                    .errorCode( TrackerErrorCode.E1119 )
+                    .trackerType( TrackerType.EVENT )
+                    .uid( programStageInstance.getUid() )
+                    .addArg( programStageInstance.getUid() )
+                    .build( bundle );
+
+                objectReports.get( programStageInstance.getUid() ).getErrorReportsByCode()
+                    .computeIfAbsent( TrackerErrorCode.E1119, k -> new ArrayList<>() ).add( errorReport );
+
+                typeReport.getStats().incIgnored();
+            }
+        }
+    }
+
     private TrackerTypeReport handleRelationships( Session session, TrackerBundle bundle )
     {
         List<Relationship> relationships = bundle.getRelationships();
@@ -617,6 +790,23 @@ public class DefaultTrackerBundleService
         }
     }
 
+    private void sendAudits( List<ProgramStageInstance> programStageInstances, AuditType auditType,
+        TrackerBundle bundle )
+    {
+        for ( ProgramStageInstance programStageInstance : programStageInstances )
+        {
+            auditManager.send( Audit.builder()
+                .auditType( auditType )
+                .auditScope( AuditScope.TRACKER )
+                .createdAt( LocalDateTime.now() )
+                .createdBy( bundle.getUsername() )
+                .object( programStageInstance )
+                .uid( programStageInstance.getUid() )
+                .auditableEntity( new AuditableEntity( programStageInstance ) )
+                .build() );
+        }
+    }
+
     private void assignFileResource( Session session, TrackerPreheat preheat, String fr )
     {
         assignFileResource( session, preheat, fr, true );
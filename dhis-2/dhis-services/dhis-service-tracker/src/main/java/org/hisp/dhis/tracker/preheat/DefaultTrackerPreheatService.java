@@ -48,11 +48,9 @@ import org.hisp.dhis.program.ProgramInstanceStore;
 import org.hisp.dhis.program.ProgramStage;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.program.ProgramStageInstanceStore;
+import org.hisp.dhis.preheat.PreheatCache;
+import org.hisp.dhis.preheat.PreheatIdentifier;
 import org.hisp.dhis.program.ProgramType;
-import org.hisp.dhis.query.Query;
-import org.hisp.dhis.query.QueryService;
-import org.hisp.dhis.query.Restriction;
-import org.hisp.dhis.query.Restrictions;
 import org.hisp.dhis.relationship.RelationshipStore;
 import org.hisp.dhis.relationship.RelationshipType;
 import org.hisp.dhis.schema.Schema;
@@ -94,8 +92,6 @@ public class DefaultTrackerPreheatService
 
     private final SchemaService schemaService;
 
-    private final QueryService queryService;
-
     private final IdentifiableObjectManager manager;
 
     private final CurrentUserService currentUserService;
@@ -110,6 +106,8 @@ public class DefaultTrackerPreheatService
 
     private final RelationshipStore relationshipStore;
 
+    private final PreheatCache preheatCache;
+
     private List<TrackerPreheatHook> preheatHooks = new ArrayList<>();
 
     @Autowired( required = false )
@@ -120,17 +118,16 @@ public class DefaultTrackerPreheatService
 
     public DefaultTrackerPreheatService(
         SchemaService schemaService,
-        QueryService queryService,
         IdentifiableObjectManager manager,
         CurrentUserService currentUserService,
         PeriodStore periodStore,
         TrackedEntityInstanceStore trackedEntityInstanceStore,
         ProgramInstanceStore programInstanceStore,
         ProgramStageInstanceStore programStageInstanceStore,
-        RelationshipStore relationshipStore )
+        RelationshipStore relationshipStore,
+        PreheatCache preheatCache )
     {
         this.schemaService = schemaService;
-        this.queryService = queryService;
         this.manager = manager;
         this.currentUserService = currentUserService;
         this.periodStore = periodStore;
@@ -138,6 +135,7 @@ public class DefaultTrackerPreheatService
         this.programInstanceStore = programInstanceStore;
         this.programStageInstanceStore = programStageInstanceStore;
         this.relationshipStore = relationshipStore;
+        this.preheatCache = preheatCache;
     }
 
     @Override
@@ -282,18 +280,6 @@ public class DefaultTrackerPreheatService
         //TODO: Implement validation
     }
 
-    private Restriction generateRestrictionFromIdentifiers( TrackerIdScheme idScheme, List<String> ids )
-    {
-        if ( TrackerIdScheme.CODE.equals( idScheme ) )
-        {
-            return Restrictions.in( "code", ids );
-        }
-        else
-        {
-            return Restrictions.in( "id", ids );
-        }
-    }
-
     @SuppressWarnings( "unchecked" )
     private void queryForIdentifiableObjects( TrackerPreheat preheat, Schema schema, TrackerIdentifier identifier,
         List<List<String>> splitList )
@@ -312,11 +298,10 @@ public class DefaultTrackerPreheatService
             }
             else
             {
-                Query query = Query.from( schema );
-                query.setUser( preheat.getUser() );
-                query.add( generateRestrictionFromIdentifiers( idScheme, ids ) );
-                query.setDefaults( Defaults.INCLUDE );
-                objects = queryService.query( query );
+                PreheatIdentifier preheatIdentifier = TrackerIdScheme.CODE.equals( idScheme )
+                    ? PreheatIdentifier.CODE : PreheatIdentifier.UID;
+
+                objects = preheatCache.query( schema, preheat.getUser(), Defaults.INCLUDE, preheatIdentifier, ids );
             }
 
             preheat.put( identifier, objects );
@@ -41,6 +41,19 @@ public interface TrackerValidationHook extends Ordered
         return true;
     }
 
+    /**
+     * Indicates whether the objects of a bundle can be validated concurrently
+     * by this hook. Thread-safe hooks must only read the validation context
+     * and the preheat, and must not access the database or lazy associations
+     * which have not been loaded by earlier hooks. Hooks which remove invalid
+     * objects from the bundle are always run sequentially, as later hooks
+     * depend on their outcome.
+     */
+    default boolean isThreadSafe()
+    {
+        return false;
+    }
+
     ValidationErrorReporter validate( TrackerImportValidationContext bundle );
 
     void setOrder( int order );
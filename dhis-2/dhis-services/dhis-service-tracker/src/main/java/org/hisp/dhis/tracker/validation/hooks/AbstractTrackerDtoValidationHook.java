@@ -32,12 +32,18 @@ import static com.google.api.client.util.Preconditions.checkNotNull;
 import static org.hisp.dhis.tracker.report.ValidationErrorReporter.newReport;
 import static org.hisp.dhis.tracker.validation.hooks.TrackerImporterAssertErrors.*;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.organisationunit.FeatureType;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
@@ -55,6 +61,7 @@ import org.springframework.core.Ordered;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.vividsolutions.jts.geom.Geometry;
 
 /**
@@ -63,6 +70,23 @@ import com.vividsolutions.jts.geom.Geometry;
 public abstract class AbstractTrackerDtoValidationHook
     implements TrackerValidationHook
 {
+    /**
+     * Minimum number of objects of one type for which a thread-safe hook
+     * validates the objects concurrently.
+     */
+    private static final int PARALLEL_THRESHOLD = 1000;
+
+    /**
+     * Number of objects validated by each concurrent task.
+     */
+    private static final int SLICE_SIZE = 250;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+        Math.max( 1, SystemUtils.getCpuCores() - 1 ), new ThreadFactoryBuilder()
+            .setNameFormat( "TRACKER-VALIDATION-%d" )
+            .setDaemon( true )
+            .build() );
+
     private int order = Ordered.LOWEST_PRECEDENCE;
 
     @Override
@@ -222,6 +246,12 @@ public abstract class AbstractTrackerDtoValidationHook
     {
         List<TrackerDto> dtoWithErrors = Lists.newArrayList();
 
+        if ( isParallel( reporter, pair.getRight() ) )
+        {
+            validateTrackerDTOsInParallel( reporter, pair );
+            return dtoWithErrors;
+        }
+
         Iterator<? extends TrackerDto> iterator = pair.getRight().iterator();
 
         while ( iterator.hasNext() )
@@ -248,6 +278,90 @@ public abstract class AbstractTrackerDtoValidationHook
         return dtoWithErrors;
     }
 
+    private boolean isParallel( ValidationErrorReporter reporter, List<? extends TrackerDto> dtos )
+    {
+        return isThreadSafe() && !this.removeOnError && !reporter.isFailFast() && dtos.size() >= PARALLEL_THRESHOLD;
+    }
+
+    /**
+     * Validates slices of the given objects concurrently. Each object is
+     * validated against its own fork of the report, and the forks are merged
+     * in the order of the objects once all slices are done, so that the
+     * resulting report is the same as for a sequential validation.
+     */
+    private void validateTrackerDTOsInParallel( ValidationErrorReporter reporter,
+        Pair<ValidationFunction<TrackerDto>, List<? extends TrackerDto>> pair )
+    {
+        List<? extends TrackerDto> dtos = pair.getRight();
+
+        prepareConcurrentValidation( reporter.getValidationContext(), dtos );
+
+        List<ValidationErrorReporter> reportForks = new ArrayList<>( dtos.size() );
+
+        for ( TrackerDto dto : dtos )
+        {
+            reportForks.add( reporter.fork( dto ) );
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+
+        for ( int start = 0; start < dtos.size(); start += SLICE_SIZE )
+        {
+            int from = start;
+            int to = Math.min( start + SLICE_SIZE, dtos.size() );
+
+            futures.add( EXECUTOR.submit( () -> {
+                for ( int i = from; i < to; i++ )
+                {
+                    pair.getLeft().validateTrackerDto( dtos.get( i ), reportForks.get( i ) );
+                }
+            } ) );
+        }
+
+        try
+        {
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        catch ( ExecutionException ex )
+        {
+            futures.forEach( future -> future.cancel( true ) );
+
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new IllegalStateException( ex.getCause() );
+        }
+        catch ( InterruptedException ex )
+        {
+            futures.forEach( future -> future.cancel( true ) );
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "Validation was interrupted", ex );
+        }
+
+        reportForks.forEach( reporter::merge );
+    }
+
+    /**
+     * Invoked on the calling thread before the given objects are validated
+     * concurrently. Thread-safe hooks override this to load state which is
+     * otherwise resolved lazily through the Hibernate session, such as the
+     * authorities of the acting user, as the session must not be accessed
+     * from the validation threads.
+     *
+     * @param context validation context
+     * @param dtos    the objects about to be validated
+     */
+    protected void prepareConcurrentValidation( TrackerImportValidationContext context,
+        List<? extends TrackerDto> dtos )
+    {
+    }
+
     protected void validateAttrValueType( ValidationErrorReporter errorReporter, Attribute attr,
         TrackedEntityAttribute teAttr )
     {
@@ -28,6 +28,7 @@ package org.hisp.dhis.tracker.validation.hooks;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.hibernate.Hibernate;
 import org.hisp.dhis.event.EventStatus;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
@@ -36,6 +37,7 @@ import org.hisp.dhis.security.Authorities;
 import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
 import org.hisp.dhis.tracker.TrackerImportStrategy;
 import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.TrackerDto;
 import org.hisp.dhis.tracker.report.TrackerErrorCode;
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
 import org.hisp.dhis.tracker.validation.TrackerImportValidationContext;
@@ -44,6 +46,8 @@ import org.hisp.dhis.util.DateUtils;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 
 import static com.google.api.client.util.Preconditions.checkNotNull;
 import static org.hisp.dhis.tracker.report.ValidationErrorReporter.newReport;
@@ -60,6 +64,31 @@ public class EventDateValidationHook
         super( Event.class, TrackerImportStrategy.CREATE_AND_UPDATE, teAttrService );
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
+    @Override
+    protected void prepareConcurrentValidation( TrackerImportValidationContext context,
+        List<? extends TrackerDto> dtos )
+    {
+        User actingUser = context.getBundle().getUser();
+
+        if ( actingUser != null )
+        {
+            actingUser.isAuthorized( Authorities.F_EDIT_EXPIRED.getAuthority() );
+        }
+
+        dtos.stream()
+            .map( dto -> ((Event) dto).getProgram() )
+            .distinct()
+            .map( context::getProgram )
+            .filter( Objects::nonNull )
+            .forEach( program -> Hibernate.initialize( program.getExpiryPeriodType() ) );
+    }
+
     @Override
     public void validateEvent( ValidationErrorReporter reporter, Event event )
     {
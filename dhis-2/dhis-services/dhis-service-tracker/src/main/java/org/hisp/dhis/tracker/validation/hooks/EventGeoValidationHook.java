@@ -50,6 +50,12 @@ public class EventGeoValidationHook
         super( Event.class, TrackerImportStrategy.CREATE_AND_UPDATE, teAttrService );
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     @Override
     public void validateEvent( ValidationErrorReporter reporter, Event event )
     {
@@ -0,0 +1,308 @@
+package org.hisp.dhis.tracker.bundle;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.artemis.audit.Audit;
+import org.hisp.dhis.artemis.audit.AuditManager;
+import org.hisp.dhis.audit.AuditType;
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundle;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleMode;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleParams;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleService;
+import org.hisp.dhis.dxf2.metadata.objectbundle.ObjectBundleValidationService;
+import org.hisp.dhis.dxf2.metadata.objectbundle.feedback.ObjectBundleValidationReport;
+import org.hisp.dhis.eventdatavalue.EventDataValue;
+import org.hisp.dhis.importexport.ImportStrategy;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.render.RenderFormat;
+import org.hisp.dhis.render.RenderService;
+import org.hisp.dhis.trackedentitycomment.TrackedEntityComment;
+import org.hisp.dhis.tracker.FlushMode;
+import org.hisp.dhis.tracker.TrackerImportStrategy;
+import org.hisp.dhis.tracker.domain.DataValue;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.Note;
+import org.hisp.dhis.tracker.job.TrackerSideEffectDataBundle;
+import org.hisp.dhis.tracker.report.TrackerBundleReport;
+import org.hisp.dhis.tracker.sideeffect.SideEffectHandlerService;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserService;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests committing events with {@link FlushMode#BULK}, where events are written
+ * through batched JDBC statements rather than through the session.
+ */
+public class TrackerEventBundleBulkFlushModeIntegrationTest
+    extends IntegrationTestBase
+{
+    @Autowired
+    private ObjectBundleService objectBundleService;
+
+    @Autowired
+    private ObjectBundleValidationService objectBundleValidationService;
+
+    @Autowired
+    private RenderService _renderService;
+
+    @Autowired
+    private UserService _userService;
+
+    @Autowired
+    private TrackerBundleService trackerBundleService;
+
+    @Autowired
+    private IdentifiableObjectManager manager;
+
+    private User user;
+
+    private AuditManager auditManager;
+
+    private SideEffectHandlerService sideEffectHandler;
+
+    private Object originalAuditManager;
+
+    private Object originalSideEffectHandlers;
+
+    // -------------------------------------------------------------------------
+    // Fixture
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void setUpTest()
+        throws IOException
+    {
+        renderService = _renderService;
+        userService = _userService;
+
+        Map<Class<? extends IdentifiableObject>, List<IdentifiableObject>> metadata = renderService
+            .fromMetadata( new ClassPathResource( "tracker/event_metadata.json" ).getInputStream(), RenderFormat.JSON );
+
+        ObjectBundleParams params = new ObjectBundleParams();
+        params.setObjectBundleMode( ObjectBundleMode.COMMIT );
+        params.setImportStrategy( ImportStrategy.CREATE );
+        params.setObjects( metadata );
+
+        ObjectBundle bundle = objectBundleService.create( params );
+        ObjectBundleValidationReport validationReport = objectBundleValidationService.validate( bundle );
+        assertTrue( validationReport.getErrorReports().isEmpty() );
+
+        objectBundleService.commit( bundle );
+
+        user = userService.getUser( "M5zQapPyTZI" );
+
+        TrackerBundleParams trackerBundleParams = readEvents();
+
+        trackerBundleService.commit( trackerBundleService.create( TrackerBundleParams.builder()
+            .user( user )
+            .importStrategy( TrackerImportStrategy.CREATE_AND_UPDATE )
+            .enrollments( trackerBundleParams.getEnrollments() )
+            .trackedEntities( trackerBundleParams.getTrackedEntities() )
+            .build() ) );
+
+        originalAuditManager = ReflectionTestUtils.getField( trackerBundleService, "auditManager" );
+        originalSideEffectHandlers = ReflectionTestUtils.getField( trackerBundleService, "sideEffectHandlers" );
+
+        auditManager = mock( AuditManager.class );
+        sideEffectHandler = mock( SideEffectHandlerService.class );
+
+        ReflectionTestUtils.setField( trackerBundleService, "auditManager", auditManager );
+        ReflectionTestUtils.setField( trackerBundleService, "sideEffectHandlers",
+            Collections.singletonList( sideEffectHandler ) );
+    }
+
+    @Override
+    public void tearDownTest()
+    {
+        ReflectionTestUtils.setField( trackerBundleService, "auditManager", originalAuditManager );
+        ReflectionTestUtils.setField( trackerBundleService, "sideEffectHandlers", originalSideEffectHandlers );
+    }
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testBulkCommitCreatesEvents()
+        throws IOException
+    {
+        List<Event> events = readEvents().getEvents();
+
+        TrackerBundleReport report = commit( events );
+
+        assertEquals( events.size(), report.getStats().getCreated() );
+        assertEquals( 0, report.getStats().getUpdated() );
+
+        dbmsManager.clearSession();
+
+        for ( Event event : events )
+        {
+            ProgramStageInstance psi = manager.get( ProgramStageInstance.class, event.getEvent() );
+
+            assertNotNull( psi );
+            assertEquals( getValues( event ), getValues( psi ) );
+        }
+
+        verifyAudits( events.size(), AuditType.CREATE );
+        verifySideEffects( events.size() );
+    }
+
+    @Test
+    public void testBulkCommitUpdatesEvents()
+        throws IOException
+    {
+        commit( readEvents().getEvents() );
+
+        List<Event> events = readEvents().getEvents();
+        Event event = events.get( 0 );
+
+        DataValue dataValue = event.getDataValues().iterator().next();
+        dataValue.setValue( "2018-02-01T00:00:00.000Z" );
+
+        String noteUid = CodeGenerator.generateUid();
+        event.getNotes().add( Note.builder().note( noteUid ).value( "Bulk note" ).newNote( true ).build() );
+
+        auditManager = mock( AuditManager.class );
+        sideEffectHandler = mock( SideEffectHandlerService.class );
+
+        ReflectionTestUtils.setField( trackerBundleService, "auditManager", auditManager );
+        ReflectionTestUtils.setField( trackerBundleService, "sideEffectHandlers",
+            Collections.singletonList( sideEffectHandler ) );
+
+        TrackerBundleReport report = commit( events );
+
+        assertEquals( 0, report.getStats().getCreated() );
+        assertEquals( events.size(), report.getStats().getUpdated() );
+
+        dbmsManager.clearSession();
+
+        assertEquals( events.size(), manager.getAll( ProgramStageInstance.class ).size() );
+
+        ProgramStageInstance psi = manager.get( ProgramStageInstance.class, event.getEvent() );
+
+        assertEquals( Collections.singletonList( "2018-02-01T00:00:00.000Z" ), getValues( psi ) );
+
+        List<TrackedEntityComment> comments = psi.getComments();
+
+        assertEquals( 1, comments.size() );
+        assertEquals( noteUid, comments.get( 0 ).getUid() );
+        assertEquals( "Bulk note", comments.get( 0 ).getCommentText() );
+
+        verifyAudits( events.size(), AuditType.UPDATE );
+        verifySideEffects( events.size() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private TrackerBundleParams readEvents()
+        throws IOException
+    {
+        return renderService.fromJson(
+            new ClassPathResource( "tracker/event_events_and_enrollment.json" ).getInputStream(),
+            TrackerBundleParams.class );
+    }
+
+    private TrackerBundleReport commit( List<Event> events )
+    {
+        TrackerBundle trackerBundle = trackerBundleService.create( TrackerBundleParams.builder()
+            .user( user )
+            .importStrategy( TrackerImportStrategy.CREATE_AND_UPDATE )
+            .flushMode( FlushMode.BULK )
+            .events( events )
+            .build() );
+
+        return trackerBundleService.commit( trackerBundle );
+    }
+
+    private void verifyAudits( int count, AuditType auditType )
+    {
+        ArgumentCaptor<Audit> audits = ArgumentCaptor.forClass( Audit.class );
+
+        verify( auditManager, times( count ) ).send( audits.capture() );
+
+        assertTrue( audits.getAllValues().stream()
+            .allMatch( audit -> audit.getAuditType() == auditType ) );
+    }
+
+    private void verifySideEffects( int count )
+    {
+        ArgumentCaptor<TrackerSideEffectDataBundle> sideEffects = ArgumentCaptor
+            .forClass( TrackerSideEffectDataBundle.class );
+
+        verify( sideEffectHandler, times( count ) ).handleSideEffect( sideEffects.capture() );
+
+        assertTrue( sideEffects.getAllValues().stream()
+            .allMatch( sideEffect -> sideEffect.getKlass() == ProgramStageInstance.class ) );
+    }
+
+    private List<String> getValues( Event event )
+    {
+        return event.getDataValues().stream()
+            .map( DataValue::getValue )
+            .sorted()
+            .collect( Collectors.toList() );
+    }
+
+    private List<String> getValues( ProgramStageInstance psi )
+    {
+        return psi.getEventDataValues().stream()
+            .map( EventDataValue::getValue )
+            .sorted()
+            .collect( Collectors.toList() );
+    }
+}
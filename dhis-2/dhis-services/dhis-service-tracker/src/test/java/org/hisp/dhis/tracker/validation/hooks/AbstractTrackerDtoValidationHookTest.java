@@ -0,0 +1,144 @@
+package org.hisp.dhis.tracker.validation.hooks;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
+import org.hisp.dhis.tracker.TrackerImportStrategy;
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.TrackerDto;
+import org.hisp.dhis.tracker.report.TrackerErrorCode;
+import org.hisp.dhis.tracker.report.TrackerErrorReport;
+import org.hisp.dhis.tracker.report.ValidationErrorReporter;
+import org.hisp.dhis.tracker.validation.TrackerImportValidationContext;
+import org.junit.Test;
+
+public class AbstractTrackerDtoValidationHookTest
+{
+    private static final int EVENTS = 2500;
+
+    @Test
+    public void verifyParallelValidationReportsErrorsInPayloadOrder()
+    {
+        List<String> sequential = validate( false );
+        List<String> parallel = validate( true );
+
+        assertEquals( EVENTS / 2, sequential.size() );
+        assertEquals( sequential, parallel );
+    }
+
+    @Test
+    public void verifyParallelValidationIsPreparedOnCallingThread()
+    {
+        EveryOtherEventValidationHook hook = new EveryOtherEventValidationHook( true );
+
+        validate( hook );
+
+        assertEquals( Collections.singletonList( Thread.currentThread() ), hook.preparingThreads );
+    }
+
+    @Test
+    public void verifySequentialValidationIsNotPrepared()
+    {
+        EveryOtherEventValidationHook hook = new EveryOtherEventValidationHook( false );
+
+        validate( hook );
+
+        assertTrue( hook.preparingThreads.isEmpty() );
+    }
+
+    private List<String> validate( boolean threadSafe )
+    {
+        return validate( new EveryOtherEventValidationHook( threadSafe ) );
+    }
+
+    private List<String> validate( EveryOtherEventValidationHook hook )
+    {
+        List<Event> events = new ArrayList<>();
+
+        for ( int i = 0; i < EVENTS; i++ )
+        {
+            events.add( Event.builder().event( "event" + i ).build() );
+        }
+
+        TrackerBundle bundle = TrackerBundle.builder().events( events ).build();
+
+        ValidationErrorReporter reporter = hook.validate( new TrackerImportValidationContext( bundle ) );
+
+        return reporter.getReportList().stream()
+            .map( TrackerErrorReport::getUid )
+            .collect( Collectors.toList() );
+    }
+
+    private static class EveryOtherEventValidationHook
+        extends AbstractTrackerDtoValidationHook
+    {
+        private final boolean threadSafe;
+
+        private final List<Thread> preparingThreads = new ArrayList<>();
+
+        EveryOtherEventValidationHook( boolean threadSafe )
+        {
+            super( Event.class, TrackerImportStrategy.CREATE_AND_UPDATE, mock( TrackedEntityAttributeService.class ) );
+
+            this.threadSafe = threadSafe;
+        }
+
+        @Override
+        public boolean isThreadSafe()
+        {
+            return threadSafe;
+        }
+
+        @Override
+        protected void prepareConcurrentValidation( TrackerImportValidationContext context,
+            List<? extends TrackerDto> dtos )
+        {
+            preparingThreads.add( Thread.currentThread() );
+        }
+
+        @Override
+        public void validateEvent( ValidationErrorReporter reporter, Event event )
+        {
+            if ( Integer.parseInt( event.getEvent().substring( "event".length() ) ) % 2 == 0 )
+            {
+                reporter.addError( ValidationErrorReporter.newReport( TrackerErrorCode.E1031 ) );
+            }
+        }
+    }
+}
@@ -89,6 +89,12 @@ public class DefaultValidationResultService
         validationResultStore.delete( validationResult );
     }
 
+    @Override
+    public void deleteValidationResults( Collection<ValidationResult> validationResults )
+    {
+        validationResultStore.delete( validationResults );
+    }
+
     @Override
     public void updateValidationResults( Set<ValidationResult> validationResults )
     {
@@ -32,6 +32,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -54,6 +55,8 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import com.google.common.collect.Lists;
+
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -65,6 +68,8 @@ public class HibernateValidationResultStore
     extends HibernateGenericStore<ValidationResult>
     implements ValidationResultStore
 {
+    private static final int DELETE_PARTITION_SIZE = 10000;
+
     protected CurrentUserService currentUserService;
 
     public HibernateValidationResultStore( SessionFactory sessionFactory, JdbcTemplate jdbcTemplate,
@@ -152,6 +157,20 @@ public class HibernateValidationResultStore
         super.save( validationResult );
     }
 
+    @Override
+    public void delete( Collection<ValidationResult> validationResults )
+    {
+        List<Long> ids = validationResults.stream()
+            .map( ValidationResult::getId )
+            .collect( Collectors.toList() );
+
+        for ( List<Long> partition : Lists.partition( ids, DELETE_PARTITION_SIZE ) )
+        {
+            getSession().createQuery( "delete from ValidationResult vr where vr.id in :ids" )
+                .setParameter( "ids", partition ).executeUpdate();
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
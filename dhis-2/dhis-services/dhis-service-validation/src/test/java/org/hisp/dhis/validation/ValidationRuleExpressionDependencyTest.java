@@ -0,0 +1,126 @@
+package org.hisp.dhis.validation;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+/**
+ * @author Lars Helge Overland
+ */
+
+import static org.hisp.dhis.expression.Operator.equal_to;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.expression.Expression;
+import org.hisp.dhis.expression.ExpressionDependencyListener;
+import org.hisp.dhis.expression.ExpressionDependencyService;
+import org.hisp.dhis.period.PeriodType;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.Sets;
+
+public class ValidationRuleExpressionDependencyTest
+    extends DhisSpringTest
+{
+    @Autowired
+    private ExpressionDependencyService expressionDependencyService;
+
+    @Autowired
+    private ExpressionDependencyListener expressionDependencyListener;
+
+    @Autowired
+    private IdentifiableObjectManager idObjectManager;
+
+    private DataElement dataElementA;
+
+    private DataElement dataElementB;
+
+    private DataElement dataElementC;
+
+    @Override
+    public void setUpTest()
+    {
+        dataElementA = createDataElement( 'A' );
+        dataElementB = createDataElement( 'B' );
+        dataElementC = createDataElement( 'C' );
+
+        idObjectManager.save( dataElementA );
+        idObjectManager.save( dataElementB );
+        idObjectManager.save( dataElementC );
+    }
+
+    @Test
+    public void testUpdateRuleExpression()
+    {
+        Expression leftSide = new Expression( "#{" + dataElementA.getUid() + "}", "Left" );
+        Expression rightSide = new Expression( "#{" + dataElementB.getUid() + "}", "Right" );
+
+        ValidationRule rule = createValidationRule( 'A', equal_to, leftSide, rightSide,
+            PeriodType.getPeriodTypeByName( "Monthly" ) );
+
+        idObjectManager.save( rule );
+
+        expressionDependencyService.buildIndex();
+
+        assertEquals( Sets.newHashSet( rule.getUid() ),
+            expressionDependencyService.getDependentUids( dataElementA.getUid(), ValidationRule.class ) );
+
+        leftSide.setExpression( "#{" + dataElementC.getUid() + "}" );
+
+        idObjectManager.update( rule );
+
+        expressionDependencyListener.onPostUpdate( new PostUpdateEvent( leftSide, leftSide.getId(),
+            null, null, null, null, null ) );
+
+        assertTrue( expressionDependencyService.getDependentUids( dataElementA.getUid(), ValidationRule.class )
+            .isEmpty() );
+        assertEquals( Sets.newHashSet( rule.getUid() ),
+            expressionDependencyService.getDependentUids( dataElementB.getUid(), ValidationRule.class ) );
+        assertEquals( Sets.newHashSet( rule.getUid() ),
+            expressionDependencyService.getDependentUids( dataElementC.getUid(), ValidationRule.class ) );
+    }
+
+    @Test
+    public void testUpdateUnownedExpression()
+    {
+        expressionDependencyService.buildIndex();
+
+        Expression expression = new Expression( "#{" + dataElementA.getUid() + "}", "Unowned" );
+        expression.setId( 999999 );
+
+        expressionDependencyListener.onPostUpdate( new PostUpdateEvent( expression, expression.getId(),
+            null, null, null, null, null ) );
+
+        assertTrue( expressionDependencyService.getDependentUids( dataElementA.getUid(), ValidationRule.class )
+            .isEmpty() );
+    }
+}
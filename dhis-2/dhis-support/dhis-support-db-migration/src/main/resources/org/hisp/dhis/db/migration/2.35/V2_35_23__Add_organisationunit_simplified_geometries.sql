@@ -0,0 +1,34 @@
+-- simplified organisation unit geometries for low (zoom 0-5) and medium (zoom 6-8) map resolutions
+alter table organisationunit add column if not exists geometrysimplifiedlow geometry;
+alter table organisationunit add column if not exists geometrysimplifiedmedium geometry;
+
+CREATE OR REPLACE FUNCTION simplifyOrganisationUnitGeometry() RETURNS trigger AS $$
+	BEGIN
+        NEW.geometrysimplifiedlow := ST_SimplifyPreserveTopology(NEW.geometry, 0.01);
+        NEW.geometrysimplifiedmedium := ST_SimplifyPreserveTopology(NEW.geometry, 0.001);
+
+        RETURN NEW;
+	END;
+$$ LANGUAGE plpgsql;
+
+drop trigger if exists organisationunit_simplify_geometry on organisationunit;
+drop trigger if exists organisationunit_simplify_geometry_insert on organisationunit;
+drop trigger if exists organisationunit_simplify_geometry_update on organisationunit;
+
+create trigger organisationunit_simplify_geometry_insert
+before insert on organisationunit
+for each row execute procedure simplifyOrganisationUnitGeometry();
+
+-- only simplify again when the geometry actually changed, as updates of other columns also write the geometry column
+create trigger organisationunit_simplify_geometry_update
+before update of geometry on organisationunit
+for each row when (OLD.geometry IS DISTINCT FROM NEW.geometry)
+execute procedure simplifyOrganisationUnitGeometry();
+
+-- spatial index for the bounding box filter of vector tile queries
+create index if not exists in_organisationunit_geometry on organisationunit using gist (geometry);
+
+update organisationunit set
+    geometrysimplifiedlow = ST_SimplifyPreserveTopology(geometry, 0.01),
+    geometrysimplifiedmedium = ST_SimplifyPreserveTopology(geometry, 0.001)
+where geometry is not null;
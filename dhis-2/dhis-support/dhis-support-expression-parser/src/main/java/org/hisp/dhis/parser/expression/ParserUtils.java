@@ -32,9 +32,18 @@ import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.*;
 
 import java.util.List;
 
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.hisp.dhis.antlr.ParserException;
 import org.hisp.dhis.antlr.ParserExceptionWithoutContext;
 import org.hisp.dhis.parser.expression.dataitem.ItemConstant;
 import org.hisp.dhis.parser.expression.function.*;
+import org.hisp.dhis.parser.expression.antlr.ExpressionLexer;
+import org.hisp.dhis.parser.expression.antlr.ExpressionParser;
 import org.hisp.dhis.parser.expression.operator.*;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
@@ -116,6 +125,41 @@ public class ParserUtils
     public final static List<Period> DEFAULT_SAMPLE_PERIODS = ImmutableList.of(
         PeriodType.getPeriodFromIsoString( "20010101" ) );
 
+    /**
+     * Throws a parser exception on any lexer or parser syntax error.
+     */
+    private final static BaseErrorListener ERROR_LISTENER = new BaseErrorListener()
+    {
+        @Override
+        public void syntaxError( Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+            int charPositionInLine, String msg, RecognitionException e )
+        {
+            throw new ParserException( msg + " at character " + charPositionInLine );
+        }
+    };
+
+    /**
+     * Parses an expression into a parse tree. The parse tree is not modified
+     * when visited, so it can be kept and visited any number of times, also
+     * from concurrent threads.
+     *
+     * @param expression the expression to parse.
+     * @return the parse tree.
+     * @throws ParserException if the expression has a syntax error.
+     */
+    public static ParseTree parse( String expression )
+    {
+        ExpressionLexer lexer = new ExpressionLexer( CharStreams.fromString( expression ) );
+        lexer.removeErrorListeners();
+        lexer.addErrorListener( ERROR_LISTENER );
+
+        ExpressionParser parser = new ExpressionParser( new CommonTokenStream( lexer ) );
+        parser.removeErrorListeners();
+        parser.addErrorListener( ERROR_LISTENER );
+
+        return parser.expression();
+    }
+
     /**
      * Assume that an item of the form #{...} has a syntax that could be used in a
      * program indicator expression for #{programStageUid.dataElementUid}
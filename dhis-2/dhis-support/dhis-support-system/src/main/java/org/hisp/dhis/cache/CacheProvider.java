@@ -28,7 +28,9 @@ package org.hisp.dhis.cache;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Provides cache builder to build instances.
@@ -56,4 +58,21 @@ public interface CacheProvider
      *          {@link ExtendedCacheBuilder}.
      */
     <K,V> ExtendedCacheBuilder<Map<K,V>> newCacheBuilder( Class<K> keyType, Class<V> valueType );
+
+    /**
+     * Returns the statistics of every cache instance built through this
+     * provider, sorted by cache region.
+     *
+     * @return a list of {@link CacheStatistics}.
+     */
+    List<CacheStatistics> getStatistics();
+
+    /**
+     * Registers a listener which is notified about every cache instance built
+     * through this provider. The listener is immediately notified about the
+     * cache instances which were built before the registration.
+     *
+     * @param listener the listener to register.
+     */
+    void addCacheListener( Consumer<Cache<?>> listener );
 }
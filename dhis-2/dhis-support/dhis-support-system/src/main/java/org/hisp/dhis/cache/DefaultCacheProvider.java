@@ -30,9 +30,18 @@ package org.hisp.dhis.cache;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 
+import static java.util.Comparator.comparing;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Provides cache builder to build instances.
@@ -47,16 +56,60 @@ public class DefaultCacheProvider implements CacheProvider
 
     private RedisTemplate<String, ?> redisTemplate;
 
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /**
+     * Caches are often built for the lifetime of a single request or job,
+     * hence they are weakly referenced so that they can be garbage collected
+     * once no longer in use.
+     */
+    private final List<WeakReference<Cache<?>>> caches = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<Cache<?>>> cacheListeners = new CopyOnWriteArrayList<>();
+
     @Override
     public <V> ExtendedCacheBuilder<V> newCacheBuilder( Class<V> valueType )
     {
-        return new ExtendedCacheBuilder<V>( redisTemplate, configurationProvider );
+        return new ExtendedCacheBuilder<V>( redisTemplate, redisMessageListenerContainer, configurationProvider,
+            this::register );
     }
 
     @Override
     public  <K,V> ExtendedCacheBuilder<Map<K,V>> newCacheBuilder( Class<K> keyType, Class<V> valueType )
     {
-        return new ExtendedCacheBuilder<Map<K,V>>( redisTemplate, configurationProvider );
+        return new ExtendedCacheBuilder<Map<K,V>>( redisTemplate, redisMessageListenerContainer, configurationProvider,
+            this::register );
+    }
+
+    @Override
+    public List<CacheStatistics> getStatistics()
+    {
+        return getCaches().stream()
+            .map( Cache::getStatistics )
+            .sorted( comparing( CacheStatistics::getRegion ) )
+            .collect( Collectors.toList() );
+    }
+
+    @Override
+    public synchronized void addCacheListener( Consumer<Cache<?>> listener )
+    {
+        getCaches().forEach( listener );
+        cacheListeners.add( listener );
+    }
+
+    private synchronized void register( Cache<?> cache )
+    {
+        caches.removeIf( reference -> reference.get() == null );
+        caches.add( new WeakReference<>( cache ) );
+        cacheListeners.forEach( listener -> listener.accept( cache ) );
+    }
+
+    private List<Cache<?>> getCaches()
+    {
+        return caches.stream()
+            .map( WeakReference::get )
+            .filter( Objects::nonNull )
+            .collect( Collectors.toList() );
     }
 
     @Autowired
@@ -71,4 +124,10 @@ public class DefaultCacheProvider implements CacheProvider
         this.redisTemplate = redisTemplate;
     }
 
+    @Autowired( required = false )
+    public void setRedisMessageListenerContainer( RedisMessageListenerContainer redisMessageListenerContainer )
+    {
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+    }
+
 }
\ No newline at end of file
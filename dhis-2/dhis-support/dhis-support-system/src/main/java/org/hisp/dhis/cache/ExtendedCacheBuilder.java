@@ -28,10 +28,13 @@ package org.hisp.dhis.cache;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.function.Consumer;
+
 import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 /**
  * A Builder class that helps in building Cache instances. Sensible defaults are
@@ -48,14 +51,35 @@ public class ExtendedCacheBuilder<V> extends SimpleCacheBuilder<V>
 
     private RedisTemplate<String, ?> redisTemplate;
 
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
     private boolean forceInMemory;
+
+    private Consumer<Cache<?>> cacheListener;
     
     public ExtendedCacheBuilder( RedisTemplate<String, ?> redisTemplate, DhisConfigurationProvider configurationProvider )
+    {
+        this( redisTemplate, null, configurationProvider, cache -> {} );
+    }
+
+    /**
+     * @param redisTemplate the redis template, null if redis is not enabled.
+     * @param redisMessageListenerContainer the redis listener container used
+     *        by hybrid caches, null if redis is not enabled.
+     * @param configurationProvider the configuration provider.
+     * @param cacheListener the listener to notify about every cache instance
+     *        built with this builder.
+     */
+    public ExtendedCacheBuilder( RedisTemplate<String, ?> redisTemplate,
+        RedisMessageListenerContainer redisMessageListenerContainer, DhisConfigurationProvider configurationProvider,
+        Consumer<Cache<?>> cacheListener )
     {
         super();
         this.configurationProvider = configurationProvider;
         this.redisTemplate = redisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
         this.forceInMemory = false;
+        this.cacheListener = cacheListener;
     }
 
 
@@ -80,33 +104,66 @@ public class ExtendedCacheBuilder<V> extends SimpleCacheBuilder<V>
      * {@code maximumSize} is greater than 0 than based on {@code redis.enabled}
      * property in dhis.conf, either Redis backed implementation
      * {@link RedisCache} will be returned or a Local Caffeine backed cache
-     * implementation {@link LocalCache} will be returned. For Local cache,
+     * implementation {@link LocalCache} will be returned. If
+     * {@code redis.cache.hybrid} is enabled in addition, a {@link HybridCache}
+     * with a local tier in front of redis will be returned. If redis is not
+     * enabled and {@code maximumMemorySize} is greater than 0, an
+     * {@link OffHeapCache} will be returned instead of a {@link LocalCache}.
+     * For Local cache,
      * every instance created using this method will be logically separate and
      * will not share any state. However, when using Redis Cache, every instance
      * created using this method will use the same redis store.
      * 
      * @return A cache instance based on the system configuration and input
-     *         parameters. Returns one of {@link RedisCache}, {@link LocalCache}
-     *         or {@link NoOpCache}
+     *         parameters. Returns one of {@link RedisCache}, {@link HybridCache},
+     *         {@link LocalCache}, {@link OffHeapCache} or {@link NoOpCache}
      */
     @Override
     public Cache<V> build()
+    {
+        Cache<V> cache = buildCache();
+
+        cacheListener.accept( cache );
+
+        return cache;
+    }
+
+    private Cache<V> buildCache()
     {
         if ( getMaximumSize() == 0 || isDisabled() )
         {
             log.info( String.format( "NoOp Cache instance created for region:'%s'", getRegion() ) );
             return new NoOpCache<V>( this );
         }
+        else if ( forceInMemory && getMaximumMemorySize() > 0 )
+        {
+            log.info( String.format( "Off-heap Local Cache (forced) instance created for region:'%s'", getRegion() ) );
+            return new OffHeapCache<V>( this );
+        }
         else if ( forceInMemory )
         {
             log.info( String.format( "Local Cache (forced) instance created for region:'%s'", getRegion() ) );
             return new LocalCache<V>( this );
         }
+        else if ( configurationProvider.getProperty( ConfigurationKey.REDIS_ENABLED ).equalsIgnoreCase( "true" )
+            && configurationProvider.getProperty( ConfigurationKey.REDIS_CACHE_HYBRID ).equalsIgnoreCase( "true" )
+            && redisMessageListenerContainer != null )
+        {
+            warnIfMaximumMemorySizeIgnored();
+            log.info( String.format( "Hybrid Cache instance created for region:'%s'", getRegion() ) );
+            return new HybridCache<V>( this, redisMessageListenerContainer );
+        }
         else if ( configurationProvider.getProperty( ConfigurationKey.REDIS_ENABLED ).equalsIgnoreCase( "true" ) )
         {
+            warnIfMaximumMemorySizeIgnored();
             log.info( String.format( "Redis Cache instance created for region:'%s'", getRegion() ) );
             return new RedisCache<V>( this );
         }
+        else if ( getMaximumMemorySize() > 0 )
+        {
+            log.info( String.format( "Off-heap Local Cache instance created for region:'%s'", getRegion() ) );
+            return new OffHeapCache<V>( this );
+        }
         else
         {
             log.info( String.format( "Local Cache instance created for region:'%s'", getRegion() ) );
@@ -118,4 +175,16 @@ public class ExtendedCacheBuilder<V> extends SimpleCacheBuilder<V>
     {
         return redisTemplate;
     }
+
+    /**
+     * Off-heap storage only applies to local caches, so a maximum memory size
+     * is not applied when values are stored in redis.
+     */
+    private void warnIfMaximumMemorySizeIgnored()
+    {
+        if ( getMaximumMemorySize() > 0 )
+        {
+            log.warn( String.format( "Maximum memory size is ignored as redis is enabled for region:'%s'", getRegion() ) );
+        }
+    }
 }
@@ -0,0 +1,316 @@
+package org.hisp.dhis.cache;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * A two tier implementation of {@link Cache}. Values are kept in a bounded
+ * local {@link LocalCache} tier in front of the shared {@link RedisCache}
+ * tier, so that repeated lookups of hot keys do not require a round trip to
+ * the redis server.
+ *
+ * Writes and invalidations go to both tiers and are published on a redis
+ * channel per cache region, upon which all other instances discard the
+ * affected entries from their local tier. Values read from redis are only
+ * stored in the local tier if no write or invalidation happened in the
+ * meantime.
+ * Invalidation messages are not delivered while an instance is disconnected
+ * from redis, in which case local entries can be stale until they expire.
+ */
+@Slf4j
+public class HybridCache<V> extends RedisCache<V>
+{
+    private static final String CHANNEL_PREFIX = "dhis2:cacheinvalidation:";
+
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
+    private static final char SEPARATOR = ':';
+
+    private final LocalCache<V> nearCache;
+
+    private final RedisTemplate<String, ?> redisTemplate;
+
+    private final String channel;
+
+    private final V defaultValue;
+
+    private final long expiryInSeconds;
+
+    /**
+     * Incremented for every write and invalidation of the local tier, used to
+     * detect writes and invalidations racing with a read from redis.
+     */
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * Makes checking the invalidation count and storing a value read from
+     * redis atomic. Stores hold the read lock, while writes and invalidations
+     * hold the write lock when incrementing the invalidation count.
+     */
+    private final ReadWriteLock nearLock = new ReentrantReadWriteLock();
+
+    private final LongAdder nearHitCount = new LongAdder();
+
+    /**
+     * Constructor for instantiating HybridCache.
+     *
+     * @param cacheBuilder The cache builder instance
+     * @param listenerContainer The container to subscribe to invalidations
+     */
+    public HybridCache( ExtendedCacheBuilder<V> cacheBuilder, RedisMessageListenerContainer listenerContainer )
+    {
+        super( cacheBuilder );
+        this.nearCache = new LocalCache<>( cacheBuilder );
+        this.redisTemplate = cacheBuilder.getRedisTemplate();
+        this.channel = CHANNEL_PREFIX.concat( cacheBuilder.getRegion() );
+        this.defaultValue = cacheBuilder.getDefaultValue();
+        this.expiryInSeconds = cacheBuilder.isExpiryEnabled() ? cacheBuilder.getExpiryInSeconds() : 0;
+
+        listenerContainer.addMessageListener( this::onInvalidation, new ChannelTopic( channel ) );
+    }
+
+    @Override
+    public Optional<V> getIfPresent( String key )
+    {
+        return Optional.ofNullable( getNearOrRemote( key ) );
+    }
+
+    @Override
+    public Optional<V> get( String key )
+    {
+        return Optional.ofNullable( Optional.ofNullable( getNearOrRemote( key ) ).orElse( defaultValue ) );
+    }
+
+    @Override
+    protected V getOrLoad( String key, Function<String, V> mappingFunction, long ttlInSeconds )
+    {
+        Optional<V> nearValue = nearCache.getIfPresent( key );
+
+        if ( nearValue.isPresent() )
+        {
+            nearHitCount.increment();
+            return nearValue.get();
+        }
+
+        long invalidations = invalidationCount.get();
+
+        V value = super.getOrLoad( key, mappingFunction, ttlInSeconds );
+
+        putNear( key, value, ttlInSeconds, invalidations );
+
+        return value;
+    }
+
+    @Override
+    public void put( String key, V value )
+    {
+        super.put( key, value );
+        updateNear( () -> nearCache.put( key, value ) );
+        publish( key );
+    }
+
+    @Override
+    public void put( String key, V value, long ttlInSeconds )
+    {
+        super.put( key, value, ttlInSeconds );
+        updateNear( () -> storeNear( key, value, ttlInSeconds ) );
+        publish( key );
+    }
+
+    @Override
+    public void invalidate( String key )
+    {
+        super.invalidate( key );
+        updateNear( () -> nearCache.invalidate( key ) );
+        publish( key );
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        super.invalidateAll();
+        updateNear( nearCache::invalidateAll );
+        publish( null );
+    }
+
+    /**
+     * Returns the statistics of this cache instance, where hits in the local
+     * tier are counted as hits. The size is the number of keys in redis.
+     */
+    @Override
+    public CacheStatistics getStatistics()
+    {
+        CacheStatistics statistics = super.getStatistics();
+
+        return statistics.toBuilder()
+            .cacheType( getCacheType() )
+            .hitCount( statistics.getHitCount() + nearHitCount.sum() )
+            .build();
+    }
+
+    @Override
+    public CacheType getCacheType()
+    {
+        return CacheType.HYBRID;
+    }
+
+    private V getNearOrRemote( String key )
+    {
+        Optional<V> nearValue = nearCache.getIfPresent( key );
+
+        if ( nearValue.isPresent() )
+        {
+            nearHitCount.increment();
+            return nearValue.get();
+        }
+
+        long invalidations = invalidationCount.get();
+
+        V value = super.getIfPresent( key ).orElse( null );
+
+        putNear( key, value, expiryInSeconds, invalidations );
+
+        return value;
+    }
+
+    /**
+     * Stores a value read from redis in the local tier, unless the local tier
+     * was written or invalidated since the given invalidation count was
+     * obtained.
+     */
+    private void putNear( String key, V value, long ttlInSeconds, long invalidations )
+    {
+        if ( value == null )
+        {
+            return;
+        }
+
+        Lock lock = nearLock.readLock();
+        lock.lock();
+
+        try
+        {
+            if ( invalidations == invalidationCount.get() )
+            {
+                storeNear( key, value, ttlInSeconds );
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes or invalidates the local tier, incrementing the invalidation
+     * count so that concurrent reads from redis do not store stale values.
+     */
+    private void updateNear( Runnable update )
+    {
+        Lock lock = nearLock.writeLock();
+        lock.lock();
+
+        try
+        {
+            invalidationCount.incrementAndGet();
+            update.run();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void storeNear( String key, V value, long ttlInSeconds )
+    {
+        if ( ttlInSeconds > 0 )
+        {
+            nearCache.put( key, value, ttlInSeconds );
+        }
+        else
+        {
+            nearCache.put( key, value );
+        }
+    }
+
+    /**
+     * Publishes an invalidation of the given key, or of all keys if the key is
+     * null, to the other instances. The message is the node identifier,
+     * followed by the separator and the key in case of a single key.
+     */
+    private void publish( String key )
+    {
+        String message = key == null ? NODE_ID : NODE_ID + SEPARATOR + key;
+
+        redisTemplate.execute( (RedisCallback<Long>) connection -> connection.publish( channel.getBytes( UTF_8 ),
+            message.getBytes( UTF_8 ) ) );
+    }
+
+    private void onInvalidation( Message message, byte[] pattern )
+    {
+        String body = new String( message.getBody(), UTF_8 );
+
+        if ( body.startsWith( NODE_ID ) )
+        {
+            return;
+        }
+
+        int separator = body.indexOf( SEPARATOR );
+
+        if ( separator < 0 )
+        {
+            log.debug( String.format( "Invalidating local tier for channel:'%s'", channel ) );
+            updateNear( nearCache::invalidateAll );
+        }
+        else
+        {
+            String key = body.substring( separator + 1 );
+            updateNear( () -> nearCache.invalidate( key ) );
+        }
+    }
+}
@@ -28,24 +28,53 @@ package org.hisp.dhis.cache;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.springframework.util.Assert.hasText;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.function.Function;
 
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
 
 /**
  * A redis backed implementation of {@link Cache}. This implementation uses a
  * shared redis cache server for any number of instances.
  *
+ * Loading of absent values is coalesced per key within each instance. When
+ * the distributed load lock is enabled, loading is additionally coordinated
+ * across instances through a lock key in redis, so that only one instance
+ * evaluates the mapping function while the others poll for the shared value.
+ *
  * @author Ameen Mohamed
  */
+@Slf4j
 public class RedisCache<V> implements Cache<V>
 {
+    private static final String LOAD_LOCK_PREFIX = "dhis2:cacheload:";
+
+    private static final long LOAD_LOCK_TIMEOUT_SECONDS = 120;
+
+    private static final long LOAD_LOCK_POLL_MILLIS = 50;
+
+    private static final long SCAN_BATCH_SIZE = 1000;
+
+    private static final String UNLOCK_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] "
+        + "then return redis.call('del', KEYS[1]) else return 0 end";
+
     private RedisTemplate<String, V> redisTemplate;
 
     private boolean refreshExpriryOnAccess;
@@ -58,13 +87,34 @@ public class RedisCache<V> implements Cache<V>
 
     private boolean expiryEnabled;
 
+    private boolean distributedLoadLock;
+
+    private final long loadLockTimeoutMillis;
+
+    private final SingleFlightLoader<V> loader = new SingleFlightLoader<>();
+
+    private final CacheStatisticsCounter statistics = new CacheStatisticsCounter();
+
     /**
      * Constructor for instantiating RedisCache.
      *
      * @param cacheBuilder The cache builder instance
      */
-    @SuppressWarnings( "unchecked" )
     public RedisCache( ExtendedCacheBuilder<V> cacheBuilder )
+    {
+        this( cacheBuilder, SECONDS.toMillis( LOAD_LOCK_TIMEOUT_SECONDS ) );
+    }
+
+    /**
+     * Constructor for instantiating RedisCache with the given timeout of the
+     * distributed load lock.
+     *
+     * @param cacheBuilder The cache builder instance
+     * @param loadLockTimeoutMillis The timeout of the distributed load lock in
+     *        milliseconds
+     */
+    @SuppressWarnings( "unchecked" )
+    RedisCache( ExtendedCacheBuilder<V> cacheBuilder, long loadLockTimeoutMillis )
     {
         this.redisTemplate = (RedisTemplate<String, V>) cacheBuilder.getRedisTemplate();
         this.refreshExpriryOnAccess = cacheBuilder.isRefreshExpiryOnAccess();
@@ -72,6 +122,8 @@ public class RedisCache<V> implements Cache<V>
         this.cacheRegion = cacheBuilder.getRegion();
         this.defaultValue = cacheBuilder.getDefaultValue();
         this.expiryEnabled = cacheBuilder.isExpiryEnabled();
+        this.distributedLoadLock = cacheBuilder.isDistributedLoadLock();
+        this.loadLockTimeoutMillis = loadLockTimeoutMillis;
     }
 
     @Override
@@ -82,7 +134,7 @@ public class RedisCache<V> implements Cache<V>
         {
             redisTemplate.expire( redisKey, expiryInSeconds, SECONDS );
         }
-        return Optional.ofNullable( redisTemplate.boundValueOps( redisKey ).get() );
+        return Optional.ofNullable( statistics.recordLookup( redisTemplate.boundValueOps( redisKey ).get() ) );
     }
 
     @Override
@@ -93,11 +145,37 @@ public class RedisCache<V> implements Cache<V>
         {
             redisTemplate.expire( redisKey, expiryInSeconds, SECONDS );
         }
-        return Optional.ofNullable( Optional.ofNullable( redisTemplate.boundValueOps( redisKey ).get() ).orElse( defaultValue ) );
+        V value = statistics.recordLookup( redisTemplate.boundValueOps( redisKey ).get() );
+        return Optional.ofNullable( Optional.ofNullable( value ).orElse( defaultValue ) );
     }
 
     @Override
     public Optional<V> get( String key, Function<String, V> mappingFunction )
+    {
+        return get( key, mappingFunction, expiryEnabled ? expiryInSeconds : 0 );
+    }
+
+    @Override
+    public Optional<V> get( String key, Function<String, V> mappingFunction, long ttlInSeconds )
+    {
+        V value = getOrLoad( key, mappingFunction, ttlInSeconds );
+
+        return Optional.ofNullable( Optional.ofNullable( value ).orElse( defaultValue ) );
+    }
+
+    /**
+     * Returns the value associated with the {@code key}, obtaining and storing
+     * it from the {@code mappingFunction} if absent. Does not fall back to the
+     * default value.
+     *
+     * @param key the key for retrieving the value
+     * @param mappingFunction the function to compute a value.
+     * @param ttlInSeconds the time to live for a computed value, in seconds, or
+     *        0 to store it without expiry
+     * @return the existing or computed value, or null if the computed value is
+     *         null
+     */
+    protected V getOrLoad( String key, Function<String, V> mappingFunction, long ttlInSeconds )
     {
         if ( null == mappingFunction )
         {
@@ -111,17 +189,83 @@ public class RedisCache<V> implements Cache<V>
             redisTemplate.expire( redisKey, expiryInSeconds, SECONDS );
         }
 
+        V value = statistics.recordLookup( redisTemplate.boundValueOps( redisKey ).get() );
+
+        if ( null == value )
+        {
+            value = loader.load( key, k -> distributedLoadLock
+                ? loadWithLock( k, redisKey, mappingFunction, ttlInSeconds )
+                : load( k, redisKey, mappingFunction, ttlInSeconds ) );
+        }
+
+        return value;
+    }
+
+    /**
+     * Loads the value while holding the distributed load lock of the given
+     * key. Instances failing to obtain the lock poll for the value stored by
+     * the lock holder. If the value does not appear before the lock times out,
+     * the value is loaded without the lock.
+     */
+    private V loadWithLock( String key, String redisKey, Function<String, V> mappingFunction, long ttlInSeconds )
+    {
+        final String lockKey = LOAD_LOCK_PREFIX.concat( redisKey );
+        final String token = UUID.randomUUID().toString();
+        final long deadline = currentTimeMillis() + loadLockTimeoutMillis;
+
+        while ( currentTimeMillis() < deadline )
+        {
+            if ( tryLock( lockKey, token ) )
+            {
+                try
+                {
+                    return load( key, redisKey, mappingFunction, ttlInSeconds );
+                }
+                finally
+                {
+                    unlock( lockKey, token );
+                }
+            }
+
+            try
+            {
+                Thread.sleep( LOAD_LOCK_POLL_MILLIS );
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            V value = redisTemplate.boundValueOps( redisKey ).get();
+
+            if ( null != value )
+            {
+                return value;
+            }
+        }
+
+        log.warn( String.format( "Loading value without distributed lock for key:'%s'", redisKey ) );
+
+        return load( key, redisKey, mappingFunction, ttlInSeconds );
+    }
+
+    private V load( String key, String redisKey, Function<String, V> mappingFunction, long ttlInSeconds )
+    {
+        // Re-check as a concurrent load might just have completed
         V value = redisTemplate.boundValueOps( redisKey ).get();
 
         if ( null == value )
         {
-            value = mappingFunction.apply( key );
+            value = statistics.recordLoad( key, mappingFunction );
 
             if ( null != value )
             {
-                if ( expiryEnabled )
+                statistics.recordPut();
+
+                if ( ttlInSeconds > 0 )
                 {
-                    redisTemplate.boundValueOps( redisKey ).set( value, expiryInSeconds, SECONDS );
+                    redisTemplate.boundValueOps( redisKey ).set( value, ttlInSeconds, SECONDS );
                 }
                 else
                 {
@@ -130,7 +274,22 @@ public class RedisCache<V> implements Cache<V>
             }
         }
 
-        return Optional.ofNullable( Optional.ofNullable( value ).orElse( defaultValue ) );
+        return value;
+    }
+
+    private boolean tryLock( String lockKey, String token )
+    {
+        Boolean acquired = redisTemplate.execute( (RedisCallback<Boolean>) connection -> connection.set(
+            lockKey.getBytes( UTF_8 ), token.getBytes( UTF_8 ), Expiration.milliseconds( loadLockTimeoutMillis ),
+            SetOption.SET_IF_ABSENT ) );
+
+        return Boolean.TRUE.equals( acquired );
+    }
+
+    private void unlock( String lockKey, String token )
+    {
+        redisTemplate.execute( (RedisCallback<Long>) connection -> connection.eval( UNLOCK_SCRIPT.getBytes( UTF_8 ),
+            ReturnType.INTEGER, 1, lockKey.getBytes( UTF_8 ), token.getBytes( UTF_8 ) ) );
     }
 
     @Override
@@ -150,6 +309,8 @@ public class RedisCache<V> implements Cache<V>
 
         String redisKey = generateKey( key );
 
+        statistics.recordPut();
+
         if ( expiryEnabled )
         {
             redisTemplate.boundValueOps( redisKey ).set( value, expiryInSeconds, SECONDS );
@@ -167,6 +328,8 @@ public class RedisCache<V> implements Cache<V>
 
         final String redisKey = generateKey( key );
 
+        statistics.recordPut();
+
         redisTemplate.boundValueOps( redisKey ).set( value, ttlInSeconds, SECONDS );
     }
 
@@ -188,6 +351,45 @@ public class RedisCache<V> implements Cache<V>
         redisTemplate.delete( keysToDelete );
     }
 
+    /**
+     * Returns the statistics of this cache instance. Counters only reflect
+     * operations of this instance. The size is the number of keys of the cache
+     * region in redis, counted with a non-blocking scan. Evictions are managed
+     * by the redis server and are not reported.
+     */
+    @Override
+    public CacheStatistics getStatistics()
+    {
+        return statistics.snapshot( cacheRegion, getCacheType(), countKeys(), -1 );
+    }
+
+    private long countKeys()
+    {
+        ScanOptions options = ScanOptions.scanOptions().match( cacheRegion.concat( ":*" ) ).count( SCAN_BATCH_SIZE )
+            .build();
+
+        Long count = redisTemplate.execute( (RedisCallback<Long>) connection -> {
+            long keys = 0;
+
+            try ( Cursor<byte[]> cursor = connection.scan( options ) )
+            {
+                while ( cursor.hasNext() )
+                {
+                    cursor.next();
+                    keys++;
+                }
+            }
+            catch ( IOException ex )
+            {
+                log.warn( String.format( "Failed to close key scan for region:'%s'", cacheRegion ), ex );
+            }
+
+            return keys;
+        } );
+
+        return count != null ? count : 0;
+    }
+
     @Override
     public CacheType getCacheType()
     {
@@ -0,0 +1,155 @@
+package org.hisp.dhis.monitoring.metrics;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheStatistics;
+
+import com.google.common.base.Suppliers;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Binds the {@link CacheStatistics} of a {@link Cache} to a
+ * {@link MeterRegistry} using the Micrometer cache metric names, tagged with
+ * the cache region. The statistics are read at most once per second, as
+ * computing the size of a shared cache requires a round trip to the cache
+ * server. The cache is weakly referenced, and the metrics are reported as
+ * NaN once the cache has been garbage collected.
+ */
+public class CacheMetrics
+    implements
+    MeterBinder
+{
+    private final Supplier<CacheStatistics> statistics;
+
+    private final Tags tags;
+
+    public CacheMetrics( Cache<?> cache )
+    {
+        CacheStatistics initial = cache.getStatistics();
+        WeakReference<Cache<?>> reference = new WeakReference<>( cache );
+
+        this.statistics = Suppliers.memoizeWithExpiration( () -> getStatistics( reference ), 1, SECONDS );
+        this.tags = Tags.of( "cache", initial.getRegion(), "cacheType", String.valueOf( initial.getCacheType() ) );
+    }
+
+    @Override
+    public void bindTo( MeterRegistry registry )
+    {
+        Gauge.builder( "cache.size", this, value( CacheStatistics::getSize ) )
+            .tags( tags )
+            .description( "The number of entries in this cache" )
+            .register( registry );
+
+        Gauge.builder( "cache.capacity", this, value( CacheStatistics::getMaximumSize ) )
+            .tags( tags )
+            .description( "The maximum number of entries in this cache, -1 if unbounded" )
+            .register( registry );
+
+        Gauge.builder( "cache.memory.size", this, value( CacheStatistics::getMemorySize ) )
+            .tags( tags )
+            .baseUnit( "bytes" )
+            .description( "The size of the values stored in this cache, 0 if not tracked" )
+            .register( registry );
+
+        FunctionCounter.builder( "cache.gets", this, value( CacheStatistics::getHitCount ) )
+            .tags( tags ).tag( "result", "hit" )
+            .description( "The number of times cache lookup methods have returned a cached value" )
+            .register( registry );
+
+        FunctionCounter.builder( "cache.gets", this, value( CacheStatistics::getMissCount ) )
+            .tags( tags ).tag( "result", "miss" )
+            .description( "The number of times cache lookup methods have not returned a cached value" )
+            .register( registry );
+
+        FunctionCounter.builder( "cache.puts", this, value( CacheStatistics::getPutCount ) )
+            .tags( tags )
+            .description( "The number of entries added to the cache" )
+            .register( registry );
+
+        FunctionCounter.builder( "cache.evictions", this, value( CacheStatistics::getEvictionCount ) )
+            .tags( tags )
+            .description( "The number of entries evicted because the cache reached its capacity" )
+            .register( registry );
+
+        FunctionCounter.builder( "cache.loads", this, value( CacheStatistics::getLoadSuccessCount ) )
+            .tags( tags ).tag( "result", "success" )
+            .description( "The number of values successfully loaded by a mapping function" )
+            .register( registry );
+
+        FunctionCounter.builder( "cache.loads", this, value( CacheStatistics::getLoadFailureCount ) )
+            .tags( tags ).tag( "result", "failure" )
+            .description( "The number of mapping function invocations which failed" )
+            .register( registry );
+
+        FunctionTimer.builder( "cache.load.duration", this,
+            CacheMetrics::getLoadCount,
+            value( CacheStatistics::getTotalLoadTime ), TimeUnit.NANOSECONDS )
+            .tags( tags )
+            .description( "The time spent loading values by mapping functions" )
+            .register( registry );
+    }
+
+    private static ToDoubleFunction<CacheMetrics> value( ToDoubleFunction<CacheStatistics> property )
+    {
+        return metrics -> {
+            CacheStatistics statistics = metrics.statistics.get();
+
+            return statistics != null ? property.applyAsDouble( statistics ) : Double.NaN;
+        };
+    }
+
+    private static long getLoadCount( CacheMetrics metrics )
+    {
+        CacheStatistics statistics = metrics.statistics.get();
+
+        return statistics != null ? statistics.getLoadSuccessCount() + statistics.getLoadFailureCount() : 0;
+    }
+
+    private static CacheStatistics getStatistics( WeakReference<Cache<?>> reference )
+    {
+        Cache<?> cache = reference.get();
+
+        return cache != null ? cache.getStatistics() : null;
+    }
+}
@@ -0,0 +1,924 @@
+package org.hisp.dhis.system.grid;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.apache.commons.lang3.Validate;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.adapter.JacksonRowDataSerializer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.Iterables;
+
+/**
+ * Grid which stores values column by column. Double, integer and long values
+ * are kept in primitive arrays, and strings are kept as codes into a string
+ * dictionary shared by all columns of the grid, so that repeated values such
+ * as dimension item identifiers are stored once. Columns holding other types
+ * of values, or a mix of types, fall back to object arrays.
+ * <p>
+ * The grid is interchangeable with {@link ListGrid}. Rows returned by
+ * {@link #getRow(int)} and {@link #getRows()} are views backed by the columns.
+ * Setting a value in a row writes through to the grid, while adding or
+ * removing values in a row is not supported.
+ */
+public class ColumnarGrid
+    extends AbstractGrid
+{
+    /**
+     * The columns of the grid, each holding one value per row.
+     */
+    private List<Column> columns;
+
+    /**
+     * Dictionary of string values shared by the string columns.
+     */
+    private StringDictionary dictionary;
+
+    /**
+     * The number of rows in the grid.
+     */
+    private int height = 0;
+
+    /**
+     * Indicating the current column in the current row for writing data.
+     */
+    private int currentColumnWriteIndex = 0;
+
+    /**
+     * Default constructor.
+     */
+    public ColumnarGrid()
+    {
+        this( new HashMap<>(), new HashMap<>() );
+    }
+
+    /**
+     * @param metaData meta data.
+     * @param internalMetaData internal meta data.
+     */
+    public ColumnarGrid( Map<String, Object> metaData, Map<String, Object> internalMetaData )
+    {
+        super( metaData, internalMetaData );
+        this.columns = new ArrayList<>();
+        this.dictionary = new StringDictionary();
+    }
+
+    /**
+     * Creates a columnar copy of the given grid, including title, headers,
+     * meta data and rows.
+     *
+     * @param grid the grid to copy.
+     */
+    public ColumnarGrid( Grid grid )
+    {
+        this( grid.getMetaData(), grid.getInternalMetaData() );
+
+        setTitle( grid.getTitle() );
+        setSubtitle( grid.getSubtitle() );
+        setTable( grid.getTable() );
+
+        this.headers.addAll( grid.getHeaders() );
+
+        updateColumnIndexMap();
+
+        addRows( grid );
+    }
+
+    // ---------------------------------------------------------------------
+    // Public methods
+    // ---------------------------------------------------------------------
+
+    @Override
+    @JsonProperty
+    public int getHeight()
+    {
+        return height;
+    }
+
+    @Override
+    @JsonProperty
+    public int getWidth()
+    {
+        return height > 0 ? columns.size() : 0;
+    }
+
+    @Override
+    public int getVisibleWidth()
+    {
+        if ( height == 0 || headers.isEmpty() )
+        {
+            return 0;
+        }
+
+        int width = 0;
+
+        for ( int i = 0; i < columns.size(); i++ )
+        {
+            if ( !headers.get( i ).isHidden() )
+            {
+                width++;
+            }
+        }
+
+        return width;
+    }
+
+    @Override
+    public Grid addRow()
+    {
+        for ( Column column : columns )
+        {
+            column.add( null );
+        }
+
+        height++;
+
+        currentColumnWriteIndex = 0;
+
+        return this;
+    }
+
+    @Override
+    public Grid addRows( Grid grid )
+    {
+        for ( List<Object> row : grid.getRows() )
+        {
+            addRow();
+
+            for ( Object value : row )
+            {
+                addValue( value );
+            }
+        }
+
+        return this;
+    }
+
+    @Override
+    public Grid addValue( Object value )
+    {
+        if ( height == 0 )
+        {
+            throw new IllegalStateException( "A row must be added before adding values" );
+        }
+
+        if ( currentColumnWriteIndex == columns.size() )
+        {
+            columns.add( new NullColumn( height ) );
+        }
+
+        setValue( height - 1, currentColumnWriteIndex++, value );
+
+        return this;
+    }
+
+    @Override
+    public List<Object> getRow( int rowIndex )
+    {
+        if ( rowIndex < 0 || rowIndex >= height )
+        {
+            throw new IndexOutOfBoundsException( "Row index out of bounds: " + rowIndex );
+        }
+
+        return new RowView( rowIndex );
+    }
+
+    @Override
+    @JsonProperty
+    @JsonSerialize( using = JacksonRowDataSerializer.class )
+    public List<List<Object>> getRows()
+    {
+        return new RowsView();
+    }
+
+    @Override
+    public List<Object> getColumn( int columnIndex )
+    {
+        List<Object> column = new ArrayList<>( height );
+
+        for ( int rowIndex = 0; rowIndex < height; rowIndex++ )
+        {
+            column.add( columns.get( columnIndex ).get( rowIndex ) );
+        }
+
+        return column;
+    }
+
+    @Override
+    public Object getValue( int rowIndex, int columnIndex )
+    {
+        if ( height <= rowIndex || columns.size() <= columnIndex )
+        {
+            throw new IllegalArgumentException( "Grid does not contain the requested row / column" );
+        }
+
+        return columns.get( columnIndex ).get( rowIndex );
+    }
+
+    @Override
+    public Grid addColumn( List<Object> columnValues )
+    {
+        return addColumn( columns.size(), columnValues );
+    }
+
+    @Override
+    public Grid addColumn( int columnIndex, List<Object> columnValues )
+    {
+        if ( height != columnValues.size() )
+        {
+            throw new IllegalStateException( "Number of column values (" + columnValues.size() + ") is not equal to number of rows (" + height + ")" );
+        }
+
+        if ( height == 0 )
+        {
+            return this;
+        }
+
+        columns.add( columnIndex, new NullColumn( height ) );
+
+        for ( int rowIndex = 0; rowIndex < height; rowIndex++ )
+        {
+            setValue( rowIndex, columnIndex, columnValues.get( rowIndex ) );
+        }
+
+        return this;
+    }
+
+    @Override
+    public Grid addAndPopulateColumnsBefore( int referenceColumnIndex, Map<Object, List<?>> valueMap, int newColumns )
+    {
+        Validate.inclusiveBetween( 0, getWidth() - 1, referenceColumnIndex );
+        Validate.notNull( valueMap );
+
+        Column referenceColumn = columns.get( referenceColumnIndex );
+
+        for ( int i = 0; i < newColumns; i++ )
+        {
+            int index = referenceColumnIndex + i;
+
+            columns.add( index, new NullColumn( height ) );
+
+            for ( int rowIndex = 0; rowIndex < height; rowIndex++ )
+            {
+                List<?> list = valueMap.get( referenceColumn.get( rowIndex ) );
+
+                setValue( rowIndex, index, list == null ? null : Iterables.get( list, i, null ) );
+            }
+        }
+
+        return this;
+    }
+
+    @Override
+    public boolean columnIsEmpty( int columnIndex )
+    {
+        Column column = columns.get( columnIndex );
+
+        for ( int rowIndex = 0; rowIndex < height; rowIndex++ )
+        {
+            if ( column.get( rowIndex ) != null )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public Grid removeColumn( int columnIndex )
+    {
+        if ( headers.size() > 0 )
+        {
+            headers.remove( columnIndex );
+        }
+
+        if ( height > 0 )
+        {
+            columns.remove( columnIndex );
+        }
+
+        updateColumnIndexMap();
+
+        return this;
+    }
+
+    @Override
+    public Grid removeCurrentWriteRow()
+    {
+        if ( height > 0 )
+        {
+            int[] rowIndexes = new int[height - 1];
+
+            for ( int i = 0; i < rowIndexes.length; i++ )
+            {
+                rowIndexes[i] = i;
+            }
+
+            selectRows( rowIndexes );
+        }
+
+        return this;
+    }
+
+    @Override
+    public Grid limitGrid( int startPos, int endPos )
+    {
+        if ( startPos < 0 || endPos < startPos || endPos > getHeight() )
+        {
+            throw new IllegalStateException( "Illegal start / end pos: " + startPos + ", " + endPos + ", " + getHeight() );
+        }
+
+        int[] rowIndexes = new int[endPos - startPos];
+
+        for ( int i = 0; i < rowIndexes.length; i++ )
+        {
+            rowIndexes[i] = startPos + i;
+        }
+
+        selectRows( rowIndexes );
+
+        return this;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    @Override
+    protected void sortRows( int columnIndex, int order )
+    {
+        final Column column = columns.get( columnIndex );
+
+        Integer[] sortedIndexes = new Integer[height];
+
+        for ( int i = 0; i < height; i++ )
+        {
+            sortedIndexes[i] = i;
+        }
+
+        Arrays.sort( sortedIndexes, ( i1, i2 ) -> compareValues( column.get( i1 ), column.get( i2 ), order ) );
+
+        selectRows( Arrays.stream( sortedIndexes ).mapToInt( Integer::intValue ).toArray() );
+    }
+
+    /**
+     * Sets the value of the given cell. The column is converted to a column
+     * which can hold the value if required.
+     *
+     * @param rowIndex the row index.
+     * @param columnIndex the column index.
+     * @param value the value.
+     */
+    private void setValue( int rowIndex, int columnIndex, Object value )
+    {
+        Column column = columns.get( columnIndex );
+
+        if ( !column.accepts( value ) )
+        {
+            column = column.convert( value, dictionary );
+
+            columns.set( columnIndex, column );
+        }
+
+        column.set( rowIndex, value );
+    }
+
+    /**
+     * Retains the given rows in the given order, and discards all other rows.
+     *
+     * @param rowIndexes the indexes of the rows to retain.
+     */
+    private void selectRows( int[] rowIndexes )
+    {
+        for ( Column column : columns )
+        {
+            column.select( rowIndexes );
+        }
+
+        height = rowIndexes.length;
+    }
+
+    // -------------------------------------------------------------------------
+    // Row views
+    // -------------------------------------------------------------------------
+
+    /**
+     * Row backed by the columns of the grid.
+     */
+    private class RowView
+        extends AbstractList<Object>
+        implements RandomAccess
+    {
+        private final int rowIndex;
+
+        RowView( int rowIndex )
+        {
+            this.rowIndex = rowIndex;
+        }
+
+        @Override
+        public Object get( int columnIndex )
+        {
+            return columns.get( columnIndex ).get( rowIndex );
+        }
+
+        @Override
+        public Object set( int columnIndex, Object value )
+        {
+            Object previous = get( columnIndex );
+
+            setValue( rowIndex, columnIndex, value );
+
+            return previous;
+        }
+
+        @Override
+        public int size()
+        {
+            return columns.size();
+        }
+    }
+
+    /**
+     * List of rows backed by the columns of the grid.
+     */
+    private class RowsView
+        extends AbstractList<List<Object>>
+        implements RandomAccess
+    {
+        @Override
+        public List<Object> get( int rowIndex )
+        {
+            return getRow( rowIndex );
+        }
+
+        @Override
+        public List<Object> set( int rowIndex, List<Object> row )
+        {
+            List<Object> previous = new ArrayList<>( getRow( rowIndex ) );
+            List<Object> values = new ArrayList<>( row );
+
+            for ( int i = 0; i < values.size(); i++ )
+            {
+                setValue( rowIndex, i, values.get( i ) );
+            }
+
+            return previous;
+        }
+
+        @Override
+        public int size()
+        {
+            return height;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Columns
+    // -------------------------------------------------------------------------
+
+    /**
+     * Dictionary which maps string values to integer codes.
+     */
+    private static class StringDictionary
+        implements Serializable
+    {
+        private final List<String> values = new ArrayList<>();
+
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int getCode( String value )
+        {
+            Integer code = codes.get( value );
+
+            if ( code == null )
+            {
+                code = values.size();
+                values.add( value );
+                codes.put( value, code );
+            }
+
+            return code;
+        }
+
+        String getValue( int code )
+        {
+            return values.get( code );
+        }
+    }
+
+    /**
+     * Column holding one value per row of the grid.
+     */
+    private abstract static class Column
+        implements Serializable
+    {
+        protected int size = 0;
+
+        /**
+         * Returns the value at the given row.
+         */
+        abstract Object get( int rowIndex );
+
+        /**
+         * Indicates whether the column can hold the given value.
+         */
+        abstract boolean accepts( Object value );
+
+        /**
+         * Sets the value at the given row. The value must be accepted by the
+         * column.
+         */
+        abstract void set( int rowIndex, Object value );
+
+        /**
+         * Ensures that the column can hold the given number of rows.
+         */
+        abstract void ensureCapacity( int capacity );
+
+        /**
+         * Retains the given rows in the given order.
+         */
+        abstract void select( int[] rowIndexes );
+
+        /**
+         * Adds a value as a new row. The value must be accepted by the column.
+         */
+        void add( Object value )
+        {
+            ensureCapacity( size + 1 );
+
+            size++;
+
+            set( size - 1, value );
+        }
+
+        /**
+         * Returns a new column which holds the values of this column and
+         * accepts the given value.
+         */
+        Column convert( Object value, StringDictionary dictionary )
+        {
+            Column column = this instanceof NullColumn ?
+                newColumn( value, size, dictionary ) : new ObjectColumn( size );
+
+            for ( int i = 0; i < size; i++ )
+            {
+                column.add( get( i ) );
+            }
+
+            return column;
+        }
+
+        /**
+         * Returns the new capacity for an array which must hold at least
+         * the given number of elements.
+         */
+        static int newCapacity( int length, int capacity )
+        {
+            return Math.max( capacity, Math.max( 16, length + ( length >> 1 ) ) );
+        }
+
+        private static Column newColumn( Object value, int capacity, StringDictionary dictionary )
+        {
+            if ( value instanceof Double )
+            {
+                return new DoubleColumn( capacity );
+            }
+            else if ( value instanceof Integer || value instanceof Long )
+            {
+                return new LongColumn( capacity, value instanceof Integer );
+            }
+            else if ( value instanceof String )
+            {
+                return new StringColumn( capacity, dictionary );
+            }
+
+            return new ObjectColumn( capacity );
+        }
+    }
+
+    /**
+     * Column which holds null values only.
+     */
+    private static class NullColumn
+        extends Column
+    {
+        NullColumn( int size )
+        {
+            this.size = size;
+        }
+
+        @Override
+        Object get( int rowIndex )
+        {
+            return null;
+        }
+
+        @Override
+        boolean accepts( Object value )
+        {
+            return value == null;
+        }
+
+        @Override
+        void set( int rowIndex, Object value )
+        {
+        }
+
+        @Override
+        void ensureCapacity( int capacity )
+        {
+        }
+
+        @Override
+        void select( int[] rowIndexes )
+        {
+            size = rowIndexes.length;
+        }
+    }
+
+    /**
+     * Column which holds double values in a primitive array.
+     */
+    private static class DoubleColumn
+        extends Column
+    {
+        private double[] values;
+
+        private BitSet nulls = new BitSet();
+
+        DoubleColumn( int capacity )
+        {
+            this.values = new double[capacity];
+        }
+
+        @Override
+        Object get( int rowIndex )
+        {
+            return nulls.get( rowIndex ) ? null : values[rowIndex];
+        }
+
+        @Override
+        boolean accepts( Object value )
+        {
+            return value == null || value instanceof Double;
+        }
+
+        @Override
+        void set( int rowIndex, Object value )
+        {
+            nulls.set( rowIndex, value == null );
+            values[rowIndex] = value != null ? (Double) value : 0d;
+        }
+
+        @Override
+        void ensureCapacity( int capacity )
+        {
+            if ( capacity > values.length )
+            {
+                values = Arrays.copyOf( values, newCapacity( values.length, capacity ) );
+            }
+        }
+
+        @Override
+        void select( int[] rowIndexes )
+        {
+            double[] selected = new double[rowIndexes.length];
+            BitSet selectedNulls = new BitSet();
+
+            for ( int i = 0; i < rowIndexes.length; i++ )
+            {
+                selected[i] = values[rowIndexes[i]];
+                selectedNulls.set( i, nulls.get( rowIndexes[i] ) );
+            }
+
+            values = selected;
+            nulls = selectedNulls;
+            size = rowIndexes.length;
+        }
+    }
+
+    /**
+     * Column which holds either integer or long values in a primitive array.
+     */
+    private static class LongColumn
+        extends Column
+    {
+        private final boolean integerValues;
+
+        private long[] values;
+
+        private BitSet nulls = new BitSet();
+
+        LongColumn( int capacity, boolean integerValues )
+        {
+            this.values = new long[capacity];
+            this.integerValues = integerValues;
+        }
+
+        @Override
+        Object get( int rowIndex )
+        {
+            if ( nulls.get( rowIndex ) )
+            {
+                return null;
+            }
+
+            return integerValues ? (Object) (int) values[rowIndex] : (Object) values[rowIndex];
+        }
+
+        @Override
+        boolean accepts( Object value )
+        {
+            return value == null || ( integerValues ? value instanceof Integer : value instanceof Long );
+        }
+
+        @Override
+        void set( int rowIndex, Object value )
+        {
+            nulls.set( rowIndex, value == null );
+            values[rowIndex] = value != null ? ( (Number) value ).longValue() : 0L;
+        }
+
+        @Override
+        void ensureCapacity( int capacity )
+        {
+            if ( capacity > values.length )
+            {
+                values = Arrays.copyOf( values, newCapacity( values.length, capacity ) );
+            }
+        }
+
+        @Override
+        void select( int[] rowIndexes )
+        {
+            long[] selected = new long[rowIndexes.length];
+            BitSet selectedNulls = new BitSet();
+
+            for ( int i = 0; i < rowIndexes.length; i++ )
+            {
+                selected[i] = values[rowIndexes[i]];
+                selectedNulls.set( i, nulls.get( rowIndexes[i] ) );
+            }
+
+            values = selected;
+            nulls = selectedNulls;
+            size = rowIndexes.length;
+        }
+    }
+
+    /**
+     * Column which holds strings as codes into the string dictionary of the
+     * grid. Null values are represented by a negative code.
+     */
+    private static class StringColumn
+        extends Column
+    {
+        private final StringDictionary dictionary;
+
+        private int[] codes;
+
+        StringColumn( int capacity, StringDictionary dictionary )
+        {
+            this.codes = new int[capacity];
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        Object get( int rowIndex )
+        {
+            int code = codes[rowIndex];
+
+            return code < 0 ? null : dictionary.getValue( code );
+        }
+
+        @Override
+        boolean accepts( Object value )
+        {
+            return value == null || value instanceof String;
+        }
+
+        @Override
+        void set( int rowIndex, Object value )
+        {
+            codes[rowIndex] = value != null ? dictionary.getCode( (String) value ) : -1;
+        }
+
+        @Override
+        void ensureCapacity( int capacity )
+        {
+            if ( capacity > codes.length )
+            {
+                codes = Arrays.copyOf( codes, newCapacity( codes.length, capacity ) );
+            }
+        }
+
+        @Override
+        void select( int[] rowIndexes )
+        {
+            int[] selected = new int[rowIndexes.length];
+
+            for ( int i = 0; i < rowIndexes.length; i++ )
+            {
+                selected[i] = codes[rowIndexes[i]];
+            }
+
+            codes = selected;
+            size = rowIndexes.length;
+        }
+    }
+
+    /**
+     * Column which holds values of any type.
+     */
+    private static class ObjectColumn
+        extends Column
+    {
+        private Object[] values;
+
+        ObjectColumn( int capacity )
+        {
+            this.values = new Object[capacity];
+        }
+
+        @Override
+        Object get( int rowIndex )
+        {
+            return values[rowIndex];
+        }
+
+        @Override
+        boolean accepts( Object value )
+        {
+            return true;
+        }
+
+        @Override
+        void set( int rowIndex, Object value )
+        {
+            values[rowIndex] = value;
+        }
+
+        @Override
+        void ensureCapacity( int capacity )
+        {
+            if ( capacity > values.length )
+            {
+                values = Arrays.copyOf( values, newCapacity( values.length, capacity ) );
+            }
+        }
+
+        @Override
+        void select( int[] rowIndexes )
+        {
+            Object[] selected = new Object[rowIndexes.length];
+
+            for ( int i = 0; i < rowIndexes.length; i++ )
+            {
+                selected[i] = values[rowIndexes[i]];
+            }
+
+            values = selected;
+            size = rowIndexes.length;
+        }
+    }
+}
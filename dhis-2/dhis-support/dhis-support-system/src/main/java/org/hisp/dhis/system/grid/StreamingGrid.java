@@ -0,0 +1,256 @@
+package org.hisp.dhis.system.grid;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.common.Grid;
+
+/**
+ * Grid which writes each row to an underlying output as soon as the next row
+ * is started, instead of keeping all rows in memory. Headers and meta data
+ * must be set before the first row is added, as they are written ahead of
+ * the rows. Meta data substitutions are recorded and applied to each row as
+ * it is written. Operations which require access to previously added rows,
+ * such as sorting or column manipulation, are not supported. The grid must
+ * be closed once all rows are added.
+ */
+public abstract class StreamingGrid
+    extends ListGrid
+{
+    private List<Object> currentRow;
+
+    private int height = 0;
+
+    private Integer rowLength = null;
+
+    private boolean started = false;
+
+    private boolean closed = false;
+
+    private Map<? extends Object, ? extends Object> metaDataMap;
+
+    private List<Integer> metaColumnIndexes;
+
+    // -------------------------------------------------------------------------
+    // Abstract methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes the headers and meta data. Invoked once, before the first row.
+     */
+    protected abstract void writeStart()
+        throws IOException;
+
+    /**
+     * Writes the given row.
+     *
+     * @param row the row.
+     */
+    protected abstract void writeRow( List<Object> row )
+        throws IOException;
+
+    /**
+     * Writes the trailing content and flushes the output. Invoked once, after
+     * the last row.
+     *
+     * @param height the number of rows written.
+     */
+    protected abstract void writeEnd( int height )
+        throws IOException;
+
+    // -------------------------------------------------------------------------
+    // Grid implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public int getHeight()
+    {
+        return height;
+    }
+
+    @Override
+    public int getWidth()
+    {
+        return getHeaderWidth();
+    }
+
+    @Override
+    public Grid addRow()
+    {
+        flushRow();
+
+        if ( !started )
+        {
+            start();
+        }
+
+        currentRow = new ArrayList<>( getHeaders().size() );
+
+        return this;
+    }
+
+    @Override
+    public Grid addValue( Object value )
+    {
+        currentRow.add( value );
+
+        return this;
+    }
+
+    @Override
+    public Grid addValues( Object[] values )
+    {
+        for ( Object value : values )
+        {
+            currentRow.add( value );
+        }
+
+        return this;
+    }
+
+    @Override
+    public Grid substituteMetaData( Map<? extends Object, ? extends Object> metaDataMap )
+    {
+        super.substituteMetaData( metaDataMap );
+
+        this.metaDataMap = metaDataMap;
+        this.metaColumnIndexes = getMetaColumnIndexes();
+
+        return this;
+    }
+
+    // -------------------------------------------------------------------------
+    // Public methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes the current row and the trailing content. Headers and meta data
+     * are written if no rows were added.
+     */
+    public void close()
+    {
+        if ( closed )
+        {
+            return;
+        }
+
+        flushRow();
+
+        if ( !started )
+        {
+            start();
+        }
+
+        try
+        {
+            writeEnd( height );
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+
+        closed = true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void start()
+    {
+        try
+        {
+            writeStart();
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+
+        started = true;
+    }
+
+    private void flushRow()
+    {
+        if ( currentRow == null )
+        {
+            return;
+        }
+
+        verifyRowLength();
+
+        if ( metaDataMap != null )
+        {
+            for ( Integer colIndex : metaColumnIndexes )
+            {
+                if ( colIndex < currentRow.size() )
+                {
+                    Object metaValue = metaDataMap.get( currentRow.get( colIndex ) );
+
+                    if ( metaValue != null )
+                    {
+                        currentRow.set( colIndex, metaValue );
+                    }
+                }
+            }
+        }
+
+        try
+        {
+            writeRow( currentRow );
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+
+        currentRow = null;
+        height++;
+    }
+
+    /**
+     * Verifies that the current row is of the same length as the previously
+     * written rows, consistent with {@link ListGrid#verifyGridState()}.
+     */
+    private void verifyRowLength()
+    {
+        if ( rowLength != null && rowLength != currentRow.size() )
+        {
+            throw new IllegalStateException( "Grid rows do not have the same number of cells, previous: " + rowLength + ", this: " + currentRow.size() + ", at row: " + height );
+        }
+
+        rowLength = currentRow.size();
+    }
+}
@@ -0,0 +1,107 @@
+package org.hisp.dhis.system.grid;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.hisp.dhis.commons.config.JacksonObjectMapperConfig;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Streaming grid which writes a JSON representation of the grid to an
+ * output stream. The representation matches the JSON serialization of
+ * {@link ListGrid}, except that the row count and width are written after
+ * the rows.
+ */
+public class StreamingJsonGrid
+    extends StreamingGrid
+{
+    private static final String EMPTY = "";
+
+    private final JsonGenerator generator;
+
+    public StreamingJsonGrid( OutputStream out )
+        throws IOException
+    {
+        this.generator = JacksonObjectMapperConfig.staticJsonMapper().getFactory().createGenerator( out );
+        this.generator.disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+        this.generator.disable( JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM );
+    }
+
+    @Override
+    protected void writeStart()
+        throws IOException
+    {
+        generator.writeStartObject();
+        writeObjectField( "title", getTitle() );
+        writeObjectField( "subtitle", getSubtitle() );
+        writeObjectField( "table", getTable() );
+        generator.writeObjectField( "headers", getHeaders() );
+        writeObjectField( "metaData", getMetaData() );
+        generator.writeArrayFieldStart( "rows" );
+    }
+
+    @Override
+    protected void writeRow( List<Object> row )
+        throws IOException
+    {
+        generator.writeStartArray();
+
+        for ( Object value : row )
+        {
+            generator.writeString( value != null ? String.valueOf( value ) : EMPTY );
+        }
+
+        generator.writeEndArray();
+    }
+
+    @Override
+    protected void writeEnd( int height )
+        throws IOException
+    {
+        generator.writeEndArray();
+        generator.writeNumberField( "height", height );
+        generator.writeNumberField( "width", getWidth() );
+        generator.writeNumberField( "headerWidth", getHeaderWidth() );
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private void writeObjectField( String fieldName, Object value )
+        throws IOException
+    {
+        if ( value != null )
+        {
+            generator.writeObjectField( fieldName, value );
+        }
+    }
+}
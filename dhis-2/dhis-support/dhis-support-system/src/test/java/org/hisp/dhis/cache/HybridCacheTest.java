@@ -0,0 +1,238 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.BoundValueOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+
+public class HybridCacheTest
+{
+    private static final String CHANNEL = "dhis2:cacheinvalidation:test";
+
+    private final Map<String, String> redisValues = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> redisTtls = new ConcurrentHashMap<>();
+
+    private final AtomicInteger redisReads = new AtomicInteger();
+
+    private Runnable onRedisRead = () -> {};
+
+    private RedisTemplate<String, String> redisTemplate;
+
+    private Cache<String> cache;
+
+    private MessageListener listener;
+
+    @Before
+    @SuppressWarnings( "unchecked" )
+    public void setUp()
+    {
+        redisTemplate = mock( RedisTemplate.class );
+
+        when( redisTemplate.boundValueOps( anyString() ) )
+            .thenAnswer( invocation -> valueOps( invocation.getArgument( 0 ) ) );
+        when( redisTemplate.delete( anyString() ) )
+            .thenAnswer( invocation -> redisValues.remove( invocation.<String> getArgument( 0 ) ) != null );
+
+        cache = build( new ExtendedCacheBuilder<String>( redisTemplate, null, null, c -> {} ) );
+    }
+
+    @Test
+    public void testGetWithMappingFunctionReadsThroughOnce()
+    {
+        assertEquals( Optional.of( "valueA" ), cache.get( "keyA", key -> "valueA" ) );
+        assertEquals( "valueA", redisValues.get( "test:keyA" ) );
+
+        int reads = redisReads.get();
+
+        assertEquals( Optional.of( "valueA" ), cache.get( "keyA", key -> "valueB" ) );
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+        assertEquals( reads, redisReads.get() );
+    }
+
+    @Test
+    public void testGetIfPresentReadsThroughOnce()
+    {
+        redisValues.put( "test:keyA", "valueA" );
+
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+        assertEquals( Optional.empty(), cache.getIfPresent( "keyB" ) );
+        assertEquals( Optional.empty(), cache.getIfPresent( "keyB" ) );
+        assertEquals( 3, redisReads.get() );
+    }
+
+    @Test
+    public void testInvalidationFromOtherInstance()
+    {
+        redisValues.put( "test:keyA", "valueA" );
+        redisValues.put( "test:keyB", "valueB" );
+
+        cache.getIfPresent( "keyA" );
+        cache.getIfPresent( "keyB" );
+
+        redisValues.put( "test:keyA", "valueC" );
+        redisValues.put( "test:keyB", "valueD" );
+
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+
+        receive( "otherNode:keyA" );
+
+        assertEquals( Optional.of( "valueC" ), cache.getIfPresent( "keyA" ) );
+        assertEquals( Optional.of( "valueB" ), cache.getIfPresent( "keyB" ) );
+
+        receive( "otherNode" );
+
+        assertEquals( Optional.of( "valueD" ), cache.getIfPresent( "keyB" ) );
+    }
+
+    @Test
+    public void testInvalidationDuringRedisReadIsNotStoredLocally()
+    {
+        redisValues.put( "test:keyA", "valueA" );
+
+        onRedisRead = () -> {
+            onRedisRead = () -> {};
+            receive( "otherNode:keyA" );
+        };
+
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+        assertEquals( 2, redisReads.get() );
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        cache.put( "keyA", "valueA" );
+
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+
+        cache.invalidate( "keyA" );
+
+        assertEquals( Optional.empty(), cache.getIfPresent( "keyA" ) );
+        assertEquals( 1, redisReads.get() );
+        verify( redisTemplate ).delete( "test:keyA" );
+    }
+
+    @Test
+    public void testPutWithTimeToLive()
+        throws InterruptedException
+    {
+        cache = build( new ExtendedCacheBuilder<String>( redisTemplate, null, null, c -> {} )
+            .expireAfterWrite( 60, TimeUnit.SECONDS ) );
+
+        cache.put( "keyA", "valueA", 1 );
+
+        assertEquals( Long.valueOf( 1 ), redisTtls.get( "test:keyA" ) );
+        assertEquals( Optional.of( "valueA" ), cache.getIfPresent( "keyA" ) );
+        assertEquals( 0, redisReads.get() );
+
+        // Expire the value in redis, the local tier expires on its own
+
+        redisValues.remove( "test:keyA" );
+
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while ( cache.getIfPresent( "keyA" ).isPresent() && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 100 );
+        }
+
+        assertEquals( Optional.empty(), cache.getIfPresent( "keyA" ) );
+    }
+
+    private Cache<String> build( CacheBuilder<String> builder )
+    {
+        ExtendedCacheBuilder<String> cacheBuilder = (ExtendedCacheBuilder<String>) builder.forRegion( "test" )
+            .withMaximumSize( 100 );
+
+        RedisMessageListenerContainer container = mock( RedisMessageListenerContainer.class );
+
+        HybridCache<String> hybridCache = new HybridCache<>( cacheBuilder, container );
+
+        ArgumentCaptor<MessageListener> captor = ArgumentCaptor.forClass( MessageListener.class );
+        verify( container ).addMessageListener( captor.capture(), any( Topic.class ) );
+        listener = captor.getValue();
+
+        return hybridCache;
+    }
+
+    private void receive( String body )
+    {
+        listener.onMessage( new DefaultMessage( CHANNEL.getBytes( UTF_8 ), body.getBytes( UTF_8 ) ), null );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private BoundValueOperations<String, String> valueOps( String redisKey )
+    {
+        BoundValueOperations<String, String> ops = mock( BoundValueOperations.class );
+
+        when( ops.get() ).thenAnswer( invocation -> {
+            redisReads.incrementAndGet();
+            String value = redisValues.get( redisKey );
+            onRedisRead.run();
+            return value;
+        } );
+
+        doAnswer( invocation -> redisValues.put( redisKey, invocation.getArgument( 0 ) ) ).when( ops )
+            .set( anyString() );
+
+        doAnswer( invocation -> {
+            redisTtls.put( redisKey, invocation.getArgument( 1 ) );
+            return redisValues.put( redisKey, invocation.getArgument( 0 ) );
+        } ).when( ops ).set( anyString(), anyLong(), any( TimeUnit.class ) );
+
+        return ops;
+    }
+}
@@ -0,0 +1,263 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.BoundValueOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+public class RedisCacheTest
+{
+    private static final int THREADS = 4;
+
+    private static final String LOCK_KEY = "dhis2:cacheload:test:key";
+
+    private static final long LOCK_TIMEOUT_MILLIS = 10000;
+
+    private final Map<String, String> redisValues = new ConcurrentHashMap<>();
+
+    private final Map<String, String> locks = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> lockExpirations = new ConcurrentHashMap<>();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private RedisTemplate<String, String> redisTemplate;
+
+    private ExecutorService executor;
+
+    @Before
+    @SuppressWarnings( "unchecked" )
+    public void setUp()
+    {
+        RedisConnection connection = mock( RedisConnection.class );
+
+        when( connection.set( any( byte[].class ), any( byte[].class ), any( Expiration.class ), any( SetOption.class ) ) )
+            .thenAnswer( invocation -> {
+                String lockKey = new String( invocation.<byte[]> getArgument( 0 ), UTF_8 );
+                String token = new String( invocation.<byte[]> getArgument( 1 ), UTF_8 );
+
+                if ( locks.putIfAbsent( lockKey, token ) != null )
+                {
+                    return false;
+                }
+
+                lockExpirations.put( lockKey, invocation.<Expiration> getArgument( 2 ).getExpirationTimeInMilliseconds() );
+                return true;
+            } );
+
+        when( connection.eval( any( byte[].class ), any( ReturnType.class ), anyInt(), any( byte[].class ), any( byte[].class ) ) )
+            .thenAnswer( invocation -> {
+                String lockKey = new String( invocation.<byte[]> getArgument( 3 ), UTF_8 );
+                String token = new String( invocation.<byte[]> getArgument( 4 ), UTF_8 );
+
+                return locks.remove( lockKey, token ) ? 1L : 0L;
+            } );
+
+        redisTemplate = mock( RedisTemplate.class );
+
+        when( redisTemplate.boundValueOps( anyString() ) )
+            .thenAnswer( invocation -> valueOps( invocation.getArgument( 0 ) ) );
+        when( redisTemplate.execute( any( RedisCallback.class ) ) )
+            .thenAnswer( invocation -> invocation.<RedisCallback<?>> getArgument( 0 ).doInRedis( connection ) );
+
+        executor = Executors.newFixedThreadPool( 2 * THREADS );
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentGetAcrossInstancesInvokesMappingFunctionOnce()
+        throws Exception
+    {
+        Cache<String> cacheA = build( LOCK_TIMEOUT_MILLIS );
+        Cache<String> cacheB = build( LOCK_TIMEOUT_MILLIS );
+
+        CountDownLatch start = new CountDownLatch( 1 );
+
+        List<Future<Optional<String>>> results = new ArrayList<>();
+
+        for ( int i = 0; i < 2 * THREADS; i++ )
+        {
+            Cache<String> cache = i % 2 == 0 ? cacheA : cacheB;
+
+            results.add( executor.submit( () -> {
+                start.await();
+
+                return cache.get( "key", this::slowLoad );
+            } ) );
+        }
+
+        start.countDown();
+
+        for ( Future<Optional<String>> result : results )
+        {
+            assertEquals( Optional.of( "value" ), result.get( 10, TimeUnit.SECONDS ) );
+        }
+
+        assertEquals( 1, loads.get() );
+        assertEquals( Long.valueOf( LOCK_TIMEOUT_MILLIS ), lockExpirations.get( LOCK_KEY ) );
+        assertFalse( locks.containsKey( LOCK_KEY ) );
+    }
+
+    @Test
+    public void testGetReturnsValueStoredByLockHolder()
+        throws Exception
+    {
+        Cache<String> cache = build( LOCK_TIMEOUT_MILLIS );
+
+        locks.put( LOCK_KEY, "otherInstance" );
+
+        Future<Optional<String>> result = executor.submit( () -> cache.get( "key", this::slowLoad ) );
+
+        Thread.sleep( 200 );
+
+        assertFalse( result.isDone() );
+
+        redisValues.put( "test:key", "otherValue" );
+
+        assertEquals( Optional.of( "otherValue" ), result.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( 0, loads.get() );
+        assertEquals( "otherInstance", locks.get( LOCK_KEY ) );
+    }
+
+    @Test
+    public void testGetAcquiresLockAfterLockExpiry()
+        throws Exception
+    {
+        Cache<String> cache = build( LOCK_TIMEOUT_MILLIS );
+
+        locks.put( LOCK_KEY, "otherInstance" );
+
+        Future<Optional<String>> result = executor.submit( () -> cache.get( "key", this::slowLoad ) );
+
+        Thread.sleep( 200 );
+
+        assertFalse( result.isDone() );
+
+        // Expire the lock of an instance which failed to store a value
+
+        locks.remove( LOCK_KEY );
+
+        assertEquals( Optional.of( "value" ), result.get( 10, TimeUnit.SECONDS ) );
+        assertEquals( 1, loads.get() );
+        assertEquals( "value", redisValues.get( "test:key" ) );
+        assertFalse( locks.containsKey( LOCK_KEY ) );
+    }
+
+    @Test
+    public void testGetLoadsWithoutLockAfterLockTimeout()
+    {
+        Cache<String> cache = build( 300 );
+
+        locks.put( LOCK_KEY, "otherInstance" );
+
+        long started = System.currentTimeMillis();
+
+        assertEquals( Optional.of( "value" ), cache.get( "key", this::slowLoad ) );
+        assertTrue( System.currentTimeMillis() - started >= 300 );
+        assertEquals( 1, loads.get() );
+        assertEquals( "otherInstance", locks.get( LOCK_KEY ) );
+    }
+
+    private Cache<String> build( long loadLockTimeoutMillis )
+    {
+        ExtendedCacheBuilder<String> cacheBuilder = (ExtendedCacheBuilder<String>) new ExtendedCacheBuilder<String>(
+            redisTemplate, null, null, c -> {} ).forRegion( "test" ).withDistributedLoadLock();
+
+        return new RedisCache<>( cacheBuilder, loadLockTimeoutMillis );
+    }
+
+    private String slowLoad( String key )
+    {
+        loads.incrementAndGet();
+
+        try
+        {
+            Thread.sleep( 200 );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        return "value";
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private BoundValueOperations<String, String> valueOps( String redisKey )
+    {
+        BoundValueOperations<String, String> ops = mock( BoundValueOperations.class );
+
+        when( ops.get() ).thenAnswer( invocation -> redisValues.get( redisKey ) );
+
+        doAnswer( invocation -> redisValues.put( redisKey, invocation.getArgument( 0 ) ) ).when( ops )
+            .set( anyString() );
+
+        doAnswer( invocation -> redisValues.put( redisKey, invocation.getArgument( 0 ) ) ).when( ops )
+            .set( anyString(), anyLong(), any( TimeUnit.class ) );
+
+        return ops;
+    }
+}
@@ -0,0 +1,188 @@
+package org.hisp.dhis.system.grid;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+import java.util.List;
+
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.ValueType;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+public class ColumnarGridTest
+{
+    private Grid grid;
+
+    @Before
+    public void setUp()
+    {
+        grid = new ColumnarGrid();
+
+        grid.addHeader( new GridHeader( "ColA", "colA", ValueType.TEXT, String.class.getName(), false, true ) );
+        grid.addHeader( new GridHeader( "ColB", "colB", ValueType.NUMBER, Double.class.getName(), false, false ) );
+        grid.addHeader( new GridHeader( "ColC", "colC", ValueType.INTEGER, Integer.class.getName(), false, false ) );
+
+        grid.addRow().addValue( "a" ).addValue( 3.5 ).addValue( 3 );
+        grid.addRow().addValue( "b" ).addValue( null ).addValue( 1 );
+        grid.addRow().addValue( "a" ).addValue( 1.5 ).addValue( 2 );
+    }
+
+    @Test
+    public void testGetValues()
+    {
+        assertEquals( 3, grid.getHeight() );
+        assertEquals( 3, grid.getWidth() );
+        assertEquals( "a", grid.getValue( 0, 0 ) );
+        assertEquals( 3.5, grid.getValue( 0, 1 ) );
+        assertEquals( Integer.valueOf( 3 ), grid.getValue( 0, 2 ) );
+        assertNull( grid.getValue( 1, 1 ) );
+        assertEquals( Lists.newArrayList( "b", null, 1 ), grid.getRow( 1 ) );
+        assertEquals( Lists.newArrayList( "a", "b", "a" ), grid.getColumn( 0 ) );
+    }
+
+    @Test
+    public void testMixedValueTypes()
+    {
+        Date date = new Date();
+
+        grid.getRow( 0 ).set( 1, "text" );
+        grid.getRow( 1 ).set( 2, 5L );
+        grid.getRow( 2 ).set( 0, date );
+
+        assertEquals( "text", grid.getValue( 0, 1 ) );
+        assertEquals( 5L, grid.getValue( 1, 2 ) );
+        assertEquals( Integer.valueOf( 3 ), grid.getValue( 0, 2 ) );
+        assertEquals( date, grid.getValue( 2, 0 ) );
+        assertEquals( 1.5, grid.getValue( 2, 1 ) );
+    }
+
+    @Test
+    public void testSortGrid()
+    {
+        grid.sortGrid( 2, -1 );
+
+        assertEquals( Lists.newArrayList( null, 1.5, 3.5 ), grid.getColumn( 1 ) );
+        assertEquals( Lists.newArrayList( 1, 2, 3 ), grid.getColumn( 2 ) );
+
+        grid.sortGrid( 3, 1 );
+
+        assertEquals( Lists.newArrayList( 3, 2, 1 ), grid.getColumn( 2 ) );
+        assertEquals( Lists.newArrayList( "a", "a", "b" ), grid.getColumn( 0 ) );
+    }
+
+    @Test
+    public void testLimitGrid()
+    {
+        grid.limitGrid( 1, 3 );
+
+        assertEquals( 2, grid.getHeight() );
+        assertEquals( "b", grid.getValue( 0, 0 ) );
+
+        grid.limitGrid( 1 );
+
+        assertEquals( 1, grid.getHeight() );
+        assertEquals( Lists.newArrayList( "b", null, 1 ), grid.getRow( 0 ) );
+    }
+
+    @Test
+    public void testSubstituteMetaData()
+    {
+        grid.substituteMetaData( ImmutableMap.of( "a", "NameA", "ColB", "Value" ) );
+
+        assertEquals( Lists.newArrayList( "NameA", "b", "NameA" ), grid.getColumn( 0 ) );
+        assertEquals( "Value", grid.getHeaders().get( 1 ).getName() );
+    }
+
+    @Test
+    public void testAddAndRemoveColumn()
+    {
+        grid.addColumn( Lists.newArrayList( "x", "y", "z" ) );
+
+        assertEquals( 4, grid.getWidth() );
+        assertEquals( "y", grid.getValue( 1, 3 ) );
+
+        grid.removeColumn( 1 );
+
+        assertEquals( 3, grid.getWidth() );
+        assertEquals( Lists.newArrayList( "a", 3, "x" ), grid.getRow( 0 ) );
+    }
+
+    @Test
+    public void testCopyListGrid()
+    {
+        Grid listGrid = new ListGrid();
+        listGrid.setTitle( "Title" );
+        listGrid.addHeader( new GridHeader( "ColA", "colA" ) );
+        listGrid.addRow().addValue( "a" ).addValue( 1d );
+        listGrid.addRow().addValue( "b" ).addValue( 2d );
+
+        Grid copy = new ColumnarGrid( listGrid );
+
+        assertEquals( "Title", copy.getTitle() );
+        assertEquals( 1, copy.getHeaderWidth() );
+        assertEquals( listGrid.getRows(), copy.getRows() );
+    }
+
+    @Test
+    public void testSerialization()
+        throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try ( ObjectOutputStream oos = new ObjectOutputStream( out ) )
+        {
+            oos.writeObject( grid );
+        }
+
+        Grid copy;
+
+        try ( ObjectInputStream ois = new ObjectInputStream( new ByteArrayInputStream( out.toByteArray() ) ) )
+        {
+            copy = (Grid) ois.readObject();
+        }
+
+        List<List<Object>> rows = copy.getRows();
+
+        assertTrue( copy instanceof ColumnarGrid );
+        assertEquals( grid.getRows(), rows );
+    }
+}
@@ -0,0 +1,135 @@
+package org.hisp.dhis.system.grid;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.commons.config.JacksonObjectMapperConfig;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableMap;
+
+public class StreamingGridTest
+{
+    @Test
+    public void testJsonGrid()
+        throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        StreamingGrid grid = new StreamingJsonGrid( out );
+
+        addHeaders( grid );
+        grid.addMetaData( "keyA", "valueA" );
+        grid.substituteMetaData( ImmutableMap.of( "uidA", "NameA" ) );
+        addRows( grid );
+        grid.close();
+
+        JsonNode json = JacksonObjectMapperConfig.staticJsonMapper().readTree( out.toByteArray() );
+
+        assertEquals( 2, json.get( "headers" ).size() );
+        assertEquals( "colA", json.get( "headers" ).get( 0 ).get( "column" ).asText() );
+        assertEquals( "valueA", json.get( "metaData" ).get( "keyA" ).asText() );
+        assertEquals( 3, json.get( "rows" ).size() );
+        assertEquals( "NameA", json.get( "rows" ).get( 0 ).get( 0 ).asText() );
+        assertEquals( "uidB", json.get( "rows" ).get( 1 ).get( 0 ).asText() );
+        assertEquals( "", json.get( "rows" ).get( 2 ).get( 1 ).asText() );
+        assertEquals( 3, json.get( "height" ).asInt() );
+        assertEquals( 2, json.get( "width" ).asInt() );
+    }
+
+    @Test
+    public void testJsonGridWithoutRows()
+        throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        StreamingGrid grid = new StreamingJsonGrid( out );
+
+        addHeaders( grid );
+        grid.close();
+
+        JsonNode json = JacksonObjectMapperConfig.staticJsonMapper().readTree( out.toByteArray() );
+
+        assertEquals( 2, json.get( "headers" ).size() );
+        assertEquals( 0, json.get( "rows" ).size() );
+        assertEquals( 0, json.get( "height" ).asInt() );
+    }
+
+    @Test
+    public void testCsvGrid()
+    {
+        StringWriter writer = new StringWriter();
+
+        StreamingGrid grid = new StreamingCsvGrid( writer );
+
+        addHeaders( grid );
+        addRows( grid );
+        grid.close();
+
+        String[] lines = writer.toString().split( "\\r?\\n" );
+
+        assertEquals( 4, lines.length );
+        assertEquals( "colA,colB", lines[0] );
+        assertEquals( "uidA,1.0", lines[1] );
+        assertEquals( "uidC,", lines[3] );
+        assertEquals( 3, grid.getHeight() );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void testRowsOfDifferentLength()
+    {
+        StreamingGrid grid = new StreamingCsvGrid( new StringWriter() );
+
+        addHeaders( grid );
+        grid.addRow().addValue( "uidA" ).addValue( 1.0 );
+        grid.addRow().addValue( "uidB" );
+        grid.close();
+    }
+
+    private void addHeaders( Grid grid )
+    {
+        grid.addHeader( new GridHeader( "ColA", "colA", ValueType.TEXT, String.class.getName(), false, true ) );
+        grid.addHeader( new GridHeader( "ColB", "colB", ValueType.NUMBER, Double.class.getName(), false, false ) );
+    }
+
+    private void addRows( Grid grid )
+    {
+        grid.addRow().addValue( "uidA" ).addValue( 1.0 );
+        grid.addRow().addValue( "uidB" ).addValue( 2.0 );
+        grid.addRow().addValue( "uidC" ).addValue( null );
+    }
+}
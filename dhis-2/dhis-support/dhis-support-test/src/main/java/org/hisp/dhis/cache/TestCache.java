@@ -69,6 +69,12 @@ public class TestCache<V>
         return Optional.empty();
     }
 
+    @Override
+    public Optional<V> get( String key, Function<String, V> mappingFunction, long ttlInSeconds )
+    {
+        return Optional.empty();
+    }
+
     @Override
     public Collection<V> getAll()
     {
@@ -100,6 +106,12 @@ public class TestCache<V>
         mapCache = new HashMap<>();
     }
 
+    @Override
+    public CacheStatistics getStatistics()
+    {
+        return CacheStatistics.builder().size( mapCache.size() ).build();
+    }
+
     @Override
     public CacheType getCacheType()
     {
@@ -41,6 +41,8 @@ import org.hisp.dhis.common.*;
 import org.hisp.dhis.common.cache.CacheStrategy;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSet;
 import org.hisp.dhis.system.grid.GridUtils;
+import org.hisp.dhis.system.grid.StreamingCsvGrid;
+import org.hisp.dhis.system.grid.StreamingJsonGrid;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.stereotype.Controller;
@@ -518,7 +520,7 @@ public class AnalyticsController
     // -------------------------------------------------------------------------
 
     @RequestMapping( value = RESOURCE_PATH + RAW_DATA_PATH + ".json", method = RequestMethod.GET )
-    public @ResponseBody Grid getRawDataJson(
+    public void getRawDataJson(
         @RequestParam Set<String> dimension,
         @RequestParam( required = false ) Date startDate,
         @RequestParam( required = false ) Date endDate,
@@ -545,7 +547,7 @@ public class AnalyticsController
         DataQueryParams params = dataQueryService.getFromRequest( request );
 
         contextUtils.configureAnalyticsResponse( response, ContextUtils.CONTENT_TYPE_JSON, CacheStrategy.RESPECT_SYSTEM_SETTING, null, false, params.getLatestEndDate() );
-        return analyticsService.getRawDataValues( params );
+        analyticsService.writeRawDataValues( params, new StreamingJsonGrid( response.getOutputStream() ) );
     }
 
     @RequestMapping( value = RESOURCE_PATH + RAW_DATA_PATH + ".csv", method = RequestMethod.GET )
@@ -577,8 +579,7 @@ public class AnalyticsController
 
         contextUtils.configureAnalyticsResponse( response, ContextUtils.CONTENT_TYPE_CSV,
             CacheStrategy.RESPECT_SYSTEM_SETTING, null, false, params.getLatestEndDate() );
-        Grid grid = analyticsService.getRawDataValues( params );
-        GridUtils.toCsv( grid, response.getWriter() );
+        analyticsService.writeRawDataValues( params, new StreamingCsvGrid( response.getWriter() ) );
     }
 
     // -------------------------------------------------------------------------
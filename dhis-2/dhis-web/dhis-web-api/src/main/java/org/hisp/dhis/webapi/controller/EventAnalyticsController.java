@@ -483,6 +483,28 @@ public class EventAnalyticsController
         return analyticsService.getEventClusters( params );
     }
 
+    @RequestMapping( value = RESOURCE_PATH + "/cluster/{program}/tiles/{z}/{x}/{y}", method = RequestMethod.GET, produces = { "application/json", "application/javascript" } )
+    public @ResponseBody Grid getClusterTileJson( // JSON, JSONP
+        @PathVariable String program,
+        @PathVariable int z,
+        @PathVariable int x,
+        @PathVariable int y,
+        @RequestParam Set<String> dimension,
+        @RequestParam( required = false ) String userOrgUnit,
+        DhisApiVersion apiVersion,
+        Model model,
+        HttpServletResponse response )
+    {
+        EventDataQueryRequest request = EventDataQueryRequest.newBuilder().program( program ).dimension( dimension )
+            .userOrgUnit( userOrgUnit ).apiVersion( apiVersion ).outputType( EventOutputType.EVENT ).build();
+
+        EventQueryParams params = eventDataQueryService.getFromRequest( request );
+
+        contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_JSON, CacheStrategy.RESPECT_SYSTEM_SETTING );
+
+        return analyticsService.getEventClusterTile( params, z, x, y );
+    }
+
     // -------------------------------------------------------------------------
     // Query
     // -------------------------------------------------------------------------
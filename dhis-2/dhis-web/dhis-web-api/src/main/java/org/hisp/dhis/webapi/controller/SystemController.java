@@ -32,6 +32,8 @@ import com.fasterxml.jackson.dataformat.csv.CsvFactory;
 import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.CacheStatistics;
 import org.hisp.dhis.common.CodeGenerator;
 import org.hisp.dhis.common.DhisApiVersion;
 import org.hisp.dhis.common.Objects;
@@ -59,6 +61,7 @@ import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -116,6 +119,9 @@ public class SystemController
     @Autowired
     private StatisticsProvider statisticsProvider;
 
+    @Autowired
+    private CacheProvider cacheProvider;
+
     private static final CsvFactory CSV_FACTORY = new CsvMapper().getFactory();
 
     // -------------------------------------------------------------------------
@@ -357,6 +363,15 @@ public class SystemController
         return rootNode;
     }
 
+    @RequestMapping( value = "/cacheStatistics", method = RequestMethod.GET, produces = { "application/json" } )
+    @PreAuthorize( "hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')" )
+    public @ResponseBody List<CacheStatistics> getCacheStatistics( HttpServletResponse response )
+    {
+        setNoStore( response );
+
+        return cacheProvider.getStatistics();
+    }
+
     @RequestMapping( value = "/ping", method = RequestMethod.GET )
     @ResponseStatus( HttpStatus.OK )
     public @ResponseBody String ping( HttpServletResponse response )
@@ -31,6 +31,7 @@ package org.hisp.dhis.webapi.controller.dataitem;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Collections.emptyList;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
+import static org.apache.commons.lang3.StringUtils.substringBefore;
 import static org.hisp.dhis.webapi.controller.dataitem.helper.FilteringHelper.extractEntitiesFromInFilter;
 import static org.hisp.dhis.webapi.controller.dataitem.helper.FilteringHelper.extractEntityFromEqualFilter;
 import static org.hisp.dhis.webapi.controller.dataitem.helper.OrderingHelper.sort;
@@ -53,9 +54,13 @@ import org.hisp.dhis.indicator.Indicator;
 import org.hisp.dhis.program.ProgramDataElementDimensionItem;
 import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.program.ProgramTrackedEntityAttributeDimensionItem;
+import org.hisp.dhis.query.Order;
 import org.hisp.dhis.query.Pagination;
 import org.hisp.dhis.query.Query;
 import org.hisp.dhis.query.QueryService;
+import org.hisp.dhis.schema.Property;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.webapi.webdomain.WebOptions;
 import org.springframework.stereotype.Component;
 
@@ -75,6 +80,8 @@ public class DataItemServiceFacade
 
     private final QueryService queryService;
 
+    private final SchemaService schemaService;
+
     /**
      * This Map holds the allowed data types to be queried.
      */
@@ -91,17 +98,26 @@ public class DataItemServiceFacade
             .build();
     // @formatter:on
 
-    DataItemServiceFacade( final QueryService queryService )
+    DataItemServiceFacade( final QueryService queryService, final SchemaService schemaService )
     {
         checkNotNull( queryService );
+        checkNotNull( schemaService );
 
         this.queryService = queryService;
+        this.schemaService = schemaService;
     }
 
     /**
      * This method will iterate through the list of target entities, and query each
      * one of them using the filters and params provided. The result list will bring
      * together the results of all target entities queried.
+     *
+     * The ordering and pagination are pushed down to the database query of each
+     * entity. When a single entity is targeted, only the requested page is read.
+     * Otherwise, each entity query is limited to the items up to the end of the
+     * requested page, which are then merged, sorted and sliced in memory. When
+     * ordering by properties which are not persisted, like display names, all
+     * items are read and then sorted and sliced in memory.
      * 
      * @param targetEntities the list of entities to be retrieved
      * @param orderParams request ordering params
@@ -115,12 +131,41 @@ public class DataItemServiceFacade
     {
         List<BaseDimensionalItemObject> dimensionalItems = new ArrayList<>( 0 );
 
-        if ( isNotEmpty( targetEntities ) )
+        if ( isNotEmpty( targetEntities ) && hasNonPersistedOrder( targetEntities, orderParams ) )
+        {
+            // Retrieving all items for each entity type, as the database can't order them.
+            for ( final Class<? extends BaseDimensionalItemObject> entity : targetEntities )
+            {
+                final Query query = buildQueryForEntity( entity, filters, options, null, NO_PAGINATION );
+                dimensionalItems.addAll( executeQuery( query ) );
+            }
+
+            // In memory sorting
+            sort( dimensionalItems, orderParams );
+
+            // In memory pagination.
+            dimensionalItems = slice( options, dimensionalItems );
+        }
+        else if ( targetEntities != null && targetEntities.size() == 1 && options.hasPaging() )
+        {
+            // Only the requested page is read for a single entity type.
+            final Class<? extends BaseDimensionalItemObject> entity = targetEntities.iterator().next();
+            final Pagination pagination = new Pagination( (options.getPage() - 1) * options.getPageSize(),
+                options.getPageSize() );
+            final Query query = buildQueryForEntity( entity, filters, options, orderParams, pagination );
+
+            dimensionalItems.addAll( executeQuery( query ) );
+        }
+        else if ( isNotEmpty( targetEntities ) )
         {
-            // Retrieving all items for each entity type.
+            final Pagination pagination = options.hasPaging()
+                ? new Pagination( PAGINATION_FIRST_RESULT, options.getPage() * options.getPageSize() )
+                : NO_PAGINATION;
+
+            // Retrieving the items up to the end of the page for each entity type.
             for ( final Class<? extends BaseDimensionalItemObject> entity : targetEntities )
             {
-                final Query query = buildQueryForEntity( entity, filters, options );
+                final Query query = buildQueryForEntity( entity, filters, options, orderParams, pagination );
                 dimensionalItems.addAll( executeQuery( query ) );
             }
 
@@ -194,27 +239,66 @@ public class DataItemServiceFacade
     }
 
     /**
-     * This method will build a Query object based on the provided arguments.
+     * This method will build a Query object based on the provided arguments. The
+     * request ordering is applied to the query, so that the pagination window
+     * holds the same items as it would after sorting all items. The ordering
+     * params must only contain persisted properties.
      * 
      * @param entity the BaseDimensionalItemObject class to be queried.
      * @param filters request filters
      * @param options request options
+     * @param orderParams request ordering params
+     * @param pagination the pagination window to be read
      * @return the built query
      * @throws org.hisp.dhis.query.QueryParserException if errors occur during the
      *         query creation
      */
     private Query buildQueryForEntity( final Class<? extends BaseDimensionalItemObject> entity,
-        final List<String> filters, final WebOptions options )
+        final List<String> filters, final WebOptions options, final OrderParams orderParams,
+        final Pagination pagination )
     {
-        final int maxLimit = options.getPage() * options.getPageSize();
-        final Pagination pagination = options.hasPaging()
-            ? new Pagination( PAGINATION_FIRST_RESULT, maxLimit )
-            : NO_PAGINATION;
+        final List<Order> orders = orderParams != null
+            ? orderParams.getOrders( schemaService.getDynamicSchema( entity ) )
+            : emptyList();
 
-        final Query query = queryService.getQueryFromUrl( entity, filters, emptyList(),
+        final Query query = queryService.getQueryFromUrl( entity, filters, orders,
             pagination, options.getRootJunction() );
         query.setDefaultOrder();
 
         return query;
     }
+
+    /**
+     * Checks whether the items are ordered by any property which is not
+     * persisted for one of the given entities, like display names.
+     *
+     * @param targetEntities the list of entities to be retrieved
+     * @param orderParams request ordering params
+     * @return true if any order property is not persisted
+     */
+    private boolean hasNonPersistedOrder( final Set<Class<? extends BaseDimensionalItemObject>> targetEntities,
+        final OrderParams orderParams )
+    {
+        if ( orderParams == null || orderParams.getOrders() == null )
+        {
+            return false;
+        }
+
+        for ( final Class<? extends BaseDimensionalItemObject> entity : targetEntities )
+        {
+            final Schema schema = schemaService.getDynamicSchema( entity );
+
+            for ( final String order : orderParams.getOrders() )
+            {
+                final Property property = schema.getProperty( substringBefore( order, ":" ) );
+
+                if ( property != null && !property.isPersisted() )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
 }
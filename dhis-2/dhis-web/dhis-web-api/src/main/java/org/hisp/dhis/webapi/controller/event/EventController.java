@@ -511,6 +511,7 @@ public class EventController
             @RequestParam( required = false ) boolean totalPages,
             @RequestParam( required = false ) Boolean skipPaging,
             @RequestParam( required = false ) Boolean paging,
+            @RequestParam( required = false ) String pageToken,
             @RequestParam( required = false ) String order,
             @RequestParam( required = false ) String attachment,
             @RequestParam( required = false, defaultValue = "false" ) boolean includeDeleted,
@@ -547,6 +548,8 @@ public class EventController
                 false, eventIds, skipEventId, assignedUserMode, assignedUserIds, filter, dataElementOrders.keySet(),
                 false, includeDeleted );
 
+        params.setPageToken( pageToken );
+
         Events events = eventService.getEvents( params );
 
         if ( hasHref( fields, skipEventId ) )
@@ -609,6 +612,7 @@ public class EventController
             @RequestParam( required = false ) boolean totalPages,
             @RequestParam( required = false ) Boolean skipPaging,
             @RequestParam( required = false ) Boolean paging,
+            @RequestParam( required = false ) String pageToken,
             @RequestParam( required = false ) String order,
             @RequestParam( required = false ) String attachment,
             @RequestParam( required = false, defaultValue = "false" ) boolean includeDeleted,
@@ -647,6 +651,8 @@ public class EventController
                 false, eventIds, skipEventId, assignedUserMode, assignedUserIds, filter, dataElementOrders.keySet(),
                 false, includeDeleted );
 
+        params.setPageToken( pageToken );
+
         Events events = eventService.getEvents( params );
 
         if ( hasHref( fields, skipEventId ) )
@@ -710,6 +716,7 @@ public class EventController
             @RequestParam( required = false ) boolean totalPages,
             @RequestParam( required = false ) Boolean skipPaging,
             @RequestParam( required = false ) Boolean paging,
+            @RequestParam( required = false ) String pageToken,
             @RequestParam( required = false ) String order,
             @RequestParam( required = false ) String event,
             @RequestParam( required = false ) Boolean skipEventId,
@@ -740,6 +747,8 @@ public class EventController
                 eventIds, skipEventId, assignedUserMode, assignedUserIds, filter, dataElementOrders.keySet(), false,
                 includeDeleted );
 
+        params.setPageToken( pageToken );
+
         Events events = eventService.getEvents( params );
 
         OutputStream outputStream = response.getOutputStream();
@@ -227,10 +227,12 @@ public class TrackedEntityInstanceController
 
         RootNode rootNode = NodeUtils.createMetadata();
 
-        if ( queryParams.isPaging() && queryParams.isTotalPages() )
+        if ( queryParams.isPaging() && (queryParams.isTotalPages() || queryParams.getNextPageToken() != null) )
         {
-            int count = trackedEntityInstanceService.getTrackedEntityInstanceCount( queryParams, true, false );
+            int count = queryParams.isTotalPages() ?
+                trackedEntityInstanceService.getTrackedEntityInstanceCount( queryParams, true, false ) : 0;
             Pager pager = new Pager( queryParams.getPageWithDefault(), count, queryParams.getPageSizeWithDefault() );
+            pager.setNextPageToken( queryParams.getNextPageToken() );
             rootNode.addChild( NodeUtils.createPager( pager ) );
         }
         
@@ -164,6 +164,11 @@ public class TrackedEntityInstanceCriteria
      */
     private Boolean skipPaging;
 
+    /**
+     * Token of the last instance of the previous page, for keyset paging.
+     */
+    private String pageToken;
+
     /**
      * Indicated whether paging is enabled
      */
@@ -159,6 +159,7 @@ public class TrackedEntityCriteriaMapper
             .setPageSize( criteria.getPageSize() )
             .setTotalPages( criteria.isTotalPages() )
             .setSkipPaging( PagerUtils.isSkipPaging( criteria.getSkipPaging(), criteria.getPaging() ) )
+            .setPageToken( criteria.getPageToken() )
             .setIncludeDeleted( criteria.isIncludeDeleted() )
             .setIncludeAllAttributes( criteria.isIncludeAllAttributes() )
             .setUser( user )
@@ -39,14 +39,18 @@ import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.DimensionalObjectUtils;
 import org.hisp.dhis.common.DisplayProperty;
+import org.hisp.dhis.common.coordinate.CoordinateUtils;
 import org.hisp.dhis.organisationunit.FeatureType;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitGeometryService;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupSet;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.system.util.ValidationUtils;
 import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
 import org.hisp.dhis.util.ObjectUtils;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.utils.ContextUtils;
@@ -54,6 +58,7 @@ import org.hisp.dhis.webapi.webdomain.GeoFeature;
 import org.hisp.dhis.webapi.webdomain.WebOptions;
 import org.springframework.http.*;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -62,9 +67,13 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import com.vividsolutions.jts.geom.Geometry;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -87,6 +96,8 @@ public class GeoFeatureController
 
     private static final CacheControl GEOFEATURE_CACHE = CacheControl.maxAge( 2, TimeUnit.HOURS ).cachePrivate();
 
+    private static final String CONTENT_TYPE_VECTOR_TILE = "application/vnd.mapbox-vector-tile";
+
     private static final Map<FeatureType, Integer> FEATURE_TYPE_MAP = ImmutableMap.<FeatureType, Integer>builder().
         put( FeatureType.POINT, GeoFeature.TYPE_POINT ).
         put( FeatureType.MULTI_POLYGON, GeoFeature.TYPE_POLYGON ).
@@ -100,14 +111,21 @@ public class GeoFeatureController
 
     private final RenderService renderService;
 
+    private final OrganisationUnitService organisationUnitService;
+
+    private final OrganisationUnitGeometryService organisationUnitGeometryService;
+
     public GeoFeatureController( DataQueryService dataQueryService,
         OrganisationUnitGroupService organisationUnitGroupService, CurrentUserService currentUserService,
-        RenderService renderService)
+        RenderService renderService, OrganisationUnitService organisationUnitService,
+        OrganisationUnitGeometryService organisationUnitGeometryService )
     {
         this.dataQueryService = dataQueryService;
         this.organisationUnitGroupService = organisationUnitGroupService;
         this.currentUserService = currentUserService;
         this.renderService = renderService;
+        this.organisationUnitService = organisationUnitService;
+        this.organisationUnitGeometryService = organisationUnitGeometryService;
     }
 
     // -------------------------------------------------------------------------
@@ -123,6 +141,7 @@ public class GeoFeatureController
         @RequestParam( required = false ) Date relativePeriodDate,
         @RequestParam( required = false ) String userOrgUnit,
         @RequestParam( defaultValue = "false", value = "includeGroupSets" ) boolean rpIncludeGroupSets,
+        @RequestParam( required = false ) Integer zoom,
         @RequestParam Map<String, String> parameters,
         DhisApiVersion apiVersion,
         HttpServletRequest request, HttpServletResponse response )
@@ -131,7 +150,7 @@ public class GeoFeatureController
         boolean includeGroupSets = "detailed".equals( options.getViewClass() ) || rpIncludeGroupSets;
 
         List<GeoFeature> features = getGeoFeatures( ou, oug, displayProperty, relativePeriodDate, userOrgUnit, request,
-            response, includeGroupSets, apiVersion );
+            response, includeGroupSets, zoom, apiVersion );
 
         return ResponseEntity.ok()
             .header( HttpHeaders.CACHE_CONTROL, GEOFEATURE_CACHE.getHeaderValue() )
@@ -147,6 +166,7 @@ public class GeoFeatureController
         @RequestParam( required = false ) String userOrgUnit,
         @RequestParam( defaultValue = "callback" ) String callback,
         @RequestParam( defaultValue = "false", value = "includeGroupSets" ) boolean rpIncludeGroupSets,
+        @RequestParam( required = false ) Integer zoom,
         @RequestParam Map<String, String> parameters,
         DhisApiVersion apiVersion,
         HttpServletRequest request, HttpServletResponse response ) throws IOException
@@ -154,7 +174,7 @@ public class GeoFeatureController
         WebOptions options = new WebOptions( parameters );
         boolean includeGroupSets = "detailed".equals( options.getViewClass() ) || rpIncludeGroupSets;
 
-        List<GeoFeature> features = getGeoFeatures( ou, oug, displayProperty, relativePeriodDate, userOrgUnit, request, response, includeGroupSets, apiVersion );
+        List<GeoFeature> features = getGeoFeatures( ou, oug, displayProperty, relativePeriodDate, userOrgUnit, request, response, includeGroupSets, zoom, apiVersion );
 
         if ( features == null )
         {
@@ -166,6 +186,43 @@ public class GeoFeatureController
         renderService.toJsonP( response.getOutputStream(), features, callback );
     }
 
+    @RequestMapping( value = "/tiles/{z}/{x}/{y}.pbf", method = RequestMethod.GET, produces = CONTENT_TYPE_VECTOR_TILE )
+    public ResponseEntity<byte[]> getOrganisationUnitVectorTile(
+        @PathVariable int z, @PathVariable int x, @PathVariable int y,
+        @RequestParam int level,
+        @RequestParam( required = false ) String parent )
+    {
+        User user = currentUserService.getCurrentUser();
+
+        Set<OrganisationUnit> roots = user.getDataViewOrganisationUnitsWithFallback();
+
+        if ( roots.isEmpty() && user.isSuper() )
+        {
+            roots = new HashSet<>( organisationUnitService.getRootOrganisationUnits() );
+        }
+
+        Set<OrganisationUnit> parents = roots;
+
+        if ( parent != null )
+        {
+            OrganisationUnit parentUnit = organisationUnitService.getOrganisationUnit( parent );
+
+            if ( parentUnit == null || !organisationUnitService.isInUserHierarchy( parent, roots ) )
+            {
+                throw new IllegalArgumentException( "Parent organisation unit does not exist or is not accessible: " + parent );
+            }
+
+            parents = Collections.singleton( parentUnit );
+        }
+
+        byte[] tile = organisationUnitGeometryService.getVectorTile( z, x, y, level, parents );
+
+        return ResponseEntity.ok()
+            .header( HttpHeaders.CACHE_CONTROL, GEOFEATURE_CACHE.getHeaderValue() )
+            .contentType( MediaType.parseMediaType( CONTENT_TYPE_VECTOR_TILE ) )
+            .body( tile );
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
@@ -182,11 +239,12 @@ public class GeoFeatureController
      * @param request the HTTP request.
      * @param response the HTTP response.
      * @param includeGroupSets whether to include organisation unit group sets.
+     * @param zoom the map zoom level to simplify geometries for, can be null.
      * @return a list of geo features or null.
      */
     private List<GeoFeature> getGeoFeatures( String ou, String oug, DisplayProperty displayProperty, Date relativePeriodDate,
         String userOrgUnit, HttpServletRequest request, HttpServletResponse response, boolean includeGroupSets,
-        DhisApiVersion apiVersion )
+        Integer zoom, DhisApiVersion apiVersion )
     {
         Set<String> dimensionParams = new HashSet<>();
         dimensionParams.add( ou );
@@ -229,7 +287,7 @@ public class GeoFeatureController
             return null;
         }
 
-        return getGeoFeatures( params, dimensionalItemObjects, includeGroupSets, useOrgUnitGroup );
+        return getGeoFeatures( params, dimensionalItemObjects, includeGroupSets, useOrgUnitGroup, zoom );
     }
 
     /**
@@ -239,13 +297,19 @@ public class GeoFeatureController
      * @param dimensionalItemObjects the list of {@link DimensionalItemObject}.
      * @param includeGroupSets whether to include group sets.
      * @param useOrgUnitGroup whether to use org unit group when retrieving features.
+     * @param zoom the map zoom level to simplify geometries for, can be null.
      * @return a list of {@link GeoFeature}.
      */
     private List<GeoFeature> getGeoFeatures( DataQueryParams params,
-        List<DimensionalItemObject> dimensionalItemObjects, boolean includeGroupSets, boolean useOrgUnitGroup )
+        List<DimensionalItemObject> dimensionalItemObjects, boolean includeGroupSets, boolean useOrgUnitGroup,
+        Integer zoom )
     {
         List<GeoFeature> features = new ArrayList<>();
 
+        Map<String, Geometry> simplifiedGeometries = zoom != null && !useOrgUnitGroup ?
+            organisationUnitGeometryService.getSimplifiedGeometries( DimensionalObjectUtils.asTypedList( dimensionalItemObjects ), zoom ) :
+            new HashMap<>();
+
         List<OrganisationUnitGroupSet> groupSets = includeGroupSets ?
             organisationUnitGroupService.getAllOrganisationUnitGroupSets() :
             new ArrayList<>();
@@ -289,7 +353,10 @@ public class GeoFeatureController
             }
 
             feature.setTy( ObjectUtils.firstNonNull( ty, 0 ) );
-            feature.setCo( coordinateObject.getCoordinates() );
+            Geometry simplifiedGeometry = simplifiedGeometries.get( unit.getUid() );
+
+            feature.setCo( simplifiedGeometry != null ?
+                CoordinateUtils.getCoordinatesFromGeometry( simplifiedGeometry ) : coordinateObject.getCoordinates() );
             feature.setNa( unit.getDisplayProperty( params.getDisplayProperty() ) );
 
             features.add( feature );
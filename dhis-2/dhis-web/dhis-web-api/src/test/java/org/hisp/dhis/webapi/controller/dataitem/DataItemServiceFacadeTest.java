@@ -38,6 +38,7 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 import static org.hisp.dhis.query.Query.from;
 import static org.hisp.dhis.webapi.controller.dataitem.DataItemServiceFacade.DATA_TYPE_ENTITY_MAP;
+import static org.hisp.dhis.webapi.utils.PaginationUtils.NO_PAGINATION;
 import static org.hisp.dhis.webapi.webdomain.WebOptions.PAGE;
 import static org.hisp.dhis.webapi.webdomain.WebOptions.PAGE_SIZE;
 import static org.hisp.dhis.webapi.webdomain.WebOptions.PAGING;
@@ -59,15 +60,19 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dxf2.common.OrderParams;
 import org.hisp.dhis.indicator.Indicator;
 import org.hisp.dhis.query.Junction.Type;
+import org.hisp.dhis.query.Order;
 import org.hisp.dhis.query.Pagination;
 import org.hisp.dhis.query.Query;
 import org.hisp.dhis.query.QueryService;
+import org.hisp.dhis.schema.Property;
 import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.webapi.webdomain.WebOptions;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoRule;
 
@@ -76,6 +81,9 @@ public class DataItemServiceFacadeTest
     @Mock
     private QueryService queryService;
 
+    @Mock
+    private SchemaService schemaService;
+
     @Rule
     public MockitoRule mockitoRule = rule();
 
@@ -87,7 +95,9 @@ public class DataItemServiceFacadeTest
     @Before
     public void setUp()
     {
-        dataItemServiceFacade = new DataItemServiceFacade( queryService );
+        dataItemServiceFacade = new DataItemServiceFacade( queryService, schemaService );
+
+        when( schemaService.getDynamicSchema( any() ) ).thenReturn( new Schema( Indicator.class, "indicator", "indicators" ) );
     }
 
     @Test
@@ -115,6 +125,89 @@ public class DataItemServiceFacadeTest
         assertThat( actualDimensionalItems, containsInAnyOrder( expectedItemsFound.toArray() ) );
     }
 
+    @Test
+    public void testRetrieveDataItemEntitiesReadsOnlyRequestedPageForSingleEntity()
+    {
+        // Given
+        final Set<Class<? extends BaseDimensionalItemObject>> anyTargetEntities = new HashSet<>(
+            asList( Indicator.class ) );
+        final List<BaseDimensionalItemObject> expectedItemsFound = asList( new Indicator(), new Indicator() );
+        final List<String> anyFilters = asList( "anyFilter" );
+        final WebOptions anyWebOptions = mockWebOptions( 10, 3 );
+        final OrderParams anyOrderParams = new OrderParams( new HashSet<>( asList( "name:desc" ) ) );
+        final Query anyQuery = from( new Schema( Indicator.class, "indicator", "indicators" ) );
+        final ArgumentCaptor<Pagination> pagination = ArgumentCaptor.forClass( Pagination.class );
+
+        // When
+        when( queryService.getQueryFromUrl( any(), anyList(), anyList(),
+            pagination.capture(), any( Type.class ) ) ).thenReturn( anyQuery );
+        when( (List<BaseDimensionalItemObject>) queryService.query( any( Query.class ) ) )
+            .thenReturn( expectedItemsFound );
+        final List<BaseDimensionalItemObject> actualDimensionalItems = dataItemServiceFacade
+            .retrieveDataItemEntities( anyTargetEntities, anyFilters, anyWebOptions, anyOrderParams );
+
+        // Then
+        assertThat( actualDimensionalItems, containsInAnyOrder( expectedItemsFound.toArray() ) );
+        assertThat( pagination.getValue().getFirstResult(), is( 20 ) );
+        assertThat( pagination.getValue().getSize(), is( 10 ) );
+    }
+
+    @Test
+    public void testRetrieveDataItemEntitiesReadsUpToEndOfPageForEachEntity()
+    {
+        // Given
+        final Set<Class<? extends BaseDimensionalItemObject>> anyTargetEntities = new HashSet<>(
+            asList( Indicator.class, DataSet.class ) );
+        final List<BaseDimensionalItemObject> expectedItemsFound = asList( new Indicator(), new Indicator() );
+        final List<String> anyFilters = asList( "anyFilter" );
+        final WebOptions anyWebOptions = mockWebOptions( 10, 3 );
+        final OrderParams anyOrderParams = new OrderParams( new HashSet<>( asList( "name:desc" ) ) );
+        final Query anyQuery = from( new Schema( Indicator.class, "indicator", "indicators" ) );
+        final ArgumentCaptor<Pagination> pagination = ArgumentCaptor.forClass( Pagination.class );
+
+        // When
+        when( queryService.getQueryFromUrl( any(), anyList(), anyList(),
+            pagination.capture(), any( Type.class ) ) ).thenReturn( anyQuery );
+        when( (List<BaseDimensionalItemObject>) queryService.query( any( Query.class ) ) )
+            .thenReturn( expectedItemsFound );
+        dataItemServiceFacade.retrieveDataItemEntities( anyTargetEntities, anyFilters, anyWebOptions, anyOrderParams );
+
+        // Then
+        assertThat( pagination.getAllValues().size(), is( 2 ) );
+        assertThat( pagination.getValue().getFirstResult(), is( 0 ) );
+        assertThat( pagination.getValue().getSize(), is( 30 ) );
+    }
+
+    @Test
+    public void testRetrieveDataItemEntitiesReadsAllItemsWhenOrderingByDisplayName()
+    {
+        // Given
+        final Set<Class<? extends BaseDimensionalItemObject>> anyTargetEntities = new HashSet<>(
+            asList( Indicator.class ) );
+        final List<BaseDimensionalItemObject> expectedItemsFound = asList( new Indicator(), new Indicator() );
+        final List<String> anyFilters = asList( "anyFilter" );
+        final WebOptions anyWebOptions = mockWebOptions( 10, 3 );
+        final OrderParams anyOrderParams = new OrderParams( new HashSet<>( asList( "displayName:asc" ) ) );
+        final Schema schema = new Schema( Indicator.class, "indicator", "indicators" );
+        schema.addProperty( mockProperty( "name", true ) );
+        schema.addProperty( mockProperty( "displayName", false ) );
+        final Query anyQuery = from( schema );
+        final ArgumentCaptor<List<Order>> orders = ArgumentCaptor.forClass( List.class );
+        final ArgumentCaptor<Pagination> pagination = ArgumentCaptor.forClass( Pagination.class );
+
+        // When
+        when( schemaService.getDynamicSchema( any() ) ).thenReturn( schema );
+        when( queryService.getQueryFromUrl( any(), anyList(), orders.capture(),
+            pagination.capture(), any( Type.class ) ) ).thenReturn( anyQuery );
+        when( (List<BaseDimensionalItemObject>) queryService.query( any( Query.class ) ) )
+            .thenReturn( expectedItemsFound );
+        dataItemServiceFacade.retrieveDataItemEntities( anyTargetEntities, anyFilters, anyWebOptions, anyOrderParams );
+
+        // Then
+        assertThat( orders.getValue(), is( empty() ) );
+        assertThat( pagination.getValue(), is( NO_PAGINATION ) );
+    }
+
     @Test
     public void testRetrieveDataItemEntitiesWhenTargetEntitiesIsEmpty()
     {
@@ -195,7 +288,18 @@ public class DataItemServiceFacadeTest
         return new WebOptions( options );
     }
 
-    private WebOptions mockWebOptionsNoPagingNoFilter()
+    private Property mockProperty( final String name, final boolean persisted )
+    {
+        final Property property = new Property( String.class );
+        property.setName( name );
+        property.setFieldName( name );
+        property.setSimple( true );
+        property.setPersisted( persisted );
+
+        return property;
+    }
+
+        private WebOptions mockWebOptionsNoPagingNoFilter()
     {
         final Map<String, String> options = new HashMap<>( 0 );
         options.put( PAGING, "false" );
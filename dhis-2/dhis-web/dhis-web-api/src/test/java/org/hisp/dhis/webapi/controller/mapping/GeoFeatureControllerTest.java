@@ -31,18 +31,24 @@ package org.hisp.dhis.webapi.controller.mapping;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.io.IOException;
+import java.util.HashMap;
 
 import org.geotools.geojson.geom.GeometryJSON;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataQueryService;
 import org.hisp.dhis.common.DataQueryRequest;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitGeometryService;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.random.BeanRandomizer;
 import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.user.CurrentUserService;
@@ -56,6 +62,8 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.google.common.collect.Sets;
+
 /**
  * @author Luciano Fiandesio
  */
@@ -76,6 +84,12 @@ public class GeoFeatureControllerTest
     @Mock
     private RenderService renderService;
 
+    @Mock
+    private OrganisationUnitService organisationUnitService;
+
+    @Mock
+    private OrganisationUnitGeometryService organisationUnitGeometryService;
+
     private BeanRandomizer beanRandomizer = new BeanRandomizer();
 
     private final static String POINT = "{" +
@@ -122,6 +136,51 @@ public class GeoFeatureControllerTest
             .andExpect( jsonPath( "$", hasSize( 3 ) ) );
     }
 
+    @Test
+    public void verifyGeoFeaturesUsesSimplifiedGeometriesForZoom()
+        throws Exception
+    {
+        OrganisationUnit ouA = createOrgUnitWithCoordinates();
+        OrganisationUnit ouB = createOrgUnitWithCoordinates();
+
+        User user = beanRandomizer.randomObject(User.class);
+        DataQueryParams params = DataQueryParams.newBuilder().withOrganisationUnits( getList( ouA, ouB ) )
+            .build();
+
+        when( dataQueryService.getFromRequest( any( DataQueryRequest.class ) ) ).thenReturn( params );
+        when( currentUserService.getCurrentUser() ).thenReturn( user );
+        when( organisationUnitGeometryService.getSimplifiedGeometries( anyCollection(), eq( 4 ) ) ).thenReturn( new HashMap<>() );
+
+        mockMvc.perform( get( ENDPOINT ).accept(ContextUtils.CONTENT_TYPE_JSON)
+            .param( "ou", "ou:LEVEL-2" )
+            .param( "zoom", "4" ) )
+            .andExpect( status().isOk() )
+            .andExpect( jsonPath( "$", hasSize( 2 ) ) );
+
+        verify( organisationUnitGeometryService ).getSimplifiedGeometries( anyCollection(), eq( 4 ) );
+    }
+
+    @Test
+    public void verifyVectorTileReturnsTileForUserOrgUnits()
+        throws Exception
+    {
+        OrganisationUnit ouA = createOrgUnitWithCoordinates();
+
+        User user = beanRandomizer.randomObject(User.class);
+        user.setDataViewOrganisationUnits( Sets.newHashSet( ouA ) );
+
+        byte[] tile = new byte[] { 26, 4, 10, 2 };
+
+        when( currentUserService.getCurrentUser() ).thenReturn( user );
+        when( organisationUnitGeometryService.getVectorTile( eq( 3 ), eq( 1 ), eq( 2 ), eq( 2 ), eq( Sets.newHashSet( ouA ) ) ) )
+            .thenReturn( tile );
+
+        mockMvc.perform( get( ENDPOINT + "/tiles/3/1/2.pbf" )
+            .param( "level", "2" ) )
+            .andExpect( status().isOk() )
+            .andExpect( content().bytes( tile ) );
+    }
+
     private OrganisationUnit createOrgUnitWithoutCoordinates()
     {
         return beanRandomizer.randomObject( OrganisationUnit.class, "parent", "geometry" );